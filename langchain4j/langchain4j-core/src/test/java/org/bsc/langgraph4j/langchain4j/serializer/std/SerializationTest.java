@@ -2,7 +2,9 @@ package org.bsc.langgraph4j.langchain4j.serializer.std;
 
 import dev.langchain4j.data.image.Image;
 import dev.langchain4j.data.message.*;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.serializer.buffer.ByteBufferPool;
 import org.junit.jupiter.api.Test;
 
 import java.io.*;
@@ -143,4 +145,31 @@ public class SerializationTest {
 
 
     }
+
+    @Test
+    public void MessagesBufferSerializerTest() throws Exception {
+        var toolRequest = ToolExecutionRequest.builder()
+                .id("1")
+                .name("search")
+                .arguments("{\"query\":\"text\"}")
+                .build();
+        var messages = List.<ChatMessage>of(
+                SystemMessage.from("system"),
+                UserMessage.from("query", "query text"),
+                AiMessage.from(toolRequest),
+                ToolExecutionResultMessage.from(toolRequest, "result") );
+
+        var serializer = new LC4jStateSerializer<>(State::new);
+
+        try( var out = ByteBufferPool.direct( 64, 1 ).output() ) {
+
+            serializer.dataToBuffer( Map.of( "messages", messages ), out );
+
+            var newState = serializer.stateOf( serializer.dataFromBuffer( out.buffer() ) );
+
+            assertEquals( messages, newState.messages() );
+        }
+
+        assertEquals( messages, serializer.cloneObject( Map.of( "messages", messages ) ).messages() );
+    }
 }
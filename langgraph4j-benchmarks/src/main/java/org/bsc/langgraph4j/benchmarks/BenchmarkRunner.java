@@ -0,0 +1,29 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar.
+ * <p>
+ * It accepts the standard JMH command line options and always enables the {@link GCProfiler},
+ * so each result reports the allocation rate ({@code gc.alloc.rate.norm}) next to the timing.
+ * <pre>
+ * java -jar langgraph4j-benchmarks/target/benchmarks.jar LinearGraphBenchmark -p messageCount=1000
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        var commandLineOptions = new CommandLineOptions(args);
+
+        var options = new OptionsBuilder()
+                .parent(commandLineOptions)
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
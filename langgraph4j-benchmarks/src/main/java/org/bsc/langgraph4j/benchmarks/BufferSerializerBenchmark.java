@@ -0,0 +1,67 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.serializer.buffer.ByteBufferPool;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of the state through {@link ObjectStreamStateSerializer}, with the stream based {@code dataToBytes}
+ * vs the pooled buffers of {@link org.bsc.langgraph4j.serializer.buffer.BufferStateSerializer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BufferSerializerBenchmark {
+
+    @Param({"10", "1000"})
+    public int messageCount;
+
+    @Param({"bytes", "heap", "direct"})
+    public String output;
+
+    private ObjectStreamStateSerializer<MessagesState<String>> serializer;
+    private ByteBufferPool pool;
+    private Map<String,Object> state;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        serializer = new ObjectStreamStateSerializer<>( MessagesState::new );
+        pool = switch( output ) {
+            case "bytes" -> null;
+            case "heap" -> ByteBufferPool.heap( 8 * 1024, 4 );
+            case "direct" -> ByteBufferPool.direct( 8 * 1024, 4 );
+            default -> throw new IllegalArgumentException( "unknown output: " + output );
+        };
+        state = AgentState.updateState( Map.of(), GraphBenchmark.initialInput( 10, messageCount ), MessagesState.SCHEMA );
+    }
+
+    @Benchmark
+    public Map<String,Object> roundTrip() throws Exception {
+        if( pool == null ) {
+            return serializer.dataFromBytes( serializer.dataToBytes( state ) );
+        }
+        try( var out = pool.output() ) {
+            serializer.dataToBuffer( state, out );
+            return serializer.dataFromBuffer( out.buffer() );
+        }
+    }
+
+    @Benchmark
+    public int write() throws Exception {
+        if( pool == null ) {
+            return serializer.dataToBytes( state ).length;
+        }
+        try( var out = pool.output() ) {
+            serializer.dataToBuffer( state, out );
+            return out.size();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.checkpoint.Checkpoint;
+import org.bsc.langgraph4j.checkpoint.MemorySaver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Throughput of a {@link MemorySaver} shared by many benchmark threads, each one working on its own conversation
+ * thread. The {@code ioLatencyMicros} parameter simulates the round-trip of a database backed saver inside the hooks.
+ * <p>
+ * Run it with an increasing number of threads to check how the throughput scales with the cores:
+ * <pre>
+ * java -jar langgraph4j-benchmarks/target/benchmarks.jar CheckpointSaverContentionBenchmark -t 1
+ * java -jar langgraph4j-benchmarks/target/benchmarks.jar CheckpointSaverContentionBenchmark -t 8
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckpointSaverContentionBenchmark {
+
+    @Param({"0", "100"})
+    public long ioLatencyMicros;
+
+    private MemorySaver saver;
+
+    /**
+     * The conversation thread used by a benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class ConversationThread {
+        RunnableConfig config;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            config = RunnableConfig.builder().threadId( UUID.randomUUID().toString() ).build();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final long latencyNanos = TimeUnit.MICROSECONDS.toNanos( ioLatencyMicros );
+        saver = new MemorySaver() {
+            @Override
+            protected LinkedList<Checkpoint> loadedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints) {
+                if( checkpoints.isEmpty() ) {
+                    simulateIO( latencyNanos );
+                }
+                return checkpoints;
+            }
+
+            @Override
+            protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) {
+                simulateIO( latencyNanos );
+            }
+        };
+    }
+
+    private static void simulateIO( long latencyNanos ) {
+        if( latencyNanos > 0 ) {
+            LockSupport.parkNanos( latencyNanos );
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown( ConversationThread thread ) throws Exception {
+        saver.release( thread.config );
+    }
+
+    @Benchmark
+    public RunnableConfig put( ConversationThread thread ) throws Exception {
+        var checkpoint = Checkpoint.builder()
+                .nodeId("agent")
+                .nextNodeId("tools")
+                .state( Map.of("messages", "message") )
+                .build();
+        return saver.put( thread.config, checkpoint );
+    }
+
+    @Benchmark
+    public Optional<Checkpoint> get( ConversationThread thread ) {
+        return saver.get( thread.config );
+    }
+}
@@ -0,0 +1,64 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.compression.CompressionCodec;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size vs CPU of the {@link CompressionCodec}s applied to the serialized state.
+ * The time is measured by the benchmarks, the size is printed by the setup of each trial, e.g.
+ * <pre>
+ * java -jar langgraph4j-benchmarks/target/benchmarks.jar CompressionBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"10", "1000"})
+    public int messageCount;
+
+    @Param({"none", "lz4", "deflate-1", "deflate", "gzip"})
+    public String codecName;
+
+    private StateSerializer<MessagesState<String>> serializer;
+    private CompressionCodec codec;
+    private Map<String,Object> state;
+    private String contentType;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        serializer = new ObjectStreamStateSerializer<>( MessagesState::new );
+        codec = codecName.equals( "deflate-1" ) ?
+                CompressionCodec.deflate( 1 ) :
+                CompressionCodec.of( codecName ).orElseThrow( () -> new IllegalArgumentException( "unknown codec: " + codecName ) );
+        state = AgentState.updateState( Map.of(), GraphBenchmark.initialInput( 10, messageCount ), MessagesState.SCHEMA );
+        contentType = serializer.contentType( codec );
+        bytes = serializer.dataToBytes( state, codec );
+
+        final int rawSize = serializer.dataToBytes( state ).length;
+        System.out.printf( "%n%s: %d bytes compressed to %d (%.1f%%)%n",
+                contentType, rawSize, bytes.length, 100.0 * bytes.length / rawSize );
+    }
+
+    @Benchmark
+    public byte[] compress() throws Exception {
+        return serializer.dataToBytes( state, codec );
+    }
+
+    @Benchmark
+    public Map<String,Object> decompress() throws Exception {
+        return serializer.dataFromBytes( bytes, contentType );
+    }
+}
@@ -0,0 +1,36 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.GraphStateException;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+
+import java.util.Map;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncEdgeAction.edge_async;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+
+/**
+ * Agent loop routed by conditional edges: an {@code agent} node alternates with a {@code tool} node
+ * until the number of steps is reached.
+ */
+public class ConditionalGraphBenchmark extends GraphBenchmark {
+
+    static final int STEPS = 10;
+
+    @Override
+    protected StateGraph<MessagesState<String>> workflow() throws GraphStateException {
+        return new StateGraph<>( MessagesState.SCHEMA, MessagesState<String>::new )
+                .addNode( "agent", node_async( state -> {
+                    int steps = state.<Integer>value("steps").orElse(0) + 1;
+                    return Map.of( "steps", steps, "messages", "agent:" + steps );
+                }))
+                .addNode( "tool", appendMessage("tool") )
+                .addEdge( START, "agent" )
+                .addConditionalEdges( "agent",
+                        edge_async( state -> state.<Integer>value("steps").orElse(0) < STEPS ? "continue" : "end" ),
+                        Map.of( "continue", "tool", "end", END ) )
+                .addEdge( "tool", "agent" );
+    }
+}
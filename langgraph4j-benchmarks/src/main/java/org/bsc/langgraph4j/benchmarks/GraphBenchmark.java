@@ -0,0 +1,82 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.CompiledGraph;
+import org.bsc.langgraph4j.GraphStateException;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.action.AsyncNodeAction;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+
+/**
+ * Base of the graph execution benchmarks.
+ * <p>
+ * Each subclass provides the workflow to run, while the initial state is shaped by
+ * {@link #stateSize} (number of plain state entries) and {@link #messageCount} (number of messages
+ * already accumulated in the {@code messages} appender channel).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class GraphBenchmark {
+
+    @Param({"10", "100"})
+    public int stateSize;
+
+    @Param({"10", "1000"})
+    public int messageCount;
+
+    protected CompiledGraph<MessagesState<String>> graph;
+    protected Map<String,Object> input;
+
+    /**
+     * @return the workflow to benchmark
+     * @throws GraphStateException if the workflow is not valid
+     */
+    protected abstract StateGraph<MessagesState<String>> workflow() throws GraphStateException;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        graph = workflow().compile();
+        input = initialInput( stateSize, messageCount );
+    }
+
+    @Benchmark
+    public MessagesState<String> invoke() {
+        return graph.invoke( input ).orElseThrow();
+    }
+
+    /**
+     * Creates the input of the graph.
+     *
+     * @param stateSize the number of plain state entries
+     * @param messageCount the number of messages
+     * @return the input data
+     */
+    public static Map<String,Object> initialInput( int stateSize, int messageCount ) {
+        final var result = new HashMap<String,Object>();
+        for( int i = 0; i < stateSize; ++i ) {
+            result.put( "key_" + i, "value_" + i );
+        }
+        result.put( "messages", IntStream.range(0, messageCount).mapToObj( i -> "message_" + i ).toList() );
+        return result;
+    }
+
+    /**
+     * Creates a node action that appends a message unique to the node and step.
+     *
+     * @param nodeId the id of the node
+     * @return the node action
+     */
+    public static AsyncNodeAction<MessagesState<String>> appendMessage( String nodeId ) {
+        return node_async( state -> Map.of( "messages", nodeId + ":" + state.messages().size() ) );
+    }
+}
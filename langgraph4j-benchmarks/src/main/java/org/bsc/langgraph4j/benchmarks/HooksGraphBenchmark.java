@@ -0,0 +1,33 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.GraphStateException;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.action.Command;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+
+import java.util.Map;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * The {@link ConditionalGraphBenchmark} loop with before, after and wrap hooks registered on every node and edge.
+ */
+public class HooksGraphBenchmark extends GraphBenchmark {
+
+    @Override
+    protected StateGraph<MessagesState<String>> workflow() throws GraphStateException {
+        return new ConditionalGraphBenchmark().workflow()
+                .addBeforeCallNodeHook( (nodeId, state, config) ->
+                        completedFuture( Map.of( "before", nodeId ) ) )
+                .addAfterCallNodeHook( (nodeId, state, config, lastResult) ->
+                        completedFuture( lastResult ) )
+                .addWrapCallNodeHook( (nodeId, state, config, action) ->
+                        action.apply( state, config ) )
+                .addBeforeCallEdgeHook( (sourceId, state, config) ->
+                        completedFuture( Command.emptyCommand() ) )
+                .addAfterCallEdgeHook( (sourceId, state, config, lastResult) ->
+                        completedFuture( lastResult ) )
+                .addWrapCallEdgeHook( (sourceId, state, config, action) ->
+                        action.apply( state, config ) );
+    }
+}
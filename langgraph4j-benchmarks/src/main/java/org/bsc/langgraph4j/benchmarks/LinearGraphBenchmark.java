@@ -0,0 +1,30 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.GraphStateException;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+
+/**
+ * Chain of nodes, each one appending a message: {@code START -> node_0 -> ... -> node_9 -> END}.
+ */
+public class LinearGraphBenchmark extends GraphBenchmark {
+
+    static final int NODES = 10;
+
+    @Override
+    protected StateGraph<MessagesState<String>> workflow() throws GraphStateException {
+        var workflow = new StateGraph<>( MessagesState.SCHEMA, MessagesState<String>::new );
+
+        var previousId = START;
+        for( int i = 0; i < NODES; ++i ) {
+            var nodeId = "node_" + i;
+            workflow.addNode( nodeId, appendMessage(nodeId) )
+                    .addEdge( previousId, nodeId );
+            previousId = nodeId;
+        }
+        return workflow.addEdge( previousId, END );
+    }
+}
@@ -0,0 +1,34 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.GraphStateException;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+
+/**
+ * Fan-out of a node to parallel branches, joined by a single node:
+ * {@code START -> fork -> branch_[0..3] -> join -> END}.
+ */
+public class ParallelGraphBenchmark extends GraphBenchmark {
+
+    static final int BRANCHES = 4;
+
+    @Override
+    protected StateGraph<MessagesState<String>> workflow() throws GraphStateException {
+        var workflow = new StateGraph<>( MessagesState.SCHEMA, MessagesState<String>::new )
+                .addNode( "fork", appendMessage("fork") )
+                .addNode( "join", appendMessage("join") )
+                .addEdge( START, "fork" )
+                .addEdge( "join", END );
+
+        for( int i = 0; i < BRANCHES; ++i ) {
+            var nodeId = "branch_" + i;
+            workflow.addNode( nodeId, appendMessage(nodeId) )
+                    .addEdge( "fork", nodeId )
+                    .addEdge( nodeId, "join" );
+        }
+        return workflow;
+    }
+}
@@ -0,0 +1,51 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.GraphPath;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per step update of the {@link RunnableConfig} metadata, as performed by the runtime before each node and conditional
+ * edge, and the update of a subgraph call on top of it. Run through {@link BenchmarkRunner} to compare
+ * the allocations ({@code gc.alloc.rate.norm}) with the size of the metadata of the configuration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RunnableConfigBenchmark {
+
+    @Param({"2", "32"})
+    public int metadataSize;
+
+    private RunnableConfig config;
+    private int step;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var builder = RunnableConfig.builder().threadId( "benchmark" );
+        for( int i = 0; i < metadataSize; ++i ) {
+            builder.putMetadata( "key_" + i, "value " + i );
+        }
+        config = builder.build();
+    }
+
+    @Benchmark
+    public Object stepMetadata() {
+        var newConfig = config.updateMetadata( Map.of( RunnableConfig.NODE_ID, ( ++step & 1 ) == 0 ? "agent" : "tool" ) );
+        return newConfig.metadata( RunnableConfig.NODE_ID ).orElseThrow();
+    }
+
+    @Benchmark
+    public Object subGraphMetadata() {
+        var stepConfig = config.updateMetadata( Map.of( RunnableConfig.NODE_ID, "subgraph" ) );
+        var subGraphConfig = stepConfig.updateMetadata( Map.of( RunnableConfig.GRAPH_PATH, GraphPath.of( "subgraph" ) ) );
+        var nodeConfig = subGraphConfig.updateMetadata( Map.of( RunnableConfig.NODE_ID, "agent" ) );
+        return nodeConfig.graphPath();
+    }
+}
@@ -0,0 +1,77 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonStateSerializer;
+import org.bsc.langgraph4j.serializer.std.ChannelSerializers;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.serializer.std.SchemaStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.bsc.langgraph4j.state.Channel;
+import org.bsc.langgraph4j.state.Channels;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of the whole state through the built-in {@link StateSerializer}s, as performed by the checkpoint savers.
+ * The {@code schema} serializer is given the channels of all the state entries, with their value serializers.
+ * The size of the serialized state is printed by the setup of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    @Param({"10", "100"})
+    public int stateSize;
+
+    @Param({"10", "1000"})
+    public int messageCount;
+
+    @Param({"objectStream", "schema", "jackson"})
+    public String serializerType;
+
+    private StateSerializer<MessagesState<String>> serializer;
+    private Map<String,Object> state;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        serializer = switch( serializerType ) {
+            case "objectStream" -> new ObjectStreamStateSerializer<>( MessagesState::new );
+            case "schema" -> new SchemaStateSerializer<>( MessagesState::new, schema( stateSize ) );
+            case "jackson" -> new JacksonStateSerializer<>( MessagesState::new ) {};
+            default -> throw new IllegalArgumentException( "unknown serializer type: " + serializerType );
+        };
+        state = AgentState.updateState( Map.of(), GraphBenchmark.initialInput( stateSize, messageCount ), MessagesState.SCHEMA );
+        bytes = serializer.dataToBytes( state );
+        System.out.printf( "%n%s: %d bytes%n", serializerType, bytes.length );
+    }
+
+    private static Map<String, Channel<?>> schema( int stateSize ) {
+        final var result = new HashMap<String, Channel<?>>();
+        for( int i = 0; i < stateSize; ++i ) {
+            result.put( "key_" + i, Channels.<String>base( () -> "" ).withSerializer( ChannelSerializers.string() ) );
+        }
+        result.put( "messages", Channels.<String>appender( ArrayList::new )
+                .withSerializer( ChannelSerializers.listOf( ChannelSerializers.string() ) ) );
+        return result;
+    }
+
+    @Benchmark
+    public byte[] dataToBytes() throws Exception {
+        return serializer.dataToBytes( state );
+    }
+
+    @Benchmark
+    public Map<String,Object> dataFromBytes() throws Exception {
+        return serializer.dataFromBytes( bytes );
+    }
+}
@@ -0,0 +1,99 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.serializer.Serializer;
+import org.bsc.langgraph4j.serializer.buffer.BufferOutput;
+import org.bsc.langgraph4j.serializer.buffer.ByteBufferPool;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the serializer resolution of {@link org.bsc.langgraph4j.serializer.std.SerializerMapper} in
+ * {@link ObjectStreamStateSerializer#writeData}, with a registry the size of the LangChain4j or Spring AI ones.
+ * The state holds values of a registered type, of a subtype of a registered type and of an unregistered type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerMapperBenchmark {
+
+    public interface Message {
+        String text();
+    }
+
+    public record UserMessage( String text ) implements Message {}
+
+    public record AiMessage( String text ) implements Message {}
+
+    static final class MessageSerializer implements Serializer<Message> {
+        @Override
+        public void write( Message object, ObjectOutput out ) throws IOException {
+            out.writeBoolean( object instanceof UserMessage );
+            Serializer.writeUTF( object.text(), out );
+        }
+
+        @Override
+        public Message read( ObjectInput in ) throws IOException {
+            return in.readBoolean() ? new UserMessage( Serializer.readUTF( in ) ) : new AiMessage( Serializer.readUTF( in ) );
+        }
+    }
+
+    // types registered only to fill the registry
+    interface Unused1 {}
+    interface Unused2 {}
+    interface Unused3 {}
+    interface Unused4 {}
+    interface Unused5 {}
+    interface Unused6 {}
+
+    @Param({"1000"})
+    public int valueCount;
+
+    private ObjectStreamStateSerializer<AgentState> serializer;
+    private Map<String,Object> state;
+    private BufferOutput out;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        serializer = new ObjectStreamStateSerializer<>( AgentState::new );
+        for( var type : List.of( Unused1.class, Unused2.class, Unused3.class, Unused4.class, Unused5.class, Unused6.class ) ) {
+            serializer.mapper().register( type, new MessageSerializer() );
+        }
+        serializer.mapper().register( UserMessage.class, new MessageSerializer() );
+        serializer.mapper().register( Message.class, new MessageSerializer() );
+
+        var values = new ArrayList<Object>( valueCount );
+        for( int i = 0; i < valueCount; ++i ) {
+            values.add( switch( i % 3 ) {
+                case 0 -> new UserMessage( "question " + i );
+                case 1 -> new AiMessage( "answer " + i );
+                default -> "text " + i;
+            } );
+        }
+        state = Map.of( "messages", values );
+        out = ByteBufferPool.heap( 64 * 1024, 1 ).output();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        out.close();
+    }
+
+    @Benchmark
+    public int writeData() throws Exception {
+        out.reset();
+        serializer.writeData( state, out );
+        return out.size();
+    }
+}
@@ -0,0 +1,66 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.state.AgentState;
+import org.bsc.langgraph4j.state.Channel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single state update, as performed by the runtime after each node: {@link AgentState#updateState(Map, Map, Map)}
+ * and the {@code messages} appender channel update it triggers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateUpdateBenchmark {
+
+    @Param({"10", "100"})
+    public int stateSize;
+
+    @Param({"10", "1000"})
+    public int messageCount;
+
+    private Map<String, Channel<?>> schema;
+    private Channel<?> messagesChannel;
+    private Map<String,Object> state;
+    private Object messages;
+
+    private final Map<String,Object> appendMessage = Map.of( "messages", "new message" );
+    private final Map<String,Object> appendMessages = Map.of( "messages", List.of("new message 1", "new message 2") );
+    private final Map<String,Object> updateValue = Map.of( "key_0", "new value" );
+
+    @Setup(Level.Trial)
+    public void setup() {
+        schema = MessagesState.SCHEMA;
+        messagesChannel = schema.get("messages");
+        state = AgentState.updateState( Map.of(), GraphBenchmark.initialInput( stateSize, messageCount ), schema );
+        messages = state.get("messages");
+    }
+
+    @Benchmark
+    public Map<String,Object> updateStateAppendMessage() {
+        return AgentState.updateState( state, appendMessage, schema );
+    }
+
+    @Benchmark
+    public Map<String,Object> updateStateAppendMessages() {
+        return AgentState.updateState( state, appendMessages, schema );
+    }
+
+    @Benchmark
+    public Map<String,Object> updateStateValue() {
+        return AgentState.updateState( state, updateValue, schema );
+    }
+
+    @Benchmark
+    public Object appenderChannelUpdate() {
+        return messagesChannel.update( "messages", messages, "new message" );
+    }
+}
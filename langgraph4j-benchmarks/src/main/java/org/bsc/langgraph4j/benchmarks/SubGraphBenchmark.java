@@ -0,0 +1,37 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.GraphStateException;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+
+/**
+ * Compiled subgraph of three nodes executed between two nodes of the parent graph:
+ * {@code START -> before -> subgraph[ step_0 -> step_1 -> step_2 ] -> after -> END}.
+ */
+public class SubGraphBenchmark extends GraphBenchmark {
+
+    @Override
+    protected StateGraph<MessagesState<String>> workflow() throws GraphStateException {
+        var subGraph = new StateGraph<>( MessagesState.SCHEMA, MessagesState<String>::new )
+                .addNode( "step_0", appendMessage("step_0") )
+                .addNode( "step_1", appendMessage("step_1") )
+                .addNode( "step_2", appendMessage("step_2") )
+                .addEdge( START, "step_0" )
+                .addEdge( "step_0", "step_1" )
+                .addEdge( "step_1", "step_2" )
+                .addEdge( "step_2", END )
+                .compile();
+
+        return new StateGraph<>( MessagesState.SCHEMA, MessagesState<String>::new )
+                .addNode( "before", appendMessage("before") )
+                .addNode( "subgraph", subGraph )
+                .addNode( "after", appendMessage("after") )
+                .addEdge( START, "before" )
+                .addEdge( "before", "subgraph" )
+                .addEdge( "subgraph", "after" )
+                .addEdge( "after", END );
+    }
+}
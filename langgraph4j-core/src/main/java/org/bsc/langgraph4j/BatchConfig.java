@@ -0,0 +1,152 @@
+package org.bsc.langgraph4j;
+
+import org.bsc.langgraph4j.checkpoint.AsyncCheckpointSaver;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.ofNullable;
+
+/**
+ * Configuration of a batch of runs of a graph, see {@link CompiledGraph#batch(List, BatchConfig)}.
+ * <pre>
+ * var config = BatchConfig.builder()
+ *                  .runnableConfig( RunnableConfig.builder().threadId( "nightly" ).build() )
+ *                  .maxConcurrency( 32 )
+ *                  .checkpointExecutor( ioExecutor )
+ *                  .build();
+ * </pre>
+ */
+public class BatchConfig {
+
+    /**
+     * This class is a builder for {@link BatchConfig}.
+     */
+    public static class Builder {
+        private final BatchConfig config;
+
+        protected Builder(BatchConfig config) {
+            this.config = new BatchConfig(config);
+        }
+
+        /**
+         * Sets the configuration the runs of the batch are derived from. Each run gets its own thread id,
+         * {@code <thread id>-<index of the input>}, or {@code batch-<index of the input>} if the configuration
+         * has no thread id, so that the runs don't share their checkpoints.
+         *
+         * @param runnableConfig the configuration of the runs
+         * @return The current {@code Builder} instance for method chaining.
+         */
+        public Builder runnableConfig(RunnableConfig runnableConfig) {
+            this.config.runnableConfig = requireNonNull(runnableConfig, "runnableConfig cannot be null!");
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of runs in progress (default: the number of available processors).
+         * A run counts until its result is consumed, so the results waiting for the consumer hold back the runs
+         * not started yet.
+         *
+         * @param maxConcurrency the maximum number of runs in progress
+         * @return The current {@code Builder} instance for method chaining.
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            if (maxConcurrency < 1) {
+                throw new IllegalArgumentException(format("maxConcurrency must be positive but was %d!", maxConcurrency));
+            }
+            this.config.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Sets the executor running the batch, shared by its runs. If not set, the executor of the
+         * {@link RunnableConfig} or of the {@link CompileConfig} is used, otherwise the batch creates a pool
+         * of {@code maxConcurrency} threads, that are stopped once idle.
+         *
+         * @param executor the executor of the batch
+         * @return The current {@code Builder} instance for method chaining.
+         */
+        public Builder executor(Executor executor) {
+            this.config.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the executor writing the checkpoints of the batch. The runs then write their checkpoints through
+         * a single {@link AsyncCheckpointSaver} adapting the checkpoint saver of the graph, so that a run doesn't
+         * wait for the storage before its next step. If not set, the checkpoint saver of the graph is used as is.
+         *
+         * @param checkpointExecutor the executor of the checkpoint writes
+         * @return The current {@code Builder} instance for method chaining.
+         */
+        public Builder checkpointExecutor(Executor checkpointExecutor) {
+            this.config.checkpointExecutor = checkpointExecutor;
+            return this;
+        }
+
+        public BatchConfig build() {
+            return config;
+        }
+    }
+
+    /**
+     * Returns a new {@link Builder} instance with the default {@link BatchConfig}.
+     *
+     * @return A {@link Builder} instance.
+     */
+    public static Builder builder() {
+        return new Builder(new BatchConfig());
+    }
+
+    /**
+     * Creates a new {@link Builder} instance initialized with the given configuration.
+     *
+     * @param config The {@link BatchConfig} to copy.
+     * @return A new {@link Builder} instance.
+     */
+    public static Builder builder(BatchConfig config) {
+        return new Builder(config);
+    }
+
+    private RunnableConfig runnableConfig = RunnableConfig.builder().build();
+    private int maxConcurrency = Runtime.getRuntime().availableProcessors();
+    private Executor executor;
+    private Executor checkpointExecutor;
+
+    public RunnableConfig runnableConfig() {
+        return runnableConfig;
+    }
+
+    public int maxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @return the executor of the batch, if any
+     * @see Builder#executor(Executor)
+     */
+    public Optional<Executor> executor() {
+        return ofNullable(executor);
+    }
+
+    /**
+     * @return the executor of the checkpoint writes, if any
+     * @see Builder#checkpointExecutor(Executor)
+     */
+    public Optional<Executor> checkpointExecutor() {
+        return ofNullable(checkpointExecutor);
+    }
+
+    private BatchConfig() {
+    }
+
+    private BatchConfig(BatchConfig config) {
+        this.runnableConfig = config.runnableConfig;
+        this.maxConcurrency = config.maxConcurrency;
+        this.executor = config.executor;
+        this.checkpointExecutor = config.checkpointExecutor;
+    }
+}
@@ -0,0 +1,196 @@
+package org.bsc.langgraph4j;
+
+import org.bsc.async.AsyncGenerator;
+import org.bsc.langgraph4j.state.AgentState;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * Generator of the results of a batch of runs of a graph, in their completion order, see
+ * {@link CompiledGraph#batch(List, BatchConfig)}.
+ * <p>
+ * A run is started when there are less than {@code maxConcurrency} runs whose result hasn't been consumed yet,
+ * so a slow consumer holds back the batch rather than letting the results pile up.
+ * The runs are driven on the scope of the batch on its executor, so that the cancellation of the batch
+ * interrupts just them.
+ *
+ * @param <State> the type of the state associated with the graph
+ */
+final class BatchGenerator<State extends AgentState> extends AsyncGenerator.BaseCancellable<BatchResult<State>> {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(BatchGenerator.class);
+
+    private final CompiledGraph<State> graph;
+    private final List<GraphInput> inputs;
+    private final RunnableConfig config;
+    private final String threadId;
+    private final int maxConcurrency;
+    private final ScopedExecutor scope;
+
+    // guarded by this
+    private final ArrayDeque<BatchResult<State>> completed = new ArrayDeque<>();
+    private final ArrayDeque<CompletableFuture<BatchResult<State>>> waiting = new ArrayDeque<>();
+    private final Map<Integer, AsyncGenerator.Cancellable<NodeOutput<State>>> running = new HashMap<>();
+    private int started = 0;
+    private int requested = 0;
+    // results given to the consumer, that don't count for the concurrency anymore
+    private int released = 0;
+
+    BatchGenerator( CompiledGraph<State> graph, List<GraphInput> inputs, BatchConfig batchConfig, Executor executor ) {
+        this.graph = requireNonNull( graph, "graph cannot be null" );
+        this.inputs = requireNonNull( inputs, "inputs cannot be null" );
+        this.maxConcurrency = requireNonNull( batchConfig, "batchConfig cannot be null" ).maxConcurrency();
+        this.scope = new ScopedExecutor( requireNonNull( executor, "executor cannot be null" ) );
+        this.config = RunnableConfig.builder( batchConfig.runnableConfig() ).executor( scope ).build();
+        this.threadId = config.threadId().orElse( "batch" );
+    }
+
+    @Override
+    public Data<BatchResult<State>> next() {
+        if( isCancelled() ) {
+            return Data.done( CANCELLED );
+        }
+        final CompletableFuture<BatchResult<State>> result;
+        synchronized( this ) {
+            if( requested == inputs.size() ) {
+                return Data.done();
+            }
+            ++requested;
+            if( !completed.isEmpty() ) {
+                ++released;
+                result = completedFuture( completed.poll() );
+            }
+            else {
+                result = new CompletableFuture<>();
+                waiting.add( result );
+            }
+        }
+        startRuns();
+        return Data.of( result );
+    }
+
+    /**
+     * Starts the runs allowed by the concurrency limit.
+     */
+    private void startRuns() {
+        for(;;) {
+            final int index;
+            synchronized( this ) {
+                if( isCancelled() || started == inputs.size() || started - released >= maxConcurrency ) {
+                    return;
+                }
+                index = started++;
+            }
+            start( index );
+        }
+    }
+
+    private void start( int index ) {
+        final var input = inputs.get( index );
+        final var runConfig = RunnableConfig.builder( config )
+                                .threadId( format( "%s-%d", threadId, index ) )
+                                .build();
+        try {
+            final var run = graph.stream( input, runConfig );
+            synchronized( this ) {
+                running.put( index, run );
+            }
+            // the nodes of a synchronous graph run while the run is driven, that is on the executor of the batch
+            CompletableFuture.supplyAsync( () -> drain( run, null ), scope )
+                    .thenCompose( Function.identity() )
+                    .whenComplete( ( output, ex ) -> completed( index, ( ex == null ) ?
+                            BatchResult.of( index, input, runConfig, output ) :
+                            BatchResult.failed( index, input, runConfig, causeOf( ex ) ) ) );
+        }
+        catch( Exception ex ) {
+            completed( index, BatchResult.failed( index, input, runConfig, ex ) );
+        }
+    }
+
+    /**
+     * Iterates the run up to its last output, going on from the thread completing an output still in progress.
+     */
+    private CompletableFuture<NodeOutput<State>> drain( AsyncGenerator<NodeOutput<State>> run, NodeOutput<State> last ) {
+        var result = last;
+        for(;;) {
+            final var data = run.next();
+            if( data.isDone() ) {
+                if( data.resultValue() == CANCELLED ) {
+                    return CompletableFuture.failedFuture( new CancellationException( "run has been cancelled" ) );
+                }
+                return completedFuture( result );
+            }
+            final var output = data.future();
+            if( !output.isDone() ) {
+                return output.thenCompose( value -> drain( run, value ) );
+            }
+            result = output.join();
+        }
+    }
+
+    private static Throwable causeOf( Throwable ex ) {
+        return ( ex instanceof CompletionException && ex.getCause() != null ) ? ex.getCause() : ex;
+    }
+
+    private void completed( int index, BatchResult<State> result ) {
+        if( result.isError() ) {
+            log.debug( "run {} of the batch has failed", index, result.error().orElse( null ) );
+        }
+        final CompletableFuture<BatchResult<State>> waiter;
+        synchronized( this ) {
+            running.remove( index );
+            waiter = waiting.poll();
+            if( waiter != null ) {
+                ++released;
+            }
+            else {
+                completed.add( result );
+            }
+        }
+        if( waiter != null ) {
+            waiter.complete( result );
+            startRuns();
+        }
+    }
+
+    /**
+     * Returns the scope of the batch on its executor, so that the iteration consumed asynchronously runs on it
+     * and the cancellation of the batch interrupts its tasks.
+     */
+    @Override
+    public Executor executor() {
+        return scope;
+    }
+
+    /**
+     * Cancels the runs in progress and doesn't start the other ones. The results not given yet complete
+     * with a {@link CancellationException}.
+     */
+    @Override
+    public boolean cancel( boolean mayInterruptIfRunning ) {
+        if( !super.cancel( mayInterruptIfRunning ) ) {
+            return false;
+        }
+        final List<AsyncGenerator.Cancellable<NodeOutput<State>>> runs;
+        final List<CompletableFuture<BatchResult<State>>> waiters;
+        synchronized( this ) {
+            runs = List.copyOf( running.values() );
+            waiters = List.copyOf( waiting );
+            waiting.clear();
+        }
+        runs.forEach( run -> run.cancel( mayInterruptIfRunning ) );
+        waiters.forEach( waiter -> waiter.completeExceptionally( new CancellationException( "batch has been cancelled" ) ) );
+        return true;
+    }
+}
@@ -0,0 +1,96 @@
+package org.bsc.langgraph4j;
+
+import org.bsc.langgraph4j.state.AgentState;
+
+import java.util.List;
+import java.util.Optional;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.ofNullable;
+
+/**
+ * Result of a run of a batch, see {@link CompiledGraph#batch(List, BatchConfig)}: either the last output of the run
+ * or the error that has stopped it.
+ *
+ * @param <State> the type of the state associated with the graph
+ */
+public class BatchResult<State extends AgentState> {
+
+    private final int index;
+    private final GraphInput input;
+    private final RunnableConfig config;
+    private final NodeOutput<State> output;
+    private final Throwable error;
+
+    static <State extends AgentState> BatchResult<State> of( int index, GraphInput input, RunnableConfig config, NodeOutput<State> output ) {
+        return new BatchResult<>( index, input, config, output, null );
+    }
+
+    static <State extends AgentState> BatchResult<State> failed( int index, GraphInput input, RunnableConfig config, Throwable error ) {
+        return new BatchResult<>( index, input, config, null, requireNonNull( error, "error cannot be null" ) );
+    }
+
+    private BatchResult( int index, GraphInput input, RunnableConfig config, NodeOutput<State> output, Throwable error ) {
+        this.index = index;
+        this.input = requireNonNull( input, "input cannot be null" );
+        this.config = requireNonNull( config, "config cannot be null" );
+        this.output = output;
+        this.error = error;
+    }
+
+    /**
+     * @return the index of the input in the batch
+     */
+    public int index() {
+        return index;
+    }
+
+    public GraphInput input() {
+        return input;
+    }
+
+    /**
+     * Returns the configuration of the run, whose thread id allows to resume it.
+     *
+     * @return the configuration of the run
+     */
+    public RunnableConfig config() {
+        return config;
+    }
+
+    /**
+     * Returns the last output of the run: the output of {@link StateGraph#END} if the run has completed, otherwise
+     * the output of the node after which it has been interrupted.
+     *
+     * @return the last output, empty if the run has failed or hasn't produced any output
+     */
+    public Optional<NodeOutput<State>> output() {
+        return ofNullable( output );
+    }
+
+    /**
+     * @return the state of the last output of the run, if any
+     */
+    public Optional<State> state() {
+        return output().map( NodeOutput::state );
+    }
+
+    /**
+     * @return the error that has stopped the run, if any
+     */
+    public Optional<Throwable> error() {
+        return ofNullable( error );
+    }
+
+    public boolean isError() {
+        return error != null;
+    }
+
+    @Override
+    public String toString() {
+        return ( error != null ) ?
+                format( "BatchResult{index=%d, error=%s}", index, error ) :
+                format( "BatchResult{index=%d, output=%s}", index, output );
+    }
+}
@@ -1,12 +1,15 @@
 package org.bsc.langgraph4j;
 
 import org.bsc.langgraph4j.checkpoint.BaseCheckpointSaver;
+import org.bsc.langgraph4j.state.StateCloner;
 
 import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
+import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
 
 
@@ -131,6 +134,37 @@ public class CompileConfig {
             return this;
         }
 
+        /**
+         * Sets the strategy used to copy the state before each node action, for each output and for each checkpoint.
+         * The default is {@link StateCloner#copyOnWrite()}, that shares the values and copies the lists and maps
+         * only on write. Use {@link StateCloner#serializer()} to deep copy the state if the nodes update other
+         * mutable values in place.
+         *
+         * @param stateCloner the {@link StateCloner} to use
+         * @return The current {@code Builder} instance for method chaining.
+         */
+        public Builder stateCloner(StateCloner stateCloner) {
+            this.config.stateCloner = requireNonNull(stateCloner, "stateCloner cannot be null!");
+            return this;
+        }
+
+        /**
+         * Sets the executor that runs the graph: the iteration of the runs consumed asynchronously, e.g. by
+         * {@code forEachAsync}, and the node actions of the runs consumed by the calling thread, e.g. by {@code invoke},
+         * so that a node blocking on a model or a tool doesn't block the caller.
+         * <p>
+         * The executor is shared by the runs, each one scoping its tasks so that its cancellation interrupts just them.
+         * It should not bound the number of threads: on Java 21 and later, {@code Executors.newVirtualThreadPerTaskExecutor()}
+         * runs each conversation on a virtual thread. It can be overridden by {@link RunnableConfig.Builder#executor(Executor)}.
+         *
+         * @param executor the executor of the graph runs, null to run them on the generator thread
+         * @return The current {@code Builder} instance for method chaining.
+         */
+        public Builder executor(Executor executor) {
+            this.config.executor = executor;
+            return this;
+        }
+
         /**
          * Initializes the compilation configuration and returns it.
          *
@@ -167,6 +201,8 @@ public class CompileConfig {
     private boolean releaseThread = false;
     private boolean interruptBeforeEdge = false;
     private int recursionLimit = 25;
+    private StateCloner stateCloner = StateCloner.copyOnWrite();
+    private Executor executor;
 
 
     public int recursionLimit() {
@@ -225,6 +261,25 @@ public class CompileConfig {
     }
 
 
+    /**
+     * Returns the strategy used to copy the state during graph execution.
+     *
+     * @return the current {@link StateCloner}
+     */
+    public StateCloner stateCloner() {
+        return stateCloner;
+    }
+
+    /**
+     * Returns the executor of the graph runs, if any.
+     *
+     * @return an {@link Optional} containing the executor, or an empty {@link Optional} if the runs use the generator thread
+     * @see Builder#executor(Executor)
+     */
+    public Optional<Executor> executor() {
+        return ofNullable(executor);
+    }
+
     /**
      * Default constructor for the {@link CompileConfig} class. This constructor is private to enforce that instances of this class are not created outside its package.
      */
@@ -244,6 +299,8 @@ public class CompileConfig {
         this.releaseThread = config.releaseThread;
         this.interruptBeforeEdge = config.interruptBeforeEdge;
         this.recursionLimit = config.recursionLimit;
+        this.stateCloner = config.stateCloner;
+        this.executor = config.executor;
 
     }
 
@@ -2,6 +2,7 @@ package org.bsc.langgraph4j;
 
 import org.bsc.async.AsyncGenerator;
 import org.bsc.langgraph4j.action.*;
+import org.bsc.langgraph4j.checkpoint.AsyncCheckpointSaver;
 import org.bsc.langgraph4j.checkpoint.BaseCheckpointSaver;
 import org.bsc.langgraph4j.checkpoint.Checkpoint;
 import org.bsc.langgraph4j.internal.edge.Edge;
@@ -17,7 +18,13 @@ import org.bsc.langgraph4j.utils.TypeRef;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -79,6 +86,8 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
     final Map<String, AsyncNodeActionWithConfig<State>> nodes = new LinkedHashMap<>();
     final Map<String, EdgeValue<State>> edges = new LinkedHashMap<>();
 
+    final ExecutionPlan<State> plan;
+
     private final ProcessedNodesEdgesAndConfig<State> processedData;
 
     private int maxIterations;
@@ -173,6 +182,68 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
             }
 
         }
+
+        // LOWER NODES, EDGES AND INTERRUPTIONS TO THE EXECUTION PLAN
+        this.plan = new ExecutionPlan<>( nodes, edges,
+                this.compileConfig.interruptsBefore(),
+                this.compileConfig.interruptsAfter(),
+                INTERRUPT_AFTER );
+    }
+
+    /**
+     * Constructs a copy of the given CompiledGraph that writes its checkpoints through the given saver.
+     * The nodes, the edges and the execution plan are shared with the given graph, that is not compiled again.
+     * The subgraph nodes are created again for the copy, and the subgraphs sharing the saver of the given graph
+     * are copied in turn, so they write their checkpoints through the given saver as well.
+     *
+     * @param graph the compiled graph to copy
+     * @param saver the checkpoint saver of the copy
+     */
+    private CompiledGraph( CompiledGraph<State> graph, BaseCheckpointSaver saver ) {
+        this.stateGraph = graph.stateGraph;
+        this.processedData = graph.processedData;
+        this.maxIterations = graph.maxIterations;
+        this.compileConfig = CompileConfig.builder( graph.compileConfig ).checkpointSaver( saver ).build();
+        final var graphSaver = graph.compileConfig.checkpointSaver().orElse( null );
+        graph.nodes.forEach( ( id, action ) -> this.nodes.put( id, copyOfAction( action, graphSaver, saver ) ) );
+        this.edges.putAll( graph.edges );
+        this.plan = ( nodes.equals( graph.nodes ) ) ?
+                graph.plan :
+                new ExecutionPlan<>( nodes, edges,
+                        compileConfig.interruptsBefore(),
+                        compileConfig.interruptsAfter(),
+                        INTERRUPT_AFTER );
+    }
+
+    /**
+     * Returns the given node action bound to the compile config of this copy.
+     *
+     * @param action the node action of the copied graph
+     * @param graphSaver the checkpoint saver of the copied graph
+     * @param saver the checkpoint saver of this copy
+     * @return a new action if it runs a subgraph, otherwise the action itself
+     */
+    private AsyncNodeActionWithConfig<State> copyOfAction( AsyncNodeActionWithConfig<State> action,
+                                                          BaseCheckpointSaver graphSaver,
+                                                          BaseCheckpointSaver saver ) {
+        if( action instanceof SubCompiledGraphNodeAction<State> subGraphAction ) {
+            final var subGraph = subGraphAction.subGraph();
+            final var sharesSaver = subGraph.compileConfig.checkpointSaver()
+                    .filter( subGraphSaver -> subGraphSaver == graphSaver )
+                    .isPresent();
+            return new SubCompiledGraphNodeAction<>( subGraphAction.nodeId(),
+                    compileConfig,
+                    ( sharesSaver ) ? new CompiledGraph<>( subGraph, saver ) : subGraph );
+        }
+        if( action instanceof ParallelNode.AsyncParallelNodeAction<State> parallelAction ) {
+            final var actions = parallelAction.actions().stream()
+                    .map( a -> copyOfAction( a, graphSaver, saver ) )
+                    .toList();
+            return ( actions.equals( parallelAction.actions() ) ) ?
+                    action :
+                    new ParallelNode.AsyncParallelNodeAction<>( parallelAction.nodeId(), actions, parallelAction.channels() );
+        }
+        return action;
     }
 
     /**
@@ -251,9 +322,9 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
 
         String nextNodeId = null;
         if( asNode != null ) {
-            var nextNodeCommand = nextNodeId( asNode, branchCheckpoint.getState(), config );
+            var nextNodeCommand = nextNode( plan.indexOf( asNode ), asNode, branchCheckpoint.getState(), config ).get();
 
-            nextNodeId = nextNodeCommand.gotoNode();
+            nextNodeId = plan.idOf( nextNodeCommand.target() );
             branchCheckpoint =  branchCheckpoint.updateState( nextNodeCommand.update(), stateGraph.getChannels(), nextNodeId );
 
         }
@@ -297,104 +368,87 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
      * UPDATE RUNNABLE CONFIG METADATA
      */
     private RunnableConfig updateRunnableConfigMetadata( RunnableConfig config, String currentNodeId ) {
-        final var newMetadata = new HashMap<String,Object>(2);
-        newMetadata.put(RunnableConfig.NODE_ID, currentNodeId);
-        compileConfig.graphId()
-                .ifPresent( graphId -> {
-                    newMetadata.put(RunnableConfig.GRAPH_ID, graphId);
-                    if( config.graphPath().isEmpty() ) { // to avoid add graphId in subgraph cases
-                        newMetadata.put(RunnableConfig.GRAPH_PATH, config.graphPath().append(graphId) );
-                    }
-                });
-
-        return config.updateMetadata( newMetadata );
+        final var graphId = compileConfig.graphId();
+        if( graphId.isEmpty() ) {
+            return config.updateMetadata( Map.of( RunnableConfig.NODE_ID, currentNodeId ) );
+        }
+        if( config.graphPath().isEmpty() ) { // to avoid add graphId in subgraph cases
+            return config.updateMetadata( Map.of( RunnableConfig.NODE_ID, currentNodeId,
+                                                RunnableConfig.GRAPH_ID, graphId.get(),
+                                                RunnableConfig.GRAPH_PATH, config.graphPath().append(graphId.get()) ) );
+        }
+        return config.updateMetadata( Map.of( RunnableConfig.NODE_ID, currentNodeId, RunnableConfig.GRAPH_ID, graphId.get() ) );
 
     }
 
-    private Command nextNodeId(EdgeValue<State> route , Map<String,Object> state, String nodeId, RunnableConfig config ) throws Exception {
+    /**
+     * The target of an edge, as index of the {@link ExecutionPlan}, and the state updated by its condition.
+     */
+    private record NextNode( int target, Map<String,Object> update ) {}
 
-        if( route == null ) {
-            throw RunnableErrors.missingEdge.exception(nodeId);
+    /**
+     * Determines the next node based on the current node and state.
+     *
+     * @param node the index of the current node
+     * @param nodeId the id of the current node
+     * @param state the current state
+     * @return the next node, completed when the condition of the edge, if any, is
+     * @throws Exception if there is an error determining the next node
+     */
+    private CompletableFuture<NextNode> nextNode( int node, String nodeId, Map<String,Object> state, RunnableConfig config ) throws Exception {
+
+        final int target = plan.target( node );
+        if( target != ExecutionPlan.NONE ) {
+            return completedFuture( new NextNode( target, state ) );
         }
-        if( route.id() != null ) {
-            return new Command(route.id(), state);
+        final var condition = plan.condition( node );
+        if( condition == null ) {
+            throw RunnableErrors.missingEdge.exception(nodeId);
         }
-        if( route.value() != null ) {
 
-            final var newConfig = updateRunnableConfigMetadata( config, nodeId );
+        final var newConfig = updateRunnableConfigMetadata( config, nodeId );
 
-            final State derefState = stateGraph.getStateFactory().apply(state);
+        final State derefState = stateGraph.getStateFactory().apply(state);
 
-            // var command = route.value().action().apply(derefState,config).get();
-            final var command = stateGraph.edgeHooks.applyActionWithHooks(
-                    route.value().action(),
-                    nodeId,
-                    derefState,
-                    newConfig,
-                    stateGraph.getStateFactory(),
-                    stateGraph.getChannels() )
-                    .get();
+        return stateGraph.edgeHooks.applyActionWithHooks(
+                condition.action(),
+                nodeId,
+                derefState,
+                newConfig,
+                stateGraph.getStateFactory(),
+                stateGraph.getChannels() )
+                .thenApply( TryFunction.Try( command -> {
 
-            final var newRoute = command.gotoNode();
+                    final var newRoute = command.gotoNode();
 
-            final String result = route.value().mappings().get(newRoute);
-            if( result == null ) {
-                throw RunnableErrors.missingNodeInEdgeMapping.exception(nodeId, newRoute);
-            }
-
-            final var currentState = AgentState.updateState(state, command.update(), stateGraph.getChannels());
-
-            return new Command(result, currentState);
-        }
-        throw RunnableErrors.executionError.exception( format("invalid edge value for nodeId: [%s] !", nodeId) );
-    }
+                    final int result = plan.route( node, newRoute );
+                    if( result == ExecutionPlan.NONE ) {
+                        throw RunnableErrors.missingNodeInEdgeMapping.exception(nodeId, newRoute);
+                    }
 
-    /**
-     * Determines the next node ID based on the current node ID and state.
-     *
-     * @param nodeId the current node ID
-     * @param state the current state
-     * @return the next node command
-     * @throws Exception if there is an error determining the next node ID
-     */
-    private Command nextNodeId(String nodeId, Map<String,Object> state, RunnableConfig config) throws Exception {
-        return nextNodeId(edges.get(nodeId), state, nodeId, config  );
+                    final var currentState = AgentState.updateState(state, command.update(), stateGraph.getChannels());
 
+                    return new NextNode( result, currentState );
+                }));
     }
 
-    private Command entryPoint(Map<String,Object> state, RunnableConfig config ) throws Exception {
-        var entryPoint = this.edges.get(START);
-        return nextNodeId(entryPoint, state, "entryPoint", config);
+    private CompletableFuture<NextNode> entryPoint(Map<String,Object> state, RunnableConfig config ) throws Exception {
+        return nextNode( ExecutionPlan.START_INDEX, "entryPoint", state, config );
     }
 
-    private boolean shouldInterruptBefore( String nodeId, String previousNodeId ) {
-        requireNonNull( nodeId, "nodeId cannot be null" );
-        if( previousNodeId == null ) { // FIX RESUME ERROR
+    private boolean shouldInterruptBefore( int node, int previousNode ) {
+        if( previousNode == ExecutionPlan.NONE ) { // FIX RESUME ERROR
             return false;
         }
-        return compileConfig.interruptsBefore().contains(nodeId);
+        return plan.interruptsBefore( node );
     }
 
-    private boolean shouldInterruptAfter(String nodeId, String previousNodeId ) {
-        if( nodeId == null || Objects.equals(nodeId, previousNodeId) ) { // FIX RESUME ERROR
+    private boolean shouldInterruptAfter( int node, int previousNode ) {
+        if( node == ExecutionPlan.NONE || node == previousNode ) { // FIX RESUME ERROR
             return false;
         }
-        return ( compileConfig.interruptBeforeEdge() && Objects.equals(nodeId, INTERRUPT_AFTER )) ||
-                compileConfig.interruptsAfter().contains(nodeId);
-    }
-
-    private Optional<Checkpoint> addCheckpoint( RunnableConfig config, String nodeId, Map<String,Object> state, String nextNodeId ) throws Exception {
-        if( compileConfig.checkpointSaver().isPresent() ) {
-            var cp =  Checkpoint.builder()
-                                .nodeId( nodeId )
-                                .state( cloneState(state) )
-                                .nextNodeId( nextNodeId )
-                                .build();
-            compileConfig.checkpointSaver().get().put( config, cp );
-            return Optional.of(cp);
-        }
-        return Optional.empty();
-
+        return ( compileConfig.interruptBeforeEdge() && node == ExecutionPlan.INTERRUPT_AFTER_INDEX ) ||
+                plan.interruptsAfter( node );
     }
 
     Map<String,Object> initialStateFromSchema() {
@@ -410,7 +464,7 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
     }
 
     State cloneState( Map<String,Object> data ) throws IOException, ClassNotFoundException, InstantiationException, IllegalAccessException {
-        return stateGraph.getStateSerializer().cloneObject(data);
+        return compileConfig.stateCloner().cloneState(data, stateGraph.getStateSerializer());
     }
 
     /**
@@ -524,6 +578,61 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
     }
 
 
+    /**
+     * Runs the graph over the given inputs, at most {@link BatchConfig#maxConcurrency()} at a time on the executor
+     * of the batch, and returns their results in completion order.
+     * <p>
+     * A failure stops just its run, and is returned as its result. A run counts for the concurrency until its result
+     * is consumed, so a slow consumer holds back the batch. The cancellation of the generator cancels the runs
+     * in progress and doesn't start the other ones.
+     *
+     * @param inputs the inputs of the runs
+     * @param config the batch configuration
+     * @return an AsyncGenerator of the results of the runs, in completion order
+     * @see BatchConfig
+     */
+    public AsyncGenerator.Cancellable<BatchResult<State>> batch( List<GraphInput> inputs, BatchConfig config ) {
+        requireNonNull( inputs, "inputs cannot be null" );
+        requireNonNull( config, "config cannot be null" );
+
+        final var executor = config.executor()
+                .or( () -> config.runnableConfig().executor() )
+                .or( compileConfig::executor )
+                .orElseGet( () -> newBatchExecutor( config.maxConcurrency() ) );
+
+        return new BatchGenerator<>( batchGraph( config ), List.copyOf( inputs ), config, executor );
+    }
+
+    /**
+     * Returns the graph whose runs write their checkpoints through a single {@link AsyncCheckpointSaver}
+     * on the checkpoint executor of the batch, if any.
+     */
+    private CompiledGraph<State> batchGraph( BatchConfig config ) {
+        final var checkpointExecutor = config.checkpointExecutor();
+        if( checkpointExecutor.isEmpty() || compileConfig.checkpointSaver().isEmpty() ) {
+            return this;
+        }
+        return new CompiledGraph<>( this, AsyncCheckpointSaver.of( compileConfig.checkpointSaver().get(), checkpointExecutor.get() ) );
+    }
+
+    /**
+     * Creates the pool of {@code maxConcurrency} daemon threads of a batch. The threads are stopped once idle,
+     * so the pool doesn't need to be shut down and doesn't keep the JVM alive.
+     */
+    private static Executor newBatchExecutor( int maxConcurrency ) {
+        final var threadNumber = new AtomicInteger();
+        final var result = new ThreadPoolExecutor( maxConcurrency, maxConcurrency,
+                                                    60L, TimeUnit.SECONDS,
+                                                    new LinkedBlockingQueue<>(),
+                                                    runnable -> {
+                                                        var thread = new Thread( runnable, "graph-batch-" + threadNumber.incrementAndGet() );
+                                                        thread.setDaemon( true );
+                                                        return thread;
+                                                    });
+        result.allowCoreThreadTimeOut( true );
+        return result;
+    }
+
     /**
      * Generates a drawable graph representation of the state graph.
      *
@@ -583,7 +692,8 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
     class AsyncNodeGenerator<Output extends NodeOutput<State>> extends AsyncGenerator.BaseCancellable<Output> {
 
         static class Context {
-            record ReturnFromEmbed( Object value ) {
+            // the next node is given when the embedded generator has completed the node rather than interrupting it
+            record ReturnFromEmbed( Object value, CompletableFuture<NextNode> nextNode ) {
                 <T> Optional<T> value( TypeRef<T> ref ) {
                     return ofNullable(value)
                             .flatMap(ref::cast);
@@ -591,31 +701,37 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
 
             }
 
+            private final ExecutionPlan<?> plan;
             private Map<String,Object> currentState;
+            // the nodes are tracked by their index in the plan, the ids are kept for the checkpoints and the outputs
+            private int currentNode;
             private String currentNodeId;
+            private int nextNode;
             private String nextNodeId;
             private String resumeFrom;
             private ReturnFromEmbed returnFromEmbed;
 
-            Context( Map<String,Object> initState ) {
-                currentNodeId = START;
-                nextNodeId = null;
+            Context( ExecutionPlan<?> plan, Map<String,Object> initState ) {
+                this.plan = plan;
+                setCurrentNode( ExecutionPlan.START_INDEX );
+                setNextNode( ExecutionPlan.NONE );
                 resumeFrom = null;
                 returnFromEmbed = null;
                 currentState = initState;
             }
 
-            Context( Checkpoint cp ) {
-                currentNodeId = null;
-                nextNodeId = cp.getNextNodeId();
+            Context( ExecutionPlan<?> plan, Checkpoint cp ) {
+                this.plan = plan;
+                setCurrentNode( ExecutionPlan.NONE );
+                setNextNodeId( cp.getNextNodeId() );
                 resumeFrom = cp.getNodeId();
                 currentState = cp.getState();
                 returnFromEmbed = null;
             }
 
             void reset() {
-                currentNodeId = null;
-                nextNodeId = null;
+                setCurrentNode( ExecutionPlan.NONE );
+                setNextNode( ExecutionPlan.NONE );
                 resumeFrom = null;
                 returnFromEmbed = null;
             }
@@ -632,16 +748,39 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
                 return nextNodeId;
             }
 
+            int nextNode() {
+                return nextNode;
+            }
+
             void setNextNodeId( String value ) {
                 nextNodeId = value;
+                nextNode = plan.indexOf( value );
+            }
+
+            void setNextNode( int value ) {
+                nextNode = value;
+                nextNodeId = plan.idOf( value );
             }
 
             String currentNodeId() {
                 return currentNodeId;
             }
 
-            void setCurrentNodeId( String value ) {
-                currentNodeId = value;
+            int currentNode() {
+                return currentNode;
+            }
+
+            void setCurrentNode( int value ) {
+                currentNode = value;
+                currentNodeId = plan.idOf( value );
+            }
+
+            /**
+             * Makes the next node the current one.
+             */
+            void advance() {
+                currentNode = nextNode;
+                currentNodeId = nextNodeId;
             }
 
             Optional<String> getResumeFromAndReset() {
@@ -657,7 +796,11 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
             }
 
             void setReturnFromEmbedWithValue( Object value ) {
-                returnFromEmbed = new ReturnFromEmbed(value);
+                returnFromEmbed = new ReturnFromEmbed(value, null);
+            }
+
+            void setReturnFromEmbedWithNextNode( CompletableFuture<NextNode> nextNode ) {
+                returnFromEmbed = new ReturnFromEmbed(null, nextNode);
             }
 
         }
@@ -665,9 +808,22 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
         final Context context;
         int iteration = 0;
         final RunnableConfig config;
+        // scope of the tasks of this run on the configured executor, null if the run has no executor
+        private final ScopedExecutor scope;
+        // last checkpoint write submitted, the next one is chained to it to keep them in order
+        private CompletableFuture<?> pendingCheckpoint = completedFuture(null);
 
         protected AsyncNodeGenerator(GraphInput input, RunnableConfig config )  {
 
+            this.scope = config.executor()
+                    .or( compileConfig::executor )
+                    .map( ScopedExecutor::new )
+                    .orElse( null );
+            if( scope != null ) {
+                // the parallel branches and the subgraphs of this run are scoped by it
+                config = RunnableConfig.builder( config ).executor( scope ).build();
+            }
+
             if( input instanceof GraphResume resumeRequest ) {
 
                 log.trace( "RESUME REQUEST" );
@@ -693,7 +849,7 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
 
                 }
 
-                context = new Context(startCheckpoint);
+                context = new Context(plan, startCheckpoint);
                 // FIX ISSUE #302
                 context.setCurrentState( AgentState.updateState( startCheckpoint.getState(),
                                                                 resumeRequest.value(),
@@ -707,7 +863,7 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
                 Map<String,Object> initState = initialState( ((GraphArgs)input).value(), config );
                 // patch for backward support of AppendableValue
                 State initializedState = stateGraph.getStateFactory().apply(initState);
-                this.context = new Context( initializedState.data() );
+                this.context = new Context( plan, initializedState.data() );
                 this.config = config.withCheckPointId( null );
             }
         }
@@ -764,52 +920,290 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
                                 }
                             }
 
-                            var nextNodeCommand = nextNodeId(context.currentNodeId(), context.currentState(), config) ;
-                            context.setNextNodeId(nextNodeCommand.gotoNode());
-                            context.setCurrentState( nextNodeCommand.update() );
-                            context.setReturnFromEmbedWithValue(null);
+                            context.setReturnFromEmbedWithNextNode( nextNode(context.currentNode(), context.currentNodeId(), context.currentState(), config) );
                         });
                     })
                     ;
         }
 
-        private Data<Output> applyAction( AsyncNodeActionWithConfig<State> action,
-                                          String nodeId,
-                                          State clonedState,
-                                          RunnableConfig runnableConfig ) throws ExecutionException, InterruptedException
+        /**
+         * Applies the node action and then the edge of the node, chaining their futures.
+         *
+         * @return the data of the step, completed with the output of the node or embedding the generator returned by the action
+         */
+        private CompletableFuture<Data<Output>> applyAction( AsyncNodeActionWithConfig<State> action,
+                                                             String nodeId,
+                                                             State clonedState,
+                                                             RunnableConfig runnableConfig )
         {
             //return action.apply( clonedState, runnableConfig)
             final AgentStateFactory<State> stateFactory = ( data ) -> {
                 context.setCurrentState( data );
                 return stateGraph.getStateFactory().apply( data);
             };
-            return stateGraph.nodeHooks.applyActionWithHooks(  action, nodeId, clonedState, runnableConfig, stateFactory, stateGraph.getChannels() )
-                .thenApply(TryFunction.Try(partial -> {
+            return applyActionWithHooks( action, nodeId, clonedState, runnableConfig, stateFactory )
+                .thenCompose(TryFunction.Try(partial -> {
 
                         Optional<Data<Output>> embed = embedGenerator( action, partial);
                         if (embed.isPresent()) {
-                            return embed.get();
+                            return completedFuture( embed.get() );
                         }
 
                         context.setCurrentState( AgentState.updateState(context.currentState(), partial, stateGraph.getChannels()) );
 
-                        if (compileConfig.interruptBeforeEdge() && compileConfig.interruptsAfter().contains(context.currentNodeId())) {
-                            //nextNodeId = INTERRUPT_AFTER;
-                            context.setNextNodeId(INTERRUPT_AFTER);
-                        } else {
-                            var nextNodeCommand = nextNodeId(context.currentNodeId(), context.currentState(), runnableConfig);
-                            context.setNextNodeId(nextNodeCommand.gotoNode());
-                            context.setCurrentState( nextNodeCommand.update() );
-                        }
+                        final CompletableFuture<NextNode> nextNodeCommand =
+                                ( compileConfig.interruptBeforeEdge() && plan.interruptsAfter(context.currentNode()) ) ?
+                                    completedFuture( new NextNode( ExecutionPlan.INTERRUPT_AFTER_INDEX, context.currentState() ) ) :
+                                    nextNode(context.currentNode(), context.currentNodeId(), context.currentState(), runnableConfig);
 
-                        return Data.of(nodeOutput());
+                        return nextNodeCommand.thenApply( TryFunction.Try( this::moveTo ) );
+                    }));
+        }
 
-                    }))
-                    .get();
+        /**
+         * Moves to the given next node and returns the output of the current one.
+         */
+        private Data<Output> moveTo( NextNode nextNodeCommand ) throws Exception {
+            context.setNextNode( nextNodeCommand.target() );
+            context.setCurrentState( nextNodeCommand.update() );
+            return Data.of( nodeOutput() );
+        }
+
+        /**
+         * Returns the data of a step: at once if the step has already completed, as it happens when its actions
+         * are synchronous, otherwise embedding a {@link PendingStep} so that the thread isn't held until it completes.
+         */
+        private Data<Output> dataOf( CompletableFuture<Data<Output>> step ) throws Exception {
+            if( !step.isDone() ) {
+                return Data.composeWith( new PendingStep( step.exceptionallyCompose( this::failedAfterFlush ) ), null );
+            }
+            try {
+                return step.get();
+            }
+            catch( ExecutionException ex ) {
+                if( ex.getCause() instanceof Exception cause ) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+
+        /**
+         * Step whose actions have not completed yet when the generator is asked for its output. Embedded in the
+         * generator, it gives the output as a future completed by the actions instead of waiting for them, then
+         * the outputs of the generator returned by the action, if any, see {@link #embedGenerator}.
+         */
+        private class PendingStep implements AsyncGenerator.Cancellable<Output> {
+
+            private volatile CompletableFuture<Data<Output>> step;
+            private volatile CompletableFuture<Output> output;
+            private volatile Embed<Output> embed;
+            private volatile boolean cancelled = false;
+
+            PendingStep( CompletableFuture<Data<Output>> step ) {
+                this.step = requireNonNull( step, "step cannot be null" );
+            }
+
+            @Override
+            public Data<Output> next() {
+                final var pending = step;
+                if( pending != null ) {
+                    step = null;
+                    output = pending.thenCompose( TryFunction.Try( data ->
+                            ( data.embed() != null ) ? firstOutputOf( data.embed() ) : data.future() ));
+                    return Data.of( output );
+                }
+                // a consumer fetching the next data before the output completes, as the iterator does, waits for it,
+                // since the step that follows depends on it
+                final var failure = output.handle( ( value, ex ) -> ex ).join();
+                if( failure != null ) {
+                    return Data.error( failure );
+                }
+                final var current = embed;
+                if( current == null ) {
+                    return Data.done();
+                }
+                final var data = current.generator().next();
+                if( data.isDone() ) {
+                    embed = null;
+                    try {
+                        complete( current, data );
+                    }
+                    catch( Exception ex ) {
+                        return Data.error( ex );
+                    }
+                    return data;
+                }
+                if( data.embed() != null ) {
+                    return Data.error( new UnsupportedOperationException( "Currently recursive nested generators are not supported!" ) );
+                }
+                return data;
+            }
+
+            private CompletableFuture<Output> firstOutputOf( Embed<Output> current ) throws Exception {
+                final var data = current.generator().next();
+                if( data.embed() != null ) {
+                    throw new UnsupportedOperationException( "Currently recursive nested generators are not supported!" );
+                }
+                if( !data.isDone() ) {
+                    embed = current;
+                    return data.future();
+                }
+                // the embedded generator completed without outputs, the output of the node is given at once
+                complete( current, data );
+                final var returnFromEmbed = context.getReturnFromEmbedAndReset().orElseThrow();
+                if( returnFromEmbed.nextNode() == null ) {
+                    // the interruption follows the output
+                    context.setReturnFromEmbedWithValue( returnFromEmbed.value() );
+                    return completedFuture( buildNodeOutput( context.currentNodeId() ) );
+                }
+                return returnFromEmbed.nextNode()
+                        .thenApply( TryFunction.Try( AsyncNodeGenerator.this::moveTo ) )
+                        .thenCompose( Data::future );
+            }
+
+            private void complete( Embed<Output> current, Data<Output> data ) throws Exception {
+                if( current.onCompletion() != null ) {
+                    current.onCompletion().accept( data.resultValue() );
+                }
+            }
+
+            @Override
+            public Executor executor() {
+                return AsyncNodeGenerator.this.executor();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled;
+            }
+
+            /**
+             * Cancels the generator embedded by the step, if any, and fails the output in progress when
+             * {@code mayInterruptIfRunning}, since no thread is waiting for it.
+             */
+            @Override
+            public boolean cancel( boolean mayInterruptIfRunning ) {
+                if( cancelled ) {
+                    return false;
+                }
+                cancelled = true;
+                if( embed != null && embed.generator() instanceof IsCancellable cancellable ) {
+                    cancellable.cancel( mayInterruptIfRunning );
+                }
+                final var current = output;
+                if( mayInterruptIfRunning && current != null ) {
+                    current.completeExceptionally( new InterruptedException( "graph run has been cancelled" ) );
+                }
+                return true;
+            }
+        }
+
+        /**
+         * Applies the node action, on the executor of the run when it is not already the current one,
+         * so that a blocking action doesn't block the thread that drives the generator.
+         */
+        private CompletableFuture<Map<String,Object>> applyActionWithHooks( AsyncNodeActionWithConfig<State> action,
+                                                                           String nodeId,
+                                                                           State clonedState,
+                                                                           RunnableConfig runnableConfig,
+                                                                           AgentStateFactory<State> stateFactory ) {
+            if( scope == null || ScopedExecutor.inScope() ) {
+                return stateGraph.nodeHooks.applyActionWithHooks( action, nodeId, clonedState, runnableConfig, stateFactory, stateGraph.getChannels() );
+            }
+            return CompletableFuture.supplyAsync( () ->
+                    stateGraph.nodeHooks.applyActionWithHooks( action, nodeId, clonedState, runnableConfig, stateFactory, stateGraph.getChannels() ),
+                    scope )
+                    .thenCompose( Function.identity() );
+        }
+
+        /**
+         * Submits the write of a new checkpoint without waiting for it, so it runs while the next node is evaluated
+         * when the saver is asynchronous (see {@link org.bsc.langgraph4j.checkpoint.AsyncCheckpointSaver}).
+         */
+        private Optional<Checkpoint> addCheckpoint( String nodeId, Map<String,Object> state, String nextNodeId ) throws Exception {
+            if( compileConfig.checkpointSaver().isEmpty() ) {
+                return Optional.empty();
+            }
+            final var saver = compileConfig.checkpointSaver().get();
+            final var cp =  Checkpoint.builder()
+                    .nodeId( nodeId )
+                    .state( cloneState(state) )
+                    .nextNodeId( nextNodeId )
+                    .build();
+            pendingCheckpoint = pendingCheckpoint.thenCompose( ignored -> saver.putAsync( config, cp ) );
+            // a synchronous saver has already completed the write, its failure is reported at once
+            if( pendingCheckpoint.isCompletedExceptionally() ) {
+                awaitPendingCheckpoint();
+            }
+            return Optional.of(cp);
+        }
+
+        /**
+         * Waits for the checkpoint writes in progress, so they are stored before the graph completes or is interrupted.
+         */
+        private void awaitPendingCheckpoint() throws Exception {
+            try {
+                pendingCheckpoint.get();
+            }
+            catch( ExecutionException ex ) {
+                if( ex.getCause() instanceof Exception cause ) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+
+        /**
+         * Flushes the checkpoints of the run before it stops with the given error, so that a resume reads its last
+         * checkpoint. A failure of the checkpoint writes is attached to the error as suppressed.
+         *
+         * @return the given error
+         */
+        private Throwable flushedError( Throwable error ) {
+            try {
+                flushCheckpoints();
+            }
+            catch( Exception ex ) {
+                if( ex != error ) {
+                    error.addSuppressed( ex );
+                }
+            }
+            return error;
+        }
+
+        /**
+         * Asynchronous variant of {@link #flushedError(Throwable)}, for a step that fails after the generator has returned.
+         *
+         * @return a future failed with the given error once the checkpoints of the run are flushed
+         */
+        private <T> CompletableFuture<T> failedAfterFlush( Throwable ex ) {
+            final var error = ( ex instanceof CompletionException && ex.getCause() != null ) ? ex.getCause() : ex;
+            compileConfig.checkpointSaver().ifPresent( saver ->
+                pendingCheckpoint = pendingCheckpoint.thenCompose( ignored -> saver.flushAsync( config ) ) );
+            return pendingCheckpoint.handle( ( ignored, writeFailure ) -> {
+                if( writeFailure != null ) {
+                    final var cause = ( writeFailure instanceof CompletionException && writeFailure.getCause() != null ) ?
+                            writeFailure.getCause() : writeFailure;
+                    if( cause != error ) {
+                        error.addSuppressed( cause );
+                    }
+                }
+                throw new CompletionException( error );
+            });
+        }
+
+        /**
+         * Flushes the checkpoints buffered by the saver and waits for them, see {@link BaseCheckpointSaver#flush(RunnableConfig)}.
+         */
+        private void flushCheckpoints() throws Exception {
+            compileConfig.checkpointSaver().ifPresent( saver ->
+                pendingCheckpoint = pendingCheckpoint.thenCompose( ignored -> saver.flushAsync( config ) ) );
+            awaitPendingCheckpoint();
         }
 
         private CompletableFuture<Output> nodeOutput() throws Exception {
-            Optional<Checkpoint>  cp = addCheckpoint(config, context.currentNodeId(), context.currentState(), context.nextNodeId());
+            Optional<Checkpoint>  cp = addCheckpoint(context.currentNodeId(), context.currentState(), context.nextNodeId());
             return completedFuture(( cp.isPresent() && config.streamMode() == StreamMode.SNAPSHOTS) ?
                     buildStateSnapshot(cp.get()) :
                     buildNodeOutput( context.currentNodeId() ))
@@ -823,6 +1217,15 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
             return Optional.empty();
         }
 
+        /**
+         * Returns the scope of this run on the configured executor, so that the iteration consumed asynchronously
+         * runs on it and the cancellation of the run interrupts its tasks, otherwise the executor of the generator.
+         */
+        @Override
+        public Executor executor() {
+            return ( scope != null ) ? scope : super.executor();
+        }
+
         @Override
         public Data<Output> next() {
 
@@ -830,11 +1233,17 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
                 // GUARD: CHECK MAX ITERATION REACHED
                 if( ++iteration > maxIterations ) {
                     // log.warn( "Maximum number of iterations ({}) reached!", maxIterations);
-                    return Data.error( new IllegalStateException( format("Maximum number of iterations (%d) reached!", maxIterations)) );
+                    return Data.error( flushedError( new IllegalStateException( format("Maximum number of iterations (%d) reached!", maxIterations)) ) );
+                }
+
+                // GUARD: CHECK IF A CHECKPOINT WRITE HAS FAILED
+                if( pendingCheckpoint.isCompletedExceptionally() ) {
+                    awaitPendingCheckpoint();
                 }
 
                 // GUARD: CHECK IF IT IS END
-                if( context.nextNodeId() == null && context.currentNodeId() == null  ) {
+                if( context.nextNode() == ExecutionPlan.NONE && context.currentNode() == ExecutionPlan.NONE  ) {
+                    flushCheckpoints();
                     return releaseThread()
                             .map(Data::<Output>done)
                             .orElseGet( () -> Data.done(context.currentState()) );
@@ -848,29 +1257,31 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
                     var interruption = returnFromEmbed.get().value(new TypeRef<InterruptionMetadata<State>>(){} );
 
                     if( interruption.isPresent() ) {
+                        flushCheckpoints();
                         return Data.done( interruption.get() );
                     }
 
-                    return Data.of( nodeOutput() );
+                    return dataOf( returnFromEmbed.get().nextNode().thenApply( TryFunction.Try( this::moveTo ) ) );
                 }
 
-                if( START.equals(context.currentNodeId()) ) {
-                    var nextNodeCommand = entryPoint(context.currentState(), config) ;
-                    context.setNextNodeId(nextNodeCommand.gotoNode());
-                    context.setCurrentState( nextNodeCommand.update() );
+                if( context.currentNode() == ExecutionPlan.START_INDEX ) {
+                    return dataOf( entryPoint(context.currentState(), config).thenApply( TryFunction.Try( nextNodeCommand -> {
+                        context.setNextNode(nextNodeCommand.target());
+                        context.setCurrentState( nextNodeCommand.update() );
 
-                    var cp = addCheckpoint( config, START, context.currentState(), context.nextNodeId() );
+                        var cp = addCheckpoint( START, context.currentState(), context.nextNodeId() );
 
-                    var output =  ( cp.isPresent() && config.streamMode() == StreamMode.SNAPSHOTS) ?
-                            buildStateSnapshot(cp.get()) :
-                            buildNodeOutput( context.currentNodeId() );
+                        var output =  ( cp.isPresent() && config.streamMode() == StreamMode.SNAPSHOTS) ?
+                                buildStateSnapshot(cp.get()) :
+                                buildNodeOutput( context.currentNodeId() );
 
-                    context.setCurrentNodeId(context.nextNodeId());
+                        context.advance();
 
-                    return Data.of( output );
+                        return Data.of( output );
+                    })));
                 }
 
-                if( END.equals(context.nextNodeId()) ) {
+                if( context.nextNode() == ExecutionPlan.END_INDEX ) {
                     context.reset();
                     return Data.of( buildNodeOutput( END ) );
                 }
@@ -878,31 +1289,34 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
                 final var resumeFrom = context.getResumeFromAndReset();
                 if( resumeFrom.isPresent() ) {
 
-                    if(compileConfig.interruptBeforeEdge() && Objects.equals( context.nextNodeId(), INTERRUPT_AFTER)) {
-                        var nextNodeCommand = nextNodeId( resumeFrom.get(), context.currentState(), config);
-                        context.setNextNodeId( nextNodeCommand.gotoNode() );
+                    if(compileConfig.interruptBeforeEdge() && context.nextNode() == ExecutionPlan.INTERRUPT_AFTER_INDEX) {
+                        // the step may end with an interruption, so the edge is awaited rather than chained
+                        var nextNodeCommand = nextNode( plan.indexOf( resumeFrom.get() ), resumeFrom.get(), context.currentState(), config).get();
+                        context.setNextNode( nextNodeCommand.target() );
                         context.setCurrentState(  nextNodeCommand.update() );
-                        context.setCurrentNodeId( null );
+                        context.setCurrentNode( ExecutionPlan.NONE );
                     }
                 }
 
                 // check on previous node
-                if( shouldInterruptAfter( context.currentNodeId(), context.nextNodeId() )) {
+                if( shouldInterruptAfter( context.currentNode(), context.nextNode() )) {
+                    flushCheckpoints();
                     return Data.done( InterruptionMetadata.builder(context.currentNodeId(), cloneState(context.currentState())).build() );
                 }
 
-                if( shouldInterruptBefore( context.nextNodeId(), context.currentNodeId() ) ) {
+                if( shouldInterruptBefore( context.nextNode(), context.currentNode() ) ) {
+                    flushCheckpoints();
                     return Data.done(InterruptionMetadata.builder(context.currentNodeId(), cloneState(context.currentState())).build() );
                 }
 
-                context.setCurrentNodeId( context.nextNodeId() );
+                context.advance();
 
                 final var newConfig = updateRunnableConfigMetadata( config, context.currentNodeId() );
 
                 //
                 // EVALUATE ACTION
                 //
-                final var action = nodes.get( context.currentNodeId() );
+                final var action = plan.action( context.currentNode() );
 
                 if (action == null)
                     throw RunnableErrors.missingNode.exception(context.currentNodeId());
@@ -914,23 +1328,16 @@ public final class CompiledGraph<State extends AgentState> implements GraphDefin
                     final var interruption = (InterruptableAction<State>) action;
                     final var interruptMetadata = interruption.interrupt(context.currentNodeId(), clonedState, newConfig );
                     if( interruptMetadata.isPresent() ) {
+                        flushCheckpoints();
                         return Data.done( interruptMetadata.get() );
                     }
                 }
-                try {
-                    return applyAction(action, context.currentNodeId(), clonedState, newConfig);
-                }
-                catch( InterruptedException ex ) {
-                    if( action instanceof ParallelNode.AsyncParallelNodeAction<?> parallelNodeAction ) {
-                        log.info( "PARALLEL NODE {} INTERRUPTED!", context.currentNodeId() );
-                    }
-                    throw ex;
-                }
+                return dataOf( applyAction(action, context.currentNodeId(), clonedState, newConfig) );
 
             }
             catch( Throwable e ) {
                 log.error( e.getMessage(), e );
-                return Data.error(e);
+                return Data.error( flushedError( e ) );
             }
 
         }
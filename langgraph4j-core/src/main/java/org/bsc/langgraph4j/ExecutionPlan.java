@@ -0,0 +1,188 @@
+package org.bsc.langgraph4j;
+
+import org.bsc.langgraph4j.action.AsyncNodeActionWithConfig;
+import org.bsc.langgraph4j.internal.edge.EdgeCondition;
+import org.bsc.langgraph4j.internal.edge.EdgeValue;
+import org.bsc.langgraph4j.state.AgentState;
+
+import java.util.*;
+
+import static java.util.Objects.requireNonNull;
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+
+/**
+ * Dense form of the nodes and edges of a {@link CompiledGraph}, computed once at compile time so that each step
+ * of the execution resolves the action, the edge and the interruptions of a node by array indexing rather than
+ * by looking up its id.
+ * <p>
+ * The node ids are indexed in order: {@link StateGraph#START}, {@link StateGraph#END}, the marker of the
+ * interruption before the edge, the nodes and then the targets of the edges that are not nodes.
+ * The edge of each node is either the index of its target or its condition, whose mappings are resolved
+ * to the indexes of their targets.
+ *
+ * @param <State> the type of the state associated with the graph
+ */
+final class ExecutionPlan<State extends AgentState> {
+
+    /**
+     * Index of no node, i.e. of a null node id.
+     */
+    static final int NONE = -1;
+    /**
+     * Index of a node id that is not in the plan, e.g. read from a checkpoint of another version of the graph.
+     */
+    static final int UNKNOWN = -2;
+    static final int START_INDEX = 0;
+    static final int END_INDEX = 1;
+    static final int INTERRUPT_AFTER_INDEX = 2;
+
+    private final String[] ids;
+    private final Map<String,Integer> indexes;
+    private final AsyncNodeActionWithConfig<State>[] actions;
+    private final int[] targets;
+    private final EdgeCondition<State>[] conditions;
+    private final Map<String,Integer>[] routes;
+    private final BitSet interruptsBefore;
+    private final BitSet interruptsAfter;
+
+    /**
+     * Lowers the given nodes and edges.
+     *
+     * @param nodes the actions by node id
+     * @param edges the edges by source node id
+     * @param interruptsBefore the ids of the nodes interrupted before their execution
+     * @param interruptsAfter the ids of the nodes interrupted after their execution
+     * @param interruptAfterId the id marking the interruption before the edge
+     */
+    @SuppressWarnings("unchecked")
+    ExecutionPlan( Map<String, AsyncNodeActionWithConfig<State>> nodes,
+                   Map<String, EdgeValue<State>> edges,
+                   Set<String> interruptsBefore,
+                   Set<String> interruptsAfter,
+                   String interruptAfterId ) {
+        requireNonNull( nodes, "nodes cannot be null" );
+        requireNonNull( edges, "edges cannot be null" );
+
+        final var ids = new LinkedHashMap<String,Integer>();
+        ids.put( START, START_INDEX );
+        ids.put( END, END_INDEX );
+        ids.put( requireNonNull( interruptAfterId, "interruptAfterId cannot be null" ), INTERRUPT_AFTER_INDEX );
+        nodes.keySet().forEach( id -> ids.putIfAbsent( id, ids.size() ) );
+        edges.forEach( ( sourceId, edge ) -> {
+            ids.putIfAbsent( sourceId, ids.size() );
+            if( edge.id() != null ) {
+                ids.putIfAbsent( edge.id(), ids.size() );
+            }
+            else if( edge.value() != null ) {
+                edge.value().mappings().values().forEach( id -> ids.putIfAbsent( id, ids.size() ) );
+            }
+        });
+
+        this.ids = ids.keySet().toArray( String[]::new );
+        this.indexes = Map.copyOf( ids );
+        this.actions = new AsyncNodeActionWithConfig[ this.ids.length ];
+        this.targets = new int[ this.ids.length ];
+        this.conditions = new EdgeCondition[ this.ids.length ];
+        this.routes = new Map[ this.ids.length ];
+
+        nodes.forEach( ( id, action ) -> actions[ ids.get(id) ] = action );
+
+        Arrays.fill( targets, NONE );
+        edges.forEach( ( sourceId, edge ) -> {
+            final int source = ids.get( sourceId );
+            if( edge.id() != null ) {
+                targets[source] = ids.get( edge.id() );
+            }
+            else if( edge.value() != null ) {
+                conditions[source] = edge.value();
+                final var mappings = new HashMap<String,Integer>();
+                edge.value().mappings().forEach( ( route, target ) -> mappings.put( route, ids.get(target) ) );
+                routes[source] = mappings;
+            }
+        });
+
+        this.interruptsBefore = bitSetOf( interruptsBefore );
+        this.interruptsAfter = bitSetOf( interruptsAfter );
+    }
+
+    private BitSet bitSetOf( Set<String> nodeIds ) {
+        final var result = new BitSet( ids.length );
+        for( var id : requireNonNull( nodeIds, "nodeIds cannot be null" ) ) {
+            final int index = indexOf( id );
+            if( index >= 0 ) {
+                result.set( index );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param id the node id, can be null
+     * @return the index of the node, {@link #NONE} if the id is null or {@link #UNKNOWN} if it is not in the plan
+     */
+    int indexOf( String id ) {
+        if( id == null ) {
+            return NONE;
+        }
+        final var result = indexes.get( id );
+        return ( result != null ) ? result : UNKNOWN;
+    }
+
+    /**
+     * @param index the index of a node of the plan or {@link #NONE}
+     * @return the node id, null for {@link #NONE}
+     */
+    String idOf( int index ) {
+        return ( index == NONE ) ? null : ids[index];
+    }
+
+    /**
+     * @param index the index of the node
+     * @return the action of the node, null if it is not a node with an action
+     */
+    AsyncNodeActionWithConfig<State> action( int index ) {
+        return ( index >= 0 ) ? actions[index] : null;
+    }
+
+    /**
+     * @param index the index of the source node
+     * @return the index of the target of the edge, {@link #NONE} if the edge is conditional or missing
+     */
+    int target( int index ) {
+        return ( index >= 0 ) ? targets[index] : NONE;
+    }
+
+    /**
+     * @param index the index of the source node
+     * @return the condition of the edge, null if the edge is not conditional or missing
+     */
+    EdgeCondition<State> condition( int index ) {
+        return ( index >= 0 ) ? conditions[index] : null;
+    }
+
+    /**
+     * @param index the index of the source node of a conditional edge
+     * @param route the route returned by the condition
+     * @return the index of the target mapped to the route, {@link #NONE} if it is not mapped
+     */
+    int route( int index, String route ) {
+        final var result = routes[index].get( route );
+        return ( result != null ) ? result : NONE;
+    }
+
+    boolean interruptsBefore( int index ) {
+        return index >= 0 && interruptsBefore.get( index );
+    }
+
+    boolean interruptsAfter( int index ) {
+        return index >= 0 && interruptsAfter.get( index );
+    }
+
+    /**
+     * @return the number of node ids of the plan
+     */
+    int size() {
+        return ids.length;
+    }
+}
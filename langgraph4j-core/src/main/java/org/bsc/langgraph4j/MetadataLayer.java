@@ -0,0 +1,113 @@
+package org.bsc.langgraph4j;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable metadata made of a few entries overlaying the metadata of a parent configuration, so that updating the
+ * metadata of a {@link RunnableConfig} at each step, e.g. with {@link RunnableConfig#NODE_ID}, doesn't copy the
+ * parent entries.
+ * <p>
+ * The lookups check the overlay entries and then the parent. The whole map is merged only when it is iterated.
+ * A layer over too many other layers is merged at once, so that the lookups stay bounded.
+ */
+final class MetadataLayer extends AbstractMap<String,Object> {
+
+    static final int MAX_DEPTH = 8;
+
+    private final Map<String,Object> parent;
+    private final String[] keys;
+    private final Object[] values;
+    private final int depth;
+    // merged entries, computed on first iteration
+    private Map<String,Object> merged;
+
+    /**
+     * Returns the given metadata overlaid by the given entries.
+     *
+     * @param parent the metadata of the parent configuration, can be null
+     * @param overlay the new entries, replacing the parent ones with the same key
+     * @return the layered metadata
+     * @throws NullPointerException if a key or a value of the overlay is null
+     */
+    static Map<String,Object> of( Map<String,Object> parent, Map<String,Object> overlay ) {
+        if( parent == null || parent.isEmpty() ) {
+            return Map.copyOf( overlay );
+        }
+        final int depth = ( parent instanceof MetadataLayer layer ) ? layer.depth + 1 : 1;
+        if( depth > MAX_DEPTH ) {
+            final var result = new HashMap<>( parent );
+            result.putAll( overlay );
+            return Map.copyOf( result );
+        }
+        return new MetadataLayer( parent, overlay, depth );
+    }
+
+    private MetadataLayer( Map<String,Object> parent, Map<String,Object> overlay, int depth ) {
+        this.parent = parent;
+        this.depth = depth;
+        this.keys = new String[ overlay.size() ];
+        this.values = new Object[ overlay.size() ];
+        int i = 0;
+        for( var entry : overlay.entrySet() ) {
+            keys[i] = requireNonNull( entry.getKey(), "metadata key cannot be null" );
+            values[i++] = requireNonNull( entry.getValue(), "metadata value cannot be null" );
+        }
+    }
+
+    @Override
+    public Object get( Object key ) {
+        for( int i = 0; i < keys.length; ++i ) {
+            if( keys[i].equals( key ) ) {
+                return values[i];
+            }
+        }
+        return parent.get( key );
+    }
+
+    @Override
+    public boolean containsKey( Object key ) {
+        for( String k : keys ) {
+            if( k.equals( key ) ) {
+                return true;
+            }
+        }
+        return parent.containsKey( key );
+    }
+
+    private Map<String,Object> merged() {
+        var result = merged;
+        if( result == null ) {
+            final var entries = new HashMap<>( parent );
+            for( int i = 0; i < keys.length; ++i ) {
+                entries.put( keys[i], values[i] );
+            }
+            merged = result = Map.copyOf( entries );
+        }
+        return result;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return merged().entrySet();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return merged().keySet();
+    }
+
+    @Override
+    public int size() {
+        return merged().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+}
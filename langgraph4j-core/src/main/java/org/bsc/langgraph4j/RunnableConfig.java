@@ -34,6 +34,7 @@ public final class RunnableConfig implements HasMetadata {
     private final String nextNode;
     private final CompiledGraph.StreamMode streamMode;
     private final Map<String,Object> metadata;
+    private final Executor executor;
 
     /**
      * Returns the stream mode of the compiled graph.
@@ -69,6 +70,16 @@ public final class RunnableConfig implements HasMetadata {
         return ofNullable(nextNode);
     }
 
+    /**
+     * Returns the executor of the run, overriding the one of the {@link CompileConfig}.
+     *
+     * @return an {@link Optional} containing the executor, or an empty {@link Optional} if not set
+     * @see CompileConfig.Builder#executor(Executor)
+     */
+    public Optional<Executor> executor() {
+        return ofNullable(executor);
+    }
+
     /**
      * Create a new RunnableConfig with the same attributes as this one
      * but with a different {@link CompiledGraph.StreamMode}.
@@ -80,9 +91,7 @@ public final class RunnableConfig implements HasMetadata {
             return this;
         }
 
-        return RunnableConfig.builder(this)
-                .streamMode(streamMode)
-                .build();
+        return new RunnableConfig( this, checkPointId, streamMode, metadata );
     }
 
     /**
@@ -96,14 +105,13 @@ public final class RunnableConfig implements HasMetadata {
         if( Objects.equals(this.checkPointId, checkPointId ) ) {
             return this;
         }
-        return RunnableConfig.builder(this)
-                .checkPointId(checkPointId)
-                .build();
+        return new RunnableConfig( this, checkPointId, streamMode, metadata );
 
     }
 
     /**
      * Updates the metadata of the configuration with the provided new metadata.
+     * The new entries overlay the metadata of this configuration, that is not copied.
      *
      * @param newMetadata The map containing the new metadata to be merged.
      * @return A new {@code RunnableConfig} instance with updated metadata, or the current instance if no changes are needed.
@@ -112,9 +120,7 @@ public final class RunnableConfig implements HasMetadata {
 
         if( newMetadata == null || newMetadata.isEmpty() ) return this;
 
-        return new RunnableConfig.Builder( this)
-                .putMetadata( newMetadata )
-                .build();
+        return new RunnableConfig( this, checkPointId, streamMode, MetadataLayer.of( metadata, newMetadata ) );
     }
 
     @Override
@@ -184,6 +190,7 @@ public final class RunnableConfig implements HasMetadata {
         private String checkPointId;
         private String nextNode;
         private CompiledGraph.StreamMode streamMode = CompiledGraph.StreamMode.VALUES;
+        private Executor executor;
 
         /**
          * Constructs a new instance of the {@link Builder} with default configuration settings.
@@ -201,6 +208,7 @@ public final class RunnableConfig implements HasMetadata {
             this.checkPointId   = config.checkPointId;
             this.nextNode       = config.nextNode;
             this.streamMode     = config.streamMode;
+            this.executor       = config.executor;
 
         }
 
@@ -245,6 +253,18 @@ public final class RunnableConfig implements HasMetadata {
             return this;
         }
 
+        /**
+         * Sets the executor of the run, overriding the one of the {@link CompileConfig}.
+         *
+         * @param executor the executor of the run, null to use the one of the {@link CompileConfig}
+         * @return this {@code Builder} instance for method chaining.
+         * @see CompileConfig.Builder#executor(Executor)
+         */
+        public Builder executor( Executor executor ) {
+            this.executor = executor;
+            return this;
+        }
+
         /**
          * Adds a custom {@link Executor} for a specific parallel node.
          * <p>
@@ -280,11 +300,24 @@ public final class RunnableConfig implements HasMetadata {
         this.checkPointId   = builder.checkPointId;
         this.nextNode       = builder.nextNode;
         this.streamMode     = builder.streamMode;
+        this.executor       = builder.executor;
         this.metadata       = ofNullable(builder.metadata())
                                 .map( Map::copyOf )
                                 .orElse(null);
     }
 
+    /**
+     * Creates a copy of the given configuration sharing its immutable metadata.
+     */
+    private RunnableConfig( RunnableConfig config, String checkPointId, CompiledGraph.StreamMode streamMode, Map<String,Object> metadata ) {
+        this.threadId       = config.threadId;
+        this.checkPointId   = checkPointId;
+        this.nextNode       = config.nextNode;
+        this.streamMode     = streamMode;
+        this.executor       = config.executor;
+        this.metadata       = metadata;
+    }
+
     @Override
     public String toString() {
         return  format("RunnableConfig{ threadId=%s, checkPointId=%s, nextNode=%s, streamMode=%s }" ,
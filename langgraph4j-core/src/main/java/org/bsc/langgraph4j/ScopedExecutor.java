@@ -0,0 +1,139 @@
+package org.bsc.langgraph4j;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Executor scoping the tasks of a graph run on the executor given by {@link CompileConfig.Builder#executor(Executor)}
+ * or {@link RunnableConfig.Builder#executor(Executor)}, that is shared by the runs.
+ * <p>
+ * The cancellation of the run shuts down the executor of its generator (see
+ * {@link org.bsc.async.AsyncGenerator.IsCancellable#cancel(boolean)}): {@link #shutdownNow()} interrupts just the
+ * threads running the tasks of this scope, the tasks not started yet run interrupted, and the shared executor
+ * is left running. A task doesn't leave its thread interrupted once completed, so the thread can be reused.
+ */
+final class ScopedExecutor extends AbstractExecutorService {
+
+    // the scope of the task run by the current thread, if any
+    private static final ThreadLocal<ScopedExecutor> CURRENT = new ThreadLocal<>();
+
+    private final Executor delegate;
+    private final Set<Thread> running = new HashSet<>();
+    private int pending = 0;
+    private boolean shutdown = false;
+    private boolean cancelled = false;
+
+    ScopedExecutor( Executor delegate ) {
+        this.delegate = requireNonNull( delegate, "delegate cannot be null" );
+    }
+
+    /**
+     * @return true if the current thread is running a task of a scope, so that it can run the next tasks itself
+     */
+    static boolean inScope() {
+        return CURRENT.get() != null;
+    }
+
+    @Override
+    public void execute( Runnable task ) {
+        requireNonNull( task, "task cannot be null" );
+        synchronized( this ) {
+            if( shutdown ) {
+                throw new RejectedExecutionException( "graph run has been cancelled" );
+            }
+            ++pending;
+        }
+        try {
+            delegate.execute( () -> run( task ) );
+        }
+        catch( RuntimeException ex ) {
+            completed();
+            throw ex;
+        }
+    }
+
+    private void run( Runnable task ) {
+        final var thread = Thread.currentThread();
+        final var outer = CURRENT.get();
+        synchronized( this ) {
+            running.add( thread );
+            if( cancelled ) {
+                thread.interrupt();
+            }
+        }
+        CURRENT.set( this );
+        try {
+            task.run();
+        }
+        finally {
+            if( outer != null ) {
+                CURRENT.set( outer );
+            }
+            else {
+                CURRENT.remove();
+            }
+            synchronized( this ) {
+                running.remove( thread );
+                if( cancelled ) {
+                    Thread.interrupted();
+                }
+            }
+            completed();
+        }
+    }
+
+    private synchronized void completed() {
+        if( --pending == 0 && shutdown ) {
+            notifyAll();
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+    }
+
+    /**
+     * Cancels the tasks of this scope, interrupting the threads that run them.
+     *
+     * @return an empty list, the tasks submitted to the shared executor run anyway, interrupted
+     */
+    @Override
+    public synchronized List<Runnable> shutdownNow() {
+        shutdown = true;
+        cancelled = true;
+        running.forEach( Thread::interrupt );
+        return List.of();
+    }
+
+    @Override
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+        return shutdown && pending == 0;
+    }
+
+    @Override
+    public synchronized boolean awaitTermination( long timeout, TimeUnit unit ) throws InterruptedException {
+        long remaining = unit.toNanos( timeout );
+        final long deadline = System.nanoTime() + remaining;
+        while( !isTerminated() ) {
+            if( remaining <= 0 ) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait( this, remaining );
+            remaining = deadline - System.nanoTime();
+        }
+        return true;
+    }
+}
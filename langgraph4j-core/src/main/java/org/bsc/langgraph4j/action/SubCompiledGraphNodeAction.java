@@ -51,12 +51,10 @@ public record SubCompiledGraphNodeAction<State extends AgentState>(
         final boolean resumeSubgraph = config.metadata( resumeSubGraphId(), new TypeRef<Boolean>() {} )
                                         .orElse( false );
 
-        final var subGraphRunnableConfigBuilder = RunnableConfig.builder(config)
-                    .putMetadata(RunnableConfig.GRAPH_PATH, config.graphPath().append(nodeId));
-        subGraph.compileConfig.graphId()
-                .ifPresent( id ->
-                        subGraphRunnableConfigBuilder.putMetadata(RunnableConfig.GRAPH_ID, id));
-        var subGraphRunnableConfig = subGraphRunnableConfigBuilder.build();
+        final var graphPath = config.graphPath().append(nodeId);
+        var subGraphRunnableConfig = subGraph.compileConfig.graphId()
+                .map( id -> config.updateMetadata( Map.of( RunnableConfig.GRAPH_PATH, graphPath, RunnableConfig.GRAPH_ID, id ) ) )
+                .orElseGet( () -> config.updateMetadata( Map.of( RunnableConfig.GRAPH_PATH, graphPath ) ) );
 
         final var parentSaver   = parentCompileConfig.checkpointSaver();
         final var subGraphSaver = subGraph.compileConfig.checkpointSaver();
@@ -0,0 +1,198 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Adapter that runs the operations of a {@link BaseCheckpointSaver} on an {@link Executor}, so the caller doesn't
+ * block on the storage latency.
+ * <p>
+ * The operations on the same thread id are run one at a time, in the order they are submitted, so a read always
+ * sees the writes submitted before it. The operations on different threads run in parallel.
+ * The synchronous methods submit the operation and wait for its completion.
+ * <pre>
+ * var saver = AsyncCheckpointSaver.of( PostgresSaver.builder()...build(), executor );
+ * var app = workflow.compile( CompileConfig.builder().checkpointSaver(saver).build() );
+ * </pre>
+ * Given such a saver, the graph writes the checkpoint of a step while the next node is running.
+ */
+public class AsyncCheckpointSaver implements BaseCheckpointSaver {
+
+    @FunctionalInterface
+    private interface Operation<T> {
+        T call() throws Exception;
+    }
+
+    private final BaseCheckpointSaver delegate;
+    private final Executor executor;
+    // last operation submitted, by thread
+    private final ConcurrentHashMap<String, CompletableFuture<?>> lastOperations = new ConcurrentHashMap<>();
+
+    protected AsyncCheckpointSaver( BaseCheckpointSaver delegate, Executor executor ) {
+        this.delegate = requireNonNull( delegate, "delegate cannot be null" );
+        this.executor = requireNonNull( executor, "executor cannot be null" );
+    }
+
+    /**
+     * Creates an asynchronous saver running the operations on the given executor.
+     *
+     * @param saver the saver to adapt
+     * @param executor the executor running the operations
+     * @return the asynchronous saver
+     */
+    public static AsyncCheckpointSaver of( BaseCheckpointSaver saver, Executor executor ) {
+        if( saver instanceof AsyncCheckpointSaver async && async.executor == executor ) {
+            return async;
+        }
+        return new AsyncCheckpointSaver( saver, executor );
+    }
+
+    /**
+     * Creates an asynchronous saver running the operations on the {@link ForkJoinPool#commonPool()}.
+     * A dedicated executor is advisable for the savers performing blocking I/O.
+     *
+     * @param saver the saver to adapt
+     * @return the asynchronous saver
+     */
+    public static AsyncCheckpointSaver of( BaseCheckpointSaver saver ) {
+        return of( saver, ForkJoinPool.commonPool() );
+    }
+
+    /**
+     * @return the adapted saver
+     */
+    public BaseCheckpointSaver delegate() {
+        return delegate;
+    }
+
+    private <T> CompletableFuture<T> submit( RunnableConfig config, Operation<T> operation ) {
+        final var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
+        final var result = new CompletableFuture<T>();
+
+        final var previous = lastOperations.put( threadId, result );
+
+        final Runnable task = () -> {
+            try {
+                result.complete( operation.call() );
+            } catch (Throwable ex) {
+                result.completeExceptionally( ex );
+            } finally {
+                lastOperations.remove( threadId, result );
+            }
+        };
+
+        final Runnable submitTask = () -> {
+            try {
+                executor.execute( task );
+            } catch (RejectedExecutionException ex) {
+                lastOperations.remove( threadId, result );
+                result.completeExceptionally( ex );
+            }
+        };
+
+        if( previous == null ) {
+            submitTask.run();
+        }
+        else {
+            // the failure of the previous operation doesn't prevent this one
+            previous.whenComplete( (value, ex) -> submitTask.run() );
+        }
+        return result;
+    }
+
+    private static <T> T await( CompletableFuture<T> future ) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            if( ex.getCause() instanceof Exception cause ) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private static <T> T join( CompletableFuture<T> future ) {
+        try {
+            return await( future );
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new RuntimeException( ex );
+        }
+    }
+
+    @Override
+    public CompletableFuture<Collection<Checkpoint>> listAsync( RunnableConfig config ) {
+        return submit( config, () -> delegate.list( config ) );
+    }
+
+    @Override
+    public CompletableFuture<Optional<Checkpoint>> getAsync( RunnableConfig config ) {
+        return submit( config, () -> delegate.get( config ) );
+    }
+
+    @Override
+    public CompletableFuture<RunnableConfig> putAsync( RunnableConfig config, Checkpoint checkpoint ) {
+        return submit( config, () -> delegate.put( config, checkpoint ) );
+    }
+
+    /**
+     * Submits the storage of the given new checkpoints, see {@link BaseCheckpointSaver#putAll(RunnableConfig, List)}.
+     *
+     * @param config the configuration of the thread, without checkpoint id
+     * @param checkpoints the checkpoints to store, oldest first
+     * @return a future completed with the configuration updated with the id of the last stored checkpoint
+     */
+    public CompletableFuture<RunnableConfig> putAllAsync( RunnableConfig config, List<Checkpoint> checkpoints ) {
+        return submit( config, () -> delegate.putAll( config, checkpoints ) );
+    }
+
+    @Override
+    public CompletableFuture<Tag> releaseAsync( RunnableConfig config ) {
+        return submit( config, () -> delegate.release( config ) );
+    }
+
+    @Override
+    public CompletableFuture<Void> flushAsync( RunnableConfig config ) {
+        return submit( config, () -> {
+            delegate.flush( config );
+            return null;
+        });
+    }
+
+    @Override
+    public Collection<Checkpoint> list( RunnableConfig config ) {
+        return join( listAsync( config ) );
+    }
+
+    @Override
+    public Optional<Checkpoint> get( RunnableConfig config ) {
+        return join( getAsync( config ) );
+    }
+
+    @Override
+    public RunnableConfig put( RunnableConfig config, Checkpoint checkpoint ) throws Exception {
+        return await( putAsync( config, checkpoint ) );
+    }
+
+    @Override
+    public RunnableConfig putAll( RunnableConfig config, List<Checkpoint> checkpoints ) throws Exception {
+        return await( putAllAsync( config, checkpoints ) );
+    }
+
+    @Override
+    public Tag release( RunnableConfig config ) throws Exception {
+        return await( releaseAsync( config ) );
+    }
+
+    @Override
+    public void flush( RunnableConfig config ) throws Exception {
+        await( flushAsync( config ) );
+    }
+}
@@ -3,7 +3,10 @@ package org.bsc.langgraph4j.checkpoint;
 import org.bsc.langgraph4j.RunnableConfig;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.failedFuture;
 import static java.util.Optional.ofNullable;
 
 public interface BaseCheckpointSaver {
@@ -24,4 +27,119 @@ public interface BaseCheckpointSaver {
 
     Tag release(RunnableConfig config) throws Exception;
 
+    /**
+     * Stores the given new checkpoints of the thread, in order, as consecutive calls to
+     * {@link #put(RunnableConfig, Checkpoint)} would do. A saver backed by a store can write them together.
+     *
+     * @param config the configuration of the thread, without checkpoint id
+     * @param checkpoints the checkpoints to store, oldest first
+     * @return the configuration updated with the id of the last stored checkpoint
+     * @throws IllegalArgumentException if the configuration has a checkpoint id
+     * @throws Exception if the checkpoints cannot be stored
+     */
+    default RunnableConfig putAll(RunnableConfig config, List<Checkpoint> checkpoints) throws Exception {
+        if (config.checkPointId().isPresent()) {
+            throw new IllegalArgumentException("putAll cannot replace a checkpoint, the configuration must not have a checkpoint id");
+        }
+        var result = config;
+        for (var checkpoint : checkpoints) {
+            result = put(config, checkpoint);
+        }
+        return result;
+    }
+
+    /**
+     * Makes durable the checkpoints of the thread that the saver has accepted but not yet stored,
+     * e.g. because it buffers the writes (see {@link BatchingCheckpointSaver}).
+     * The graph calls it before completing or returning an interruption.
+     * The default implementation does nothing, since the checkpoints are stored by {@link #put(RunnableConfig, Checkpoint)}.
+     *
+     * @param config the configuration of the thread
+     * @throws Exception if the checkpoints cannot be stored
+     */
+    default void flush(RunnableConfig config) throws Exception {
+    }
+
+    /**
+     * Asynchronous variant of {@link #list(RunnableConfig)}.
+     * The default implementation runs it in the calling thread.
+     *
+     * @param config the configuration of the thread
+     * @return a future completed with the checkpoints of the thread
+     * @see AsyncCheckpointSaver
+     */
+    default CompletableFuture<Collection<Checkpoint>> listAsync(RunnableConfig config) {
+        try {
+            return completedFuture(list(config));
+        } catch (Exception ex) {
+            return failedFuture(ex);
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #get(RunnableConfig)}.
+     * The default implementation runs it in the calling thread.
+     *
+     * @param config the configuration of the thread
+     * @return a future completed with the requested checkpoint, if any
+     * @see AsyncCheckpointSaver
+     */
+    default CompletableFuture<Optional<Checkpoint>> getAsync(RunnableConfig config) {
+        try {
+            return completedFuture(get(config));
+        } catch (Exception ex) {
+            return failedFuture(ex);
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #put(RunnableConfig, Checkpoint)}.
+     * The default implementation runs it in the calling thread.
+     *
+     * @param config the configuration of the thread
+     * @param checkpoint the checkpoint to store
+     * @return a future completed with the configuration updated with the id of the stored checkpoint
+     * @see AsyncCheckpointSaver
+     */
+    default CompletableFuture<RunnableConfig> putAsync(RunnableConfig config, Checkpoint checkpoint) {
+        try {
+            return completedFuture(put(config, checkpoint));
+        } catch (Exception ex) {
+            return failedFuture(ex);
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #release(RunnableConfig)}.
+     * The default implementation runs it in the calling thread.
+     *
+     * @param config the configuration of the thread
+     * @return a future completed with the released checkpoints
+     * @see AsyncCheckpointSaver
+     */
+    default CompletableFuture<Tag> releaseAsync(RunnableConfig config) {
+        try {
+            return completedFuture(release(config));
+        } catch (Exception ex) {
+            return failedFuture(ex);
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #flush(RunnableConfig)}.
+     * The default implementation runs it in the calling thread.
+     *
+     * @param config the configuration of the thread
+     * @return a future completed when the checkpoints are stored
+     * @see AsyncCheckpointSaver
+     */
+    default CompletableFuture<Void> flushAsync(RunnableConfig config) {
+        try {
+            flush(config);
+            return completedFuture(null);
+        } catch (Exception ex) {
+            return failedFuture(ex);
+        }
+    }
+
 }
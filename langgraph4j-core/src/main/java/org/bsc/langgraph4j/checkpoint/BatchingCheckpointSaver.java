@@ -0,0 +1,483 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Write-behind decorator of a {@link BaseCheckpointSaver}: the checkpoints are buffered in memory, by thread, and
+ * written to the decorated saver in batches.
+ * <p>
+ * The buffer of a thread is flushed when it holds {@code maxBatchSize} checkpoints, when its oldest checkpoint has
+ * waited for {@code maxDelay}, and on {@link #flush(RunnableConfig)}, that the graph calls before completing or
+ * returning an interruption. {@link #release(RunnableConfig)} flushes the thread before releasing it.
+ * The reads are served merging the buffered checkpoints with the stored ones, so they always see the last writes.
+ * <pre>
+ * var saver = BatchingCheckpointSaver.builder()
+ *                  .delegate( PostgresSaver.builder()...build() )
+ *                  .maxBatchSize( 32 )
+ *                  .maxDelay( Duration.ofMillis(500) )
+ *                  .build();
+ * </pre>
+ * The buffered checkpoints are lost if the process stops before they are flushed.
+ * A failure of a flush triggered by {@code maxDelay} is thrown by the next operation on the thread.
+ * The buffer of a thread is dropped once empty, so the idle threads don't hold memory.
+ * <p>
+ * {@link #prune(CheckpointRetentionPolicy)} flushes all the buffers and then prunes the decorated saver,
+ * that must implement {@link HasRetention}.
+ */
+public class BatchingCheckpointSaver implements BaseCheckpointSaver, HasRetention, AutoCloseable {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(BatchingCheckpointSaver.class);
+
+    /**
+     * A put waiting to be written to the decorated saver.
+     */
+    private record PendingPut( RunnableConfig config, Checkpoint checkpoint ) {
+
+        boolean isReplace() {
+            return config.checkPointId().isPresent();
+        }
+    }
+
+    /**
+     * The puts of a thread waiting to be written, in order.
+     */
+    private static final class Buffer {
+        final ReentrantLock lock = new ReentrantLock();
+        final ArrayList<PendingPut> puts = new ArrayList<>();
+        ScheduledFuture<?> scheduledFlush;
+        Exception failure;
+    }
+
+    public static class Builder {
+        private BaseCheckpointSaver delegate;
+        private int maxBatchSize = 16;
+        private Duration maxDelay = Duration.ofSeconds(1);
+        private ScheduledExecutorService scheduler;
+
+        /**
+         * Sets the saver that stores the checkpoints.
+         *
+         * @param delegate the decorated saver
+         * @return this builder
+         */
+        public Builder delegate(BaseCheckpointSaver delegate) {
+            this.delegate = delegate;
+            return this;
+        }
+
+        /**
+         * Sets the number of buffered checkpoints of a thread that triggers a flush (default {@code 16}).
+         *
+         * @param maxBatchSize the maximum size of a batch
+         * @return this builder
+         */
+        public Builder maxBatchSize(int maxBatchSize) {
+            if (maxBatchSize < 1) {
+                throw new IllegalArgumentException(format("maxBatchSize must be positive but was %d!", maxBatchSize));
+            }
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time a checkpoint stays in the buffer (default 1 second).
+         * {@code null} disables the time based flush.
+         *
+         * @param maxDelay the maximum delay, or null
+         * @return this builder
+         */
+        public Builder maxDelay(Duration maxDelay) {
+            if (maxDelay != null && (maxDelay.isNegative() || maxDelay.isZero())) {
+                throw new IllegalArgumentException(format("maxDelay must be positive but was %s!", maxDelay));
+            }
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * Sets the scheduler running the time based flushes.
+         * If not set, the saver creates a single daemon thread, that is stopped by {@link BatchingCheckpointSaver#close()}.
+         *
+         * @param scheduler the scheduler
+         * @return this builder
+         */
+        public Builder scheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public BatchingCheckpointSaver build() {
+            return new BatchingCheckpointSaver(this);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final BaseCheckpointSaver delegate;
+    private final int maxBatchSize;
+    private final Duration maxDelay;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownedScheduler;
+    private final ConcurrentHashMap<String, Buffer> buffers = new ConcurrentHashMap<>();
+
+    protected BatchingCheckpointSaver( Builder builder ) {
+        this.delegate = requireNonNull( builder.delegate, "delegate cannot be null" );
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxDelay = builder.maxDelay;
+        this.ownedScheduler = builder.scheduler == null && builder.maxDelay != null;
+        this.scheduler = ownedScheduler ?
+                Executors.newSingleThreadScheduledExecutor( runnable -> {
+                    var thread = new Thread( runnable, "checkpoint-batch-flush" );
+                    thread.setDaemon( true );
+                    return thread;
+                }) :
+                builder.scheduler;
+    }
+
+    /**
+     * @return the decorated saver
+     */
+    public BaseCheckpointSaver delegate() {
+        return delegate;
+    }
+
+    /**
+     * @return the number of buffered checkpoints of a thread that triggers a flush
+     */
+    public int maxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @return the maximum time a checkpoint stays in the buffer, if the time based flush is enabled
+     */
+    public Optional<Duration> maxDelay() {
+        return Optional.ofNullable( maxDelay );
+    }
+
+    /**
+     * @return the number of threads holding buffered checkpoints, a pending flush or a failure
+     */
+    int bufferedThreads() {
+        return buffers.size();
+    }
+
+    private static String threadIdOf( RunnableConfig config ) {
+        return config.threadId().orElse( THREAD_ID_DEFAULT );
+    }
+
+    /**
+     * Returns the buffer of the thread locked by the current thread, the caller must unlock it.
+     */
+    private Buffer lockedBuffer( String threadId ) {
+        while( true ) {
+            final var buffer = buffers.computeIfAbsent( threadId, id -> new Buffer() );
+            buffer.lock.lock();
+            // the buffer could have been removed by release while waiting for the lock
+            if( buffers.get( threadId ) == buffer ) {
+                return buffer;
+            }
+            buffer.lock.unlock();
+        }
+    }
+
+    /**
+     * Unlocks the buffer of the thread, dropping it if it holds nothing to write.
+     */
+    private void unlock( String threadId, Buffer buffer ) {
+        try {
+            if( buffer.puts.isEmpty() && buffer.scheduledFlush == null && buffer.failure == null ) {
+                buffers.remove( threadId, buffer );
+            }
+        }
+        finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    private static void throwFailure( Buffer buffer ) throws Exception {
+        if( buffer.failure != null ) {
+            final var failure = buffer.failure;
+            buffer.failure = null;
+            throw failure;
+        }
+    }
+
+    /**
+     * Writes the buffered puts to the decorated saver, in order. The buffer must be locked by the caller.
+     * The consecutive inserts are written together through {@link BaseCheckpointSaver#putAll(RunnableConfig, List)}.
+     * The puts written are removed from the buffer, so a failed flush is resumed from the failed write.
+     */
+    private void flush( Buffer buffer ) throws Exception {
+        if( buffer.scheduledFlush != null ) {
+            buffer.scheduledFlush.cancel( false );
+            buffer.scheduledFlush = null;
+        }
+        final var puts = buffer.puts;
+        while( !puts.isEmpty() ) {
+            final var first = puts.get(0);
+            if( first.isReplace() ) {
+                delegate.put( first.config(), first.checkpoint() );
+                puts.remove(0);
+                continue;
+            }
+            int end = 1;
+            while( end < puts.size() && !puts.get(end).isReplace() ) {
+                ++end;
+            }
+            final var inserts = puts.subList( 0, end );
+            delegate.putAll( first.config(), inserts.stream().map( PendingPut::checkpoint ).toList() );
+            inserts.clear();
+        }
+    }
+
+    private void scheduledFlush( String threadId, Buffer buffer ) {
+        buffer.lock.lock();
+        try {
+            buffer.scheduledFlush = null;
+            flush( buffer );
+        }
+        catch( Exception ex ) {
+            log.warn( "scheduled flush of thread {} failed", threadId, ex );
+            buffer.failure = ex;
+        }
+        finally {
+            unlock( threadId, buffer );
+        }
+    }
+
+    /**
+     * Looks up the buffered checkpoint with the given id.
+     *
+     * @return the checkpoint, an empty optional if a buffered put has replaced it, or null if it isn't buffered
+     */
+    private static Optional<Checkpoint> bufferedCheckpoint( Buffer buffer, String checkPointId ) {
+        for( int i = buffer.puts.size() - 1; i >= 0; --i ) {
+            final var put = buffer.puts.get(i);
+            if( put.checkpoint().getId().equals( checkPointId ) ) {
+                return Optional.of( put.checkpoint() );
+            }
+            if( put.isReplace() && put.config().checkPointId().get().equals( checkPointId ) ) {
+                return Optional.empty();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Collection<Checkpoint> list( RunnableConfig config ) {
+        final var threadId = threadIdOf( config );
+        final var buffer = lockedBuffer( threadId );
+        try {
+            final var stored = delegate.list( config );
+            if( buffer.puts.isEmpty() ) {
+                return stored;
+            }
+            final var result = new LinkedList<>( stored );
+            for( var put : buffer.puts ) {
+                if( !put.isReplace() ) {
+                    result.push( put.checkpoint() );
+                    continue;
+                }
+                final var replacedId = put.config().checkPointId().get();
+                final var iterator = result.listIterator();
+                while( iterator.hasNext() ) {
+                    if( iterator.next().getId().equals( replacedId ) ) {
+                        iterator.set( put.checkpoint() );
+                        break;
+                    }
+                }
+            }
+            return Collections.unmodifiableCollection( result );
+        }
+        finally {
+            unlock( threadId, buffer );
+        }
+    }
+
+    @Override
+    public Optional<Checkpoint> get( RunnableConfig config ) {
+        final var threadId = threadIdOf( config );
+        final var buffer = lockedBuffer( threadId );
+        try {
+            if( config.checkPointId().isPresent() ) {
+                final var buffered = bufferedCheckpoint( buffer, config.checkPointId().get() );
+                return ( buffered != null ) ? buffered : delegate.get( config );
+            }
+            // the last buffered insert is the last checkpoint, the replaces of buffered inserts are merged into them
+            for( int i = buffer.puts.size() - 1; i >= 0; --i ) {
+                final var put = buffer.puts.get(i);
+                if( !put.isReplace() ) {
+                    return Optional.of( put.checkpoint() );
+                }
+            }
+            return delegate.get( config ).map( last -> {
+                var result = last;
+                for( var put : buffer.puts ) {
+                    if( put.config().checkPointId().get().equals( result.getId() ) ) {
+                        result = put.checkpoint();
+                    }
+                }
+                return result;
+            });
+        }
+        finally {
+            unlock( threadId, buffer );
+        }
+    }
+
+    @Override
+    public RunnableConfig put( RunnableConfig config, Checkpoint checkpoint ) throws Exception {
+        requireNonNull( checkpoint, "checkpoint cannot be null" );
+
+        final var threadId = threadIdOf( config );
+        final var buffer = lockedBuffer( threadId );
+        try {
+            throwFailure( buffer );
+
+            if( config.checkPointId().isPresent() ) { // Replace Checkpoint
+                final var checkPointId = config.checkPointId().get();
+                // a buffered insert is replaced in place, so it is written once
+                final var iterator = buffer.puts.listIterator();
+                while( iterator.hasNext() ) {
+                    final var put = iterator.next();
+                    if( !put.isReplace() && put.checkpoint().getId().equals( checkPointId ) ) {
+                        iterator.set( new PendingPut( put.config(), checkpoint ) );
+                        return config;
+                    }
+                }
+                buffer.puts.add( new PendingPut( config, checkpoint ) );
+            }
+            else {
+                buffer.puts.add( new PendingPut( config, checkpoint ) );
+            }
+
+            if( buffer.puts.size() >= maxBatchSize ) {
+                flush( buffer );
+            }
+            else if( maxDelay != null && buffer.scheduledFlush == null ) {
+                buffer.scheduledFlush = scheduler.schedule( () -> scheduledFlush( threadId, buffer ),
+                                                            maxDelay.toNanos(),
+                                                            TimeUnit.NANOSECONDS );
+            }
+
+            return config.checkPointId().isPresent() ?
+                    config :
+                    RunnableConfig.builder(config)
+                        .checkPointId(checkpoint.getId())
+                        .build();
+        }
+        finally {
+            unlock( threadId, buffer );
+        }
+    }
+
+    @Override
+    public void flush( RunnableConfig config ) throws Exception {
+        final var threadId = threadIdOf( config );
+        final var buffer = lockedBuffer( threadId );
+        try {
+            throwFailure( buffer );
+            flush( buffer );
+        }
+        finally {
+            unlock( threadId, buffer );
+        }
+    }
+
+    @Override
+    public Tag release( RunnableConfig config ) throws Exception {
+        final var threadId = threadIdOf( config );
+        final var buffer = lockedBuffer( threadId );
+        try {
+            throwFailure( buffer );
+            flush( buffer );
+            final var tag = delegate.release( config );
+            buffers.remove( threadId, buffer );
+            return tag;
+        }
+        finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the buffers of all the threads. The buffers created meanwhile are not flushed.
+     *
+     * @return the failure of the first flush that has failed, or null
+     */
+    private Exception flushAll() {
+        Exception failure = null;
+        for( var entry : List.copyOf( buffers.entrySet() ) ) {
+            final var threadId = entry.getKey();
+            final var buffer = entry.getValue();
+            buffer.lock.lock();
+            try {
+                // the buffer could have been flushed and dropped while waiting for the lock
+                if( buffers.get( threadId ) != buffer ) {
+                    continue;
+                }
+                throwFailure( buffer );
+                flush( buffer );
+            }
+            catch( Exception ex ) {
+                if( failure == null ) {
+                    failure = ex;
+                }
+                else {
+                    failure.addSuppressed( ex );
+                }
+            }
+            finally {
+                unlock( threadId, buffer );
+            }
+        }
+        return failure;
+    }
+
+    /**
+     * Flushes the buffers of all the threads and prunes the decorated saver.
+     *
+     * @param policy the retention policy
+     * @return the number of threads and checkpoints deleted by the decorated saver
+     * @throws UnsupportedOperationException if the decorated saver doesn't implement {@link HasRetention}
+     * @throws Exception the failure of the first flush that has failed, or of the prune
+     */
+    @Override
+    public PruneResult prune( CheckpointRetentionPolicy policy ) throws Exception {
+        requireNonNull( policy, "policy cannot be null" );
+        if( !( delegate instanceof HasRetention retention ) ) {
+            throw new UnsupportedOperationException( format("saver %s doesn't support retention", delegate.getClass().getName()) );
+        }
+        final var failure = flushAll();
+        if( failure != null ) {
+            throw failure;
+        }
+        return retention.prune( policy );
+    }
+
+    /**
+     * Flushes the buffers of all the threads and stops the scheduler created by the saver, if any.
+     *
+     * @throws Exception the failure of the first flush that has failed
+     */
+    @Override
+    public void close() throws Exception {
+        final var failure = flushAll();
+        if( ownedScheduler ) {
+            scheduler.shutdownNow();
+        }
+        if( failure != null ) {
+            throw failure;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package org.bsc.langgraph4j.checkpoint;
 
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.Channel;
+import org.bsc.langgraph4j.state.StateCloner;
+import org.bsc.langgraph4j.utils.PersistentList;
 
 import java.util.*;
 
@@ -13,15 +15,54 @@ import static java.util.Objects.requireNonNull;
  * The checkpoint is an immutable object that holds an {@link AgentState}
  * and a {@code String} that represents the next state.
  * The checkpoint is serializable and can be persisted and restored.
+ * <p>
+ * A checkpoint can also be stored as a <em>delta</em> that holds only the state entries changed since the
+ * previous checkpoint of the same thread, the removed entries being mapped to {@code null}.
+ * The full state is rebuilt by applying the deltas to the closest previous full checkpoint (the <em>keyframe</em>).
+ * A list that only grew since the previous checkpoint, as the messages of an appender channel do, is held by
+ * the delta as {@link Appended}, i.e. just the appended elements, so the deltas share the elements already stored.
  *
  * @see AgentState
  */
 public class Checkpoint {
 
+    /**
+     * Change of a delta checkpoint holding the elements appended to the list of the previous checkpoint.
+     *
+     * @param offset the size of the list of the previous checkpoint
+     * @param values the appended elements
+     */
+    public record Appended( int offset, List<Object> values ) {
+
+        public Appended {
+            if( offset < 0 ) {
+                throw new IllegalArgumentException( format("offset cannot be negative: %d", offset) );
+            }
+            requireNonNull( values, "values cannot be null" );
+        }
+
+        /**
+         * Rebuilds the list appending the values to the list of the previous checkpoint.
+         * A {@link PersistentList} shares its elements with the returned list.
+         *
+         * @param previous the list of the previous checkpoint
+         * @return the list holding the previous elements followed by the appended ones
+         * @throws IllegalStateException if the previous list doesn't have the expected size
+         */
+        public List<Object> appendTo( Object previous ) {
+            if( !(previous instanceof List<?> list) || list.size() != offset ) {
+                throw new IllegalStateException( format("appended values expect a list of %d elements, found %s", offset,
+                        ( previous instanceof List<?> l ) ? l.size() + " elements" : previous ) );
+            }
+            return PersistentList.<Object>copyOf( list ).plusAll( values );
+        }
+    }
+
     private final String id;
     private Map<String,Object> state = null;
     private String nodeId = null ;
     private String nextNodeId = null;
+    private boolean delta = false;
 
     public String getId() { return id; }
 
@@ -37,6 +78,15 @@ public class Checkpoint {
         return nextNodeId;
     }
 
+    /**
+     * Tells whether the state of this checkpoint holds only the entries changed since the previous checkpoint.
+     *
+     * @return true if this checkpoint is a delta, false if it holds the full state
+     */
+    public boolean isDelta() {
+        return delta;
+    }
+
     /**
      * create a copy of given checkpoint with a new id
      * @param checkpoint value from which copy is created
@@ -47,15 +97,17 @@ public class Checkpoint {
         return new Checkpoint( UUID.randomUUID().toString(),
                                 checkpoint.state,
                                 checkpoint.nodeId,
-                                checkpoint.nextNodeId);
+                                checkpoint.nextNodeId,
+                                checkpoint.delta);
     }
 
-    private Checkpoint( String id, Map<String,Object> state, String nodeId, String nextNodeId ) {
+    private Checkpoint( String id, Map<String,Object> state, String nodeId, String nextNodeId, boolean delta ) {
 
         this.id = requireNonNull( id, "id cannot be null" );
         this.state =  requireNonNull( state, "state cannot be null" );
         this.nodeId = requireNonNull( nodeId, "nodeId cannot be null" );
         this.nextNodeId =  requireNonNull( nextNodeId, "Checkpoint.nextNodeId cannot be null" );
+        this.delta = delta;
 
     }
 
@@ -68,6 +120,7 @@ public class Checkpoint {
         private Map<String,Object> state = null;
         private String nodeId = null ;
         private String nextNodeId = null;
+        private boolean delta = false;
 
         public Builder id( String id ) {
             this.id = id;
@@ -90,11 +143,17 @@ public class Checkpoint {
             return this;
         }
 
+        public Builder delta( boolean delta ) {
+            this.delta = delta;
+            return this;
+        }
+
         public Checkpoint build() {
             return new Checkpoint(  id,
                                     state,
                                     nodeId,
-                                    nextNodeId );
+                                    nextNodeId,
+                                    delta );
         }
     }
 
@@ -105,18 +164,108 @@ public class Checkpoint {
 
     public Checkpoint updateState(Map<String,Object> values, Map<String, Channel<?>> channels, String nextNodeId ) {
 
+        if( delta ) {
+            throw new IllegalStateException( format("Checkpoint %s is a delta, it must be restored before updating its state!", id) );
+        }
         return new Checkpoint( this.id,
                 AgentState.updateState( this.state, values, channels ),
                 this.nodeId,
-                requireNonNull(nextNodeId, "nextNodeId cannot be null") );
+                requireNonNull(nextNodeId, "nextNodeId cannot be null"),
+                false );
+    }
+
+    /**
+     * Creates the delta of this checkpoint with respect to the state of the previous checkpoint.
+     * A list that starts with the elements of the previous one is held as {@link Appended}.
+     *
+     * @param parentState the full state of the previous checkpoint
+     * @return a new delta checkpoint with the same id
+     * @throws IllegalStateException if this checkpoint is already a delta
+     */
+    public Checkpoint toDelta( Map<String,Object> parentState ) {
+        requireNonNull( parentState, "parentState cannot be null" );
+        if( delta ) {
+            throw new IllegalStateException( format("Checkpoint %s is already a delta!", id) );
+        }
+        final var changes = new HashMap<String,Object>();
+        for( var entry : state.entrySet() ) {
+            final var key = entry.getKey();
+            if( !parentState.containsKey(key) ) {
+                changes.put( key, entry.getValue() );
+                continue;
+            }
+            final var parentValue = parentState.get(key);
+            final var value = entry.getValue();
+            if( parentValue instanceof List<?> parentList && value instanceof List<?> list
+                    && list.size() > parentList.size() && !parentList.isEmpty()
+                    && startsWith( list, parentList ) ) {
+                changes.put( key, new Appended( parentList.size(),
+                        Collections.unmodifiableList( new ArrayList<>( list.subList( parentList.size(), list.size() ) ) ) ) );
+            }
+            else if( !Objects.equals(parentValue, value) ) {
+                changes.put( key, value );
+            }
+        }
+        for( var key : parentState.keySet() ) {
+            if( !state.containsKey(key) ) {
+                changes.put( key, null );
+            }
+        }
+        return new Checkpoint( id, changes, nodeId, nextNodeId, true );
+    }
+
+    /**
+     * Checks whether the list starts with the elements of the given prefix.
+     * Two {@link PersistentList}, also wrapped in the views of {@link StateCloner#copyOnWrite()}, are compared
+     * through their shared structure, the other lists element by element.
+     */
+    private static boolean startsWith( List<?> list, List<?> prefix ) {
+        if( StateCloner.unwrap( list ) instanceof PersistentList<?> persistentList
+                && StateCloner.unwrap( prefix ) instanceof PersistentList<?> persistentPrefix ) {
+            return persistentList.startsWith( persistentPrefix );
+        }
+        return list.subList( 0, prefix.size() ).equals( prefix );
+    }
+
+    /**
+     * Restores the full state of this checkpoint applying its changes to the state of the previous checkpoint.
+     * A list restored from {@link Appended} values is a {@link PersistentList}, whatever the type of the list
+     * the delta was computed from: it is equal to that list, as required by {@link List#equals(Object)}.
+     *
+     * @param parentState the full state of the previous checkpoint
+     * @return a new full checkpoint with the same id, or this checkpoint if it is not a delta
+     */
+    public Checkpoint toKeyframe( Map<String,Object> parentState ) {
+        requireNonNull( parentState, "parentState cannot be null" );
+        if( !delta ) {
+            return this;
+        }
+        var changes = state;
+        if( holdsAppended() ) {
+            changes = new HashMap<>( state );
+            for( var entry : changes.entrySet() ) {
+                if( entry.getValue() instanceof Appended appended ) {
+                    entry.setValue( appended.appendTo( parentState.get( entry.getKey() ) ) );
+                }
+            }
+        }
+        return new Checkpoint( id, AgentState.updateState( parentState, changes, null ), nodeId, nextNodeId, false );
+    }
+
+    /**
+     * @return true if this checkpoint is a delta holding {@link Appended} values
+     */
+    boolean holdsAppended() {
+        return delta && state.values().stream().anyMatch( Appended.class::isInstance );
     }
 
     @Override
     public String toString() {
-        return  format("Checkpoint{ id=%s, nodeId=%s, nextNodeId=%s, state=%s }" ,
+        return  format("Checkpoint{ id=%s, nodeId=%s, nextNodeId=%s, delta=%s, state=%s }" ,
                 id,
                 nodeId,
                 nextNodeId,
+                delta,
                 state
         );
     }
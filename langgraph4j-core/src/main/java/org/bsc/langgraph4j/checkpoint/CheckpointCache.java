@@ -0,0 +1,322 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The checkpoints kept in memory by a {@link MemorySaver}, grouped by thread and bounded by a {@link CheckpointCachePolicy}.
+ * <p>
+ * The threads are kept in access order, so the least recently used one and the expired ones are at the head.
+ * With the {@link CheckpointCachePolicy.Eviction#LFU} policy the threads are also indexed by access count.
+ * <p>
+ * This class is thread safe, its lock is held only to update the bookkeeping. The checkpoints of an entry
+ * instead must be accessed between {@link #acquire(String)} and {@link #release(Entry)}, holding the lock of the thread.
+ * An entry acquired is never evicted until released.
+ */
+final class CheckpointCache {
+
+    /**
+     * The checkpoints of a thread, with the data used by the eviction.
+     */
+    static final class Entry {
+        final String threadId;
+        final LinkedList<Checkpoint> checkpoints = new LinkedList<>();
+        // false if only the newest checkpoints have been loaded, see MemorySaver#loadedHead
+        boolean historyLoaded;
+        // wall clock time in milliseconds of the last put, 0 if not put since loaded
+        volatile long lastModified;
+        // the size recorded for each checkpoint, that is the one subtracted when it is removed
+        private final IdentityHashMap<Checkpoint, Long> weights = new IdentityHashMap<>();
+        private long bytes;
+        private long frequency;
+        private long lastAccess;
+        private int users;
+
+        private Entry( String threadId ) {
+            this.threadId = threadId;
+        }
+    }
+
+    private final CheckpointCachePolicy policy;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private final TreeMap<Long, LinkedHashSet<Entry>> entriesByFrequency = new TreeMap<>();
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    CheckpointCache( CheckpointCachePolicy policy ) {
+        this.policy = requireNonNull( policy, "policy cannot be null" );
+    }
+
+    CheckpointCachePolicy policy() {
+        return policy;
+    }
+
+    /**
+     * Returns the checkpoints of the given thread if in memory, without counting it as an access.
+     *
+     * @param threadId the thread id
+     * @return the checkpoints or null
+     */
+    LinkedList<Checkpoint> get( String threadId ) {
+        lock.lock();
+        try {
+            final var entry = entries.get( threadId );
+            return ( entry != null ) ? entry.checkpoints : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the ids of the threads in memory
+     */
+    List<String> threadIds() {
+        lock.lock();
+        try {
+            return new ArrayList<>( entries.keySet() );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the time of the last put on the given thread if in memory.
+     *
+     * @param threadId the thread id
+     * @return the wall clock time in milliseconds, 0 if the thread is not in memory or not put since loaded
+     */
+    long lastModified( String threadId ) {
+        lock.lock();
+        try {
+            final var entry = entries.get( threadId );
+            return ( entry != null ) ? entry.lastModified : 0L;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the entry of the given thread, creating an empty one if it is not in memory.
+     * The threads expired are evicted first.
+     *
+     * @param threadId the thread id
+     * @return the entry of the thread, that must be released by {@link #release(Entry)}
+     */
+    Entry acquire( String threadId ) {
+        lock.lock();
+        try {
+            final long now = policy.ticker.getAsLong();
+            expire( now );
+
+            // moves the entry at the tail of the access order
+            var entry = entries.remove( threadId );
+            if( entry != null ) {
+                ++hits;
+            }
+            else {
+                ++misses;
+                entry = new Entry( threadId );
+            }
+            entries.put( threadId, entry );
+            entry.lastAccess = now;
+            ++entry.users;
+
+            if( policy.eviction() == CheckpointCachePolicy.Eviction.LFU ) {
+                removeFromFrequency( entry );
+                ++entry.frequency;
+                entriesByFrequency.computeIfAbsent( entry.frequency, k -> new LinkedHashSet<>() ).add( entry );
+            }
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the given entry and evicts threads until the cache fits its budget.
+     * The given entry, the one accessed last, is never evicted.
+     *
+     * @param current the entry to release
+     */
+    void release( Entry current ) {
+        lock.lock();
+        try {
+            --current.users;
+            while( exceedsBudget() ) {
+                final var victim = nextVictim( current );
+                if( victim == null ) {
+                    return;
+                }
+                removeEntry( victim );
+                ++evictions;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Recomputes the size of all the checkpoints of the given acquired entry.
+     *
+     * @param entry the entry to weigh
+     */
+    void weigh( Entry entry ) {
+        if( policy.maxBytes().isEmpty() ) {
+            return;
+        }
+        entry.weights.clear();
+        long result = 0;
+        for( var checkpoint : entry.checkpoints ) {
+            final long weight = policy.weigher().weigh( checkpoint );
+            entry.weights.put( checkpoint, weight );
+            result += weight;
+        }
+        addBytes( entry, result - entry.bytes );
+    }
+
+    /**
+     * Updates the size of the given acquired entry after a checkpoint has been added, removed or replaced.
+     * The checkpoint removed is subtracted with the size recorded when it was added, since its size could have
+     * changed in the meantime, e.g. loading a {@link LazyCheckpointStates lazy state}.
+     *
+     * @param entry the updated entry
+     * @param added the checkpoint added or null
+     * @param removed the checkpoint removed or null
+     */
+    void weigh( Entry entry, Checkpoint added, Checkpoint removed ) {
+        if( policy.maxBytes().isEmpty() ) {
+            return;
+        }
+        long delta = 0;
+        if( removed != null ) {
+            final var weight = entry.weights.remove( removed );
+            delta -= ( weight != null ) ? weight : policy.weigher().weigh( removed );
+        }
+        if( added != null ) {
+            final long weight = policy.weigher().weigh( added );
+            entry.weights.put( added, weight );
+            delta += weight;
+        }
+        addBytes( entry, delta );
+    }
+
+    /**
+     * Removes the given thread.
+     *
+     * @param threadId the thread id
+     * @return the checkpoints of the removed thread or null if not in memory
+     */
+    LinkedList<Checkpoint> remove( String threadId ) {
+        lock.lock();
+        try {
+            final var entry = entries.get( threadId );
+            if( entry == null ) {
+                return null;
+            }
+            removeEntry( entry );
+            return entry.checkpoints;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    CheckpointCacheStats stats() {
+        lock.lock();
+        try {
+            return new CheckpointCacheStats( hits, misses, evictions, expirations, entries.size(), bytes );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void addBytes( Entry entry, long delta ) {
+        lock.lock();
+        try {
+            entry.bytes += delta;
+            // a removed entry doesn't count anymore
+            if( entries.get( entry.threadId ) == entry ) {
+                bytes += delta;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeEntry( Entry entry ) {
+        entries.remove( entry.threadId );
+        bytes -= entry.bytes;
+        removeFromFrequency( entry );
+    }
+
+    private boolean exceedsBudget() {
+        return policy.maxThreads().map( max -> entries.size() > max ).orElse(false) ||
+                policy.maxBytes().map( max -> bytes > max ).orElse(false);
+    }
+
+    private boolean isEvictable( Entry entry, Entry current ) {
+        return entry != current && entry.users == 0;
+    }
+
+    private Entry nextVictim( Entry current ) {
+        if( policy.eviction() == CheckpointCachePolicy.Eviction.LFU ) {
+            for( var bucket : entriesByFrequency.values() ) {
+                for( var entry : bucket ) {
+                    if( isEvictable( entry, current ) ) {
+                        return entry;
+                    }
+                }
+            }
+            return null;
+        }
+        for( var entry : entries.values() ) {
+            if( isEvictable( entry, current ) ) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void expire( long now ) {
+        final var ttl = policy.ttl();
+        if( ttl.isEmpty() ) {
+            return;
+        }
+        final long ttlNanos = ttl.get().toNanos();
+        final var iterator = entries.values().iterator();
+        while( iterator.hasNext() ) {
+            final var entry = iterator.next();
+            if( now - entry.lastAccess < ttlNanos ) {
+                return;
+            }
+            if( entry.users > 0 ) {
+                continue;
+            }
+            iterator.remove();
+            bytes -= entry.bytes;
+            removeFromFrequency( entry );
+            ++expirations;
+        }
+    }
+
+    private void removeFromFrequency( Entry entry ) {
+        final var bucket = entriesByFrequency.get( entry.frequency );
+        if( bucket != null && bucket.remove( entry ) && bucket.isEmpty() ) {
+            entriesByFrequency.remove( entry.frequency );
+        }
+    }
+}
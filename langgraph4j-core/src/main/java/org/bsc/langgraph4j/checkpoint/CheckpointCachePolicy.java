@@ -0,0 +1,277 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.lang.reflect.Array;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.ofNullable;
+
+/**
+ * Policy that bounds the checkpoints kept in memory by a {@link MemorySaver}, grouped by thread.
+ * <p>
+ * A thread is evicted when the cache exceeds the maximum number of threads or the maximum
+ * estimated size, picking the least recently used ({@link Eviction#LRU}) or the least frequently used
+ * ({@link Eviction#LFU}) thread first, or when it has not been accessed for longer than the time to live.
+ * <p>
+ * Evicting a thread drops only its in-memory copy: savers backed by a store (e.g. a database or the file system)
+ * reload it on next access through {@link MemorySaver#loadedCheckpoints}, while a plain {@code MemorySaver}
+ * loses it. For this reason the default policy is {@link #unbounded()}.
+ */
+public final class CheckpointCachePolicy {
+
+    /**
+     * The order in which threads are evicted when the cache exceeds its budget.
+     */
+    public enum Eviction {
+        /**
+         * evicts the least recently used thread first
+         */
+        LRU,
+        /**
+         * evicts the least frequently used thread first, and the least recently used one among them
+         */
+        LFU
+    }
+
+    /**
+     * Estimates the size in bytes of a checkpoint.
+     */
+    @FunctionalInterface
+    public interface Weigher {
+        /**
+         * Estimates the size in bytes of the given checkpoint. It is evaluated once for each stored checkpoint.
+         *
+         * @param checkpoint the checkpoint to weigh
+         * @return the estimated size in bytes
+         */
+        long weigh( Checkpoint checkpoint );
+    }
+
+    private static final CheckpointCachePolicy UNBOUNDED = builder().build();
+
+    private final Eviction eviction;
+    private final int maxThreads;
+    private final long maxBytes;
+    private final Duration ttl;
+    private final Weigher weigher;
+    final LongSupplier ticker;
+
+    private CheckpointCachePolicy( Builder builder ) {
+        this.eviction = builder.eviction;
+        this.maxThreads = builder.maxThreads;
+        this.maxBytes = builder.maxBytes;
+        this.ttl = builder.ttl;
+        this.weigher = builder.weigher;
+        this.ticker = builder.ticker;
+    }
+
+    /**
+     * @return the policy that never evicts a thread
+     */
+    public static CheckpointCachePolicy unbounded() {
+        return UNBOUNDED;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Eviction eviction() {
+        return eviction;
+    }
+
+    /**
+     * @return the maximum number of threads kept in memory, if bounded
+     */
+    public Optional<Integer> maxThreads() {
+        return ( maxThreads > 0 ) ? Optional.of(maxThreads) : Optional.empty();
+    }
+
+    /**
+     * @return the maximum estimated size in bytes of the checkpoints kept in memory, if bounded
+     */
+    public Optional<Long> maxBytes() {
+        return ( maxBytes > 0 ) ? Optional.of(maxBytes) : Optional.empty();
+    }
+
+    /**
+     * @return the time after which a thread not accessed is evicted, if any
+     */
+    public Optional<Duration> ttl() {
+        return ofNullable(ttl);
+    }
+
+    public Weigher weigher() {
+        return weigher;
+    }
+
+    /**
+     * @return true if this policy could evict a thread
+     */
+    public boolean isBounded() {
+        return maxThreads > 0 || maxBytes > 0 || ttl != null;
+    }
+
+    @Override
+    public String toString() {
+        return format( "CheckpointCachePolicy{ eviction=%s, maxThreads=%d, maxBytes=%d, ttl=%s }",
+                eviction, maxThreads, maxBytes, ttl );
+    }
+
+    /**
+     * Rough estimate of the heap retained by a checkpoint, walking strings, collections, maps and arrays
+     * held by its state. Other objects are weighed as a fixed size.
+     *
+     * @param checkpoint the checkpoint to weigh
+     * @return the estimated size in bytes
+     */
+    public static long estimatedSize( Checkpoint checkpoint ) {
+        requireNonNull( checkpoint, "checkpoint cannot be null" );
+        // a state not loaded yet holds just the reference to its page
+        if( checkpoint.getState() instanceof LazyCheckpointStates.LazyState state && !state.isLoaded() ) {
+            return 64L + 32L;
+        }
+        return 64L + estimatedSize( checkpoint.getState(), 0 );
+    }
+
+    private static final int MAX_DEPTH = 8;
+
+    private static long estimatedSize( Object value, int depth ) {
+        if( value == null ) {
+            return 0L;
+        }
+        if( value instanceof CharSequence chars ) {
+            return 40L + 2L * chars.length();
+        }
+        if( value instanceof Number || value instanceof Boolean || value instanceof Character || value instanceof Enum<?> ) {
+            return 16L;
+        }
+        if( depth >= MAX_DEPTH ) {
+            return 32L;
+        }
+        if( value instanceof Checkpoint.Appended appended ) {
+            return 24L + estimatedSize( appended.values(), depth + 1 );
+        }
+        if( value instanceof Map<?,?> map ) {
+            long result = 48L;
+            for( var entry : map.entrySet() ) {
+                result += 32L + estimatedSize( entry.getKey(), depth + 1 ) + estimatedSize( entry.getValue(), depth + 1 );
+            }
+            return result;
+        }
+        if( value instanceof Collection<?> collection ) {
+            long result = 40L;
+            for( var element : collection ) {
+                result += 8L + estimatedSize( element, depth + 1 );
+            }
+            return result;
+        }
+        if( value.getClass().isArray() ) {
+            final int length = Array.getLength( value );
+            if( value.getClass().getComponentType().isPrimitive() ) {
+                return 16L + 8L * length;
+            }
+            long result = 16L;
+            for( int i = 0; i < length; ++i ) {
+                result += 8L + estimatedSize( Array.get( value, i ), depth + 1 );
+            }
+            return result;
+        }
+        return 64L;
+    }
+
+    public static class Builder {
+        private Eviction eviction = Eviction.LRU;
+        private int maxThreads = 0;
+        private long maxBytes = 0;
+        private Duration ttl = null;
+        private Weigher weigher = CheckpointCachePolicy::estimatedSize;
+        private LongSupplier ticker = System::nanoTime;
+
+        /**
+         * Sets the order in which threads are evicted (default {@link Eviction#LRU}).
+         *
+         * @param eviction the eviction order
+         * @return this builder
+         */
+        public Builder eviction( Eviction eviction ) {
+            this.eviction = requireNonNull( eviction, "eviction cannot be null" );
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of threads kept in memory.
+         *
+         * @param maxThreads the maximum number of threads, {@code 0} for no limit
+         * @return this builder
+         */
+        public Builder maxThreads( int maxThreads ) {
+            if( maxThreads < 0 ) {
+                throw new IllegalArgumentException( format("maxThreads cannot be negative but was %d!", maxThreads) );
+            }
+            this.maxThreads = maxThreads;
+            return this;
+        }
+
+        /**
+         * Sets the maximum estimated size in bytes of the checkpoints kept in memory.
+         * The thread accessed last is never evicted, even if its size alone exceeds the budget.
+         *
+         * @param maxBytes the maximum size, {@code 0} for no limit
+         * @return this builder
+         * @see #weigher(Weigher)
+         */
+        public Builder maxBytes( long maxBytes ) {
+            if( maxBytes < 0 ) {
+                throw new IllegalArgumentException( format("maxBytes cannot be negative but was %d!", maxBytes) );
+            }
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Sets the time after which a thread not accessed is evicted.
+         *
+         * @param ttl the time to live, {@code null} for no expiration
+         * @return this builder
+         */
+        public Builder ttl( Duration ttl ) {
+            if( ttl != null && ( ttl.isNegative() || ttl.isZero() ) ) {
+                throw new IllegalArgumentException( format("ttl must be positive but was %s!", ttl) );
+            }
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * Sets how the size of a checkpoint is estimated (default {@link CheckpointCachePolicy#estimatedSize(Checkpoint)}).
+         *
+         * @param weigher the checkpoint weigher
+         * @return this builder
+         */
+        public Builder weigher( Weigher weigher ) {
+            this.weigher = requireNonNull( weigher, "weigher cannot be null" );
+            return this;
+        }
+
+        /**
+         * Sets the source of time, in nanoseconds, used to evaluate the time to live.
+         *
+         * @param ticker the source of time
+         * @return this builder
+         */
+        Builder ticker( LongSupplier ticker ) {
+            this.ticker = requireNonNull( ticker, "ticker cannot be null" );
+            return this;
+        }
+
+        public CheckpointCachePolicy build() {
+            return new CheckpointCachePolicy( this );
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.bsc.langgraph4j.checkpoint;
+
+/**
+ * Snapshot of the metrics of the checkpoints cache of a {@link MemorySaver}.
+ *
+ * @param hits the number of accesses to a thread already in memory
+ * @param misses the number of accesses to a thread not in memory, that has been loaded or initialized
+ * @param evictions the number of threads evicted because the cache exceeded its budget
+ * @param expirations the number of threads evicted because they were not accessed within the time to live
+ * @param threads the number of threads currently in memory
+ * @param bytes the estimated size in bytes of the checkpoints currently in memory
+ * @see CheckpointCachePolicy
+ */
+public record CheckpointCacheStats( long hits,
+                                    long misses,
+                                    long evictions,
+                                    long expirations,
+                                    int threads,
+                                    long bytes ) {
+
+    /**
+     * @return the ratio of hits on the total accesses, {@code 1.0} if there were no accesses
+     */
+    public double hitRate() {
+        final long requests = hits + misses;
+        return ( requests == 0 ) ? 1.0 : (double) hits / requests;
+    }
+}
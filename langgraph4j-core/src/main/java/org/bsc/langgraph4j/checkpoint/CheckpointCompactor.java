@@ -0,0 +1,176 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.ofNullable;
+
+/**
+ * Background job that enforces a {@link CheckpointRetentionPolicy} on a saver, calling
+ * {@link HasRetention#prune(CheckpointRetentionPolicy)} at a fixed interval.
+ * <pre>
+ * var compactor = CheckpointCompactor.builder()
+ *                  .saver( saver )
+ *                  .policy( CheckpointRetentionPolicy.builder().maxCheckpoints( 20 ).build() )
+ *                  .interval( Duration.ofMinutes(10) )
+ *                  .build();
+ * ...
+ * compactor.close();
+ * </pre>
+ * A failed run is logged and the job goes on with the next one.
+ */
+public class CheckpointCompactor implements AutoCloseable {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CheckpointCompactor.class);
+
+    public static class Builder {
+        private HasRetention saver;
+        private CheckpointRetentionPolicy policy;
+        private Duration interval = Duration.ofMinutes(5);
+        private ScheduledExecutorService scheduler;
+
+        /**
+         * Sets the saver whose checkpoints are pruned.
+         *
+         * @param saver the saver
+         * @return this builder
+         */
+        public Builder saver(HasRetention saver) {
+            this.saver = saver;
+            return this;
+        }
+
+        /**
+         * Sets the retention policy enforced.
+         *
+         * @param policy the retention policy
+         * @return this builder
+         */
+        public Builder policy(CheckpointRetentionPolicy policy) {
+            this.policy = policy;
+            return this;
+        }
+
+        /**
+         * Sets the time between the end of a run and the start of the next one (default 5 minutes).
+         *
+         * @param interval the interval
+         * @return this builder
+         */
+        public Builder interval(Duration interval) {
+            if (interval == null || interval.isNegative() || interval.isZero()) {
+                throw new IllegalArgumentException(format("interval must be positive but was %s!", interval));
+            }
+            this.interval = interval;
+            return this;
+        }
+
+        /**
+         * Sets the scheduler running the job.
+         * If not set, the job creates a single daemon thread, that is stopped by {@link CheckpointCompactor#close()}.
+         *
+         * @param scheduler the scheduler
+         * @return this builder
+         */
+        public Builder scheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Creates the job and schedules its first run after the interval.
+         *
+         * @return the job
+         */
+        public CheckpointCompactor build() {
+            return new CheckpointCompactor(this);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final HasRetention saver;
+    private final CheckpointRetentionPolicy policy;
+    private final Duration interval;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownedScheduler;
+    private final ScheduledFuture<?> scheduledRun;
+    private volatile HasRetention.PruneResult lastResult;
+
+    protected CheckpointCompactor( Builder builder ) {
+        this.saver = requireNonNull( builder.saver, "saver cannot be null" );
+        this.policy = requireNonNull( builder.policy, "policy cannot be null" );
+        this.interval = builder.interval;
+        this.ownedScheduler = builder.scheduler == null;
+        this.scheduler = ownedScheduler ?
+                Executors.newSingleThreadScheduledExecutor( runnable -> {
+                    var thread = new Thread( runnable, "checkpoint-compactor" );
+                    thread.setDaemon( true );
+                    return thread;
+                }) :
+                builder.scheduler;
+        final long intervalMillis = interval.toMillis();
+        this.scheduledRun = scheduler.scheduleWithFixedDelay( this::scheduledCompact, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * @return the retention policy enforced
+     */
+    public CheckpointRetentionPolicy policy() {
+        return policy;
+    }
+
+    /**
+     * @return the time between two runs
+     */
+    public Duration interval() {
+        return interval;
+    }
+
+    /**
+     * @return the result of the last successful run, if any
+     */
+    public Optional<HasRetention.PruneResult> lastResult() {
+        return ofNullable( lastResult );
+    }
+
+    /**
+     * Runs the job now, in the calling thread. The runs don't overlap.
+     *
+     * @return the number of threads and checkpoints deleted
+     * @throws Exception if the checkpoints cannot be pruned
+     */
+    public synchronized HasRetention.PruneResult compact() throws Exception {
+        final var result = saver.prune( policy );
+        lastResult = result;
+        log.debug( "compaction deleted {} threads and {} checkpoints", result.expiredThreads(), result.prunedCheckpoints() );
+        return result;
+    }
+
+    private void scheduledCompact() {
+        try {
+            compact();
+        }
+        catch( Exception ex ) {
+            log.error( "checkpoint compaction failed", ex );
+        }
+    }
+
+    /**
+     * Stops the job. A run in progress is completed.
+     */
+    @Override
+    public void close() {
+        scheduledRun.cancel( false );
+        if( ownedScheduler ) {
+            scheduler.shutdown();
+        }
+    }
+}
@@ -0,0 +1,497 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.serializer.Serializer;
+import org.bsc.langgraph4j.serializer.compression.CompressionCodec;
+
+import java.io.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Append-only log of the checkpoints of a thread, as written by {@link FileSystemSaver}.
+ * <p>
+ * The log starts with a header followed by length-prefixed records, each one protected by a CRC32:
+ * <pre>
+ * header : MAGIC(int) VERSION(byte)
+ * record : type(byte) length(int) payload(length bytes) crc32(int)
+ * footer : FOOTER(byte) count(int) offset(long)* footerOffset(long) FOOTER_MAGIC(int)
+ * </pre>
+ * An {@code INSERT} record holds a new checkpoint, a {@code REPLACE} record holds the id of a stored checkpoint and
+ * the checkpoint that replaces it. Each put appends a single record, so writing step N doesn't rewrite the previous ones.
+ * <p>
+ * The footer indexes the offsets of the records. It is written by {@link #write(Path, List)}, that compacts the log
+ * dropping the replaced checkpoints, and it is truncated by the next {@link #append}.
+ * A record partially written, e.g. because of a crash, is detected by its length or CRC and discarded on read.
+ * <p>
+ * The log is read through memory-mapped windows, unmapped as soon as the read completes: its size is not limited by
+ * the 2 GB of a single mapping, and it can be truncated or replaced afterwards, that some platforms, e.g. Windows,
+ * don't allow while a mapping is live. The log is a single file rather than a sequence of segments: it is compacted
+ * on release and on prune, and the footer written then indexes the whole file.
+ * <p>
+ * When the log has a {@link CompressionCodec}, the type of the records is flagged as {@code COMPRESSED} and their
+ * payload is compressed, prefixed by the name of the codec: {@code nameLength(byte) name payload}.
+ * The records are decompressed with the codec they name, so a log can mix codecs and uncompressed records.
+ * A log holding compressed records has version 2, so that it is rejected rather than truncated by the previous versions.
+ * Likewise, a log holding deltas of appended values (see {@link Checkpoint.Appended}) has version 3.
+ */
+final class CheckpointLog {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CheckpointLog.class);
+
+    static final int MAGIC = 0x4C47344C; // "LG4L"
+    private static final byte VERSION = 1;
+    private static final byte VERSION_COMPRESSED = 2;
+    private static final byte VERSION_APPENDED = 3;
+    private static final int FOOTER_MAGIC = 0x4C473446; // "LG4F"
+
+    private static final byte INSERT = 1;
+    private static final byte REPLACE = 2;
+    private static final byte FOOTER = 3;
+    private static final byte COMPRESSED = 0x40;
+
+    private static final int HEADER_SIZE = Integer.BYTES + 1;
+    // type, length and crc
+    private static final int RECORD_OVERHEAD = 1 + Integer.BYTES + Integer.BYTES;
+    // footerOffset and FOOTER_MAGIC
+    private static final int FOOTER_TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+
+    // unmaps a buffer mapped by a FileChannel, null if not available
+    private static final MethodHandle UNMAPPER = unmapper();
+
+    private static final long WINDOW_SIZE = 64L << 20;
+
+    private final Serializer<Checkpoint> serializer;
+    private final CompressionCodec codec;
+    private final byte[] codecName;
+    private final long windowSize;
+
+    CheckpointLog( Serializer<Checkpoint> serializer ) {
+        this( serializer, CompressionCodec.none() );
+    }
+
+    CheckpointLog( Serializer<Checkpoint> serializer, CompressionCodec codec ) {
+        this( serializer, codec, WINDOW_SIZE );
+    }
+
+    /**
+     * @param serializer the serializer of the checkpoints
+     * @param codec the codec compressing the appended records
+     * @param windowSize the minimum size of the windows mapped to read the log
+     */
+    CheckpointLog( Serializer<Checkpoint> serializer, CompressionCodec codec, long windowSize ) {
+        if( windowSize <= 0 ) {
+            throw new IllegalArgumentException( format("windowSize must be positive but was %d", windowSize) );
+        }
+        this.windowSize = windowSize;
+        this.serializer = requireNonNull( serializer, "serializer cannot be null" );
+        this.codec = requireNonNull( codec, "codec cannot be null" );
+        this.codecName = codec.name().getBytes( StandardCharsets.US_ASCII );
+        if( codecName.length > Byte.MAX_VALUE ) {
+            throw new IllegalArgumentException( format("codec name '%s' is too long", codec.name()) );
+        }
+    }
+
+    private boolean compressed() {
+        return codec != CompressionCodec.none();
+    }
+
+    /**
+     * Checks whether the given file is a checkpoint log, rather than a file written by a previous version.
+     *
+     * @param file the file to check
+     * @return true if the file starts with the log header
+     * @throws IOException if the file cannot be read
+     */
+    static boolean isLog( Path file ) throws IOException {
+        try( var channel = FileChannel.open( file, StandardOpenOption.READ ) ) {
+            final var header = ByteBuffer.allocate( Integer.BYTES );
+            return channel.read( header, 0 ) == Integer.BYTES && header.getInt(0) == MAGIC;
+        }
+    }
+
+    private byte[] payloadOf( String replacedId, Checkpoint checkpoint ) throws IOException {
+        if( replacedId == null && !compressed() ) {
+            return serializer.objectToBytes( checkpoint );
+        }
+        try( var stream = new ByteArrayOutputStream() ) {
+            OutputStream target = stream;
+            if( compressed() ) {
+                stream.write( codecName.length );
+                stream.write( codecName );
+                target = codec.compress( stream );
+            }
+            var out = new ObjectOutputStream( target );
+            if( replacedId != null ) {
+                Serializer.writeUTF( replacedId, out );
+            }
+            serializer.write( checkpoint, out );
+            out.close();
+            return stream.toByteArray();
+        }
+    }
+
+    private byte typeOf( byte type ) {
+        return compressed() ? (byte) ( type | COMPRESSED ) : type;
+    }
+
+    /**
+     * Returns the stream of the uncompressed payload of a record.
+     */
+    private static InputStream payloadStreamOf( byte[] payload, boolean compressed ) throws IOException {
+        if( !compressed ) {
+            return new ByteArrayInputStream( payload );
+        }
+        final int nameLength = payload.length > 0 ? payload[0] : -1;
+        if( nameLength <= 0 || payload.length < nameLength + 1 ) {
+            throw new StreamCorruptedException( "compressed checkpoint record without codec" );
+        }
+        final var name = new String( payload, 1, nameLength, StandardCharsets.US_ASCII );
+        final var recordCodec = CompressionCodec.of( name )
+                .orElseThrow( () -> new StreamCorruptedException( format("compression codec '%s' of checkpoint record is not registered", name) ) );
+        return recordCodec.decompress( new ByteArrayInputStream( payload, nameLength + 1, payload.length - nameLength - 1 ) );
+    }
+
+    private static ByteBuffer recordOf( byte type, byte[] payload ) {
+        final var crc = new CRC32();
+        crc.update( payload );
+        return ByteBuffer.allocate( RECORD_OVERHEAD + payload.length )
+                .put( type )
+                .putInt( payload.length )
+                .put( payload )
+                .putInt( (int) crc.getValue() )
+                .flip();
+    }
+
+    private static ByteBuffer header( byte version ) {
+        return ByteBuffer.allocate( HEADER_SIZE ).putInt( MAGIC ).put( version ).flip();
+    }
+
+    private static void writeFully( FileChannel channel, ByteBuffer buffer ) throws IOException {
+        while( buffer.hasRemaining() ) {
+            channel.write( buffer );
+        }
+    }
+
+    /**
+     * Returns the offset of the footer of the given log, if any.
+     */
+    private static long footerOffsetOf( FileChannel channel ) throws IOException {
+        final long size = channel.size();
+        if( size < HEADER_SIZE + 1 + Integer.BYTES + FOOTER_TRAILER_SIZE ) {
+            return -1;
+        }
+        final var trailer = ByteBuffer.allocate( FOOTER_TRAILER_SIZE );
+        channel.read( trailer, size - FOOTER_TRAILER_SIZE );
+        final long footerOffset = trailer.getLong(0);
+        if( trailer.getInt( Long.BYTES ) != FOOTER_MAGIC || footerOffset < HEADER_SIZE || footerOffset >= size ) {
+            return -1;
+        }
+        final var type = ByteBuffer.allocate(1);
+        channel.read( type, footerOffset );
+        return ( type.get(0) == FOOTER ) ? footerOffset : -1;
+    }
+
+    /**
+     * Appends a checkpoint to the log, creating it if it doesn't exist.
+     *
+     * @param file the log file
+     * @param replacedId the id of the checkpoint replaced by the given one, or null if the checkpoint is new
+     * @param checkpoint the checkpoint to append
+     * @param sync whether the content of the log must be forced to the storage device
+     * @throws IOException if the log cannot be written
+     */
+    void append( Path file, String replacedId, Checkpoint checkpoint, boolean sync ) throws IOException {
+        final var record = recordOf( typeOf( replacedId == null ? INSERT : REPLACE ), payloadOf( replacedId, checkpoint ) );
+
+        try( var channel = FileChannel.open( file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE ) ) {
+            if( channel.size() == 0 ) {
+                writeFully( channel, header( versionOf( checkpoint ) ) );
+            }
+            else {
+                final long footerOffset = footerOffsetOf( channel );
+                if( footerOffset > 0 ) {
+                    channel.truncate( footerOffset );
+                }
+                upgradeVersion( channel, versionOf( checkpoint ) );
+            }
+            channel.position( channel.size() );
+            writeFully( channel, record );
+            if( sync ) {
+                channel.force( false );
+            }
+        }
+    }
+
+    /**
+     * Returns the version of the log required by the record of the given checkpoint.
+     */
+    private byte versionOf( Checkpoint checkpoint ) {
+        if( checkpoint.holdsAppended() ) {
+            return VERSION_APPENDED;
+        }
+        return compressed() ? VERSION_COMPRESSED : VERSION;
+    }
+
+    /**
+     * Marks a log as holding records that require the given version, e.g. compressed ones in a log written uncompressed.
+     */
+    private static void upgradeVersion( FileChannel channel, byte required ) throws IOException {
+        final var version = ByteBuffer.allocate(1);
+        channel.read( version, Integer.BYTES );
+        if( version.get(0) < required ) {
+            writeFully( channel.position( Integer.BYTES ), ByteBuffer.wrap( new byte[] { required } ) );
+        }
+    }
+
+    /**
+     * Writes a compacted log holding the given checkpoints followed by the index footer.
+     * The log is written on a temporary file that then replaces the given one.
+     *
+     * @param file the log file
+     * @param checkpoints the checkpoints, newest first
+     * @throws IOException if the log cannot be written
+     */
+    void write( Path file, List<Checkpoint> checkpoints ) throws IOException {
+        final var tempFile = file.resolveSibling( file.getFileName() + ".tmp" );
+
+        try( var channel = FileChannel.open( tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING ) ) {
+            byte version = compressed() ? VERSION_COMPRESSED : VERSION;
+            for( var checkpoint : checkpoints ) {
+                version = (byte) Math.max( version, versionOf( checkpoint ) );
+            }
+            writeFully( channel, header( version ) );
+
+            final var offsets = new long[ checkpoints.size() ];
+            final var iterator = checkpoints.listIterator( checkpoints.size() );
+            int index = 0;
+            while( iterator.hasPrevious() ) {
+                offsets[index++] = channel.position();
+                writeFully( channel, recordOf( typeOf( INSERT ), payloadOf( null, iterator.previous() ) ) );
+            }
+
+            final long footerOffset = channel.position();
+            final var footer = ByteBuffer.allocate( 1 + Integer.BYTES + Long.BYTES * offsets.length + FOOTER_TRAILER_SIZE )
+                    .put( FOOTER )
+                    .putInt( offsets.length );
+            for( var offset : offsets ) {
+                footer.putLong( offset );
+            }
+            footer.putLong( footerOffset ).putInt( FOOTER_MAGIC );
+            writeFully( channel, footer.flip() );
+            channel.force( false );
+        }
+        try {
+            Files.move( tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch( AtomicMoveNotSupportedException ex ) {
+            Files.move( tempFile, file, StandardCopyOption.REPLACE_EXISTING );
+        }
+    }
+
+    /**
+     * Reads the checkpoints of the given log through memory-mapped windows, replaying the records in order.
+     * A partially written record at the end of the log is discarded and the log is truncated before it.
+     *
+     * @param file the log file
+     * @param result the list that receives the checkpoints, newest first
+     * @throws IOException if the log cannot be read
+     * @throws ClassNotFoundException if the class of a state value cannot be found
+     */
+    void read( Path file, LinkedList<Checkpoint> result ) throws IOException, ClassNotFoundException {
+        long validSize;
+        long size;
+        try( var channel = FileChannel.open( file, StandardOpenOption.READ );
+             var reader = new MappedReader( channel, windowSize ) ) {
+            size = channel.size();
+            final long footerOffset = footerOffsetOf( channel );
+
+            final var header = reader.at( 0, HEADER_SIZE );
+            if( header == null || header.getInt() != MAGIC ) {
+                throw new StreamCorruptedException( format("file %s is not a checkpoint log", file) );
+            }
+            final byte version = header.get();
+            if( version < VERSION || version > VERSION_APPENDED ) {
+                throw new StreamCorruptedException( format("unsupported checkpoint log version %d in file %s", version, file) );
+            }
+
+            validSize = ( footerOffset > 0 ) ?
+                    readIndexed( reader, footerOffset, result ) :
+                    readSequential( reader, result );
+        }
+
+        if( validSize < size ) {
+            log.warn( "discarding {} bytes partially written at the end of checkpoint log {}", size - validSize, file );
+            try( var channel = FileChannel.open( file, StandardOpenOption.WRITE ) ) {
+                channel.truncate( validSize );
+            }
+        }
+    }
+
+    private long readSequential( MappedReader reader, LinkedList<Checkpoint> result ) throws IOException, ClassNotFoundException {
+        long validSize = HEADER_SIZE;
+        while( validSize < reader.size ) {
+            final long next = readRecord( reader, validSize, result );
+            if( next < 0 ) {
+                break;
+            }
+            validSize = next;
+        }
+        return validSize;
+    }
+
+    private long readIndexed( MappedReader reader, long footerOffset, LinkedList<Checkpoint> result ) throws IOException, ClassNotFoundException {
+        final long offsetsStart = footerOffset + 1 + Integer.BYTES;
+        final var countBuffer = reader.at( footerOffset + 1, Integer.BYTES );
+        final int count = ( countBuffer != null ) ? countBuffer.getInt() : -1;
+        if( count < 0 || count > ( reader.size - offsetsStart ) / Long.BYTES ) {
+            throw new StreamCorruptedException( format("corrupted checkpoint log footer at offset %d", footerOffset) );
+        }
+        final var offsets = new long[count];
+        for( int i = 0; i < count; ++i ) {
+            offsets[i] = reader.at( offsetsStart + (long) i * Long.BYTES, Long.BYTES ).getLong();
+        }
+        for( var offset : offsets ) {
+            if( readRecord( reader, offset, result ) < 0 ) {
+                throw new StreamCorruptedException( format("corrupted checkpoint record at offset %d", offset) );
+            }
+        }
+        return reader.size;
+    }
+
+    /**
+     * Reads the record at the given offset and applies it to the result.
+     *
+     * @return the offset following the record, or -1 if the record is incomplete or corrupted
+     */
+    private long readRecord( MappedReader reader, long offset, LinkedList<Checkpoint> result ) throws IOException, ClassNotFoundException {
+        final var header = reader.at( offset, 1 + Integer.BYTES );
+        if( header == null ) {
+            return -1;
+        }
+        final byte flaggedType = header.get();
+        final boolean compressed = ( flaggedType & COMPRESSED ) != 0;
+        final byte type = (byte) ( flaggedType & ~COMPRESSED );
+        final int length = header.getInt();
+        if( ( type != INSERT && type != REPLACE ) || length < 0 || length > Integer.MAX_VALUE - Integer.BYTES ) {
+            return -1;
+        }
+        final var body = reader.at( offset + 1 + Integer.BYTES, length + Integer.BYTES );
+        if( body == null ) {
+            return -1;
+        }
+        final var payload = new byte[length];
+        body.get( payload );
+        final var crc = new CRC32();
+        crc.update( payload );
+        if( body.getInt() != (int) crc.getValue() ) {
+            return -1;
+        }
+        final long next = offset + RECORD_OVERHEAD + length;
+
+        try( var ois = new ObjectInputStream( payloadStreamOf( payload, compressed ) ) ) {
+            if( type == INSERT ) {
+                result.push( serializer.read( ois ) );
+                return next;
+            }
+            final var replacedId = Serializer.readUTF( ois );
+            final var checkpoint = serializer.read( ois );
+            final var iterator = result.listIterator();
+            while( iterator.hasNext() ) {
+                if( iterator.next().getId().equals( replacedId ) ) {
+                    iterator.set( checkpoint );
+                    return next;
+                }
+            }
+            throw new StreamCorruptedException( format("checkpoint %s replaced by %s not found", replacedId, checkpoint.getId()) );
+        }
+    }
+
+    /**
+     * Returns the handle of {@code sun.misc.Unsafe.invokeCleaner}, that unmaps a mapped buffer, if available.
+     */
+    private static MethodHandle unmapper() {
+        try {
+            final var unsafeClass = Class.forName( "sun.misc.Unsafe" );
+            final var field = unsafeClass.getDeclaredField( "theUnsafe" );
+            field.setAccessible( true );
+            return MethodHandles.lookup()
+                    .findVirtual( unsafeClass, "invokeCleaner", MethodType.methodType( void.class, ByteBuffer.class ) )
+                    .bindTo( field.get( null ) );
+        }
+        catch( ReflectiveOperationException | RuntimeException ex ) {
+            log.debug( "mapped buffers cannot be unmapped explicitly, they are unmapped once garbage collected", ex );
+            return null;
+        }
+    }
+
+    /**
+     * Reader of a log through memory-mapped windows of at least {@code windowSize} bytes.
+     * The buffers it returns are valid until the next call, and until the reader is closed, that unmaps its window.
+     */
+    private static final class MappedReader implements Closeable {
+        private final FileChannel channel;
+        private final long windowSize;
+        final long size;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        MappedReader( FileChannel channel, long windowSize ) throws IOException {
+            this.channel = channel;
+            this.windowSize = windowSize;
+            this.size = channel.size();
+        }
+
+        /**
+         * Returns the buffer of the given bytes of the log, mapping the window that holds them if needed.
+         *
+         * @param offset the offset of the bytes in the log
+         * @param length the number of bytes
+         * @return the buffer positioned on the bytes and limited to them, or null if the log ends before them
+         * @throws IOException if the log cannot be mapped
+         */
+        ByteBuffer at( long offset, int length ) throws IOException {
+            if( offset < 0 || offset + length > size ) {
+                return null;
+            }
+            if( window == null || offset < windowStart || offset + length > windowStart + window.capacity() ) {
+                unmap();
+                window = channel.map( FileChannel.MapMode.READ_ONLY, offset, Math.min( size - offset, Math.max( windowSize, length ) ) );
+                windowStart = offset;
+            }
+            final int position = (int) ( offset - windowStart );
+            return window.duplicate().position( position ).limit( position + length );
+        }
+
+        private void unmap() {
+            if( window != null && UNMAPPER != null ) {
+                try {
+                    UNMAPPER.invokeExact( (ByteBuffer) window );
+                }
+                catch( Throwable ex ) {
+                    log.debug( "mapped buffer cannot be unmapped", ex );
+                }
+            }
+            window = null;
+        }
+
+        @Override
+        public void close() {
+            unmap();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.CompileConfig;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.ofNullable;
+import static org.bsc.langgraph4j.StateGraph.END;
+
+/**
+ * Policy that bounds the checkpoints kept by a saver, enforced by {@link HasRetention#prune(CheckpointRetentionPolicy)}.
+ * <p>
+ * Within a thread the newest checkpoint is always kept, so the thread can still be resumed, while the older ones
+ * are kept only if they match {@link #keepOnly()} and up to {@link #maxCheckpoints()}.
+ * A thread whose newest checkpoint is older than {@link #maxAge()} is deleted entirely, the released ones included.
+ * <pre>
+ * var policy = CheckpointRetentionPolicy.builder()
+ *                  .maxCheckpoints( 20 )
+ *                  .keepOnly( CheckpointRetentionPolicy.interruptionsAndEnd( compileConfig ) )
+ *                  .maxAge( Duration.ofDays(30) )
+ *                  .build();
+ * </pre>
+ */
+public final class CheckpointRetentionPolicy {
+
+    private final int maxCheckpoints;
+    private final int maxReleases;
+    private final Predicate<Checkpoint> keepOnly;
+    private final Duration maxAge;
+    final Clock clock;
+
+    private CheckpointRetentionPolicy( Builder builder ) {
+        this.maxCheckpoints = builder.maxCheckpoints;
+        this.maxReleases = builder.maxReleases;
+        this.keepOnly = builder.keepOnly;
+        this.maxAge = builder.maxAge;
+        this.clock = builder.clock;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the predicate matching the checkpoints where a graph compiled with the given configuration stops:
+     * the interruptions and the end of the graph.
+     *
+     * @param config the configuration of the compiled graph
+     * @return the predicate
+     */
+    public static Predicate<Checkpoint> interruptionsAndEnd( CompileConfig config ) {
+        requireNonNull( config, "config cannot be null" );
+        final var interruptsBefore = config.interruptsBefore();
+        final var interruptsAfter = config.interruptsAfter();
+        return checkpoint -> Objects.equals( checkpoint.getNextNodeId(), END ) ||
+                interruptsBefore.contains( checkpoint.getNextNodeId() ) ||
+                interruptsAfter.contains( checkpoint.getNodeId() );
+    }
+
+    /**
+     * @return the maximum number of checkpoints kept by thread, if bounded
+     */
+    public Optional<Integer> maxCheckpoints() {
+        return ( maxCheckpoints > 0 ) ? Optional.of(maxCheckpoints) : Optional.empty();
+    }
+
+    /**
+     * @return the maximum number of released versions kept by thread by the savers that keep them, if bounded
+     * @see VersionedMemorySaver
+     */
+    public Optional<Integer> maxReleases() {
+        return ( maxReleases > 0 ) ? Optional.of(maxReleases) : Optional.empty();
+    }
+
+    /**
+     * @return the predicate of the older checkpoints kept, if any
+     */
+    public Optional<Predicate<Checkpoint>> keepOnly() {
+        return ofNullable(keepOnly);
+    }
+
+    /**
+     * @return the age after which a thread not updated is deleted, if any
+     */
+    public Optional<Duration> maxAge() {
+        return ofNullable(maxAge);
+    }
+
+    /**
+     * @return the instant before which a thread not updated is deleted, if {@link #maxAge()} is set
+     */
+    public Optional<Instant> expirationCutoff() {
+        return maxAge().map( age -> clock.instant().minus( age ) );
+    }
+
+    /**
+     * Selects the checkpoints of a thread kept by this policy.
+     * The predicate is evaluated on the older checkpoints only, and it could access their state.
+     *
+     * @param checkpoints the checkpoints of the thread, newest first
+     * @return the checkpoints kept, newest first
+     */
+    public List<Checkpoint> retainedOf( List<Checkpoint> checkpoints ) {
+        requireNonNull( checkpoints, "checkpoints cannot be null" );
+        final var result = new ArrayList<Checkpoint>( checkpoints.size() );
+        for( var checkpoint : checkpoints ) {
+            if( maxCheckpoints > 0 && result.size() == maxCheckpoints ) {
+                break;
+            }
+            if( result.isEmpty() || keepOnly == null || keepOnly.test( checkpoint ) ) {
+                result.add( checkpoint );
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return format( "CheckpointRetentionPolicy{ maxCheckpoints=%d, maxReleases=%d, keepOnly=%s, maxAge=%s }",
+                maxCheckpoints, maxReleases, keepOnly != null, maxAge );
+    }
+
+    public static class Builder {
+        private int maxCheckpoints = 0;
+        private int maxReleases = 0;
+        private Predicate<Checkpoint> keepOnly = null;
+        private Duration maxAge = null;
+        private Clock clock = Clock.systemUTC();
+
+        /**
+         * Sets the maximum number of checkpoints kept by thread, the newest ones.
+         *
+         * @param maxCheckpoints the maximum number of checkpoints, {@code 0} for no limit
+         * @return this builder
+         */
+        public Builder maxCheckpoints( int maxCheckpoints ) {
+            if( maxCheckpoints < 0 ) {
+                throw new IllegalArgumentException( format("maxCheckpoints cannot be negative but was %d!", maxCheckpoints) );
+            }
+            this.maxCheckpoints = maxCheckpoints;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of released versions kept by thread, the newest ones,
+         * by the savers that keep them.
+         *
+         * @param maxReleases the maximum number of released versions, {@code 0} for no limit
+         * @return this builder
+         */
+        public Builder maxReleases( int maxReleases ) {
+            if( maxReleases < 0 ) {
+                throw new IllegalArgumentException( format("maxReleases cannot be negative but was %d!", maxReleases) );
+            }
+            this.maxReleases = maxReleases;
+            return this;
+        }
+
+        /**
+         * Sets the predicate of the checkpoints kept besides the newest one of each thread.
+         *
+         * @param keepOnly the predicate, {@code null} to keep all the checkpoints
+         * @return this builder
+         * @see CheckpointRetentionPolicy#interruptionsAndEnd(CompileConfig)
+         */
+        public Builder keepOnly( Predicate<Checkpoint> keepOnly ) {
+            this.keepOnly = keepOnly;
+            return this;
+        }
+
+        /**
+         * Sets the age after which a thread not updated is deleted.
+         *
+         * @param maxAge the maximum age, {@code null} for no expiration
+         * @return this builder
+         */
+        public Builder maxAge( Duration maxAge ) {
+            if( maxAge != null && ( maxAge.isNegative() || maxAge.isZero() ) ) {
+                throw new IllegalArgumentException( format("maxAge must be positive but was %s!", maxAge) );
+            }
+            this.maxAge = maxAge;
+            return this;
+        }
+
+        /**
+         * Sets the clock used to evaluate the age of the threads.
+         *
+         * @param clock the clock
+         * @return this builder
+         */
+        Builder clock( Clock clock ) {
+            this.clock = requireNonNull( clock, "clock cannot be null" );
+            return this;
+        }
+
+        public CheckpointRetentionPolicy build() {
+            return new CheckpointRetentionPolicy( this );
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.bsc.langgraph4j.checkpoint;
 import org.bsc.langgraph4j.RunnableConfig;
 import org.bsc.langgraph4j.serializer.Serializer;
 import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.compression.CompressionCodec;
 import org.bsc.langgraph4j.serializer.std.NullableObjectSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 
@@ -10,8 +11,9 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -26,31 +28,95 @@ import static java.lang.String.format;
  *     The file is named "thread-<i>threadId</i>.saver" if the RunnableConfig has a
  *     threadId, or "thread-$default.saver" if it doesn't.
  * </p>
+ * <p>
+ *     The file is an append-only log (see {@link CheckpointLog}): each put appends only the new checkpoint,
+ *     optionally forcing the log to the storage device every {@code syncInterval} appends, and the log is
+ *     compacted on release. The files written by the previous versions are still read and converted on first load.
+ * </p>
+ * <p>
+ *     Given a keyframe interval greater than 1, the checkpoints are written as deltas between keyframes
+ *     (see {@link MemorySaver}), which reduces the size of the file for long threads: a delta holds only the
+ *     messages appended since its keyframe rather than the whole list (see {@link Checkpoint.Appended}).
+ * </p>
+ * <p>
+ *     {@link #prune(CheckpointRetentionPolicy)} applies to all the files of the folder: the expired threads and
+ *     released versions are deleted by last modification time, and the pruned logs are rewritten compacted.
+ * </p>
+ * <p>
+ *     Given a {@link CompressionCodec}, each record of the log is compressed and names its codec, so the
+ *     logs written with another codec, or uncompressed, can still be read and appended.
+ * </p>
  *
  */
 public class FileSystemSaver extends MemorySaver {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FileSystemSaver.class);
     public static final String EXTENSION = ".saver";
+    // name of a thread file, the released versions have a "-v<version>" suffix
+    private static final Pattern THREAD_FILE = Pattern.compile(format("thread-(.+?)(-v\\d+)?\\%s$", EXTENSION));
+    // written in place of the checkpoints count by the file format that records the delta flag
+    private static final int DELTA_FORMAT = -1;
 
     private final Path targetFolder;
     private final Serializer<Checkpoint> serializer;
+    private final Serializer<Checkpoint> legacySerializer;
+    private final CheckpointLog checkpointLog;
+    private final int syncInterval;
+    private final CompressionCodec compression;
+    // appends not forced to the storage device yet, by thread
+    private final Map<String, Integer> unsyncedAppends = new ConcurrentHashMap<>();
 
-    @SuppressWarnings("unchecked")
     public FileSystemSaver(Path targetFolder, StateSerializer<? extends AgentState> stateSerializer) {
+        this(targetFolder, stateSerializer, 1);
+    }
+
+    /**
+     * Creates a saver that writes a full checkpoint every {@code keyframeInterval} checkpoints and deltas in between.
+     *
+     * @param targetFolder the folder where the files are stored
+     * @param stateSerializer the serializer of the state
+     * @param keyframeInterval the number of checkpoints between two keyframes. {@code 1} writes every checkpoint in full
+     */
+    public FileSystemSaver(Path targetFolder, StateSerializer<? extends AgentState> stateSerializer, int keyframeInterval) {
+        this(targetFolder, stateSerializer, keyframeInterval, CheckpointCachePolicy.unbounded());
+    }
+
+    /**
+     * Creates a saver that keeps in memory the threads allowed by the given cache policy.
+     * An evicted thread is read again from its file on next access.
+     *
+     * @param targetFolder the folder where the files are stored
+     * @param stateSerializer the serializer of the state
+     * @param keyframeInterval the number of checkpoints between two keyframes. {@code 1} writes every checkpoint in full
+     * @param cachePolicy the policy that bounds the threads kept in memory
+     */
+    public FileSystemSaver(Path targetFolder, StateSerializer<? extends AgentState> stateSerializer, int keyframeInterval, CheckpointCachePolicy cachePolicy) {
+        this(builder()
+                .targetFolder(targetFolder)
+                .stateSerializer(stateSerializer)
+                .keyframeInterval(keyframeInterval)
+                .cachePolicy(cachePolicy));
+    }
 
-        Objects.requireNonNull(stateSerializer, "stateSerializer cannot be null");
-        this.targetFolder = Objects.requireNonNull(targetFolder, "targetFolder cannot be null");
-        this.serializer = new CheckPointSerializer((StateSerializer<AgentState>) stateSerializer);
+    @SuppressWarnings("unchecked")
+    protected FileSystemSaver(Builder builder) {
+        super(builder.keyframeInterval, builder.cachePolicy);
+        Objects.requireNonNull(builder.stateSerializer, "stateSerializer cannot be null");
+        this.targetFolder = Objects.requireNonNull(builder.targetFolder, "targetFolder cannot be null");
+        this.serializer = new CheckPointSerializer((StateSerializer<AgentState>) builder.stateSerializer, true);
+        this.legacySerializer = new CheckPointSerializer((StateSerializer<AgentState>) builder.stateSerializer, false);
+        this.compression = Objects.requireNonNull(builder.compression, "compression cannot be null");
+        this.checkpointLog = new CheckpointLog(serializer, compression);
+        this.syncInterval = builder.syncInterval;
 
         File targetFolderAsFile = targetFolder.toFile();
 
         if (targetFolderAsFile.exists()) {
             if (targetFolderAsFile.isFile()) {
-                throw new IllegalArgumentException(format("targetFolder '%s' must be a folder", targetFolder)); // TODO: format"targetFolder must be a directory");
+                throw new IllegalArgumentException(format("targetFolder '%s' must be a folder", targetFolder));
             }
         } else {
             if (!targetFolderAsFile.mkdirs()) {
-                throw new IllegalArgumentException(format("targetFolder '%s' cannot be created", targetFolder)); // TODO: format"targetFolder cannot be created");
+                throw new IllegalArgumentException(format("targetFolder '%s' cannot be created", targetFolder));
             }
         }
 
@@ -69,36 +135,65 @@ public class FileSystemSaver extends MemorySaver {
         return getPath(config).toFile();
     }
 
-    private void serialize(LinkedList<Checkpoint> checkpoints, File outFile) throws IOException {
-        Objects.requireNonNull(checkpoints, "checkpoints cannot be null");
-        Objects.requireNonNull(outFile, "outFile cannot be null");
-        try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(outFile.toPath()))) {
-
-            oos.writeInt(checkpoints.size());
-            for (Checkpoint checkpoint : checkpoints) {
-                serializer.write(checkpoint, oos);
-            }
-        }
-    }
-
     private void deserialize(File file, LinkedList<Checkpoint> result) throws IOException, ClassNotFoundException {
         Objects.requireNonNull(file, "file cannot be null");
         Objects.requireNonNull(result, "result cannot be null");
 
         try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(file.toPath()))) {
             int size = ois.readInt();
+            var checkpointSerializer = legacySerializer;
+            if (size == DELTA_FORMAT) {
+                size = ois.readInt();
+                checkpointSerializer = serializer;
+            }
             for (int i = 0; i < size; i++) {
-                result.add(serializer.read(ois));
+                result.add(checkpointSerializer.read(ois));
             }
         }
     }
 
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the codec compressing the records of the logs
+     */
+    public final CompressionCodec compression() {
+        return compression;
+    }
+
+    /**
+     * @return the number of appends after which the log is forced to the storage device, {@code 0} if never forced
+     */
+    public final int syncInterval() {
+        return syncInterval;
+    }
+
+    private boolean syncRequired(RunnableConfig config) {
+        if (syncInterval == 0) {
+            return false;
+        }
+        var threadId = config.threadId().orElse(THREAD_ID_DEFAULT);
+        if (unsyncedAppends.merge(threadId, 1, Integer::sum) < syncInterval) {
+            return false;
+        }
+        unsyncedAppends.remove(threadId);
+        return true;
+    }
+
     @Override
     protected LinkedList<Checkpoint> loadedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints) throws Exception {
 
-        File targetFile = getFile(config);
-        if (targetFile.exists() && checkpoints.isEmpty()) {
-            deserialize(targetFile, checkpoints);
+        var targetPath = getPath(config);
+        if (Files.exists(targetPath) && checkpoints.isEmpty()) {
+            if (CheckpointLog.isLog(targetPath)) {
+                checkpointLog.read(targetPath, checkpoints);
+            } else {
+                deserialize(targetPath.toFile(), checkpoints);
+                // converts the file written by a previous version
+                checkpointLog.write(targetPath, checkpoints);
+            }
         }
         return checkpoints;
 
@@ -106,19 +201,83 @@ public class FileSystemSaver extends MemorySaver {
 
     @Override
     protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
-        File targetFile = getFile(config);
-        serialize(checkpoints, targetFile);
+        checkpointLog.append(getPath(config), null, checkpoint, syncRequired(config));
     }
 
     @Override
     protected void updatedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
-        insertedCheckpoint(config, checkpoints, checkpoint);
+        var targetPath = getPath(config);
+        var sync = syncRequired(config);
+
+        int index = checkpoints.indexOf(checkpoint);
+        if (index > 0) {
+            // the newer checkpoint could have been turned from a delta into a keyframe
+            var newer = checkpoints.get(index - 1);
+            checkpointLog.append(targetPath, newer.getId(), newer, false);
+        }
+        var replacedId = config.checkPointId()
+                .orElseThrow(() -> new IllegalArgumentException("checkPointId of the replaced checkpoint cannot be null"));
+        checkpointLog.append(targetPath, replacedId, checkpoint, sync);
+    }
+
+    @Override
+    protected Collection<String> prunableThreadIds() throws Exception {
+        var result = new ArrayList<String>();
+        try (var stream = Files.list(targetFolder)) {
+            stream.map(path -> THREAD_FILE.matcher(path.getFileName().toString()))
+                    .filter(matcher -> matcher.matches() && matcher.group(2) == null)
+                    .forEach(matcher -> result.add(matcher.group(1)));
+        }
+        return result;
+    }
+
+    /**
+     * Deletes the files, of the threads and of their released versions, not modified since the given instant.
+     *
+     * @param cutoff the instant before which a file not modified is deleted
+     * @return the number of deleted files
+     * @throws Exception if the folder cannot be listed
+     */
+    @Override
+    protected long expireThreads(Instant cutoff) throws Exception {
+        long result = 0;
+        List<Path> files;
+        try (var stream = Files.list(targetFolder)) {
+            files = stream.filter(path -> THREAD_FILE.matcher(path.getFileName().toString()).matches()).toList();
+        }
+        for (var file : files) {
+            try {
+                if (Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) {
+                    continue;
+                }
+                var matcher = THREAD_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches() && matcher.group(2) == null) {
+                    var threadId = matcher.group(1);
+                    evict(threadId);
+                    unsyncedAppends.remove(threadId);
+                }
+                if (Files.deleteIfExists(file)) {
+                    ++result;
+                }
+            } catch (IOException e) {
+                log.warn("file {} cannot be expired. Skipping it.", file, e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rewrites the log of the thread with the checkpoints kept.
+     */
+    @Override
+    protected void prunedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Collection<Checkpoint> removed) throws Exception {
+        checkpointLog.write(getPath(config), checkpoints);
     }
 
     /**
      * Releases the checkpoints associated with the given configuration.
-     * This involves copying the current checkpoint file (e.g., "thread-123.saver")
-     * to a versioned backup file (e.g., "thread-123-v1.saver", "thread-123-v2.saver", etc.)
+     * This involves compacting the current checkpoint file (e.g., "thread-123.saver")
+     * into a versioned backup file (e.g., "thread-123-v1.saver", "thread-123-v2.saver", etc.)
      * based on existing versioned files, deleting the original unversioned file,
      * and then clearing the in-memory checkpoints.
      *
@@ -156,9 +315,11 @@ public class FileSystemSaver extends MemorySaver {
         var backupFilename = format("%s-v%d%s", getBaseName(config), nextVersion, EXTENSION);
         Path backupPath = targetFolder.resolve(backupFilename);
 
-        Files.copy(currentPath, backupPath, StandardCopyOption.REPLACE_EXISTING);
+        // the backup is a compacted log of the checkpoints as stored
+        checkpointLog.write(backupPath, checkpoints);
 
         Files.delete(currentPath);
+        unsyncedAppends.remove(config.threadId().orElse(THREAD_ID_DEFAULT));
 
     }
 
@@ -172,28 +333,169 @@ public class FileSystemSaver extends MemorySaver {
         File targetFile = getFile(config);
         return targetFile.exists() && targetFile.delete();
     }
+
+    public static class Builder {
+        private Path targetFolder;
+        private StateSerializer<? extends AgentState> stateSerializer;
+        private int keyframeInterval = 1;
+        private CheckpointCachePolicy cachePolicy = CheckpointCachePolicy.unbounded();
+        private int syncInterval = 0;
+        private CompressionCodec compression = CompressionCodec.none();
+
+        /**
+         * Sets the folder where the files are stored.
+         *
+         * @param targetFolder the target folder
+         * @return this builder
+         */
+        public Builder targetFolder(Path targetFolder) {
+            this.targetFolder = targetFolder;
+            return this;
+        }
+
+        /**
+         * Sets the serializer of the state.
+         *
+         * @param stateSerializer the state serializer
+         * @return this builder
+         */
+        public Builder stateSerializer(StateSerializer<? extends AgentState> stateSerializer) {
+            this.stateSerializer = stateSerializer;
+            return this;
+        }
+
+        /**
+         * Sets the number of checkpoints between two keyframes (default {@code 1}, every checkpoint is written in full).
+         *
+         * @param keyframeInterval the keyframe interval
+         * @return this builder
+         */
+        public Builder keyframeInterval(int keyframeInterval) {
+            this.keyframeInterval = keyframeInterval;
+            return this;
+        }
+
+        /**
+         * Sets the policy that bounds the threads kept in memory (default {@link CheckpointCachePolicy#unbounded()}).
+         * An evicted thread is read again from its file on next access.
+         *
+         * @param cachePolicy the cache policy
+         * @return this builder
+         */
+        public Builder cachePolicy(CheckpointCachePolicy cachePolicy) {
+            this.cachePolicy = cachePolicy;
+            return this;
+        }
+
+        /**
+         * Sets the number of appends after which the log of a thread is forced to the storage device.
+         * {@code 1} forces every append, {@code 0} (default) leaves it to the operating system.
+         *
+         * @param syncInterval the sync interval
+         * @return this builder
+         */
+        public Builder syncInterval(int syncInterval) {
+            if (syncInterval < 0) {
+                throw new IllegalArgumentException(format("syncInterval cannot be negative but was %d!", syncInterval));
+            }
+            this.syncInterval = syncInterval;
+            return this;
+        }
+
+        /**
+         * Sets the codec compressing the records of the logs (default {@link CompressionCodec#none()}).
+         *
+         * @param compression the compression codec
+         * @return this builder
+         */
+        public Builder compression(CompressionCodec compression) {
+            this.compression = Objects.requireNonNull(compression, "compression cannot be null");
+            return this;
+        }
+
+        public FileSystemSaver build() {
+            return new FileSystemSaver(this);
+        }
+    }
 }
 
+/**
+ * The delta flag is followed, for the deltas holding {@link Checkpoint.Appended} values, by their keys and offsets,
+ * and the state holds just the appended elements, so that any state serializer can write them.
+ * <pre>
+ * flag     : 0 full | 1 delta | 2 delta with appended values
+ * appended : count(int) ( key(utf) offset(int) )*
+ * </pre>
+ *
+ * @param stateSerializer the serializer of the state
+ * @param withDelta whether the delta flag of the checkpoint is written. It is missing in the files written by previous versions
+ */
 record CheckPointSerializer(
-        StateSerializer<AgentState> stateSerializer) implements NullableObjectSerializer<Checkpoint> {
+        StateSerializer<AgentState> stateSerializer, boolean withDelta) implements NullableObjectSerializer<Checkpoint> {
+
+    private static final byte FULL = 0;
+    private static final byte DELTA = 1;
+    private static final byte APPENDED_DELTA = 2;
 
     @Override
     public void write(Checkpoint object, ObjectOutput out) throws IOException {
         Serializer.writeUTF(object.getId(), out);
         writeNullableUTF(object.getNodeId(), out);
         writeNullableUTF(object.getNextNodeId(), out);
-        AgentState state = stateSerializer.stateFactory().apply(object.getState());
+        var data = object.getState();
+        if (withDelta) {
+            if (object.holdsAppended()) {
+                out.writeByte(APPENDED_DELTA);
+                data = new HashMap<>(data);
+                final var appended = data.entrySet().stream()
+                        .filter(e -> e.getValue() instanceof Checkpoint.Appended)
+                        .toList();
+                out.writeInt(appended.size());
+                for (var entry : appended) {
+                    final var value = (Checkpoint.Appended) entry.getValue();
+                    Serializer.writeUTF(entry.getKey(), out);
+                    out.writeInt(value.offset());
+                    entry.setValue(value.values());
+                }
+            }
+            else {
+                out.writeByte(object.isDelta() ? DELTA : FULL);
+            }
+        }
+        else if (object.isDelta()) {
+            throw new IOException("delta checkpoint cannot be written without the delta flag");
+        }
+        AgentState state = stateSerializer.stateFactory().apply(data);
         stateSerializer.write(state, out);
     }
 
     @Override
     public Checkpoint read(ObjectInput in) throws IOException, ClassNotFoundException {
-        return Checkpoint.builder()
+        final var builder = Checkpoint.builder()
                 .id(Serializer.readUTF(in))
                 .nextNodeId(readNullableUTF(in).orElse(null))
-                .nodeId(readNullableUTF(in).orElse(null))
-                .state(stateSerializer.read(in))
+                .nodeId(readNullableUTF(in).orElse(null));
+        final byte flag = withDelta ? in.readByte() : FULL;
+        if (flag != APPENDED_DELTA) {
+            return builder.delta(flag != FULL)
+                    .state(stateSerializer.read(in))
+                    .build();
+        }
+        final int count = in.readInt();
+        final var offsets = new HashMap<String, Integer>();
+        for (int i = 0; i < count; i++) {
+            offsets.put(Serializer.readUTF(in), in.readInt());
+        }
+        final var data = new HashMap<>(stateSerializer.read(in).data());
+        for (var entry : offsets.entrySet()) {
+            if (!(data.get(entry.getKey()) instanceof List<?> values)) {
+                throw new StreamCorruptedException(format("appended values of '%s' are not a list", entry.getKey()));
+            }
+            data.put(entry.getKey(), new Checkpoint.Appended(entry.getValue(), Collections.unmodifiableList(new ArrayList<Object>(values))));
+        }
+        return builder.delta(true)
+                .state(data)
                 .build();
     }
 
-}
\ No newline at end of file
+}
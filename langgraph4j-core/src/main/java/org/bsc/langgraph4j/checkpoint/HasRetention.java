@@ -0,0 +1,32 @@
+package org.bsc.langgraph4j.checkpoint;
+
+/**
+ * Represents a saver that can delete the checkpoints not retained by a {@link CheckpointRetentionPolicy}.
+ *
+ * @see CheckpointCompactor
+ */
+public interface HasRetention {
+
+    /**
+     * The outcome of a prune.
+     *
+     * @param expiredThreads the number of threads deleted because older than {@link CheckpointRetentionPolicy#maxAge()}
+     * @param prunedCheckpoints the number of checkpoints deleted from the remaining threads
+     */
+    record PruneResult( long expiredThreads, long prunedCheckpoints ) {
+
+        public PruneResult plus( PruneResult other ) {
+            return new PruneResult( expiredThreads + other.expiredThreads, prunedCheckpoints + other.prunedCheckpoints );
+        }
+    }
+
+    /**
+     * Deletes the threads and the checkpoints not retained by the given policy.
+     * It can run while the saver is in use.
+     *
+     * @param policy the retention policy
+     * @return the number of threads and checkpoints deleted
+     * @throws Exception if the checkpoints cannot be deleted
+     */
+    PruneResult prune( CheckpointRetentionPolicy policy ) throws Exception;
+}
@@ -0,0 +1,463 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Base class of the savers that store the checkpoints in a relational database through JDBC.
+ * <p>
+ * It implements the insertion of the checkpoints, that is the hot path of a running graph:
+ * <ul>
+ *     <li>the database id of a thread is resolved once, upserting the thread on its first checkpoint, and then
+ *     cached by thread name until the thread is released through this saver</li>
+ *     <li>the checkpoints stored together by {@link #putAll(RunnableConfig, List)}, e.g. by a
+ *     {@link BatchingCheckpointSaver} flush, are written in a single transaction through one prepared statement
+ *     and {@link PreparedStatement#executeBatch()}</li>
+ *     <li>the execution time of the statements is collected by {@link StatementType} and reported by
+ *     {@link #statementStats()}</li>
+ * </ul>
+ * It also implements {@link #prune(CheckpointRetentionPolicy)} on the stored threads: the expired threads, released
+ * or not, are deleted by the newest {@code saved_at} of their checkpoints, together with the threads left without
+ * checkpoints, and the checkpoints of the open threads are pruned reading their history without the states.
+ * <p>
+ * The subclasses provide the SQL dialect: the tables, the upsert of the thread, the insert statement and its binding.
+ * The reuse of the prepared statements across connections is left to the statement cache of the driver or of the
+ * connection pool (e.g. {@code prepareThreshold} on PostgreSQL, {@code cachePrepStmts} on MySQL, the implicit
+ * statement cache on Oracle), as the connections are borrowed from the {@link DataSource} for each operation.
+ */
+public abstract class JdbcCheckpointSaver extends MemorySaver {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(JdbcCheckpointSaver.class);
+
+    /**
+     * The statements whose execution time is collected.
+     */
+    public enum StatementType {
+        /** the creation of a thread, or the lookup of its database id */
+        UPSERT_THREAD,
+        /** the insertion of one or more checkpoints */
+        INSERT_CHECKPOINTS,
+        /** the replacement of a checkpoint */
+        UPDATE_CHECKPOINT,
+        /** the selection of the newest checkpoint of a thread */
+        SELECT_HEAD,
+        /** the selection of the history of a thread */
+        SELECT_CHECKPOINTS,
+        /** the selection of a page of states */
+        SELECT_STATES,
+        /** the release of a thread */
+        RELEASE_THREAD,
+        /** the deletion of the pruned checkpoints */
+        DELETE_CHECKPOINTS,
+        /** the selection and the deletion of the expired threads */
+        EXPIRE_THREADS
+    }
+
+    /**
+     * Execution statistics of a statement.
+     *
+     * @param statement the statement
+     * @param executions the number of executions, a batch counts as one execution
+     * @param totalNanos the total execution time in nanoseconds
+     * @param maxNanos the longest execution time in nanoseconds
+     */
+    public record StatementStats( StatementType statement, long executions, long totalNanos, long maxNanos ) {
+
+        /**
+         * @return the average execution time in nanoseconds, 0 if the statement has not been executed
+         */
+        public long averageNanos() {
+            return executions == 0 ? 0 : totalNanos / executions;
+        }
+    }
+
+    /**
+     * A call that executes a statement.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    protected interface StatementCall<T> {
+        T call() throws SQLException;
+    }
+
+    private static final class StatementTimer {
+        final LongAdder executions = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator( Math::max, 0 );
+    }
+
+    private final DataSource dataSource;
+    // database id of the open threads, by thread name
+    private final ConcurrentHashMap<String, String> threadIds = new ConcurrentHashMap<>();
+    private final EnumMap<StatementType, StatementTimer> timers = new EnumMap<>( StatementType.class );
+    // last saved_at assigned, in microseconds since the epoch
+    private final AtomicLong lastSavedAt = new AtomicLong();
+
+    /**
+     * @param dataSource the datasource providing the connections
+     * @param keyframeInterval the number of checkpoints between two keyframes, see {@link MemorySaver#MemorySaver(int)}
+     * @param cachePolicy the policy that bounds the threads kept in memory
+     */
+    protected JdbcCheckpointSaver( DataSource dataSource, int keyframeInterval, CheckpointCachePolicy cachePolicy ) {
+        super( keyframeInterval, cachePolicy );
+        this.dataSource = requireNonNull( dataSource, "dataSource cannot be null" );
+        for( var statement : StatementType.values() ) {
+            timers.put( statement, new StatementTimer() );
+        }
+    }
+
+    /**
+     * Datasource connection.
+     * Could be overridden to prepare the connections, e.g. registering custom types.
+     *
+     * @return Datasource connection
+     * @throws SQLException exception
+     */
+    protected Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    /**
+     * Creates the thread if it is not open yet and returns its database id.
+     * It runs within the transaction that inserts the first checkpoints of the thread.
+     *
+     * @param conn the connection
+     * @param threadName the name of the thread
+     * @return the database id of the open thread
+     * @throws SQLException if the thread cannot be created
+     */
+    protected abstract String upsertThread( Connection conn, String threadName ) throws SQLException;
+
+    /**
+     * @return the statement that inserts a checkpoint, bound by {@link #bindCheckpoint(PreparedStatement, String, Checkpoint, Timestamp)}
+     */
+    protected abstract String insertCheckpointSql();
+
+    /**
+     * Binds the parameters of the statement returned by {@link #insertCheckpointSql()}.
+     *
+     * @param ps the insert statement
+     * @param threadId the database id of the thread
+     * @param checkpoint the checkpoint to insert
+     * @param savedAt the time the checkpoint is saved at, that orders the checkpoints of the thread
+     * @throws Exception if the checkpoint cannot be bound
+     */
+    protected abstract void bindCheckpoint( PreparedStatement ps, String threadId, Checkpoint checkpoint, Timestamp savedAt ) throws Exception;
+
+    /**
+     * @return the name of the table of the threads, with columns {@code thread_id}, {@code thread_name}
+     *         and {@code is_released}
+     */
+    protected abstract String threadTable();
+
+    /**
+     * @return the name of the table of the checkpoints, with columns {@code checkpoint_id}, {@code thread_id}
+     *         and {@code saved_at}
+     */
+    protected abstract String checkpointTable();
+
+    /**
+     * Binds a checkpoint id to a parameter of a statement. The default implementation binds it as a string.
+     *
+     * @param ps the statement
+     * @param index the index of the parameter
+     * @param checkpointId the checkpoint id
+     * @throws SQLException if the id cannot be bound
+     */
+    protected void bindCheckpointId( PreparedStatement ps, int index, String checkpointId ) throws SQLException {
+        ps.setString( index, checkpointId );
+    }
+
+    /**
+     * Returns the database id of the open thread, creating the thread if needed.
+     * The id is cached, so the thread is upserted once.
+     *
+     * @param conn the connection
+     * @param threadName the name of the thread
+     * @return the database id of the thread
+     * @throws SQLException if the thread cannot be created
+     */
+    protected final String threadIdOf( Connection conn, String threadName ) throws SQLException {
+        var threadId = threadIds.get( threadName );
+        if( threadId == null ) {
+            threadId = requireNonNull( timed( StatementType.UPSERT_THREAD, () -> upsertThread( conn, threadName ) ),
+                                        "threadId cannot be null" );
+            threadIds.put( threadName, threadId );
+        }
+        return threadId;
+    }
+
+    /**
+     * Discards the cached database id of the thread, that is resolved again on next insertion.
+     * It must be called when the thread is released.
+     *
+     * @param threadName the name of the thread
+     */
+    protected final void forgetThread( String threadName ) {
+        threadIds.remove( threadName );
+    }
+
+    /**
+     * Returns the time a new checkpoint is saved at. The times assigned by this saver are strictly increasing,
+     * so the checkpoints inserted by a batch, that can share the database clock, keep their order.
+     *
+     * @return the time the checkpoint is saved at, truncated to microseconds
+     */
+    protected final Timestamp nextSavedAt() {
+        final var now = Instant.now().truncatedTo( ChronoUnit.MICROS );
+        final long nowMicros = ChronoUnit.MICROS.between( Instant.EPOCH, now );
+        final long micros = lastSavedAt.accumulateAndGet( nowMicros, ( last, next ) -> Math.max( last + 1, next ) );
+        return Timestamp.from( Instant.EPOCH.plus( micros, ChronoUnit.MICROS ) );
+    }
+
+    /**
+     * Executes the call, adding its execution time to the statistics of the statement.
+     *
+     * @param statement the executed statement
+     * @param call the call that executes the statement
+     * @return the result of the call
+     * @param <T> the type of the result
+     * @throws SQLException if the statement fails
+     */
+    protected final <T> T timed( StatementType statement, StatementCall<T> call ) throws SQLException {
+        final var timer = timers.get( statement );
+        final long start = System.nanoTime();
+        try {
+            return call.call();
+        }
+        finally {
+            final long elapsed = System.nanoTime() - start;
+            timer.executions.increment();
+            timer.totalNanos.add( elapsed );
+            timer.maxNanos.accumulate( elapsed );
+        }
+    }
+
+    /**
+     * @return the execution statistics of the statements, by statement
+     */
+    public Map<StatementType, StatementStats> statementStats() {
+        final var result = new EnumMap<StatementType, StatementStats>( StatementType.class );
+        timers.forEach( ( statement, timer ) -> result.put( statement, new StatementStats( statement,
+                timer.executions.sum(),
+                timer.totalNanos.sum(),
+                timer.maxNanos.get() ) ) );
+        return Collections.unmodifiableMap( result );
+    }
+
+    /**
+     * Resets the execution statistics of the statements.
+     */
+    public void resetStatementStats() {
+        timers.values().forEach( timer -> {
+            timer.executions.reset();
+            timer.totalNanos.reset();
+            timer.maxNanos.reset();
+        });
+    }
+
+    @Override
+    protected void insertedCheckpoint( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint ) throws Exception {
+        insertedCheckpoints( config, checkpoints, List.of( checkpoint ) );
+    }
+
+    /**
+     * Inserts the checkpoints in a single transaction, through one prepared statement.
+     * More than one checkpoint are sent as a JDBC batch.
+     */
+    @Override
+    protected void insertedCheckpoints( RunnableConfig config, LinkedList<Checkpoint> checkpoints, List<Checkpoint> inserted ) throws Exception {
+        final var threadName = config.threadId().orElse( THREAD_ID_DEFAULT );
+
+        try( Connection conn = getConnection() ) {
+            final boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit( false );
+            try {
+                final var threadId = threadIdOf( conn, threadName );
+                try( PreparedStatement ps = conn.prepareStatement( insertCheckpointSql() ) ) {
+                    for( var checkpoint : inserted ) {
+                        bindCheckpoint( ps, threadId, checkpoint, nextSavedAt() );
+                        if( inserted.size() > 1 ) {
+                            ps.addBatch();
+                        }
+                    }
+                    timed( StatementType.INSERT_CHECKPOINTS, () -> inserted.size() > 1 ? ps.executeBatch() : ps.executeUpdate() );
+                }
+                conn.commit();
+                log.debug( "{} checkpoints of thread {} inserted", inserted.size(), threadName );
+            }
+            catch( Exception ex ) {
+                log.error( "Error inserting {} checkpoints in thread {}", inserted.size(), threadName, ex );
+                // the thread could have been upserted by the rolled back transaction
+                forgetThread( threadName );
+                rollback( conn, threadName );
+                throw ex;
+            }
+            finally {
+                conn.setAutoCommit( autoCommit );
+            }
+        }
+    }
+
+    /**
+     * @return the names of the open threads
+     */
+    @Override
+    protected Collection<String> prunableThreadIds() throws Exception {
+        final var sql = "SELECT thread_name FROM %s WHERE is_released = FALSE".formatted( threadTable() );
+        final var result = new ArrayList<String>();
+        try( Connection conn = getConnection(); PreparedStatement ps = conn.prepareStatement( sql ) ) {
+            try( var rs = ps.executeQuery() ) {
+                while( rs.next() ) {
+                    result.add( rs.getString(1) );
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Deletes the threads, released or not, whose newest checkpoint has been saved before the given instant,
+     * and the threads left without checkpoints.
+     * The open threads are locked until the deletion is committed: their cached ids are discarded and they are
+     * evicted from memory first, so a concurrent put waits and then creates the thread again.
+     */
+    @Override
+    protected long expireThreads( Instant cutoff ) throws Exception {
+        final var selectExpiredSql = """
+                SELECT t.thread_id, t.thread_name, t.is_released
+                FROM %s t
+                LEFT JOIN %s c ON c.thread_id = t.thread_id
+                GROUP BY t.thread_id, t.thread_name, t.is_released
+                HAVING MAX(c.saved_at) IS NULL OR MAX(c.saved_at) < ?
+                """.formatted( threadTable(), checkpointTable() );
+
+        try( Connection conn = getConnection() ) {
+            final var threadIds = new ArrayList<Object>();
+            final var openThreadNames = new ArrayList<String>();
+            try( PreparedStatement ps = conn.prepareStatement( selectExpiredSql ) ) {
+                ps.setTimestamp( 1, Timestamp.from( cutoff ) );
+                try( var rs = timed( StatementType.EXPIRE_THREADS, ps::executeQuery ) ) {
+                    while( rs.next() ) {
+                        threadIds.add( rs.getObject(1) );
+                        if( !rs.getBoolean(3) ) {
+                            openThreadNames.add( rs.getString(2) );
+                        }
+                    }
+                }
+            }
+            if( threadIds.isEmpty() ) {
+                return 0;
+            }
+            return withThreadsLocked( openThreadNames, () -> {
+                for( var threadName : openThreadNames ) {
+                    forgetThread( threadName );
+                    evictDeleted( threadName );
+                }
+                final boolean autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit( false );
+                try {
+                    deleteExpiredThreads( conn, threadIds, cutoff );
+                    conn.commit();
+                }
+                catch( Exception ex ) {
+                    rollback( conn, "expired threads" );
+                    throw ex;
+                }
+                finally {
+                    conn.setAutoCommit( autoCommit );
+                }
+                log.debug( "{} expired threads deleted", threadIds.size() );
+                return (long) threadIds.size();
+            });
+        }
+    }
+
+    /**
+     * Deletes the given expired threads and their checkpoints, within the transaction of the given connection.
+     * It is called holding the locks of the open threads among them.
+     * The default implementation deletes the rows through two JDBC batches.
+     *
+     * @param conn the connection, whose transaction is committed by the caller
+     * @param threadIds the database ids of the expired threads
+     * @param cutoff the instant before which a thread not updated is expired
+     * @throws SQLException if the threads cannot be deleted
+     */
+    protected void deleteExpiredThreads( Connection conn, List<Object> threadIds, Instant cutoff ) throws SQLException {
+        final var deleteCheckpointsSql = "DELETE FROM %s WHERE thread_id = ?".formatted( checkpointTable() );
+        final var deleteThreadSql = "DELETE FROM %s WHERE thread_id = ?".formatted( threadTable() );
+
+        try( PreparedStatement deleteCheckpoints = conn.prepareStatement( deleteCheckpointsSql );
+             PreparedStatement deleteThread = conn.prepareStatement( deleteThreadSql ) ) {
+            for( var threadId : threadIds ) {
+                deleteCheckpoints.setObject( 1, threadId );
+                deleteCheckpoints.addBatch();
+                deleteThread.setObject( 1, threadId );
+                deleteThread.addBatch();
+            }
+            timed( StatementType.EXPIRE_THREADS, () -> {
+                deleteCheckpoints.executeBatch();
+                return deleteThread.executeBatch();
+            });
+        }
+    }
+
+    /**
+     * Deletes the removed checkpoints in a single transaction, through a JDBC batch.
+     */
+    @Override
+    protected void prunedCheckpoints( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Collection<Checkpoint> removed ) throws Exception {
+        final var deleteCheckpointSql = "DELETE FROM %s WHERE checkpoint_id = ?".formatted( checkpointTable() );
+        final var threadName = config.threadId().orElse( THREAD_ID_DEFAULT );
+
+        try( Connection conn = getConnection() ) {
+            final boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit( false );
+            try( PreparedStatement ps = conn.prepareStatement( deleteCheckpointSql ) ) {
+                for( var checkpoint : removed ) {
+                    bindCheckpointId( ps, 1, checkpoint.getId() );
+                    ps.addBatch();
+                }
+                timed( StatementType.DELETE_CHECKPOINTS, ps::executeBatch );
+                conn.commit();
+            }
+            catch( Exception ex ) {
+                log.error( "Error deleting {} pruned checkpoints in thread {}", removed.size(), threadName, ex );
+                rollback( conn, threadName );
+                throw ex;
+            }
+            finally {
+                conn.setAutoCommit( autoCommit );
+            }
+        }
+    }
+
+    /**
+     * Rolls back the current transaction of the connection, logging the failure of the rollback.
+     *
+     * @param conn the connection
+     * @param threadName the name of the thread the transaction belongs to
+     */
+    protected static void rollback( Connection conn, String threadName ) {
+        try {
+            conn.rollback();
+        }
+        catch( SQLException ex ) {
+            log.error( "Failed to rollback transaction in thread {}", threadName, ex );
+        }
+    }
+}
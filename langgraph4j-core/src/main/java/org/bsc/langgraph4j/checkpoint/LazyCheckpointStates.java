@@ -0,0 +1,166 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.util.*;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Factory of checkpoint states decoded on first access, used by the savers that load the history of a thread
+ * without its payloads.
+ * <p>
+ * The states are grouped in pages of {@code pageSize} checkpoints, in the order they are created: the first access
+ * to a state loads the payloads of its whole page through the {@link PageLoader}, so iterating the history costs a
+ * query every page rather than a query every checkpoint.
+ * <p>
+ * The savers load the states still pending of the checkpoints they delete, see {@link #loadStates(Collection)},
+ * so a checkpoint listed before being pruned or expired stays readable.
+ * <pre>
+ * var states = new LazyCheckpointStates( 50, ids -&gt; selectStates( ids ) );
+ * while( rs.next() ) {
+ *     checkpoints.add( Checkpoint.builder()
+ *                         .id( rs.getString(1) )
+ *                         ...
+ *                         .state( states.stateOf( rs.getString(1) ) )
+ *                         .build() );
+ * }
+ * </pre>
+ */
+public final class LazyCheckpointStates {
+
+    /**
+     * Loads the states of a page of checkpoints.
+     */
+    @FunctionalInterface
+    public interface PageLoader {
+        /**
+         * @param checkpointIds the ids of the checkpoints of the page
+         * @return the states of the given checkpoints, by checkpoint id
+         * @throws Exception if the states cannot be loaded
+         */
+        Map<String, Map<String,Object>> load( List<String> checkpointIds ) throws Exception;
+    }
+
+    private final int pageSize;
+    private final PageLoader loader;
+    private Page currentPage;
+
+    /**
+     * @param pageSize the number of states loaded together
+     * @param loader the loader of the states of a page
+     */
+    public LazyCheckpointStates( int pageSize, PageLoader loader ) {
+        if( pageSize < 1 ) {
+            throw new IllegalArgumentException( format("pageSize must be positive but was %d!", pageSize) );
+        }
+        this.pageSize = pageSize;
+        this.loader = requireNonNull( loader, "loader cannot be null" );
+    }
+
+    /**
+     * Creates the state of the given checkpoint, that is loaded with its page on first access.
+     *
+     * @param checkpointId the id of the checkpoint
+     * @return the lazy state
+     */
+    public Map<String,Object> stateOf( String checkpointId ) {
+        requireNonNull( checkpointId, "checkpointId cannot be null" );
+        if( currentPage == null || currentPage.checkpointIds.size() == pageSize ) {
+            currentPage = new Page();
+        }
+        currentPage.checkpointIds.add( checkpointId );
+        return new LazyState( currentPage, checkpointId );
+    }
+
+    /**
+     * Loads the states not loaded yet of the given checkpoints, a page at a time. It is called before deleting
+     * the checkpoints from the store, so their states don't vanish for the callers that still hold them.
+     *
+     * @param checkpoints the checkpoints about to be deleted
+     */
+    static void loadStates( Collection<Checkpoint> checkpoints ) {
+        for( var checkpoint : checkpoints ) {
+            if( checkpoint.getState() instanceof LazyState state && !state.isLoaded() ) {
+                try {
+                    state.state();
+                }
+                catch( IllegalStateException ex ) {
+                    // already deleted from the store, e.g. by another saver: there is nothing left to keep
+                }
+            }
+        }
+    }
+
+    private final class Page {
+        final List<String> checkpointIds = new ArrayList<>( pageSize );
+        private Map<String, Map<String,Object>> states;
+
+        synchronized Map<String,Object> stateOf( String checkpointId ) {
+            if( states == null ) {
+                try {
+                    states = new HashMap<>( loader.load( List.copyOf(checkpointIds) ) );
+                }
+                catch( Exception ex ) {
+                    throw new IllegalStateException( format("cannot load the state of checkpoint %s", checkpointId), ex );
+                }
+            }
+            // each state is handed over once, so the page doesn't retain it
+            final var state = states.remove( checkpointId );
+            if( state == null ) {
+                throw new IllegalStateException( format("state of checkpoint %s not found", checkpointId) );
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Read-only state that loads its content on first access.
+     */
+    static final class LazyState extends AbstractMap<String,Object> {
+        private final Page page;
+        private final String checkpointId;
+        private volatile Map<String,Object> state;
+
+        private LazyState( Page page, String checkpointId ) {
+            this.page = page;
+            this.checkpointId = checkpointId;
+        }
+
+        boolean isLoaded() {
+            return state != null;
+        }
+
+        private Map<String,Object> state() {
+            var result = state;
+            if( result == null ) {
+                synchronized( this ) {
+                    result = state;
+                    if( result == null ) {
+                        state = result = page.stateOf( checkpointId );
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return Collections.unmodifiableMap( state() ).entrySet();
+        }
+
+        @Override
+        public Object get( Object key ) {
+            return state().get( key );
+        }
+
+        @Override
+        public boolean containsKey( Object key ) {
+            return state().containsKey( key );
+        }
+
+        @Override
+        public int size() {
+            return state().size();
+        }
+    }
+}
@@ -2,46 +2,357 @@ package org.bsc.langgraph4j.checkpoint;
 
 import org.bsc.langgraph4j.RunnableConfig;
 import org.bsc.langgraph4j.utils.TryFunction;
+import org.bsc.langgraph4j.utils.TrySupplier;
 
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.IntStream;
 
 import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
 
-public class MemorySaver implements BaseCheckpointSaver {
+/**
+ * A CheckpointSaver that keeps the checkpoints of each thread in memory.
+ * <p>
+ * It can store checkpoints as deltas: given a keyframe interval {@code n}, one checkpoint every {@code n}
+ * is stored in full (keyframe) while the others hold only the state entries changed since the previous checkpoint.
+ * {@link #get(RunnableConfig)}, {@link #list(RunnableConfig)} and {@link #release(RunnableConfig)} always return
+ * full checkpoints, rebuilt by replaying the deltas from the closest previous keyframe.
+ * The hooks instead receive the checkpoints as stored.
+ * <p>
+ * The threads kept in memory can be bounded by a {@link CheckpointCachePolicy}. An evicted thread is initialized
+ * again on next access through {@link #loadedCheckpoints(RunnableConfig, LinkedList)}, so bounding the cache makes
+ * sense only for the savers that reload the checkpoints from a store.
+ * <p>
+ * A saver backed by a store can initialize a thread with its newest checkpoints only, overriding
+ * {@link #loadedHead(RunnableConfig, LinkedList)}: resuming a thread then doesn't read its whole history, that is
+ * loaded through {@link #loadedCheckpoints(RunnableConfig, LinkedList)} on the first operation that needs it,
+ * like {@link #list(RunnableConfig)} or the access to an older checkpoint.
+ * <p>
+ * The operations on a thread, hooks included, are serialized by a lock chosen by thread id among a fixed set
+ * of locks, so the operations on unrelated threads, like the I/O performed by the hooks, run in parallel.
+ * <p>
+ * {@link #prune(CheckpointRetentionPolicy)} enforces a {@link CheckpointRetentionPolicy} on the threads in memory.
+ * A saver backed by a store extends it to the stored threads overriding {@link #prunableThreadIds()} and
+ * {@link #expireThreads(Instant)}, and deletes the pruned checkpoints in
+ * {@link #prunedCheckpoints(RunnableConfig, LinkedList, Collection)}.
+ */
+public class MemorySaver implements BaseCheckpointSaver, HasRetention {
 
-    final Map<String, LinkedList<Checkpoint>> _checkpointsByThread = new HashMap<>();
-    private final ReentrantLock _lock = new ReentrantLock();
+    // number of locks shared by the threads, a power of two
+    private static final int LOCK_STRIPES = 64;
 
+    final CheckpointCache _checkpointsByThread;
+    private final ReentrantLock[] _locks = new ReentrantLock[LOCK_STRIPES];
+    private final int keyframeInterval;
+
+    /**
+     * Creates a saver that stores every checkpoint in full.
+     */
     public MemorySaver( ) {
+        this(1);
+    }
+
+    /**
+     * Creates a saver that stores a full checkpoint every {@code keyframeInterval} checkpoints and deltas in between.
+     *
+     * @param keyframeInterval the number of checkpoints between two keyframes. {@code 1} stores every checkpoint in full
+     * @throws IllegalArgumentException if keyframeInterval is less than 1
+     */
+    public MemorySaver( int keyframeInterval ) {
+        this( keyframeInterval, CheckpointCachePolicy.unbounded() );
+    }
+
+    /**
+     * Creates a saver that keeps in memory the threads allowed by the given cache policy.
+     *
+     * @param keyframeInterval the number of checkpoints between two keyframes. {@code 1} stores every checkpoint in full
+     * @param cachePolicy the policy that bounds the threads kept in memory
+     * @throws IllegalArgumentException if keyframeInterval is less than 1
+     */
+    public MemorySaver( int keyframeInterval, CheckpointCachePolicy cachePolicy ) {
+        if( keyframeInterval < 1 ) {
+            throw new IllegalArgumentException( format("keyframeInterval must be greater than 0 but was %d!", keyframeInterval) );
+        }
+        this.keyframeInterval = keyframeInterval;
+        this._checkpointsByThread = new CheckpointCache( requireNonNull( cachePolicy, "cachePolicy cannot be null") );
+        Arrays.setAll( _locks, i -> new ReentrantLock() );
+    }
+
+    /**
+     * @return the number of checkpoints between two keyframes
+     */
+    public final int keyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * @return the policy that bounds the threads kept in memory
+     */
+    public final CheckpointCachePolicy cachePolicy() {
+        return _checkpointsByThread.policy();
+    }
+
+    /**
+     * @return the current metrics of the threads kept in memory
+     */
+    public final CheckpointCacheStats cacheStats() {
+        return _checkpointsByThread.stats();
     }
 
     protected LinkedList<Checkpoint> loadedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints) throws Exception {
         return checkpoints;
     }
+
+    /**
+     * Initializes a thread not in memory with its newest checkpoints, when the operation doesn't need the older ones.
+     * The loaded checkpoints must reach a keyframe, and until the history is loaded the hooks receive just them.
+     * The default implementation loads all the checkpoints
+     * through {@link #loadedCheckpoints(RunnableConfig, LinkedList)}.
+     *
+     * @param config the configuration of the thread
+     * @param checkpoints the empty list that receives the checkpoints, newest first
+     * @return true if the list holds all the checkpoints of the thread, false if the older ones must be loaded
+     *         by {@link #loadedCheckpoints(RunnableConfig, LinkedList)} when needed
+     * @throws Exception if the checkpoints cannot be loaded
+     */
+    protected boolean loadedHead(RunnableConfig config, LinkedList<Checkpoint> checkpoints) throws Exception {
+        final var loaded = loadedCheckpoints( config, checkpoints );
+        if( loaded != checkpoints ) {
+            checkpoints.clear();
+            checkpoints.addAll( loaded );
+        }
+        return true;
+    }
     protected void insertedCheckpoint( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
     }
+    /**
+     * Hook called by {@link #putAll(RunnableConfig, List)} once all the given checkpoints have been added.
+     * The default implementation calls {@link #insertedCheckpoint(RunnableConfig, LinkedList, Checkpoint)}
+     * for each one of them.
+     *
+     * @param config the configuration of the thread
+     * @param checkpoints the checkpoints of the thread, newest first
+     * @param inserted the added checkpoints as stored, oldest first
+     * @throws Exception if the checkpoints cannot be stored
+     */
+    protected void insertedCheckpoints( RunnableConfig config, LinkedList<Checkpoint> checkpoints, List<Checkpoint> inserted) throws Exception {
+        for( var checkpoint : inserted ) {
+            insertedCheckpoint( config, checkpoints, checkpoint );
+        }
+    }
     protected void updatedCheckpoint( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
     }
     protected void releasedCheckpoints( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Tag releaseTag) throws Exception {
     }
+    /**
+     * Hook called by {@link #prune(CheckpointRetentionPolicy)} once the checkpoints not retained have been removed
+     * from a thread. The checkpoints kept could have been turned from deltas into keyframes.
+     *
+     * @param config the configuration of the thread
+     * @param checkpoints the checkpoints kept, as stored, newest first
+     * @param removed the removed checkpoints, as stored
+     * @throws Exception if the checkpoints cannot be deleted
+     */
+    protected void prunedCheckpoints( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Collection<Checkpoint> removed) throws Exception {
+    }
 
     protected final <T> T loadOrInitCheckpoints(RunnableConfig config,
                                                 TryFunction<LinkedList<Checkpoint>, T, Exception> transformer) throws Exception {
-        _lock.lock();
+        return loadOrInitEntry( config, true, entry -> transformer.tryApply( entry.checkpoints ) );
+    }
+
+    /**
+     * Runs the given transformer on the acquired entry of the thread, loading the thread if needed.
+     *
+     * @param history whether the transformer needs all the checkpoints or just the newest ones
+     */
+    private <T> T loadOrInitEntry(RunnableConfig config,
+                                  boolean history,
+                                  TryFunction<CheckpointCache.Entry, T, Exception> transformer) throws Exception {
+        final var threadId = config.threadId().orElse(THREAD_ID_DEFAULT);
+        final var lock = lockOf( threadId );
+        lock.lock();
         try {
-            var threadId = config.threadId().orElse(THREAD_ID_DEFAULT);
-            return transformer.tryApply( loadedCheckpoints( config, _checkpointsByThread.computeIfAbsent(threadId, k -> new LinkedList<>()) ) );
+            final var entry = _checkpointsByThread.acquire( threadId );
+            try {
+                final boolean empty = entry.checkpoints.isEmpty();
+                if( empty && !history ) {
+                    entry.historyLoaded = loadedHead( config, entry.checkpoints );
+                    if( !entry.checkpoints.isEmpty() ) {
+                        _checkpointsByThread.weigh( entry );
+                    }
+                }
+                else if( !entry.historyLoaded && !empty ) {
+                    if( history ) {
+                        loadHistory( config, entry );
+                    }
+                }
+                else {
+                    final var loaded = loadedCheckpoints( config, entry.checkpoints );
+                    if( loaded != entry.checkpoints ) {
+                        entry.checkpoints.clear();
+                        entry.checkpoints.addAll( loaded );
+                    }
+                    entry.historyLoaded = true;
+                    if( empty && !entry.checkpoints.isEmpty() ) {
+                        _checkpointsByThread.weigh( entry );
+                    }
+                }
+                return transformer.tryApply( entry );
+            }
+            finally {
+                _checkpointsByThread.release( entry );
+            }
 
         } finally {
-            _lock.unlock();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the newest checkpoints of a thread initialized by {@link #loadedHead(RunnableConfig, LinkedList)}
+     * with all its checkpoints. The checkpoints put since then are already in the store, so they are loaded too.
+     */
+    private void loadHistory( RunnableConfig config, CheckpointCache.Entry entry ) throws Exception {
+        final var loaded = loadedCheckpoints( config, new LinkedList<>() );
+        entry.checkpoints.clear();
+        entry.checkpoints.addAll( loaded );
+        entry.historyLoaded = true;
+        _checkpointsByThread.weigh( entry );
+    }
+
+    /**
+     * Returns the position of the checkpoint with the given id, loading the history of the thread if needed.
+     *
+     * @return the position, or -1 if not found
+     */
+    private int indexOf( RunnableConfig config, CheckpointCache.Entry entry, String checkPointId ) throws Exception {
+        while( true ) {
+            int index = 0;
+            for( var checkpoint : entry.checkpoints ) {
+                if( checkpoint.getId().equals(checkPointId) ) {
+                    return index;
+                }
+                ++index;
+            }
+            if( entry.historyLoaded ) {
+                return -1;
+            }
+            loadHistory( config, entry );
+        }
+    }
+
+    private static int stripeOf( String threadId ) {
+        final int hash = threadId.hashCode();
+        return (hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    private ReentrantLock lockOf( String threadId ) {
+        return _locks[ stripeOf( threadId ) ];
+    }
+
+    /**
+     * Runs the given action holding the locks of the given threads, so that they are not updated through this saver
+     * in the meantime. The locks are taken in a fixed order, so concurrent calls don't deadlock.
+     *
+     * @param threadIds the ids of the threads to lock
+     * @param action the action to run
+     * @return the result of the action
+     * @param <T> the type of the result
+     * @throws Exception if the action fails
+     */
+    protected final <T> T withThreadsLocked( Collection<String> threadIds, TrySupplier<T, Exception> action ) throws Exception {
+        final var stripes = new TreeSet<Integer>();
+        threadIds.forEach( threadId -> stripes.add( stripeOf( threadId ) ) );
+        final var locked = new ArrayDeque<ReentrantLock>( stripes.size() );
+        try {
+            for( var stripe : stripes ) {
+                _locks[stripe].lock();
+                locked.push( _locks[stripe] );
+            }
+            return action.tryGet();
+        }
+        finally {
+            locked.forEach( ReentrantLock::unlock );
         }
     }
 
     final Optional<Checkpoint> getLast( LinkedList<Checkpoint> checkpoints, RunnableConfig config ) {
-        return (checkpoints.isEmpty() ) ? Optional.empty() : ofNullable(checkpoints.peek());
+        return (checkpoints.isEmpty() ) ? Optional.empty() : ofNullable(keyframeAt(checkpoints, 0));
+    }
+
+    /**
+     * Rebuilds the full checkpoint at the given position, replaying the deltas from the closest previous keyframe.
+     *
+     * @param checkpoints the stored checkpoints, newest first
+     * @param index the position of the checkpoint
+     * @return the full checkpoint
+     */
+    static Checkpoint keyframeAt( List<Checkpoint> checkpoints, int index ) {
+        final var deltas = new ArrayDeque<Checkpoint>();
+        final var iterator = checkpoints.listIterator(index);
+        while( iterator.hasNext() ) {
+            final var checkpoint = iterator.next();
+            if( !checkpoint.isDelta() ) {
+                var result = checkpoint;
+                while( !deltas.isEmpty() ) {
+                    result = deltas.pop().toKeyframe( result.getState() );
+                }
+                return result;
+            }
+            deltas.push( checkpoint );
+        }
+        throw new IllegalStateException( format("no keyframe found for checkpoint %s!", checkpoints.get(index).getId()) );
+    }
+
+    /**
+     * Rebuilds all the full checkpoints, replaying each delta once.
+     *
+     * @param checkpoints the stored checkpoints, newest first
+     * @return the full checkpoints, newest first
+     */
+    static LinkedList<Checkpoint> keyframesOf( List<Checkpoint> checkpoints ) {
+        final var result = new LinkedList<Checkpoint>();
+        final var iterator = checkpoints.listIterator( checkpoints.size() );
+        Checkpoint previous = null;
+        while( iterator.hasPrevious() ) {
+            var checkpoint = iterator.previous();
+            if( checkpoint.isDelta() ) {
+                if( previous == null ) {
+                    throw new IllegalStateException( format("no keyframe found for checkpoint %s!", checkpoint.getId()) );
+                }
+                checkpoint = checkpoint.toKeyframe( previous.getState() );
+            }
+            result.push( checkpoint );
+            previous = checkpoint;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the form in which the given checkpoint will be stored on top of the given ones.
+     *
+     * @param checkpoints the stored checkpoints, newest first
+     * @param checkpoint the full checkpoint to store
+     * @return the checkpoint itself if it must be a keyframe, otherwise its delta
+     */
+    private Checkpoint storedFormOf( LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint ) {
+        if( keyframeInterval == 1 || checkpoints.isEmpty() || checkpoint.isDelta() ) {
+            return checkpoint;
+        }
+        int deltas = 0;
+        for( var stored : checkpoints ) {
+            if( !stored.isDelta() ) {
+                break;
+            }
+            ++deltas;
+        }
+        if( deltas + 1 >= keyframeInterval ) {
+            return checkpoint;
+        }
+        return checkpoint.toDelta( keyframeAt( checkpoints, 0 ).getState() );
     }
 
     protected final Collection<Checkpoint> remove( String threadId ) {
@@ -51,7 +362,8 @@ public class MemorySaver implements BaseCheckpointSaver {
     @Override
     public final Collection<Checkpoint> list( RunnableConfig config ) {
         try {
-            return loadOrInitCheckpoints( config, Collections::unmodifiableCollection);
+            return loadOrInitCheckpoints( config, checkpoints ->
+                    Collections.unmodifiableCollection( keyframesOf(checkpoints) ) );
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -61,12 +373,13 @@ public class MemorySaver implements BaseCheckpointSaver {
     public final Optional<Checkpoint> get(RunnableConfig config) {
 
         try {
-            return loadOrInitCheckpoints( config, checkpoints -> {
+            return loadOrInitEntry( config, false, entry -> {
+                final var checkpoints = entry.checkpoints;
                 if( config.checkPointId().isPresent() ) {
-                    return config.checkPointId()
-                            .flatMap( id -> checkpoints.stream()
-                                    .filter( checkpoint -> checkpoint.getId().equals(id) )
-                                    .findFirst());
+                    final int index = indexOf( config, entry, config.checkPointId().get() );
+                    return ( index < 0 ) ?
+                            Optional.<Checkpoint>empty() :
+                            Optional.of( keyframeAt( checkpoints, index ) );
                 }
                 return getLast(checkpoints,config);
 
@@ -79,21 +392,31 @@ public class MemorySaver implements BaseCheckpointSaver {
     @Override
     public final RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) throws Exception {
 
-        return loadOrInitCheckpoints( config, checkpoints -> {
+        return loadOrInitEntry( config, false, entry -> {
+            final var checkpoints = entry.checkpoints;
 
             if (config.checkPointId().isPresent()) { // Replace Checkpoint
                 String checkPointId = config.checkPointId().get();
-                int index = IntStream.range(0, checkpoints.size())
-                        .filter(i -> checkpoints.get(i).getId().equals(checkPointId))
-                        .findFirst()
-                        .orElseThrow(() -> (new NoSuchElementException(format("Checkpoint with id %s not found!", checkPointId))));
-                checkpoints.set(index, checkpoint );
+                int index = indexOf( config, entry, checkPointId );
+                if( index < 0 ) {
+                    throw new NoSuchElementException(format("Checkpoint with id %s not found!", checkPointId));
+                }
+                // the next checkpoint could be a delta of the replaced one
+                if( index > 0 && checkpoints.get(index - 1).isDelta() ) {
+                    final var keyframe = keyframeAt( checkpoints, index - 1 );
+                    _checkpointsByThread.weigh( entry, keyframe, checkpoints.set( index - 1, keyframe ) );
+                }
+                _checkpointsByThread.weigh( entry, checkpoint, checkpoints.set(index, checkpoint ) );
+                entry.lastModified = System.currentTimeMillis();
                 updatedCheckpoint( config, checkpoints, checkpoint);
                 return config;
             }
 
-            checkpoints.push( checkpoint ); // Add Checkpoint
-            insertedCheckpoint( config, checkpoints, checkpoint);
+            final var storedCheckpoint = storedFormOf( checkpoints, checkpoint );
+            checkpoints.push( storedCheckpoint ); // Add Checkpoint
+            _checkpointsByThread.weigh( entry, storedCheckpoint, null );
+            entry.lastModified = System.currentTimeMillis();
+            insertedCheckpoint( config, checkpoints, storedCheckpoint);
 
             return RunnableConfig.builder(config)
                     .checkPointId(checkpoint.getId())
@@ -102,6 +425,225 @@ public class MemorySaver implements BaseCheckpointSaver {
         });
     }
 
+    @Override
+    public final RunnableConfig putAll(RunnableConfig config, List<Checkpoint> checkpoints) throws Exception {
+        requireNonNull( checkpoints, "checkpoints cannot be null" );
+        if( config.checkPointId().isPresent() ) {
+            throw new IllegalArgumentException("putAll cannot replace a checkpoint, the configuration must not have a checkpoint id");
+        }
+        if( checkpoints.isEmpty() ) {
+            return config;
+        }
+        return loadOrInitEntry( config, false, entry -> {
+            final var inserted = new ArrayList<Checkpoint>( checkpoints.size() );
+            for( var checkpoint : checkpoints ) {
+                final var storedCheckpoint = storedFormOf( entry.checkpoints, checkpoint );
+                entry.checkpoints.push( storedCheckpoint );
+                _checkpointsByThread.weigh( entry, storedCheckpoint, null );
+                inserted.add( storedCheckpoint );
+            }
+            entry.lastModified = System.currentTimeMillis();
+            insertedCheckpoints( config, entry.checkpoints, inserted );
+
+            return RunnableConfig.builder(config)
+                    .checkPointId( checkpoints.get( checkpoints.size() - 1 ).getId() )
+                    .build();
+        });
+    }
+
+    /**
+     * Deletes the threads expired by {@link #expireThreads(Instant)}, then prunes the checkpoints of the threads
+     * returned by {@link #prunableThreadIds()}.
+     */
+    @Override
+    public PruneResult prune( CheckpointRetentionPolicy policy ) throws Exception {
+        requireNonNull( policy, "policy cannot be null" );
+        long expiredThreads = 0;
+        final var cutoff = policy.expirationCutoff();
+        if( cutoff.isPresent() ) {
+            expiredThreads = expireThreads( cutoff.get() );
+        }
+        long prunedCheckpoints = 0;
+        if( policy.maxCheckpoints().isPresent() || policy.keepOnly().isPresent() ) {
+            for( var threadId : prunableThreadIds() ) {
+                prunedCheckpoints += pruneThread( threadId, policy );
+            }
+        }
+        return new PruneResult( expiredThreads, prunedCheckpoints );
+    }
+
+    /**
+     * Returns the threads whose checkpoints are pruned by {@link #prune(CheckpointRetentionPolicy)}.
+     * The default implementation returns the threads in memory.
+     *
+     * @return the thread ids
+     * @throws Exception if the threads cannot be listed
+     */
+    protected Collection<String> prunableThreadIds() throws Exception {
+        return _checkpointsByThread.threadIds();
+    }
+
+    /**
+     * Deletes the threads not updated since the given instant.
+     * The default implementation removes the threads in memory put before the given instant.
+     *
+     * @param cutoff the instant before which a thread not updated is deleted
+     * @return the number of deleted threads
+     * @throws Exception if the threads cannot be deleted
+     */
+    protected long expireThreads( Instant cutoff ) throws Exception {
+        long result = 0;
+        for( var threadId : _checkpointsByThread.threadIds() ) {
+            final long lastModified = _checkpointsByThread.lastModified( threadId );
+            if( lastModified > 0 && lastModified < cutoff.toEpochMilli() && evict( threadId ) ) {
+                ++result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes the given thread from memory, without calling any hook.
+     *
+     * @param threadId the thread id
+     * @return true if the thread was in memory
+     */
+    protected final boolean evict( String threadId ) {
+        final var lock = lockOf( threadId );
+        lock.lock();
+        try {
+            return remove( threadId ) != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the given thread from memory before its checkpoints are deleted from the store, without calling any hook.
+     * The states not loaded yet are loaded first, so the checkpoints already handed out stay readable.
+     *
+     * @param threadId the thread id
+     * @return true if the thread was in memory
+     */
+    protected final boolean evictDeleted( String threadId ) {
+        final var lock = lockOf( threadId );
+        lock.lock();
+        try {
+            final var checkpoints = remove( threadId );
+            if( checkpoints == null ) {
+                return false;
+            }
+            LazyCheckpointStates.loadStates( checkpoints );
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes from the given thread the checkpoints not retained by the policy
+     * and calls {@link #prunedCheckpoints(RunnableConfig, LinkedList, Collection)}.
+     * A thread not in memory, or whose history hasn't been loaded, is pruned on its checkpoints loaded aside through
+     * {@link #loadedCheckpoints(RunnableConfig, LinkedList)}, that are not kept in memory: the pruning doesn't evict
+     * the threads in use, and the savers loading the history without the states don't read them unless
+     * the policy does.
+     *
+     * @param threadId the thread id
+     * @param policy the retention policy
+     * @return the number of removed checkpoints
+     * @throws Exception if the checkpoints cannot be deleted
+     */
+    protected final long pruneThread( String threadId, CheckpointRetentionPolicy policy ) throws Exception {
+        final var config = RunnableConfig.builder().threadId( threadId ).build();
+        final var lock = lockOf( threadId );
+        lock.lock();
+        try {
+            if( _checkpointsByThread.get( threadId ) == null ) {
+                return pruneStored( config, policy, null );
+            }
+            return loadOrInitEntry( config, false, entry -> entry.historyLoaded ?
+                    pruneEntry( config, policy, entry ) :
+                    pruneStored( config, policy, entry ) );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Prunes the history in memory of the given acquired entry.
+     */
+    private long pruneEntry( RunnableConfig config, CheckpointRetentionPolicy policy, CheckpointCache.Entry entry ) throws Exception {
+        final var checkpoints = entry.checkpoints;
+        final var retained = policy.retainedOf( keyframesOf( checkpoints ) );
+        if( retained.size() == checkpoints.size() ) {
+            return 0L;
+        }
+        final var removed = removedOf( checkpoints, retained );
+        // stores again the kept checkpoints, so the deltas refer to kept keyframes
+        checkpoints.clear();
+        checkpoints.addAll( storedFormsOf( retained ) );
+        _checkpointsByThread.weigh( entry );
+        LazyCheckpointStates.loadStates( removed );
+        prunedCheckpoints( config, checkpoints, removed );
+        return removed.size();
+    }
+
+    /**
+     * Prunes the checkpoints of the thread loaded aside. The given entry, if any, holds the newest checkpoints only:
+     * the removed ones among them are dropped too.
+     */
+    private long pruneStored( RunnableConfig config, CheckpointRetentionPolicy policy, CheckpointCache.Entry entry ) throws Exception {
+        final var checkpoints = loadedCheckpoints( config, new LinkedList<>() );
+        final var retained = policy.retainedOf( keyframesOf( checkpoints ) );
+        if( retained.size() == checkpoints.size() ) {
+            return 0L;
+        }
+        final var removed = removedOf( checkpoints, retained );
+        final var removedIds = new HashSet<String>();
+        removed.forEach( checkpoint -> removedIds.add( checkpoint.getId() ) );
+        if( entry != null && entry.checkpoints.stream().anyMatch( checkpoint -> removedIds.contains( checkpoint.getId() ) ) ) {
+            final var resident = keyframesOf( entry.checkpoints );
+            final var removedResident = new ArrayList<Checkpoint>();
+            resident.removeIf( checkpoint -> removedIds.contains( checkpoint.getId() ) && removedResident.add( checkpoint ) );
+            LazyCheckpointStates.loadStates( removedResident );
+            entry.checkpoints.clear();
+            entry.checkpoints.addAll( storedFormsOf( resident ) );
+            _checkpointsByThread.weigh( entry );
+        }
+        prunedCheckpoints( config, storedFormsOf( retained ), removed );
+        return removed.size();
+    }
+
+    /**
+     * @return the given checkpoints not retained, in the same order
+     */
+    private static List<Checkpoint> removedOf( List<Checkpoint> checkpoints, List<Checkpoint> retained ) {
+        final var retainedIds = new HashSet<String>();
+        retained.forEach( checkpoint -> retainedIds.add( checkpoint.getId() ) );
+        final var result = new ArrayList<Checkpoint>( checkpoints.size() - retained.size() );
+        checkpoints.forEach( checkpoint -> {
+            if( !retainedIds.contains( checkpoint.getId() ) ) {
+                result.add( checkpoint );
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the stored form of the given full checkpoints, so the deltas refer to the given keyframes.
+     *
+     * @param keyframes the full checkpoints, newest first
+     * @return the checkpoints as stored, newest first
+     */
+    private LinkedList<Checkpoint> storedFormsOf( List<Checkpoint> keyframes ) {
+        final var result = new LinkedList<Checkpoint>();
+        final var iterator = keyframes.listIterator( keyframes.size() );
+        while( iterator.hasPrevious() ) {
+            result.push( storedFormOf( result, iterator.previous() ) );
+        }
+        return result;
+    }
+
     @Override
     public final Tag release(RunnableConfig config) throws Exception {
 
@@ -109,7 +651,9 @@ public class MemorySaver implements BaseCheckpointSaver {
 
             var threadId = config.threadId().orElse(THREAD_ID_DEFAULT);
 
-            var tag =  new Tag( threadId, remove(threadId) );
+            var released = ofNullable( remove(threadId) ).map( ArrayList::new ).orElseGet( ArrayList::new );
+
+            var tag =  new Tag( threadId, keyframesOf( released ) );
 
             releasedCheckpoints( config, checkpoints, tag );
 
@@ -2,6 +2,7 @@ package org.bsc.langgraph4j.checkpoint;
 
 import org.bsc.langgraph4j.RunnableConfig;
 
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -11,11 +12,14 @@ import static java.util.Optional.ofNullable;
 /**
  * VersionedMemorySaver is a class that implements {@link BaseCheckpointSaver} and {@link HasVersions}.
  * It provides methods to save checkpoints with versioning and retrieve them based on thread IDs and versions.
+ * The released versions are kept until removed by {@link #prune(CheckpointRetentionPolicy)}.
  * Experimental feature
  */
-public class VersionedMemorySaver implements BaseCheckpointSaver, HasVersions {
+public class VersionedMemorySaver implements BaseCheckpointSaver, HasVersions, HasRetention {
 
     final Map<String, TreeMap<Integer,Tag>> _checkpointsHistoryByThread = new HashMap<>();
+    // release time in milliseconds of the versions, by thread
+    private final Map<String, Map<Integer,Long>> _releaseTimesByThread = new HashMap<>();
     final MemorySaver noVersionSaver = new MemorySaver();
 
     private final ReentrantLock _lock = new ReentrantLock();
@@ -182,6 +186,8 @@ public class VersionedMemorySaver implements BaseCheckpointSaver, HasVersions {
             var threadVersion = ofNullable(checkpointsHistory.lastEntry()).map(Map.Entry::getKey).orElse(0);
 
             checkpointsHistory.put( threadVersion + 1, tag );
+            _releaseTimesByThread.computeIfAbsent( threadId, k -> new HashMap<>() )
+                                .put( threadVersion + 1, System.currentTimeMillis() );
 
             return tag;
 
@@ -190,4 +196,60 @@ public class VersionedMemorySaver implements BaseCheckpointSaver, HasVersions {
             _lock.unlock();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Prunes the threads not released yet, then the released versions: the versions released before
+     * {@link CheckpointRetentionPolicy#maxAge()} and the ones exceeding {@link CheckpointRetentionPolicy#maxReleases()}
+     * are removed, and the checkpoints of the remaining ones are pruned.
+     * A released version removed counts as an expired thread.
+     *
+     * @param policy the retention policy
+     * @return the number of threads and checkpoints removed
+     * @throws Exception if the threads not released cannot be pruned
+     */
+    @Override
+    public PruneResult prune( CheckpointRetentionPolicy policy ) throws Exception {
+
+        _lock.lock();
+        try {
+            var result = noVersionSaver.prune( policy );
+
+            final long cutoff = policy.expirationCutoff().map( Instant::toEpochMilli ).orElse( Long.MIN_VALUE );
+            long expiredVersions = 0;
+            long prunedCheckpoints = 0;
+            final var threads = _checkpointsHistoryByThread.entrySet().iterator();
+            while( threads.hasNext() ) {
+                final var thread = threads.next();
+                final var history = thread.getValue();
+                final var releaseTimes = _releaseTimesByThread.computeIfAbsent( thread.getKey(), k -> new HashMap<>() );
+
+                final var versions = history.entrySet().iterator();
+                while( versions.hasNext() ) {
+                    final var version = versions.next();
+                    final boolean expired = releaseTimes.getOrDefault( version.getKey(), Long.MAX_VALUE ) < cutoff;
+                    final boolean exceeding = policy.maxReleases().map( max -> history.size() > max ).orElse( false );
+                    if( expired || exceeding ) {
+                        versions.remove();
+                        releaseTimes.remove( version.getKey() );
+                        ++expiredVersions;
+                        continue;
+                    }
+                    final var tag = version.getValue();
+                    final var retained = policy.retainedOf( new ArrayList<>( tag.checkpoints() ) );
+                    if( retained.size() < tag.checkpoints().size() ) {
+                        prunedCheckpoints += tag.checkpoints().size() - retained.size();
+                        version.setValue( new Tag( tag.threadId(), Collections.unmodifiableList( retained ) ) );
+                    }
+                }
+                if( history.isEmpty() ) {
+                    threads.remove();
+                    _releaseTimesByThread.remove( thread.getKey() );
+                }
+            }
+            return result.plus( new PruneResult( expiredVersions, prunedCheckpoints ) );
+        }
+        finally {
+            _lock.unlock();
+        }
+    }
+}
@@ -72,7 +72,8 @@ public class ParallelNode<State extends AgentState> extends Node<State> {
         private Optional<Executor> getExecutor(RunnableConfig config) {
             return config.metadata(nodeId)
                     .filter(value -> value instanceof Executor)
-                    .map(Executor.class::cast);
+                    .map(Executor.class::cast)
+                    .or(config::executor);
         }
 
         private CompletableFuture<Void> allOfFailFast(RunnableConfig config, CompletableFuture<?>... futures) {
@@ -1,5 +1,8 @@
 package org.bsc.langgraph4j.serializer;
 
+import org.bsc.langgraph4j.serializer.buffer.BufferStateSerializer;
+import org.bsc.langgraph4j.serializer.buffer.ByteBufferPool;
+import org.bsc.langgraph4j.serializer.compression.CompressionCodec;
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.AgentStateFactory;
 
@@ -24,8 +27,22 @@ public abstract class StateSerializer<State extends AgentState> implements Seria
         return stateFactory.apply( data);
     }
 
+    /**
+     * Deep copies the data, through a pooled buffer when the serializer is a {@link BufferStateSerializer}.
+     *
+     * @param data the data to copy
+     * @return the state holding the copy
+     * @throws IOException if the data cannot be serialized
+     * @throws ClassNotFoundException if the class of a value cannot be found
+     */
     public final State cloneObject( Map<String,Object> data) throws IOException, ClassNotFoundException {
         Objects.requireNonNull( data, "data cannot be null");
+        if( this instanceof BufferStateSerializer bufferSerializer ) {
+            try( var out = ByteBufferPool.shared().output() ) {
+                bufferSerializer.dataToBuffer( data, out );
+                return stateOf( bufferSerializer.dataFromBuffer( out.buffer() ) );
+            }
+        }
         return cloneObject( stateFactory().apply(data) );
     }
 
@@ -64,4 +81,65 @@ public abstract class StateSerializer<State extends AgentState> implements Seria
         }
     }
 
+    /**
+     * Returns the content type of the data serialized by {@link #dataToBytes(Map, CompressionCodec)} with the given codec.
+     *
+     * @param codec the compression codec
+     * @return the content type recording the codec
+     */
+    public final String contentType(CompressionCodec codec) {
+        Objects.requireNonNull( codec, "codec cannot be null" );
+        return codec.contentTypeOf( contentType() );
+    }
+
+    /**
+     * Serializes the data compressing it with the given codec.
+     * The data must be stored with {@link #contentType(CompressionCodec)}, so that it can be read back by {@link #dataFromBytes(byte[], String)}.
+     *
+     * @param data the data to serialize
+     * @param codec the compression codec
+     * @return the compressed data
+     * @throws IOException if the data cannot be serialized
+     */
+    public final byte[] dataToBytes(Map<String,Object> data, CompressionCodec codec) throws IOException {
+        Objects.requireNonNull( data, "object cannot be null" );
+        Objects.requireNonNull( codec, "codec cannot be null" );
+        if( codec == CompressionCodec.none() ) {
+            return dataToBytes(data);
+        }
+        try( ByteArrayOutputStream stream = new ByteArrayOutputStream() ) {
+            try( OutputStream compressed = codec.compress(stream) ) {
+                ObjectOutputStream oas = new ObjectOutputStream(compressed);
+                writeData(data, oas);
+                oas.flush();
+            }
+            return stream.toByteArray();
+        }
+    }
+
+    /**
+     * Deserializes the data stored with the given content type, decompressing it with the codec recorded in it.
+     *
+     * @param bytes the stored data
+     * @param contentType the content type of the stored data
+     * @return the data
+     * @throws IOException if the data cannot be deserialized
+     * @throws ClassNotFoundException if the class of a value cannot be found
+     * @throws IllegalStateException if the data has been serialized with another content type or compressed by an unknown codec
+     */
+    public final Map<String,Object> dataFromBytes(byte[] bytes, String contentType) throws IOException, ClassNotFoundException {
+        Objects.requireNonNull( bytes, "bytes cannot be null" );
+        final var codec = CompressionCodec.ofContentType( contentType, contentType() );
+        if( codec == CompressionCodec.none() ) {
+            return dataFromBytes(bytes);
+        }
+        if( bytes.length == 0 ) {
+            throw new IllegalArgumentException("bytes cannot be empty");
+        }
+        try( InputStream stream = codec.decompress( new ByteArrayInputStream( bytes ) ) ) {
+            ObjectInputStream ois = new ObjectInputStream(stream);
+            return readData(ois);
+        }
+    }
+
 }
@@ -0,0 +1,302 @@
+package org.bsc.langgraph4j.serializer.buffer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link ObjectInput} reading the data written by a {@link BufferOutput} from a {@link ByteBuffer}, heap or direct.
+ * <p>
+ * The input reads a view of the given buffer, whose position is not changed.
+ * Reading past the end of the data throws an {@link EOFException}.
+ * The input is not thread-safe.
+ *
+ * @see BufferOutput
+ */
+public final class BufferInput implements ObjectInput {
+
+    private final ByteBuffer buffer;
+    private final Map<String,Class<?>> classes = new HashMap<>();
+
+    /**
+     * Creates an input reading the bytes between the position and the limit of the buffer.
+     *
+     * @param buffer the buffer
+     */
+    public BufferInput( ByteBuffer buffer ) {
+        this.buffer = requireNonNull( buffer, "buffer cannot be null" ).slice().order( ByteOrder.BIG_ENDIAN );
+    }
+
+    /**
+     * Creates an input reading the given bytes.
+     *
+     * @param bytes the bytes
+     */
+    public BufferInput( byte[] bytes ) {
+        this( ByteBuffer.wrap( requireNonNull( bytes, "bytes cannot be null" ) ) );
+    }
+
+    private ByteBuffer require( int length ) throws EOFException {
+        if( buffer.remaining() < length ) {
+            throw new EOFException( format( "%d bytes required but %d available", length, buffer.remaining() ) );
+        }
+        return buffer;
+    }
+
+    private Class<?> resolveClass( String name ) throws ClassNotFoundException {
+        var result = classes.get( name );
+        if( result == null ) {
+            final var loader = Thread.currentThread().getContextClassLoader();
+            try {
+                result = Class.forName( name, false, loader != null ? loader : BufferInput.class.getClassLoader() );
+            }
+            catch( ClassNotFoundException ex ) {
+                if( loader == null ) {
+                    throw ex;
+                }
+                result = Class.forName( name, false, BufferInput.class.getClassLoader() );
+            }
+            classes.put( name, result );
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Object readObject() throws ClassNotFoundException, IOException {
+        final byte tag = readByte();
+        return switch( tag ) {
+            case BufferOutput.NULL -> null;
+            case BufferOutput.STRING -> readUTF();
+            case BufferOutput.INTEGER -> readInt();
+            case BufferOutput.LONG -> readLong();
+            case BufferOutput.DOUBLE -> readDouble();
+            case BufferOutput.FLOAT -> readFloat();
+            case BufferOutput.BOOLEAN -> readBoolean();
+            case BufferOutput.SHORT -> readShort();
+            case BufferOutput.BYTE -> readByte();
+            case BufferOutput.CHARACTER -> readChar();
+            case BufferOutput.BYTES -> {
+                final var bytes = new byte[ readLength() ];
+                readFully( bytes );
+                yield bytes;
+            }
+            case BufferOutput.ENUM -> {
+                final var type = resolveClass( readUTF() );
+                if( !type.isEnum() ) {
+                    throw new StreamCorruptedException( format( "%s is not an enum", type.getName() ) );
+                }
+                yield Enum.valueOf( (Class<? extends Enum>) type, readUTF() );
+            }
+            case BufferOutput.CLASS -> resolveClass( readUTF() );
+            case BufferOutput.SERIALIZED -> readSerialized();
+            default -> throw new StreamCorruptedException( format( "invalid type tag %d", tag ) );
+        };
+    }
+
+    private int readLength() throws IOException {
+        final int length = readInt();
+        if( length < 0 ) {
+            throw new StreamCorruptedException( format( "invalid length %d", length ) );
+        }
+        require( length );
+        return length;
+    }
+
+    private Object readSerialized() throws IOException, ClassNotFoundException {
+        final int length = readLength();
+        final var slice = buffer.slice().limit( length );
+        buffer.position( buffer.position() + length );
+        try( var ois = new ObjectInputStream( new ByteBufferInputStream( slice ) ) ) {
+            return ois.readObject();
+        }
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read( byte[] b ) {
+        return read( b, 0, b.length );
+    }
+
+    @Override
+    public int read( byte[] b, int off, int len ) {
+        if( len == 0 ) {
+            return 0;
+        }
+        if( !buffer.hasRemaining() ) {
+            return -1;
+        }
+        final int count = Math.min( len, buffer.remaining() );
+        buffer.get( b, off, count );
+        return count;
+    }
+
+    @Override
+    public long skip( long n ) {
+        final int count = (int) Math.max( 0, Math.min( n, buffer.remaining() ) );
+        buffer.position( buffer.position() + count );
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void readFully( byte[] b ) throws IOException {
+        readFully( b, 0, b.length );
+    }
+
+    @Override
+    public void readFully( byte[] b, int off, int len ) throws IOException {
+        require( len ).get( b, off, len );
+    }
+
+    @Override
+    public int skipBytes( int n ) {
+        return (int) skip( n );
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return require( 1 ).get() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return require( 1 ).get();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return require( 1 ).get() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        return require( 2 ).getShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return require( 2 ).getShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return require( 2 ).getChar();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return require( 4 ).getInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return require( 8 ).getLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return require( 4 ).getFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return require( 8 ).getDouble();
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        if( !buffer.hasRemaining() ) {
+            return null;
+        }
+        final var result = new StringBuilder();
+        while( buffer.hasRemaining() ) {
+            final char c = (char) ( buffer.get() & 0xFF );
+            if( c == '\n' ) {
+                break;
+            }
+            if( c == '\r' ) {
+                if( buffer.hasRemaining() && buffer.get( buffer.position() ) == '\n' ) {
+                    buffer.get();
+                }
+                break;
+            }
+            result.append( c );
+        }
+        return result.toString();
+    }
+
+    /**
+     * Reads a string written by {@link BufferOutput#writeUTF(String)}, decoding it in place when the buffer has an array.
+     */
+    @Override
+    public String readUTF() throws IOException {
+        final int length = readLength();
+        if( length == 0 ) {
+            return "";
+        }
+        if( buffer.hasArray() ) {
+            final int position = buffer.position();
+            final var result = new String( buffer.array(), buffer.arrayOffset() + position, length, StandardCharsets.UTF_8 );
+            buffer.position( position + length );
+            return result;
+        }
+        final var bytes = new byte[ length ];
+        buffer.get( bytes );
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream( ByteBuffer buffer ) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read( byte[] b, int off, int len ) {
+            if( len == 0 ) {
+                return 0;
+            }
+            if( !buffer.hasRemaining() ) {
+                return -1;
+            }
+            final int count = Math.min( len, buffer.remaining() );
+            buffer.get( b, off, count );
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
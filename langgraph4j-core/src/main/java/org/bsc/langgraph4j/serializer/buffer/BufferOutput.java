@@ -0,0 +1,305 @@
+package org.bsc.langgraph4j.serializer.buffer;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link ObjectOutput} writing directly to a growable {@link ByteBuffer} taken from a {@link ByteBufferPool}.
+ * <p>
+ * Unlike {@link ObjectOutputStream} there is no stream header, no block-data framing and no copy of the written bytes:
+ * the primitives go straight into the buffer, in big-endian order as {@link java.io.DataOutput}.
+ * {@link #writeObject(Object)} encodes natively {@code null}, the strings, the boxed primitives, the byte arrays, the enums
+ * and the classes, while any other value falls back to Java serialization, length-prefixed.
+ * The strings written by {@link #writeUTF(String)} are encoded as {@link org.bsc.langgraph4j.serializer.Serializer#writeUTF}
+ * does, so they are not limited to 64K.
+ * <p>
+ * The output is not thread-safe. Closing it gives the buffer back to the pool.
+ *
+ * @see BufferInput
+ */
+public final class BufferOutput implements ObjectOutput, AutoCloseable {
+
+    static final byte NULL = 0;
+    static final byte STRING = 1;
+    static final byte INTEGER = 2;
+    static final byte LONG = 3;
+    static final byte DOUBLE = 4;
+    static final byte FLOAT = 5;
+    static final byte BOOLEAN = 6;
+    static final byte SHORT = 7;
+    static final byte BYTE = 8;
+    static final byte CHARACTER = 9;
+    static final byte BYTES = 10;
+    static final byte ENUM = 11;
+    static final byte CLASS = 12;
+    static final byte SERIALIZED = 13;
+
+    private final ByteBufferPool pool;
+    private ByteBuffer buffer;
+    private OutputStream stream;
+
+    BufferOutput( ByteBufferPool pool ) {
+        this.pool = requireNonNull( pool, "pool cannot be null" );
+        this.buffer = pool.acquire( 0 );
+    }
+
+    private ByteBuffer ensure( int length ) {
+        if( buffer == null ) {
+            throw new IllegalStateException( "output is closed" );
+        }
+        if( buffer.remaining() < length ) {
+            final long required = (long) buffer.position() + length;
+            if( required > Integer.MAX_VALUE - 8 ) {
+                throw new IllegalStateException( "output exceeds the maximum buffer size" );
+            }
+            final int capacity = (int) Math.min( Integer.MAX_VALUE - 8, Math.max( required, 2L * buffer.capacity() ) );
+            final var grown = pool.acquire( capacity );
+            grown.put( buffer.flip() );
+            // the outgrown buffer is left to the garbage collector, so that the pool keeps the buffers that fit the states
+            buffer = grown;
+        }
+        return buffer;
+    }
+
+    /**
+     * @return the number of bytes written
+     */
+    public int size() {
+        return ( buffer != null ) ? buffer.position() : 0;
+    }
+
+    /**
+     * Returns a read-only view of the bytes written, without copying them.
+     * The view is valid until the next write or the close of the output.
+     *
+     * @return the buffer positioned at the first byte written and limited to the last one
+     */
+    public ByteBuffer buffer() {
+        ensure( 0 );
+        return buffer.asReadOnlyBuffer().flip();
+    }
+
+    /**
+     * @return a copy of the bytes written
+     */
+    public byte[] toByteArray() {
+        final var result = new byte[ size() ];
+        buffer().get( result );
+        return result;
+    }
+
+    /**
+     * Writes the bytes written to the given output, without an intermediate copy when the buffer is on the heap.
+     *
+     * @param out the output
+     * @throws IOException if the output fails
+     */
+    public void writeTo( DataOutput out ) throws IOException {
+        requireNonNull( out, "out cannot be null" );
+        final int size = size();
+        final var source = ensure( 0 );
+        if( source.hasArray() ) {
+            out.write( source.array(), source.arrayOffset(), size );
+            return;
+        }
+        final var view = buffer();
+        final var chunk = new byte[ Math.min( size, 8 * 1024 ) ];
+        while( view.hasRemaining() ) {
+            final int length = Math.min( chunk.length, view.remaining() );
+            view.get( chunk, 0, length );
+            out.write( chunk, 0, length );
+        }
+    }
+
+    /**
+     * Discards the bytes written, so that the buffer can be reused.
+     */
+    public void reset() {
+        ensure( 0 ).clear();
+    }
+
+    /**
+     * Returns a stream writing to this output, e.g. to embed the output of a stream based library.
+     *
+     * @return the stream, that is not closed by this output
+     */
+    public OutputStream asOutputStream() {
+        if( stream == null ) {
+            stream = new OutputStream() {
+                @Override
+                public void write( int b ) {
+                    BufferOutput.this.write( b );
+                }
+
+                @Override
+                public void write( byte[] b, int off, int len ) {
+                    BufferOutput.this.write( b, off, len );
+                }
+            };
+        }
+        return stream;
+    }
+
+    @Override
+    public void writeObject( Object obj ) throws IOException {
+        if( obj == null ) {
+            writeByte( NULL );
+        }
+        else if( obj instanceof String value ) {
+            writeByte( STRING );
+            writeUTF( value );
+        }
+        else if( obj instanceof Integer value ) {
+            ensure( 5 ).put( INTEGER ).putInt( value );
+        }
+        else if( obj instanceof Long value ) {
+            ensure( 9 ).put( LONG ).putLong( value );
+        }
+        else if( obj instanceof Double value ) {
+            ensure( 9 ).put( DOUBLE ).putDouble( value );
+        }
+        else if( obj instanceof Boolean value ) {
+            ensure( 2 ).put( BOOLEAN ).put( (byte) ( value ? 1 : 0 ) );
+        }
+        else if( obj instanceof Float value ) {
+            ensure( 5 ).put( FLOAT ).putFloat( value );
+        }
+        else if( obj instanceof Short value ) {
+            ensure( 3 ).put( SHORT ).putShort( value );
+        }
+        else if( obj instanceof Byte value ) {
+            ensure( 2 ).put( BYTE ).put( value );
+        }
+        else if( obj instanceof Character value ) {
+            ensure( 3 ).put( CHARACTER ).putChar( value );
+        }
+        else if( obj instanceof byte[] value ) {
+            ensure( 5 + value.length ).put( BYTES ).putInt( value.length ).put( value );
+        }
+        else if( obj instanceof Enum<?> value ) {
+            writeByte( ENUM );
+            writeUTF( value.getDeclaringClass().getName() );
+            writeUTF( value.name() );
+        }
+        else if( obj instanceof Class<?> value ) {
+            writeByte( CLASS );
+            writeUTF( value.getName() );
+        }
+        else {
+            writeSerialized( obj );
+        }
+    }
+
+    private void writeSerialized( Object obj ) throws IOException {
+        ensure( 5 ).put( SERIALIZED );
+        final int lengthPosition = buffer.position();
+        buffer.putInt( 0 );
+        final var oos = new ObjectOutputStream( asOutputStream() );
+        oos.writeObject( obj );
+        oos.flush();
+        // the buffer could have been replaced while growing
+        buffer.putInt( lengthPosition, buffer.position() - lengthPosition - Integer.BYTES );
+    }
+
+    @Override
+    public void write( int b ) {
+        ensure( 1 ).put( (byte) b );
+    }
+
+    @Override
+    public void write( byte[] b ) {
+        write( b, 0, b.length );
+    }
+
+    @Override
+    public void write( byte[] b, int off, int len ) {
+        ensure( len ).put( b, off, len );
+    }
+
+    @Override
+    public void writeBoolean( boolean v ) {
+        ensure( 1 ).put( (byte) ( v ? 1 : 0 ) );
+    }
+
+    @Override
+    public void writeByte( int v ) {
+        ensure( 1 ).put( (byte) v );
+    }
+
+    @Override
+    public void writeShort( int v ) {
+        ensure( 2 ).putShort( (short) v );
+    }
+
+    @Override
+    public void writeChar( int v ) {
+        ensure( 2 ).putChar( (char) v );
+    }
+
+    @Override
+    public void writeInt( int v ) {
+        ensure( 4 ).putInt( v );
+    }
+
+    @Override
+    public void writeLong( long v ) {
+        ensure( 8 ).putLong( v );
+    }
+
+    @Override
+    public void writeFloat( float v ) {
+        ensure( 4 ).putFloat( v );
+    }
+
+    @Override
+    public void writeDouble( double v ) {
+        ensure( 8 ).putDouble( v );
+    }
+
+    @Override
+    public void writeBytes( String s ) {
+        final int length = s.length();
+        final var target = ensure( length );
+        for( int i = 0; i < length; ++i ) {
+            target.put( (byte) s.charAt(i) );
+        }
+    }
+
+    @Override
+    public void writeChars( String s ) {
+        final int length = s.length();
+        final var target = ensure( length * 2 );
+        for( int i = 0; i < length; ++i ) {
+            target.putChar( s.charAt(i) );
+        }
+    }
+
+    @Override
+    public void writeUTF( String s ) {
+        requireNonNull( s, "string cannot be null" );
+        final var bytes = s.getBytes( StandardCharsets.UTF_8 );
+        ensure( 4 + bytes.length ).putInt( bytes.length ).put( bytes );
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Gives the buffer back to the pool. The output and the views returned by {@link #buffer()} must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        if( buffer != null ) {
+            pool.release( buffer );
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.bsc.langgraph4j.serializer.buffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Implemented by the {@link org.bsc.langgraph4j.serializer.StateSerializer}s that can write the state
+ * straight to a pooled {@link ByteBuffer}, without going through {@link java.io.ObjectOutputStream}.
+ * <pre>
+ * try( var out = ByteBufferPool.shared().output() ) {
+ *     serializer.dataToBuffer( data, out );
+ *     var copy = serializer.dataFromBuffer( out.buffer() );
+ * }
+ * </pre>
+ * The buffer format is not the one of {@link org.bsc.langgraph4j.serializer.StateSerializer#dataToBytes(Map)}:
+ * the two cannot be mixed.
+ */
+public interface BufferStateSerializer {
+
+    /**
+     * Serializes the data to the given output.
+     *
+     * @param data the data to serialize
+     * @param out the output
+     * @throws IOException if the data cannot be serialized
+     */
+    void dataToBuffer( Map<String,Object> data, BufferOutput out ) throws IOException;
+
+    /**
+     * Deserializes the data from the given input.
+     *
+     * @param in the input
+     * @return the data
+     * @throws IOException if the data cannot be deserialized
+     * @throws ClassNotFoundException if the class of a value cannot be found
+     */
+    Map<String,Object> dataFromBuffer( BufferInput in ) throws IOException, ClassNotFoundException;
+
+    /**
+     * Deserializes the data between the position and the limit of the given buffer, leaving its position unchanged.
+     *
+     * @param buffer the buffer
+     * @return the data
+     * @throws IOException if the data cannot be deserialized
+     * @throws ClassNotFoundException if the class of a value cannot be found
+     */
+    default Map<String,Object> dataFromBuffer( ByteBuffer buffer ) throws IOException, ClassNotFoundException {
+        return dataFromBuffer( new BufferInput( buffer ) );
+    }
+}
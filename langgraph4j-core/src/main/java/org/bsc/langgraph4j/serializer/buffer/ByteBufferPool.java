@@ -0,0 +1,143 @@
+package org.bsc.langgraph4j.serializer.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Thread-safe pool of the {@link ByteBuffer}s written by {@link BufferOutput}, either heap or direct.
+ * <p>
+ * At most {@code maxPooled} buffers are kept, and a buffer grown beyond {@code maxRetainedCapacity} is left to
+ * the garbage collector, so that a single large state doesn't pin its memory.
+ * <pre>
+ * var pool = ByteBufferPool.direct( 16 * 1024, 32 );
+ * try( var out = pool.output() ) {
+ *     serializer.dataToBuffer( data, out );
+ *     channel.write( out.buffer() );
+ * }
+ * </pre>
+ */
+public final class ByteBufferPool {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 8 * 1024;
+    private static final int DEFAULT_MAX_POOLED = 64;
+    private static final int DEFAULT_MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private static final ByteBufferPool SHARED = new ByteBufferPool( false, DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_POOLED, DEFAULT_MAX_RETAINED_CAPACITY );
+
+    private final boolean direct;
+    private final int initialCapacity;
+    private final int maxPooled;
+    private final int maxRetainedCapacity;
+    private final Queue<ByteBuffer> pooled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledCount = new AtomicInteger();
+
+    private ByteBufferPool( boolean direct, int initialCapacity, int maxPooled, int maxRetainedCapacity ) {
+        if( initialCapacity <= 0 ) {
+            throw new IllegalArgumentException( format("initialCapacity must be positive but was %d!", initialCapacity) );
+        }
+        if( maxPooled < 0 ) {
+            throw new IllegalArgumentException( format("maxPooled cannot be negative but was %d!", maxPooled) );
+        }
+        this.direct = direct;
+        this.initialCapacity = initialCapacity;
+        this.maxPooled = maxPooled;
+        this.maxRetainedCapacity = Math.max( initialCapacity, maxRetainedCapacity );
+    }
+
+    /**
+     * @return the pool of heap buffers shared by the serializers that are not given one
+     */
+    public static ByteBufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Creates a pool of heap buffers.
+     *
+     * @param initialCapacity the capacity of a new buffer
+     * @param maxPooled the maximum number of buffers kept, {@code 0} to disable pooling
+     * @return the pool
+     */
+    public static ByteBufferPool heap( int initialCapacity, int maxPooled ) {
+        return new ByteBufferPool( false, initialCapacity, maxPooled, DEFAULT_MAX_RETAINED_CAPACITY );
+    }
+
+    /**
+     * Creates a pool of direct buffers, that can be written to a channel without copying.
+     *
+     * @param initialCapacity the capacity of a new buffer
+     * @param maxPooled the maximum number of buffers kept, {@code 0} to disable pooling
+     * @return the pool
+     */
+    public static ByteBufferPool direct( int initialCapacity, int maxPooled ) {
+        return new ByteBufferPool( true, initialCapacity, maxPooled, DEFAULT_MAX_RETAINED_CAPACITY );
+    }
+
+    /**
+     * @return true if the pool allocates direct buffers
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * @return the number of buffers currently kept by the pool
+     */
+    public int pooled() {
+        return pooledCount.get();
+    }
+
+    /**
+     * Takes a cleared buffer from the pool, allocating it if none is large enough.
+     *
+     * @param minCapacity the minimum capacity of the buffer
+     * @return the buffer, to be given back by {@link #release(ByteBuffer)}
+     */
+    public ByteBuffer acquire( int minCapacity ) {
+        final var buffer = pooled.poll();
+        if( buffer != null ) {
+            pooledCount.decrementAndGet();
+            if( buffer.capacity() >= minCapacity ) {
+                return buffer.clear();
+            }
+            release( buffer );
+        }
+        final int capacity = Math.max( initialCapacity, minCapacity );
+        return direct ? ByteBuffer.allocateDirect( capacity ) : ByteBuffer.allocate( capacity );
+    }
+
+    /**
+     * Gives back a buffer taken from this pool. The buffer must not be used afterwards.
+     *
+     * @param buffer the buffer
+     */
+    public void release( ByteBuffer buffer ) {
+        requireNonNull( buffer, "buffer cannot be null" );
+        if( buffer.isDirect() != direct || buffer.isReadOnly() || buffer.capacity() > maxRetainedCapacity ) {
+            return;
+        }
+        if( pooledCount.incrementAndGet() > maxPooled ) {
+            pooledCount.decrementAndGet();
+            return;
+        }
+        pooled.offer( buffer );
+    }
+
+    /**
+     * @return a new output writing to a buffer of this pool
+     */
+    public BufferOutput output() {
+        return new BufferOutput( this );
+    }
+
+    @Override
+    public String toString() {
+        return format( "ByteBufferPool{ direct=%s, initialCapacity=%d, maxPooled=%d, pooled=%d }",
+                direct, initialCapacity, maxPooled, pooled() );
+    }
+}
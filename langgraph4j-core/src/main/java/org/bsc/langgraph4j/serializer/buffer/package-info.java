@@ -0,0 +1,10 @@
+/**
+ * Serialization of the state to pooled {@link java.nio.ByteBuffer}s, heap or direct.
+ * <p>
+ * {@link org.bsc.langgraph4j.serializer.buffer.BufferOutput} and {@link org.bsc.langgraph4j.serializer.buffer.BufferInput}
+ * are {@link java.io.ObjectOutput} and {@link java.io.ObjectInput}, so the existing {@link org.bsc.langgraph4j.serializer.Serializer}s
+ * work on them unchanged.
+ *
+ * @see org.bsc.langgraph4j.serializer.buffer.BufferStateSerializer
+ */
+package org.bsc.langgraph4j.serializer.buffer;
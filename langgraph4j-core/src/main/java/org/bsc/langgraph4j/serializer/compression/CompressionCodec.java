@@ -0,0 +1,181 @@
+package org.bsc.langgraph4j.serializer.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Optional;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Compression applied to the serialized state, e.g. by {@link org.bsc.langgraph4j.serializer.StateSerializer#dataToBytes(java.util.Map, CompressionCodec)}.
+ * <p>
+ * The codec used is recorded in the content type of the serialized data as a suffix, e.g.
+ * {@code application/octet-stream+lz4}, so that data compressed with different codecs, or not compressed at all,
+ * can still be read. A codec is looked up by name among the built-in ones and the ones added through {@link #register(CompressionCodec)}.
+ * <pre>
+ * var codec = CompressionCodec.lz4();
+ * var bytes = serializer.dataToBytes( state, codec );
+ * var contentType = serializer.contentType( codec );
+ * ...
+ * var data = serializer.dataFromBytes( bytes, contentType );
+ * </pre>
+ * The built-in codecs are pure Java: {@link #deflate()} and {@link #gzip()} favour the size,
+ * {@link #lz4()} favours the speed.
+ */
+public interface CompressionCodec {
+
+    /**
+     * @return the name of the codec, used as suffix of the content type
+     */
+    String name();
+
+    /**
+     * Returns a stream that compresses the data written to the given one.
+     * Closing the returned stream closes the given one.
+     *
+     * @param out the stream receiving the compressed data
+     * @return the compressing stream
+     * @throws IOException if the stream cannot be created
+     */
+    OutputStream compress( OutputStream out ) throws IOException;
+
+    /**
+     * Returns a stream that decompresses the data read from the given one.
+     * Closing the returned stream closes the given one.
+     *
+     * @param in the stream of compressed data
+     * @return the decompressing stream
+     * @throws IOException if the stream cannot be created
+     */
+    InputStream decompress( InputStream in ) throws IOException;
+
+    /**
+     * Compresses the given data.
+     *
+     * @param data the data to compress
+     * @return the compressed data
+     * @throws IOException if the data cannot be compressed
+     */
+    default byte[] compress( byte[] data ) throws IOException {
+        requireNonNull( data, "data cannot be null" );
+        final var buffer = new ByteArrayOutputStream( Math.max( 64, data.length / 2 ) );
+        try( var stream = compress( buffer ) ) {
+            stream.write( data );
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Decompresses the given data.
+     *
+     * @param data the compressed data
+     * @return the decompressed data
+     * @throws IOException if the data cannot be decompressed
+     */
+    default byte[] decompress( byte[] data ) throws IOException {
+        requireNonNull( data, "data cannot be null" );
+        try( var stream = decompress( new ByteArrayInputStream( data ) ) ) {
+            return stream.readAllBytes();
+        }
+    }
+
+    /**
+     * Returns the content type of the data of the given content type compressed by this codec.
+     *
+     * @param contentType the content type of the uncompressed data
+     * @return the content type of the compressed data
+     */
+    default String contentTypeOf( String contentType ) {
+        requireNonNull( contentType, "contentType cannot be null" );
+        return contentType + CompressionCodecs.SEPARATOR + name();
+    }
+
+    /**
+     * @return the codec that doesn't compress the data, whose content type is the one of the uncompressed data
+     */
+    static CompressionCodec none() {
+        return CompressionCodecs.NONE;
+    }
+
+    /**
+     * @return the codec named {@code deflate}, compressing with the default level of the ZLIB format
+     */
+    static CompressionCodec deflate() {
+        return CompressionCodecs.DEFLATE;
+    }
+
+    /**
+     * Returns the codec named {@code deflate} compressing with the given level.
+     * The level doesn't affect the decompression, so the data can be read by any deflate codec.
+     *
+     * @param level the compression level, from {@code 1} (fastest) to {@code 9} (smallest)
+     * @return the codec
+     */
+    static CompressionCodec deflate( int level ) {
+        return new DeflateCodec( level );
+    }
+
+    /**
+     * @return the codec named {@code gzip}, compressing with the GZIP format
+     */
+    static CompressionCodec gzip() {
+        return CompressionCodecs.GZIP;
+    }
+
+    /**
+     * @return the codec named {@code lz4}, compressing blocks of the data with the LZ4 block format
+     */
+    static CompressionCodec lz4() {
+        return CompressionCodecs.LZ4;
+    }
+
+    /**
+     * Adds a codec, e.g. one based on a native library, to the ones that can be looked up by name.
+     * A codec with the same name is replaced.
+     *
+     * @param codec the codec to add
+     */
+    static void register( CompressionCodec codec ) {
+        CompressionCodecs.register( codec );
+    }
+
+    /**
+     * Looks up a codec by name.
+     *
+     * @param name the name of the codec
+     * @return the codec, if any
+     */
+    static Optional<CompressionCodec> of( String name ) {
+        return CompressionCodecs.lookup( name );
+    }
+
+    /**
+     * Returns the codec recorded in the given content type, checking that the data has been serialized with the
+     * expected content type.
+     *
+     * @param contentType the content type of the stored data
+     * @param serializerContentType the content type of the serializer reading the data
+     * @return the codec that decompresses the data, {@link #none()} if the data is not compressed
+     * @throws IllegalStateException if the data has been serialized with another content type or compressed by an unknown codec
+     */
+    static CompressionCodec ofContentType( String contentType, String serializerContentType ) {
+        requireNonNull( serializerContentType, "serializerContentType cannot be null" );
+        if( serializerContentType.equals( contentType ) ) {
+            return none();
+        }
+        final var prefix = serializerContentType + CompressionCodecs.SEPARATOR;
+        if( contentType == null || !contentType.startsWith( prefix ) ) {
+            throw new IllegalStateException(
+                    format( "Content Type used for store state '%s' is different from one '%s' used for deserialize it",
+                            contentType,
+                            serializerContentType ));
+        }
+        final var name = contentType.substring( prefix.length() );
+        return of( name ).orElseThrow( () ->
+                new IllegalStateException( format( "compression codec '%s' of content type '%s' is not registered", name, contentType ) ));
+    }
+}
@@ -0,0 +1,109 @@
+package org.bsc.langgraph4j.serializer.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.ofNullable;
+
+/**
+ * Built-in codecs and registry of the codecs looked up by name.
+ */
+final class CompressionCodecs {
+
+    static final String SEPARATOR = "+";
+
+    static final CompressionCodec NONE = new CompressionCodec() {
+        @Override
+        public String name() {
+            return "none";
+        }
+
+        @Override
+        public OutputStream compress( OutputStream out ) {
+            return requireNonNull( out, "out cannot be null" );
+        }
+
+        @Override
+        public InputStream decompress( InputStream in ) {
+            return requireNonNull( in, "in cannot be null" );
+        }
+
+        @Override
+        public byte[] compress( byte[] data ) {
+            return requireNonNull( data, "data cannot be null" );
+        }
+
+        @Override
+        public byte[] decompress( byte[] data ) {
+            return requireNonNull( data, "data cannot be null" );
+        }
+
+        @Override
+        public String contentTypeOf( String contentType ) {
+            return requireNonNull( contentType, "contentType cannot be null" );
+        }
+
+        @Override
+        public String toString() {
+            return "CompressionCodec.none";
+        }
+    };
+
+    static final CompressionCodec DEFLATE = new DeflateCodec( Deflater.DEFAULT_COMPRESSION );
+
+    static final CompressionCodec GZIP = new CompressionCodec() {
+        @Override
+        public String name() {
+            return "gzip";
+        }
+
+        @Override
+        public OutputStream compress( OutputStream out ) throws IOException {
+            return new GZIPOutputStream( requireNonNull( out, "out cannot be null" ), 8192 );
+        }
+
+        @Override
+        public InputStream decompress( InputStream in ) throws IOException {
+            return new GZIPInputStream( requireNonNull( in, "in cannot be null" ), 8192 );
+        }
+
+        @Override
+        public String toString() {
+            return "CompressionCodec.gzip";
+        }
+    };
+
+    static final CompressionCodec LZ4 = new Lz4Codec();
+
+    private static final Map<String,CompressionCodec> registry = new ConcurrentHashMap<>( Map.of(
+            DEFLATE.name(), DEFLATE,
+            GZIP.name(), GZIP,
+            LZ4.name(), LZ4 ) );
+
+    private CompressionCodecs() {}
+
+    static void register( CompressionCodec codec ) {
+        requireNonNull( codec, "codec cannot be null" );
+        final var name = requireNonNull( codec.name(), "codec name cannot be null" );
+        if( name.isBlank() || name.contains( SEPARATOR ) || name.equals( NONE.name() ) ) {
+            throw new IllegalArgumentException( "invalid codec name: '" + name + "'" );
+        }
+        registry.put( name, codec );
+    }
+
+    static Optional<CompressionCodec> lookup( String name ) {
+        requireNonNull( name, "name cannot be null" );
+        if( name.equals( NONE.name() ) ) {
+            return Optional.of( NONE );
+        }
+        return ofNullable( registry.get( name ) );
+    }
+}
@@ -0,0 +1,72 @@
+package org.bsc.langgraph4j.serializer.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Codec compressing with the ZLIB format. The native resources of the deflater and of the inflater are released
+ * when the streams are closed.
+ */
+final class DeflateCodec implements CompressionCodec {
+
+    private final int level;
+
+    DeflateCodec( int level ) {
+        if( level != Deflater.DEFAULT_COMPRESSION && ( level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION ) ) {
+            throw new IllegalArgumentException( format( "level must be between 1 and 9 but was %d!", level ) );
+        }
+        this.level = level;
+    }
+
+    @Override
+    public String name() {
+        return "deflate";
+    }
+
+    @Override
+    public OutputStream compress( OutputStream out ) {
+        requireNonNull( out, "out cannot be null" );
+        final var deflater = new Deflater( level );
+        return new DeflaterOutputStream( out, deflater, 8192 ) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                }
+                finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public InputStream decompress( InputStream in ) {
+        requireNonNull( in, "in cannot be null" );
+        final var inflater = new Inflater();
+        return new InflaterInputStream( in, inflater, 8192 ) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                }
+                finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return format( "CompressionCodec.deflate(%d)", level );
+    }
+}
@@ -0,0 +1,382 @@
+package org.bsc.langgraph4j.serializer.compression;
+
+import java.io.*;
+import java.util.Arrays;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Pure Java codec compressing the data in blocks with the LZ4 block format, that trades ratio for speed.
+ * <p>
+ * The stream is a sequence of blocks of at most {@link #BLOCK_SIZE} uncompressed bytes, ended by an empty block:
+ * <pre>
+ * block : rawLength(int) storedLength(int) bytes(storedLength &amp; 0x7FFFFFFF)
+ * end   : 0(int)
+ * </pre>
+ * The high bit of {@code storedLength} is set when a block doesn't compress and is stored as is.
+ * The framing is specific to this codec, it is not the LZ4 frame format.
+ */
+final class Lz4Codec implements CompressionCodec {
+
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final int MIN_MATCH = 4;
+    // the last literals and the last match start are bounded by the format
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_OFFSET = 0xFFFF;
+    private static final int HASH_LOG = 12;
+    private static final int STORED = 0x80000000;
+
+    @Override
+    public String name() {
+        return "lz4";
+    }
+
+    @Override
+    public OutputStream compress( OutputStream out ) {
+        return new BlockOutputStream( requireNonNull( out, "out cannot be null" ) );
+    }
+
+    @Override
+    public InputStream decompress( InputStream in ) {
+        return new BlockInputStream( requireNonNull( in, "in cannot be null" ) );
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionCodec.lz4";
+    }
+
+    static int maxCompressedLength( int length ) {
+        return length + length / 255 + 16;
+    }
+
+    private static int readInt( byte[] buffer, int index ) {
+        return ( buffer[index] & 0xFF ) |
+                ( buffer[index + 1] & 0xFF ) << 8 |
+                ( buffer[index + 2] & 0xFF ) << 16 |
+                ( buffer[index + 3] & 0xFF ) << 24;
+    }
+
+    private static int hash( int value ) {
+        return ( value * -1640531535 ) >>> ( Integer.SIZE - HASH_LOG );
+    }
+
+    private static int writeLength( byte[] dst, int index, int length ) {
+        while( length >= 255 ) {
+            dst[index++] = (byte) 255;
+            length -= 255;
+        }
+        dst[index++] = (byte) length;
+        return index;
+    }
+
+    /**
+     * Compresses a block.
+     *
+     * @param src the uncompressed data
+     * @param length the length of the uncompressed data
+     * @param dst the compressed data, at least {@link #maxCompressedLength(int)} long
+     * @param table the hash table of the previous positions, reused between the blocks
+     * @return the length of the compressed data
+     */
+    static int compressBlock( byte[] src, int length, byte[] dst, int[] table ) {
+        int anchor = 0;
+        int op = 0;
+        if( length > MF_LIMIT ) {
+            Arrays.fill( table, -1 );
+            final int matchLimit = length - LAST_LITERALS;
+            final int limit = length - MF_LIMIT;
+            int ip = 0;
+            while( ip < limit ) {
+                final int value = readInt( src, ip );
+                final int h = hash( value );
+                int ref = table[h];
+                table[h] = ip;
+                if( ref < 0 || ip - ref > MAX_OFFSET || readInt( src, ref ) != value ) {
+                    ++ip;
+                    continue;
+                }
+                // extends the match backwards over the pending literals
+                while( ip > anchor && ref > 0 && src[ip - 1] == src[ref - 1] ) {
+                    --ip;
+                    --ref;
+                }
+                int matchLength = MIN_MATCH;
+                while( ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength] ) {
+                    ++matchLength;
+                }
+
+                final int literals = ip - anchor;
+                final int tokenIndex = op++;
+                int token = Math.min( literals, 15 ) << 4;
+                if( literals >= 15 ) {
+                    op = writeLength( dst, op, literals - 15 );
+                }
+                System.arraycopy( src, anchor, dst, op, literals );
+                op += literals;
+                final int offset = ip - ref;
+                dst[op++] = (byte) offset;
+                dst[op++] = (byte) ( offset >>> 8 );
+                final int extra = matchLength - MIN_MATCH;
+                token |= Math.min( extra, 15 );
+                if( extra >= 15 ) {
+                    op = writeLength( dst, op, extra - 15 );
+                }
+                dst[tokenIndex] = (byte) token;
+
+                ip += matchLength;
+                anchor = ip;
+            }
+        }
+        final int literals = length - anchor;
+        final int tokenIndex = op++;
+        if( literals >= 15 ) {
+            op = writeLength( dst, op, literals - 15 );
+        }
+        dst[tokenIndex] = (byte) ( Math.min( literals, 15 ) << 4 );
+        System.arraycopy( src, anchor, dst, op, literals );
+        return op + literals;
+    }
+
+    /**
+     * Decompresses a block.
+     *
+     * @param src the compressed data
+     * @param length the length of the compressed data
+     * @param dst the uncompressed data
+     * @param rawLength the length of the uncompressed data
+     * @throws IOException if the block is corrupted
+     */
+    static void decompressBlock( byte[] src, int length, byte[] dst, int rawLength ) throws IOException {
+        int ip = 0;
+        int op = 0;
+        try {
+            while( true ) {
+                final int token = src[ip++] & 0xFF;
+                int literals = token >>> 4;
+                if( literals == 15 ) {
+                    int b;
+                    do {
+                        b = src[ip++] & 0xFF;
+                        literals += b;
+                    } while( b == 255 );
+                }
+                if( ip + literals > length || op + literals > rawLength ) {
+                    throw new StreamCorruptedException( "lz4 literals exceed the block" );
+                }
+                System.arraycopy( src, ip, dst, op, literals );
+                ip += literals;
+                op += literals;
+                if( ip == length ) {
+                    break;
+                }
+
+                final int offset = ( src[ip] & 0xFF ) | ( src[ip + 1] & 0xFF ) << 8;
+                ip += 2;
+                int matchLength = token & 0x0F;
+                if( matchLength == 15 ) {
+                    int b;
+                    do {
+                        b = src[ip++] & 0xFF;
+                        matchLength += b;
+                    } while( b == 255 );
+                }
+                matchLength += MIN_MATCH;
+                int ref = op - offset;
+                if( offset == 0 || ref < 0 || op + matchLength > rawLength ) {
+                    throw new StreamCorruptedException( "lz4 match exceeds the block" );
+                }
+                if( offset >= matchLength ) {
+                    System.arraycopy( dst, ref, dst, op, matchLength );
+                    op += matchLength;
+                }
+                else {
+                    // overlapping match, it repeats the last offset bytes
+                    for( int i = 0; i < matchLength; ++i ) {
+                        dst[op++] = dst[ref++];
+                    }
+                }
+            }
+        }
+        catch( ArrayIndexOutOfBoundsException ex ) {
+            throw new StreamCorruptedException( "lz4 block is truncated" );
+        }
+        if( op != rawLength ) {
+            throw new StreamCorruptedException( format( "lz4 block decompressed to %d bytes instead of %d", op, rawLength ) );
+        }
+    }
+
+    private static final class BlockOutputStream extends FilterOutputStream {
+        private final DataOutputStream data;
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private final byte[] compressed = new byte[maxCompressedLength( BLOCK_SIZE )];
+        private final int[] table = new int[1 << HASH_LOG];
+        private int count;
+        private boolean closed;
+
+        BlockOutputStream( OutputStream out ) {
+            super( out );
+            this.data = new DataOutputStream( out );
+        }
+
+        @Override
+        public void write( int b ) throws IOException {
+            if( count == buffer.length ) {
+                writeBlock();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write( byte[] b, int off, int len ) throws IOException {
+            while( len > 0 ) {
+                if( count == buffer.length ) {
+                    writeBlock();
+                }
+                final int chunk = Math.min( len, buffer.length - count );
+                System.arraycopy( b, off, buffer, count, chunk );
+                count += chunk;
+                off += chunk;
+                len -= chunk;
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if( count == 0 ) {
+                return;
+            }
+            final int compressedLength = compressBlock( buffer, count, compressed, table );
+            data.writeInt( count );
+            if( compressedLength < count ) {
+                data.writeInt( compressedLength );
+                data.write( compressed, 0, compressedLength );
+            }
+            else {
+                data.writeInt( count | STORED );
+                data.write( buffer, 0, count );
+            }
+            count = 0;
+        }
+
+        /**
+         * Like {@link java.util.zip.GZIPOutputStream}, it doesn't write the pending data, that is written by
+         * {@link #close()}: the serializers flush often, and a block on each flush would defeat the compression.
+         */
+        @Override
+        public void flush() throws IOException {
+            data.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if( closed ) {
+                return;
+            }
+            closed = true;
+            try {
+                writeBlock();
+                data.writeInt( 0 );
+                data.flush();
+            }
+            finally {
+                out.close();
+            }
+        }
+    }
+
+    private static final class BlockInputStream extends FilterInputStream {
+        private final DataInputStream data;
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private byte[] compressed;
+        private int position;
+        private int count;
+        private boolean finished;
+
+        BlockInputStream( InputStream in ) {
+            super( in );
+            this.data = new DataInputStream( in );
+        }
+
+        /**
+         * Reads the next block, if the current one has been consumed.
+         *
+         * @return false at the end of the stream
+         */
+        private boolean fill() throws IOException {
+            while( position == count ) {
+                if( finished ) {
+                    return false;
+                }
+                final int rawLength = data.readInt();
+                if( rawLength == 0 ) {
+                    finished = true;
+                    return false;
+                }
+                final int storedLength = data.readInt();
+                final int length = storedLength & ~STORED;
+                if( rawLength < 0 || rawLength > BLOCK_SIZE || length > maxCompressedLength( BLOCK_SIZE ) ) {
+                    throw new StreamCorruptedException( format( "invalid lz4 block of %d bytes", rawLength ) );
+                }
+                if( ( storedLength & STORED ) != 0 ) {
+                    if( length != rawLength ) {
+                        throw new StreamCorruptedException( "invalid lz4 stored block" );
+                    }
+                    data.readFully( buffer, 0, rawLength );
+                }
+                else {
+                    if( compressed == null ) {
+                        compressed = new byte[maxCompressedLength( BLOCK_SIZE )];
+                    }
+                    data.readFully( compressed, 0, length );
+                    decompressBlock( compressed, length, buffer, rawLength );
+                }
+                position = 0;
+                count = rawLength;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? buffer[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read( byte[] b, int off, int len ) throws IOException {
+            if( len == 0 ) {
+                return 0;
+            }
+            if( !fill() ) {
+                return -1;
+            }
+            final int chunk = Math.min( len, count - position );
+            System.arraycopy( buffer, position, b, off, chunk );
+            position += chunk;
+            return chunk;
+        }
+
+        @Override
+        public int available() {
+            return count - position;
+        }
+
+        @Override
+        public long skip( long n ) throws IOException {
+            long skipped = 0;
+            while( skipped < n && fill() ) {
+                final int chunk = (int) Math.min( n - skipped, count - position );
+                position += chunk;
+                skipped += chunk;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Compression codecs of the serialized state.
+ * <p>
+ * The codec compressing the data is recorded in its content type, see {@link org.bsc.langgraph4j.serializer.compression.CompressionCodec}.
+ */
+package org.bsc.langgraph4j.serializer.compression;
@@ -2,12 +2,14 @@ package org.bsc.langgraph4j.serializer.plain_text;
 
 import org.bsc.langgraph4j.serializer.Serializer;
 import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.buffer.ByteBufferPool;
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.AgentStateFactory;
 import org.bsc.langgraph4j.utils.Types;
 
 import java.io.*;
 import java.lang.reflect.ParameterizedType;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Optional;
 
@@ -21,16 +23,54 @@ public abstract class PlainTextStateSerializer<State extends AgentState> extends
     public abstract String writeDataAsString(Map<String, Object> data) throws IOException;
     public abstract Map<String, Object> readDataFromString(String string) throws IOException;
 
+    /**
+     * Writes the data as UTF-8 text to the given stream.
+     * By default it encodes {@link #writeDataAsString(Map)}, the serializers able to write straight to a stream override it.
+     *
+     * @param data the data to serialize
+     * @param out the stream, that must not be closed
+     * @throws IOException if the data cannot be serialized
+     */
+    protected void writeDataTo(Map<String, Object> data, OutputStream out) throws IOException {
+        out.write( writeDataAsString(data).getBytes(StandardCharsets.UTF_8) );
+    }
+
+    /**
+     * Reads the data from the given UTF-8 text.
+     * By default it decodes the text for {@link #readDataFromString(String)}, the serializers able to parse bytes override it.
+     *
+     * @param bytes the buffer holding the text
+     * @param offset the offset of the text in the buffer
+     * @param length the length of the text
+     * @return the data
+     * @throws IOException if the data cannot be deserialized
+     */
+    protected Map<String, Object> readDataFrom(byte[] bytes, int offset, int length) throws IOException {
+        return readDataFromString( new String(bytes, offset, length, StandardCharsets.UTF_8) );
+    }
+
+    /**
+     * Writes the text length-prefixed as {@link Serializer#writeUTF(String, ObjectOutput)} does, so that the stored data
+     * doesn't depend on the text being materialized as a String.
+     */
     @Override
     public final void writeData(Map<String, Object> data, ObjectOutput out) throws IOException {
-        String text = writeDataAsString(data);
-        Serializer.writeUTF( text, out );
+        try( var buffer = ByteBufferPool.shared().output() ) {
+            writeDataTo( data, buffer.asOutputStream() );
+            out.writeInt( buffer.size() );
+            buffer.writeTo( out );
+        }
     }
 
     @Override
     public final Map<String, Object> readData(ObjectInput in) throws IOException {
-        String text = Serializer.readUTF(in);
-        return readDataFromString(text);
+        int length = in.readInt();
+        if( length < 0 ) {
+            throw new StreamCorruptedException( "invalid text length " + length );
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return readDataFrom( bytes, 0, length );
     }
 
 
@@ -7,7 +7,12 @@ import org.bsc.langgraph4j.serializer.plain_text.PlainTextStateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.AgentStateFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
@@ -45,4 +50,17 @@ public abstract class GsonStateSerializer<State extends AgentState> extends Plai
         return gson.fromJson(string, new TypeToken<>() {});
     }
 
+    @Override
+    protected final void writeDataTo(Map<String, Object> data, OutputStream out) throws IOException {
+        var writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        gson.toJson(data, writer);
+        writer.flush();
+    }
+
+    @Override
+    protected final Map<String, Object> readDataFrom(byte[] bytes, int offset, int length) throws IOException {
+        var reader = new InputStreamReader(new ByteArrayInputStream(bytes, offset, length), StandardCharsets.UTF_8);
+        return gson.fromJson(reader, new TypeToken<Map<String, Object>>() {});
+    }
+
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.AgentStateFactory;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -17,6 +18,10 @@ import java.util.Objects;
 /**
  * Base Implementation of {@link PlainTextStateSerializer} using Jackson library.
  * Need to be extended from specific state implementation
+ * <p>
+ * The state is written by a {@code JsonGenerator} straight to the output and parsed from the bytes read,
+ * without going through a String. Given an {@link ObjectMapper} of a binary format, e.g. Smile or CBOR,
+ * the state is stored in that format and {@link #contentType()} tells it.
  *
  * @param <State> The type of the agent state to be serialized/deserialized.
  */
@@ -52,7 +57,22 @@ public abstract class JacksonStateSerializer <State extends AgentState> extends
 
     @Override
     public String contentType() {
-        return "application/json";
+        return switch( objectMapper.getFactory().getFormatName() ) {
+            case "Smile" -> "application/x-jackson-smile";
+            case "CBOR" -> "application/cbor";
+            case "JSON" -> "application/json";
+            default -> "application/" + objectMapper.getFactory().getFormatName().toLowerCase();
+        };
+    }
+
+    @Override
+    protected final void writeDataTo(Map<String, Object> data, OutputStream out) throws IOException {
+        objectMapper.writeValue(out, data);
+    }
+
+    @Override
+    protected final Map<String, Object> readDataFrom(byte[] bytes, int offset, int length) throws IOException {
+        return objectMapper.readValue(bytes, offset, length, new TypeReference<>() {});
     }
 
     @Override
@@ -0,0 +1,156 @@
+package org.bsc.langgraph4j.serializer.std;
+
+import org.bsc.langgraph4j.serializer.Serializer;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Compact serializers of the channel values, to be declared by {@link org.bsc.langgraph4j.state.Channel#withSerializer(Serializer)}
+ * and used by {@link SchemaStateSerializer}.
+ * <pre>
+ * Map.of( "messages", Channels.appender( ArrayList::new ).withSerializer( ChannelSerializers.listOf( ChannelSerializers.string() ) ),
+ *         "step", Channels.base( () -&gt; 0 ).withSerializer( ChannelSerializers.integer() ) );
+ * </pre>
+ * The values written carry no type information: the reader must use the same serializer.
+ */
+public interface ChannelSerializers {
+
+    static Serializer<String> string() {
+        return StringSerializer.INSTANCE;
+    }
+
+    static Serializer<Integer> integer() {
+        return IntegerSerializer.INSTANCE;
+    }
+
+    static Serializer<Long> longValue() {
+        return LongSerializer.INSTANCE;
+    }
+
+    static Serializer<Double> doubleValue() {
+        return DoubleSerializer.INSTANCE;
+    }
+
+    static Serializer<Boolean> bool() {
+        return BooleanSerializer.INSTANCE;
+    }
+
+    /**
+     * Returns a serializer of the lists whose elements are written by the given serializer.
+     * The elements cannot be null.
+     *
+     * @param elementSerializer the serializer of the elements
+     * @param <T> the type of the elements
+     * @return the serializer of the lists
+     */
+    static <T> Serializer<List<T>> listOf( Serializer<T> elementSerializer ) {
+        return new ListOfSerializer<>( elementSerializer );
+    }
+}
+
+enum StringSerializer implements Serializer<String> {
+    INSTANCE;
+
+    @Override
+    public void write(String object, ObjectOutput out) throws IOException {
+        Serializer.writeUTF( object, out );
+    }
+
+    @Override
+    public String read(ObjectInput in) throws IOException {
+        return Serializer.readUTF( in );
+    }
+}
+
+enum IntegerSerializer implements Serializer<Integer> {
+    INSTANCE;
+
+    @Override
+    public void write(Integer object, ObjectOutput out) throws IOException {
+        SchemaStateSerializer.writeVarLong( ( (long) object << 1 ) ^ ( object >> 31 ), out );
+    }
+
+    @Override
+    public Integer read(ObjectInput in) throws IOException {
+        final long value = SchemaStateSerializer.readVarLong( in );
+        return (int) ( ( value >>> 1 ) ^ -( value & 1 ) );
+    }
+}
+
+enum LongSerializer implements Serializer<Long> {
+    INSTANCE;
+
+    @Override
+    public void write(Long object, ObjectOutput out) throws IOException {
+        SchemaStateSerializer.writeVarLong( ( object << 1 ) ^ ( object >> 63 ), out );
+    }
+
+    @Override
+    public Long read(ObjectInput in) throws IOException {
+        final long value = SchemaStateSerializer.readVarLong( in );
+        return ( value >>> 1 ) ^ -( value & 1 );
+    }
+}
+
+enum DoubleSerializer implements Serializer<Double> {
+    INSTANCE;
+
+    @Override
+    public void write(Double object, ObjectOutput out) throws IOException {
+        out.writeDouble( object );
+    }
+
+    @Override
+    public Double read(ObjectInput in) throws IOException {
+        return in.readDouble();
+    }
+}
+
+enum BooleanSerializer implements Serializer<Boolean> {
+    INSTANCE;
+
+    @Override
+    public void write(Boolean object, ObjectOutput out) throws IOException {
+        out.writeBoolean( object );
+    }
+
+    @Override
+    public Boolean read(ObjectInput in) throws IOException {
+        return in.readBoolean();
+    }
+}
+
+record ListOfSerializer<T>( Serializer<T> elementSerializer ) implements Serializer<List<T>> {
+
+    ListOfSerializer {
+        requireNonNull( elementSerializer, "elementSerializer cannot be null" );
+    }
+
+    @Override
+    public void write(List<T> object, ObjectOutput out) throws IOException {
+        SchemaStateSerializer.writeVarLong( object.size(), out );
+        for( T element : object ) {
+            elementSerializer.write( requireNonNull( element, "list element cannot be null" ), out );
+        }
+    }
+
+    @Override
+    public List<T> read(ObjectInput in) throws IOException, ClassNotFoundException {
+        final long size = SchemaStateSerializer.readVarLong( in );
+        if( size > Integer.MAX_VALUE ) {
+            throw new StreamCorruptedException( "invalid list size " + size );
+        }
+        final var result = new ArrayList<T>( (int) Math.min( size, 1024 ) );
+        for( long i = 0; i < size; ++i ) {
+            result.add( elementSerializer.read( in ) );
+        }
+        return result;
+    }
+}
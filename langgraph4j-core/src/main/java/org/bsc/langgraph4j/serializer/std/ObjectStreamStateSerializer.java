@@ -2,6 +2,9 @@ package org.bsc.langgraph4j.serializer.std;
 
 import org.bsc.langgraph4j.serializer.Serializer;
 import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.buffer.BufferInput;
+import org.bsc.langgraph4j.serializer.buffer.BufferOutput;
+import org.bsc.langgraph4j.serializer.buffer.BufferStateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.AgentStateFactory;
 
@@ -10,7 +13,7 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.*;
 
-public class ObjectStreamStateSerializer<State extends AgentState> extends StateSerializer<State> {
+public class ObjectStreamStateSerializer<State extends AgentState> extends StateSerializer<State> implements BufferStateSerializer {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ObjectStreamStateSerializer.class);
     static class ListSerializer implements NullableObjectSerializer<List<Object>> {
 
@@ -113,4 +116,14 @@ public class ObjectStreamStateSerializer<State extends AgentState> extends State
         return mapSerializer.read( mapper.objectInputWithMapper(in) );
     }
 
+    @Override
+    public final void dataToBuffer(Map<String, Object> data, BufferOutput out) throws IOException {
+        writeData(data, out);
+    }
+
+    @Override
+    public final Map<String, Object> dataFromBuffer(BufferInput in) throws IOException, ClassNotFoundException {
+        return readData(in);
+    }
+
 }
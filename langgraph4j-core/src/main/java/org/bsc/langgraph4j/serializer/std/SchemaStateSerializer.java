@@ -0,0 +1,217 @@
+package org.bsc.langgraph4j.serializer.std;
+
+import org.bsc.langgraph4j.serializer.Serializer;
+import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.buffer.BufferInput;
+import org.bsc.langgraph4j.serializer.buffer.BufferOutput;
+import org.bsc.langgraph4j.serializer.buffer.BufferStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.bsc.langgraph4j.state.AgentStateFactory;
+import org.bsc.langgraph4j.state.Channel;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.util.*;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Compact binary serializer driven by the channels of the graph state.
+ * <p>
+ * The channel keys, sorted, are given integer ids, so that a key is written as a single byte,
+ * and the value of a channel declaring a serializer by {@link Channel#withSerializer(Serializer)} is written by it,
+ * without any type tag. The other values are written as by {@link ObjectStreamStateSerializer}, through the same {@link SerializerMapper}.
+ * <pre>
+ * version    : byte
+ * schema     : int, fingerprint of the channel keys
+ * size       : varint
+ * entry      : id(varint) [key(utf) if id == 0] kind(byte) value
+ * kind       : 0 null | 1 written by the channel serializer | 2 written by the mapper
+ * </pre>
+ * The keys outside the schema are written by name. The data written with a schema can be read only with the same
+ * channel keys: when they change, the stored checkpoints must be read back with the previous schema.
+ * The format is not the one of {@link ObjectStreamStateSerializer}, so the {@link #contentType()} differs.
+ *
+ * @param <State> the type of the state
+ */
+public class SchemaStateSerializer<State extends AgentState> extends StateSerializer<State> implements BufferStateSerializer {
+
+    static final byte VERSION = 1;
+
+    private static final byte NULL_VALUE = 0;
+    private static final byte CHANNEL_VALUE = 1;
+    private static final byte MAPPER_VALUE = 2;
+
+    private final SerializerMapper mapper;
+    private final Map<String,Integer> ids;
+    private final String[] keys;
+    private final Serializer<Object>[] serializers;
+    private final int fingerprint;
+
+    /**
+     * Creates a serializer of the given schema, writing the values of the channels without serializer as
+     * {@link ObjectStreamStateSerializer} does.
+     *
+     * @param stateFactory the factory of the state
+     * @param channels the schema of the state
+     */
+    public SchemaStateSerializer( AgentStateFactory<State> stateFactory, Map<String, Channel<?>> channels ) {
+        this( stateFactory, channels, new ObjectStreamStateSerializer<>( stateFactory ).mapper() );
+    }
+
+    /**
+     * Creates a serializer of the given schema, writing the values of the channels without serializer
+     * as the given serializer does, e.g. with the message serializers of LangChain4j or Spring AI.
+     *
+     * @param fallback the serializer of the values of the channels without serializer
+     * @param channels the schema of the state
+     */
+    public SchemaStateSerializer( ObjectStreamStateSerializer<State> fallback, Map<String, Channel<?>> channels ) {
+        this( requireNonNull( fallback, "fallback cannot be null" ).stateFactory(), channels, fallback.mapper() );
+    }
+
+    @SuppressWarnings("unchecked")
+    private SchemaStateSerializer( AgentStateFactory<State> stateFactory, Map<String, Channel<?>> channels, SerializerMapper mapper ) {
+        super( stateFactory );
+        requireNonNull( channels, "channels cannot be null" );
+        this.mapper = mapper;
+        this.keys = channels.keySet().stream().sorted().toArray( String[]::new );
+        this.serializers = new Serializer[keys.length];
+        final var ids = new HashMap<String,Integer>();
+        for( int i = 0; i < keys.length; ++i ) {
+            ids.put( keys[i], i + 1 );
+            serializers[i] = channels.get( keys[i] ).getSerializer()
+                    .map( s -> (Serializer<Object>) s )
+                    .orElse( null );
+        }
+        this.ids = Map.copyOf( ids );
+        this.fingerprint = String.join( "\n", keys ).hashCode();
+    }
+
+    public SerializerMapper mapper() {
+        return mapper;
+    }
+
+    @Override
+    public String contentType() {
+        return "application/x-langgraph4j-schema";
+    }
+
+    @Override
+    public void writeData( Map<String, Object> data, ObjectOutput out ) throws IOException {
+        final ObjectOutput mapperOut = mapper.objectOutputWithMapper( out );
+        mapperOut.writeByte( VERSION );
+        mapperOut.writeInt( fingerprint );
+        writeVarLong( data.size(), mapperOut );
+        for( Map.Entry<String,Object> e : data.entrySet() ) {
+            final Integer id = ids.get( e.getKey() );
+            if( id == null ) {
+                writeVarLong( 0, mapperOut );
+                Serializer.writeUTF( e.getKey(), mapperOut );
+            }
+            else {
+                writeVarLong( id, mapperOut );
+            }
+            final Object value = e.getValue();
+            final Serializer<Object> serializer = ( id != null ) ? serializers[id - 1] : null;
+            try {
+                if( value == null ) {
+                    mapperOut.writeByte( NULL_VALUE );
+                }
+                else if( serializer != null ) {
+                    mapperOut.writeByte( CHANNEL_VALUE );
+                    serializer.write( value, mapperOut );
+                }
+                else {
+                    mapperOut.writeByte( MAPPER_VALUE );
+                    mapperOut.writeObject( value );
+                }
+            }
+            catch( ClassCastException ex ) {
+                throw new IOException( format( "value of channel '%s' doesn't match its serializer", e.getKey() ), ex );
+            }
+        }
+        mapperOut.flush();
+    }
+
+    @Override
+    public Map<String, Object> readData( ObjectInput in ) throws IOException, ClassNotFoundException {
+        final ObjectInput mapperIn = mapper.objectInputWithMapper( in );
+        final byte version = mapperIn.readByte();
+        if( version != VERSION ) {
+            throw new StreamCorruptedException( format( "unsupported schema state version %d", version ) );
+        }
+        final int schema = mapperIn.readInt();
+        final long size = readVarLong( mapperIn );
+        final Map<String,Object> result = new HashMap<>();
+        for( long i = 0; i < size; ++i ) {
+            final long id = readVarLong( mapperIn );
+            final String key;
+            if( id == 0 ) {
+                key = Serializer.readUTF( mapperIn );
+            }
+            else if( schema != fingerprint ) {
+                throw new IllegalStateException( format( "state written with another schema (%08x), current one is %08x with channels %s",
+                        schema, fingerprint, Arrays.toString( keys ) ) );
+            }
+            else if( id > keys.length ) {
+                throw new StreamCorruptedException( format( "invalid channel id %d", id ) );
+            }
+            else {
+                key = keys[(int) id - 1];
+            }
+
+            final byte kind = mapperIn.readByte();
+            final Object value = switch( kind ) {
+                case NULL_VALUE -> null;
+                case CHANNEL_VALUE -> {
+                    final Serializer<Object> serializer = ( id > 0 ) ? serializers[(int) id - 1] : null;
+                    if( serializer == null ) {
+                        throw new IllegalStateException( format( "channel '%s' has no serializer to read its value", key ) );
+                    }
+                    yield serializer.read( mapperIn );
+                }
+                case MAPPER_VALUE -> mapperIn.readObject();
+                default -> throw new StreamCorruptedException( format( "invalid value kind %d of channel '%s'", kind, key ) );
+            };
+            result.put( key, value );
+        }
+        return result;
+    }
+
+    @Override
+    public final void dataToBuffer( Map<String, Object> data, BufferOutput out ) throws IOException {
+        writeData( data, out );
+    }
+
+    @Override
+    public final Map<String, Object> dataFromBuffer( BufferInput in ) throws IOException, ClassNotFoundException {
+        return readData( in );
+    }
+
+    /**
+     * Writes an unsigned LEB128 variable-length integer.
+     */
+    static void writeVarLong( long value, ObjectOutput out ) throws IOException {
+        while( ( value & ~0x7FL ) != 0 ) {
+            out.writeByte( (int) ( ( value & 0x7F ) | 0x80 ) );
+            value >>>= 7;
+        }
+        out.writeByte( (int) value );
+    }
+
+    static long readVarLong( ObjectInput in ) throws IOException {
+        long result = 0;
+        for( int shift = 0; shift < Long.SIZE; shift += 7 ) {
+            final byte b = in.readByte();
+            result |= (long) ( b & 0x7F ) << shift;
+            if( ( b & 0x80 ) == 0 ) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException( "varint is too long" );
+    }
+}
@@ -50,7 +50,9 @@ public class SerializerMapper {
 
         @Override
         public boolean equals(Object o) {
-            return Objects.equals( o, _className );
+            if( this == o ) return true;
+            if( !(o instanceof Key) ) return false;
+            return Objects.equals( ((Key)o)._className, _className );
         }
 
         @Override
@@ -58,41 +60,76 @@ public class SerializerMapper {
             return Objects.hash(_className);
         }
     }
-    private final Map<Key, Serializer<?>> _serializers = new HashMap<>();
 
-    public SerializerMapper register( Class<?> clazz, Serializer<?> serializer ) {
+    /**
+     * Memoizes, for each class, the serializer registered for the class itself or else for its most specific supertype.
+     * It is replaced on each registration, so that a resolution never sees a stale registry.
+     */
+    private static final class Resolver extends ClassValue<Optional<Serializer<Object>>> {
+        private final List<Map.Entry<Key, Serializer<?>>> entries;
+
+        Resolver( Map<Key, Serializer<?>> serializers ) {
+            this.entries = serializers.entrySet().stream()
+                                .map( e -> Map.<Key, Serializer<?>>entry( e.getKey(), e.getValue() ) )
+                                .collect(Collectors.toUnmodifiableList());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Optional<Serializer<Object>> computeValue(Class<?> clazz) {
+            Map.Entry<Key, Serializer<?>> result = null;
+            for( Map.Entry<Key, Serializer<?>> e : entries ) {
+                final Class<?> type = e.getKey().getType();
+                if( type == clazz ) {
+                    result = e;
+                    break;
+                }
+                // in registration order, unless a more specific type is found
+                if( type.isAssignableFrom(clazz) &&
+                        ( result == null || result.getKey().getType().isAssignableFrom(type) ) ) {
+                    result = e;
+                }
+            }
+            return Optional.ofNullable( result ).map( e -> (Serializer<Object>)e.getValue() );
+        }
+    }
+
+    private final Map<Key, Serializer<?>> _serializers = new LinkedHashMap<>();
+    private volatile Resolver _resolver = new Resolver( _serializers );
+
+    public synchronized SerializerMapper register( Class<?> clazz, Serializer<?> serializer ) {
         Objects.requireNonNull(clazz,"class cannot be null ");
-        Objects.requireNonNull(clazz,"serializer cannot be null ");
+        Objects.requireNonNull(serializer,"serializer cannot be null ");
 
         _serializers.put( Key.of(clazz), serializer);
+        _resolver = new Resolver( _serializers );
         return this;
     }
 
-    public boolean unregister( Class<? extends Serializer<?>> clazz ) {
+    public synchronized boolean unregister( Class<? extends Serializer<?>> clazz ) {
         Objects.requireNonNull( clazz, "Serializer's class cannot be null" );
         Serializer<?> serializer = _serializers.remove( Key.of(clazz) );
-        return serializer != null;
+        if( serializer == null ) {
+            return false;
+        }
+        _resolver = new Resolver( _serializers );
+        return true;
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Returns the serializer registered for the given class or else for its most specific registered supertype.
+     * The resolution is cached per class, so that it costs a lookup after the first value of each class.
+     *
+     * @param clazz the class of the value
+     * @return the serializer, empty if none is registered
+     */
     public Optional<Serializer<Object>> getSerializer( Class<?> clazz ) {
         Objects.requireNonNull(clazz,"class cannot be null ");
-        Serializer<?> ser = _serializers.get( Key.of(clazz) );
-
-        return ( ser != null ) ?
-
-            Optional.of((Serializer<Object>)ser) :
-
-            _serializers.entrySet().stream()
-                    .filter( e -> e.getKey().getType().isAssignableFrom(clazz) )
-                    .findFirst()
-                    .map( e -> (Serializer<Object>)e.getValue() )
-                ;
-
+        return _resolver.get( clazz );
     }
 
     @SuppressWarnings("unchecked")
-    public Optional<Serializer<Object>> getSerializer( String className ) {
+    public synchronized Optional<Serializer<Object>> getSerializer( String className ) {
         Objects.requireNonNull(className,"className cannot be null ");
         return Optional.ofNullable((Serializer<Object>)_serializers.get( Key.of(className) ));
     }
@@ -127,7 +164,7 @@ public class SerializerMapper {
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
         List<String> typeNames = _serializers.keySet().stream().map(Key::getTypeName).collect(Collectors.toList());
         return format( "SerializerMapper: \n%s", String.join("\n", typeNames) );
 
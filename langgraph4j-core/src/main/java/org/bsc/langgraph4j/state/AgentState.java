@@ -1,16 +1,12 @@
 package org.bsc.langgraph4j.state;
 
 import org.bsc.langgraph4j.utils.CollectionsUtils;
+import org.bsc.langgraph4j.utils.PersistentMap;
 
 import java.util.*;
-import java.util.function.BinaryOperator;
 import java.util.function.Supplier;
-import java.util.stream.Collector;
-import java.util.stream.Stream;
 
-import static java.util.Collections.unmodifiableMap;
 import static java.util.Optional.ofNullable;
-import static org.bsc.langgraph4j.utils.CollectionsUtils.entryOf;
 
 /**
  * Represents the state of an agent with a map of data.
@@ -27,16 +23,16 @@ public class AgentState {
      * @param initData the initial data for the agent state
      */
     public AgentState(Map<String,Object> initData) {
-        this.data = new HashMap<>(initData);
+        this.data = PersistentMap.copyOf(initData);
     }
 
     /**
-     * Returns an unmodifiable view of the data map.
+     * Returns the data map. The map is immutable, so the same instance is returned on each call.
      *
      * @return an unmodifiable map of the data
      */
     public final java.util.Map<String,Object> data() {
-        return unmodifiableMap(data);
+        return data;
     }
 
 
@@ -60,73 +56,35 @@ public class AgentState {
         return CollectionsUtils.toString(data);
     }
 
-    private static Collector<Map.Entry<String,Object>, ?, Map<String, Object>> toMapRemovingItemMarkedForRemoval() {
-        final BinaryOperator<Object> mergeFunction = ( currentValue, newValue ) -> newValue;
-
-        return Collector.of(
-                HashMap::new,
-                (map, element) -> {
-                    var key     = element.getKey();
-                    var value   = element.getValue();
-                    if( value == null || value == MARK_FOR_RESET || value == MARK_FOR_REMOVAL) {
-                        map.remove(key);
-                    }
-                    else {
-                        map.merge(key, value, mergeFunction);
-                    }
-                },
-                (map1, map2) -> {
-                    map2.forEach( (key, value) -> {
-                        if ( value != null && value != MARK_FOR_RESET && value != MARK_FOR_REMOVAL) {
-                            map1.merge(key, value, mergeFunction);
-                        }
-                    });
-                    return map1;
-                },
-                Collector.Characteristics.UNORDERED);
-    }
-
-
-    private static Collector<Map.Entry<String,Object>, ?, Map<String, Object>> toMapAllowingNulls() {
-        return Collector.of(
-                HashMap::new,
-                (map, element) -> map.put(element.getKey(), element.getValue()),
-                (map1, map2) -> {
-                    map1.putAll(map2);
-                    return map1;
-                },
-                Collector.Characteristics.UNORDERED);
+    private static boolean isMarkedForRemoval( Object value ) {
+        return value == null || value == MARK_FOR_RESET || value == MARK_FOR_REMOVAL;
     }
 
     /**
-     * Updates the partial state from a schema using channels.
+     * Converts the given state into a {@link PersistentMap}, dropping the entries marked for removal.
      *
-     * @param state        The current state as a map of key-value pairs.
-     * @param partialState The partial state to be updated.
-     * @param channels     A map of channel names to their implementations.
-     * @return An updated version of the partial state after applying the schema and channels.
+     * @param state the current state
+     * @return the given state itself if it is already a {@code PersistentMap}, otherwise a new map
      */
-    private static Map<String,Object> updatePartialStateFromSchema(  Map<String,Object> state, Map<String,Object> partialState, Map<String, Channel<?>> channels ) {
-        if( channels == null || channels.isEmpty() ) {
-            return partialState;
+    private static PersistentMap<String,Object> toPersistentState( Map<String,Object> state ) {
+        if( state instanceof PersistentMap<String,Object> persistentState ) {
+            return persistentState;
         }
-        return partialState.entrySet().stream().map( entry -> {
-
-            Channel<?> channel = channels.get(entry.getKey());
-            if (channel != null) {
-                Object newValue = channel.update( entry.getKey(), state.get(entry.getKey()), entry.getValue());
-                return entryOf(entry.getKey(), newValue);
+        var result = PersistentMap.<String,Object>empty();
+        for( var entry : state.entrySet() ) {
+            if( !isMarkedForRemoval(entry.getValue()) ) {
+                result = result.plus( entry.getKey(), entry.getValue() );
             }
-
-            return entry;
-        })
-        .collect(toMapAllowingNulls());
+        }
+        return result;
     }
 
-
     /**
      * Updates a state with the provided partial state.
      * The merge function is used to merge the current state value with the new value.
+     * <p>
+     * The result is an immutable {@link PersistentMap} that shares the unchanged entries with the given state,
+     * so the cost of an update depends on the size of the partial state only.
      *
      * @param state the current state
      * @param partialState the partial state to update from
@@ -140,10 +98,21 @@ public class AgentState {
             return state;
         }
 
-        Map<String, Object> updatedPartialState = updatePartialStateFromSchema(state, partialState, channels);
+        var result = toPersistentState(state);
+
+        for( var entry : partialState.entrySet() ) {
+            final var key = entry.getKey();
+            var value = entry.getValue();
+
+            final Channel<?> channel = ( channels != null ) ? channels.get(key) : null;
+            if( channel != null ) {
+                value = channel.update( key, state.get(key), value );
+            }
+
+            result = isMarkedForRemoval(value) ? result.minus(key) : result.plus(key, value);
+        }
 
-        return  Stream.concat( state.entrySet().stream(), updatedPartialState.entrySet().stream())
-                .collect(toMapRemovingItemMarkedForRemoval());
+        return result;
     }
 
     /**
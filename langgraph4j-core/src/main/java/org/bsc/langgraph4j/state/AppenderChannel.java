@@ -1,9 +1,10 @@
 package org.bsc.langgraph4j.state;
 
+import org.bsc.langgraph4j.utils.PersistentList;
+
 import java.util.*;
 import java.util.function.Supplier;
 
-import static java.util.Collections.unmodifiableList;
 import static java.util.Optional.ofNullable;
 import static org.bsc.langgraph4j.state.AgentState.MARK_FOR_REMOVAL;
 import static org.bsc.langgraph4j.state.AgentState.MARK_FOR_RESET;
@@ -12,6 +13,12 @@ import static org.bsc.langgraph4j.state.AgentState.MARK_FOR_RESET;
 /**
  * AppenderChannel is a {@link Channel} implementation that
  * is used to accumulate a list of values.
+ * <p>
+ * The accumulated values are kept in an immutable {@link PersistentList}, so appending or removing values
+ * doesn't copy the previous ones and the built-in reducers detect duplicates through its hash code index.
+ * The channel returns the list wrapped in a mutable view, that copies it only on the first write other than
+ * appending, so the accumulated values can still be updated in place by the caller.
+ * A custom reducer, given through a subclass, is applied to such a view as well.
  *
  * @param <T> the type of the values being accumulated
  * @see Channel
@@ -56,6 +63,15 @@ public class AppenderChannel<T> implements Channel<List<T>> {
             if (left == null) {
                 return right;
             }
+            if (left instanceof PersistentList<T> list) {
+                // duplicates are detected through the hash code index of the list
+                for (T rValue : right) {
+                    if (!list.containsHashCode(Objects.hashCode(rValue))) {
+                        list = list.plus(rValue);
+                    }
+                }
+                return list;
+            }
             for (T rValue : right) {
                 // remove duplicate
                 if (left.stream().noneMatch(lValue -> Objects.hash(lValue) == Objects.hash(rValue))) {
@@ -78,6 +94,9 @@ public class AppenderChannel<T> implements Channel<List<T>> {
             if (left == null) {
                 return right;
             }
+            if (left instanceof PersistentList<T> list) {
+                return list.plusAll(right);
+            }
             left.addAll(right);
             return left;
         }
@@ -120,38 +139,64 @@ public class AppenderChannel<T> implements Channel<List<T>> {
     }
 
     /**
-     * This method removes elements from a given list based on the specified {@link RemoveIdentifier}.
-     * It creates a copy of the original list, performs the removal operation, and returns an immutable view of the result.
+     * Checks if the reducer is one of the built-in ones, that append the values to a {@link PersistentList}
+     * without modifying it.
      *
-     * @param list The list from which elements will be removed.
-     * @param removeIdentifier An instance of {@link RemoveIdentifier} that defines how to identify elements for removal.
-     * @return An unmodifiable view of the modified list with specified elements removed.
+     * @return true if the reducer accepts a {@link PersistentList} as accumulated values
      */
-    private List<T> remove(List<T> list, RemoveIdentifier<T> removeIdentifier ) {
-        var result = new ArrayList<>(list);
-        removeFromList(result, removeIdentifier);
-        return unmodifiableList(result);
+    private boolean hasPersistentReducer() {
+        return reducer instanceof ReducerDisallowDuplicate<T> || reducer instanceof ReducerAllowDuplicate<T>;
     }
 
     /**
-     * Removes an element from the list that matches the specified identifier.
+     * Returns the given list as a {@link PersistentList}.
+     * A list wrapped in a copy-on-write view by the {@link StateCloner} is unwrapped, so an unchanged
+     * persistent list is reused as is and only a list of another type is copied.
      *
-     * <p>This method iterates over the provided list and removes the first element for which the
-     * {@link RemoveIdentifier#compareTo} method returns zero.</p>
+     * @param list the list to convert
+     * @return the persistent list
+     */
+    private PersistentList<T> persistentListOf( List<T> list ) {
+        return PersistentList.copyOf( CopyOnWriteStateCloner.unwrap(list) );
+    }
+
+    /**
+     * Returns the given list wrapped in a copy-on-write view.
+     *
+     * @param list the list to wrap
+     * @return a mutable view over the list
+     */
+    private List<T> mutableViewOf( List<T> list ) {
+        return new CopyOnWriteStateCloner.CopyOnWriteList<>( list );
+    }
+
+    /**
+     * This method removes elements from a given list based on the specified {@link RemoveIdentifier}.
+     * A {@link RemoveByHash} whose hash code is not in the list is resolved through the hash code index,
+     * without scanning the list. The returned list shares the elements preceding the first removed one.
      *
-     * @param result         the list to be modified
-     * @param removeIdentifier the identifier used to find the element to remove
+     * @param list The list from which elements will be removed.
+     * @param removeIdentifier An instance of {@link RemoveIdentifier} that defines how to identify elements for removal.
+     * @return a new list without the identified elements, or the given list if no element has been removed.
      */
-    private void removeFromList(List<T> result, RemoveIdentifier<T> removeIdentifier ) {
-        // Use an iterator to safely remove elements during iteration
-        var iterator = result.iterator();
-        int index = 0;
-        while (iterator.hasNext()) {
-            T element = iterator.next();
-            if (removeIdentifier.compareTo(element, index++) == 0) {
-                iterator.remove();
+    private PersistentList<T> remove(PersistentList<T> list, RemoveIdentifier<T> removeIdentifier ) {
+        if( removeIdentifier instanceof RemoveByHash<T> removeByHash &&
+                !list.containsHashCode( Objects.hashCode(removeByHash.value()) ) ) {
+            return list;
+        }
+        PersistentList<T> result = null;
+        for( int index = 0; index < list.size(); ++index ) {
+            final T element = list.get(index);
+            if (removeIdentifier.compareTo(element, index) == 0) {
+                if( result == null ) {
+                    result = list.take(index);
+                }
+            }
+            else if( result != null ) {
+                result = result.plus(element);
             }
         }
+        return ( result != null ) ? result : list;
     }
 
     /**
@@ -159,13 +204,7 @@ public class AppenderChannel<T> implements Channel<List<T>> {
      * 
      * @param <T> the type of elements in the old values list
      */
-    record RemoveData<T>( List<T> oldValues, List<?> newValues) {
-
-        // copy constructor. make sure to copy the list to make them modifiable
-        public RemoveData {
-            oldValues = new ArrayList<>(oldValues);
-            newValues = new ArrayList<>(newValues);
-        }
+    record RemoveData<T>( PersistentList<T> oldValues, List<?> newValues) {
     };
 
     /**
@@ -176,19 +215,20 @@ public class AppenderChannel<T> implements Channel<List<T>> {
      * @return            a {@literal RemoveData<T>} object with updated old and new values after removing identifiers
      */
     @SuppressWarnings("unchecked")
-    private RemoveData<T> evaluateRemoval(List<T> oldValues, List<?> newValues ) {
-
-        final var result = new RemoveData<>( oldValues, newValues );
+    private RemoveData<T> evaluateRemoval(PersistentList<T> oldValues, List<?> newValues ) {
 
-        newValues.stream()
-                 .filter( value -> value instanceof RemoveIdentifier<?> )
-                 .forEach( value -> {
-                        result.newValues().remove( value );
-                        var removeIdentifier = (RemoveIdentifier<T>) value;
-                        removeFromList( result.oldValues(), removeIdentifier );
+        var result = oldValues;
+        final var values = new ArrayList<>( newValues.size() );
 
-                });
-        return result;
+        for( var value : newValues ) {
+            if( value instanceof RemoveIdentifier<?> ) {
+                result = remove( result, (RemoveIdentifier<T>) value );
+            }
+            else {
+                values.add( value );
+            }
+        }
+        return new RemoveData<>( result, values );
 
     }
 
@@ -223,10 +263,12 @@ public class AppenderChannel<T> implements Channel<List<T>> {
 
         try {
             if( newValue instanceof ReplaceAllWith<?> replaceAll ) {
-                return List.copyOf(replaceAll.newValues());
+                return mutableViewOf( PersistentList.copyOf((List<T>)replaceAll.newValues()) );
             }
             if( oldValueIsList && newValue instanceof RemoveIdentifier<?> ) {
-                return remove( (List<T>)oldValue, (RemoveIdentifier<T>)newValue);
+                final var oldValues = persistentListOf((List<T>)oldValue);
+                final var result = remove( oldValues, (RemoveIdentifier<T>)newValue);
+                return ( result == oldValues ) ? oldValue : mutableViewOf( result );
             }
             List<?> list = null;
             if (newValue instanceof List) {
@@ -241,14 +283,19 @@ public class AppenderChannel<T> implements Channel<List<T>> {
                 return oldValue;
             }
             var typedList = validateNewValues(list);
-            if( oldValueIsList ) {
-                var result = evaluateRemoval( (List<T>)oldValue, typedList );
-                return Channel.super.update(key, result.oldValues(), result.newValues());
+            final List<T> oldValues = oldValueIsList ?
+                    (List<T>)oldValue :
+                    getDefault().map(Supplier::get).orElseGet(List::of);
+
+            var result = evaluateRemoval( persistentListOf(oldValues), typedList );
+            if( hasPersistentReducer() ) {
+                return mutableViewOf( (List<T>) Channel.super.update(key, result.oldValues(), result.newValues()) );
             }
-            return Channel.super.update(key, oldValue, typedList);
+            // a custom reducer may modify the accumulated values in place
+            return Channel.super.update(key, mutableViewOf(result.oldValues()), result.newValues());
         }
         catch (UnsupportedOperationException ex) {
-            log.error("Unsupported operation: probably because the appendable channel has been initialized with a immutable List. Check please !");
+            log.error("Unsupported operation updating '{}': probably because the reducer of the appendable channel modifies an immutable List. Check please !", key);
             throw ex;
         }
     }
@@ -1,8 +1,11 @@
 package org.bsc.langgraph4j.state;
 
+import org.bsc.langgraph4j.serializer.Serializer;
+
 import java.util.Optional;
 import java.util.function.Supplier;
 
+import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
 import static org.bsc.langgraph4j.state.AgentState.MARK_FOR_REMOVAL;
 import static org.bsc.langgraph4j.state.AgentState.MARK_FOR_RESET;
@@ -48,6 +51,51 @@ class BaseChannel<T> implements Channel<T> {
     }
 }
 
+/**
+ * A channel delegating to another one, that declares the serializer of its value.
+ *
+ * @param <T>
+ */
+class ChannelWithSerializer<T> implements Channel<T> {
+    final Channel<T> channel;
+    final Serializer<T> serializer;
+
+    ChannelWithSerializer( Channel<T> channel, Serializer<T> serializer ) {
+        this.channel = requireNonNull( channel, "channel cannot be null" );
+        this.serializer = requireNonNull( serializer, "serializer cannot be null" );
+    }
+
+    @Override
+    public Optional<Reducer<T>> getReducer() {
+        return channel.getReducer();
+    }
+
+    @Override
+    public Optional<Supplier<T>> getDefault() {
+        return channel.getDefault();
+    }
+
+    @Override
+    public Optional<Serializer<T>> getSerializer() {
+        return Optional.of( serializer );
+    }
+
+    @Override
+    public boolean isMarkedForReset( Object value ) {
+        return channel.isMarkedForReset( value );
+    }
+
+    @Override
+    public boolean isMarkedForRemoval( Object value ) {
+        return channel.isMarkedForRemoval( value );
+    }
+
+    @Override
+    public Object update( String key, Object oldValue, Object newValue ) {
+        return channel.update( key, oldValue, newValue );
+    }
+}
+
 /**
  * A Channel is a mechanism used to maintain a state property.
  * <p>
@@ -87,6 +135,28 @@ public interface Channel<T> {
      */
     Optional<Supplier<T>> getDefault();
 
+    /**
+     * The Serializer, if provided, is used by the schema-aware serializers to write the value of the state property,
+     * instead of the generic type-tagged encoding.
+     *
+     * @return An optional containing the serializer of the value, if it exists.
+     * @see org.bsc.langgraph4j.serializer.std.SchemaStateSerializer
+     */
+    default Optional<Serializer<T>> getSerializer() {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns a channel behaving as this one, that declares the serializer of its value.
+     *
+     * @param serializer the serializer of the value
+     * @return the channel
+     */
+    default Channel<T> withSerializer( Serializer<T> serializer ) {
+        final Channel<T> channel = ( this instanceof ChannelWithSerializer<T> c ) ? c.channel : this;
+        return new ChannelWithSerializer<>( channel, serializer );
+    }
+
 
     default boolean isMarkedForReset( Object value ) {
         return value == null || value == MARK_FOR_RESET ;
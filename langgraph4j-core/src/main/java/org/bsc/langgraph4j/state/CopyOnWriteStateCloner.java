@@ -0,0 +1,324 @@
+package org.bsc.langgraph4j.state;
+
+import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.utils.PersistentList;
+import org.bsc.langgraph4j.utils.PersistentMap;
+
+import java.io.Serializable;
+import java.util.*;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link StateCloner} that shares the state values between snapshots.
+ * <p>
+ * Mutable containers are wrapped in copy-on-write views, so the underlying container is never
+ * updated once it is part of a snapshot and it is copied only if the owner of the view writes on it.
+ * The containers nested in a view are wrapped in turn when the view is copied, and a view is copied before
+ * handing out a nested container, so they are protected as well, see {@link StateCloner#copyOnWrite()}.
+ * The views may be snapshot by a thread and written by another one, e.g. by the branches of a parallel node:
+ * the snapshots and the writes are synchronized on the view and the underlying container is published
+ * through a volatile field.
+ */
+final class CopyOnWriteStateCloner implements StateCloner {
+    static final CopyOnWriteStateCloner INSTANCE = new CopyOnWriteStateCloner();
+
+    private CopyOnWriteStateCloner() {}
+
+    /**
+     * Returns a snapshot of the given value.
+     *
+     * @param value the value to snapshot
+     * @return the value itself if it doesn't need to be protected, otherwise a copy-on-write view over it
+     */
+    static Object snapshotOf( Object value ) {
+        if( value instanceof CopyOnWriteList<?> list ) {
+            return list.snapshot();
+        }
+        if( value instanceof CopyOnWriteMap<?,?> map ) {
+            return map.snapshot();
+        }
+        if( value instanceof PersistentMap<?,?> ) {
+            return value;
+        }
+        if( value instanceof List<?> list ) {
+            return new CopyOnWriteList<>( ( list instanceof RandomAccess ) ? list : new ArrayList<>(list) );
+        }
+        if( value instanceof Map<?,?> map ) {
+            return new CopyOnWriteMap<>(map);
+        }
+        if( value instanceof Set<?> set ) {
+            return new LinkedHashSet<>(set);
+        }
+        return value;
+    }
+
+    /**
+     * Checks if the given value is a container that has to be protected by {@link #snapshotOf(Object)}.
+     *
+     * @param value the value to check
+     * @return true if the value is a mutable list, map or set
+     */
+    static boolean isMutableContainer( Object value ) {
+        if( value instanceof PersistentMap<?,?> ) {
+            return false;
+        }
+        return value instanceof List<?> || value instanceof Map<?,?> || value instanceof Set<?>;
+    }
+
+    /**
+     * Returns the list currently wrapped by the given copy-on-write view, to be read only.
+     *
+     * @param list the list to unwrap
+     * @param <E> the type of elements
+     * @return the wrapped list if the given list is a copy-on-write view, otherwise the list itself
+     */
+    static <E> List<E> unwrap( List<E> list ) {
+        return ( list instanceof CopyOnWriteList<E> view ) ? view.delegate : list;
+    }
+
+    @Override
+    public <State extends AgentState> State cloneState(Map<String, Object> data, StateSerializer<State> serializer) {
+        requireNonNull( data, "data cannot be null");
+        // only the entries holding a mutable container are replaced, the others are shared with the source
+        var result = PersistentMap.copyOf( data );
+        for( var entry : data.entrySet() ) {
+            final var value = entry.getValue();
+            final var snapshot = snapshotOf( value );
+            if( snapshot != value ) {
+                result = result.plus( entry.getKey(), snapshot );
+            }
+        }
+        return serializer.stateOf( result );
+    }
+
+    @Override
+    public String toString() {
+        return "StateCloner.copyOnWrite";
+    }
+
+    /**
+     * List view that shares the source list until the first write.
+     * A {@link PersistentList} is never copied to append or remove the last element, the view
+     * refers to the list derived from it instead.
+     *
+     * @param <E> the type of elements
+     */
+    static final class CopyOnWriteList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+        private volatile List<E> delegate;
+        // guarded by this
+        private boolean shared;
+
+        @SuppressWarnings("unchecked")
+        CopyOnWriteList( List<? extends E> source ) {
+            this.delegate = (List<E>) requireNonNull(source, "source cannot be null");
+            this.shared = true;
+        }
+
+        /**
+         * Returns the underlying list owned by this view, copying the shared one and taking a snapshot
+         * of the containers nested in it.
+         */
+        @SuppressWarnings("unchecked")
+        private List<E> writable() {
+            if( shared ) {
+                final var source = delegate;
+                final var result = new ArrayList<E>( source.size() );
+                for( var element : source ) {
+                    result.add( (E) snapshotOf( element ) );
+                }
+                delegate = result;
+                shared = false;
+            }
+            return delegate;
+        }
+
+        /**
+         * Returns a new view over the current content. After this call the current content is shared
+         * and the next write on this view will copy it.
+         *
+         * @return a new copy-on-write view
+         */
+        synchronized CopyOnWriteList<E> snapshot() {
+            shared = true;
+            return new CopyOnWriteList<>(delegate);
+        }
+
+        @Override
+        public E get(int index) {
+            final var result = delegate.get(index);
+            if( !isMutableContainer( result ) ) {
+                return result;
+            }
+            // the nested container could be shared with other snapshots
+            synchronized( this ) {
+                return writable().get(index);
+            }
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public synchronized E set(int index, E element) {
+            return writable().set(index, element);
+        }
+
+        @Override
+        public synchronized void add(int index, E element) {
+            if( index == delegate.size() && delegate instanceof PersistentList<E> list ) {
+                delegate = list.plus(element);
+            }
+            else {
+                writable().add(index, element);
+            }
+            ++modCount;
+        }
+
+        @Override
+        public synchronized E remove(int index) {
+            final E result;
+            if( index == delegate.size() - 1 && delegate instanceof PersistentList<E> list ) {
+                result = list.get(index);
+                delegate = list.take(index);
+            }
+            else {
+                result = writable().remove(index);
+            }
+            ++modCount;
+            return result;
+        }
+
+        @Override
+        public synchronized void clear() {
+            if( shared ) {
+                delegate = new ArrayList<>();
+                shared = false;
+            }
+            else {
+                delegate.clear();
+            }
+            ++modCount;
+        }
+
+        private Object writeReplace() {
+            return new ArrayList<>(delegate);
+        }
+    }
+
+    /**
+     * Map view that shares the source map until the first write.
+     * While shared, the views returned by {@link #entrySet()}, {@link #keySet()} and {@link #values()} are read-only.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     */
+    static final class CopyOnWriteMap<K,V> extends AbstractMap<K,V> implements Serializable {
+        private volatile Map<K,V> delegate;
+        // guarded by this
+        private boolean shared;
+
+        @SuppressWarnings("unchecked")
+        CopyOnWriteMap( Map<? extends K, ? extends V> source ) {
+            this.delegate = (Map<K,V>) requireNonNull(source, "source cannot be null");
+            this.shared = true;
+        }
+
+        /**
+         * Returns the underlying map owned by this view, copying the shared one and taking a snapshot
+         * of the containers nested in it.
+         */
+        @SuppressWarnings("unchecked")
+        private Map<K,V> writable() {
+            if( shared ) {
+                final var source = delegate;
+                final var result = new LinkedHashMap<K,V>( Math.max( 16, (int) ( source.size() / .75f ) + 1 ) );
+                for( var entry : source.entrySet() ) {
+                    result.put( entry.getKey(), (V) snapshotOf( entry.getValue() ) );
+                }
+                delegate = result;
+                shared = false;
+            }
+            return delegate;
+        }
+
+        /**
+         * Returns a new view over the current content. After this call the current content is shared
+         * and the next write on this view will copy it.
+         *
+         * @return a new copy-on-write view
+         */
+        synchronized CopyOnWriteMap<K,V> snapshot() {
+            shared = true;
+            return new CopyOnWriteMap<>(delegate);
+        }
+
+        @Override
+        public synchronized Set<Entry<K, V>> entrySet() {
+            if( shared && delegate.values().stream().anyMatch( CopyOnWriteStateCloner::isMutableContainer ) ) {
+                // the nested containers could be shared with other snapshots
+                writable();
+            }
+            return shared ? Collections.unmodifiableMap(delegate).entrySet() : delegate.entrySet();
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return delegate.containsKey(key);
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            return delegate.containsValue(value);
+        }
+
+        @Override
+        public V get(Object key) {
+            final var result = delegate.get(key);
+            if( !isMutableContainer( result ) ) {
+                return result;
+            }
+            // the nested container could be shared with other snapshots
+            synchronized( this ) {
+                return writable().get(key);
+            }
+        }
+
+        @Override
+        public synchronized V put(K key, V value) {
+            return writable().put(key, value);
+        }
+
+        @Override
+        public synchronized V remove(Object key) {
+            return writable().remove(key);
+        }
+
+        @Override
+        public synchronized void putAll(Map<? extends K, ? extends V> m) {
+            writable().putAll(m);
+        }
+
+        @Override
+        public synchronized void clear() {
+            if( shared ) {
+                delegate = new LinkedHashMap<>();
+                shared = false;
+            }
+            else {
+                delegate.clear();
+            }
+        }
+
+        private Object writeReplace() {
+            return new LinkedHashMap<>(delegate);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.bsc.langgraph4j.state;
+
+import org.bsc.langgraph4j.serializer.StateSerializer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Strategy used by the graph runtime to create an isolated copy of the state.
+ * <p>
+ * A copy is taken before each node action, for each emitted {@link org.bsc.langgraph4j.NodeOutput},
+ * on interruption and for each stored checkpoint.
+ *
+ * @see org.bsc.langgraph4j.CompileConfig.Builder#stateCloner(StateCloner)
+ */
+public interface StateCloner {
+
+    /**
+     * Creates an isolated copy of the given state data.
+     *
+     * @param data the state data to copy
+     * @param serializer the state serializer of the graph
+     * @param <State> the type of the state
+     * @return a new state instance
+     * @throws IOException if the copy involves a serialization that fails
+     * @throws ClassNotFoundException if the copy involves a deserialization that fails
+     */
+    <State extends AgentState> State cloneState( Map<String,Object> data, StateSerializer<State> serializer ) throws IOException, ClassNotFoundException;
+
+    /**
+     * Returns the cloner that deep copies the state through a full serialization round-trip
+     * using the graph {@link StateSerializer}.
+     *
+     * @return the serializer based cloner
+     */
+    static StateCloner serializer() {
+        return SerializerStateCloner.INSTANCE;
+    }
+
+    /**
+     * Returns the cloner that takes copy-on-write snapshots of the state, avoiding the serialization
+     * round-trip of {@link #serializer()}. This is the default cloner.
+     * <p>
+     * The {@link java.util.List} and {@link java.util.Map} values, and the ones nested in them, are wrapped
+     * in views that copy the underlying container only on first write, while the other values are shared
+     * between snapshots. A list or map given by the caller is wrapped without being copied,
+     * so it must not be modified afterwards.
+     * This assumes that nodes and channel reducers don't update other mutable values in place, as the built-in
+     * channels do: otherwise use {@link #serializer()}.
+     *
+     * @return the copy-on-write cloner
+     */
+    static StateCloner copyOnWrite() {
+        return CopyOnWriteStateCloner.INSTANCE;
+    }
+
+    /**
+     * Returns the list currently shared by a copy-on-write view of {@link #copyOnWrite()}, to be read only.
+     *
+     * @param list the list to unwrap
+     * @param <E> the type of elements
+     * @return the shared list if the given list is a copy-on-write view, otherwise the list itself
+     */
+    static <E> List<E> unwrap( List<E> list ) {
+        return CopyOnWriteStateCloner.unwrap( requireNonNull( list, "list cannot be null" ) );
+    }
+
+}
+
+final class SerializerStateCloner implements StateCloner {
+    static final SerializerStateCloner INSTANCE = new SerializerStateCloner();
+
+    private SerializerStateCloner() {}
+
+    @Override
+    public <State extends AgentState> State cloneState(Map<String, Object> data, StateSerializer<State> serializer) throws IOException, ClassNotFoundException {
+        return serializer.cloneObject(data);
+    }
+
+    @Override
+    public String toString() {
+        return "StateCloner.serializer";
+    }
+}
@@ -0,0 +1,339 @@
+package org.bsc.langgraph4j.utils;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Immutable list implemented as a persistent vector: a 32-way trie of chunks plus a tail chunk.
+ * <p>
+ * {@link #plus(Object)} returns a new list that shares all the chunks of the previous one, so appending
+ * an element costs O(1) amortized whatever the size of the list, while {@link #get(int)} costs O(log32 n).
+ * All the {@link List} mutators throw {@link UnsupportedOperationException}.
+ * <p>
+ * The list can also answer {@link #containsHashCode(int)} in O(log32 n) through an index of the element
+ * hash codes. The index is built on first use and then maintained by the lists derived from this one.
+ *
+ * @param <E> the type of elements
+ */
+public final class PersistentList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+
+    private static final PersistentList<?> EMPTY = new PersistentList<>(0, BITS, EMPTY_NODE, new Object[0], null);
+
+    private final transient int size;
+    private final transient int shift;
+    private final transient Object[] root;
+    private final transient Object[] tail;
+    // number of elements for each hash code. null until requested
+    private transient PersistentMap<Integer,Integer> hashCodes;
+
+    private PersistentList(int size, int shift, Object[] root, Object[] tail, PersistentMap<Integer,Integer> hashCodes) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+        this.hashCodes = hashCodes;
+    }
+
+    /**
+     * Returns the empty list.
+     *
+     * @param <E> the type of elements
+     * @return the empty list
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> empty() {
+        return (PersistentList<E>) EMPTY;
+    }
+
+    /**
+     * Returns a persistent list containing the elements of the given collection, in iteration order.
+     *
+     * @param collection the collection to copy
+     * @param <E> the type of elements
+     * @return the given collection itself if it is already a {@code PersistentList}, otherwise a new list
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> copyOf(Collection<? extends E> collection) {
+        Objects.requireNonNull(collection, "collection cannot be null");
+        if( collection instanceof PersistentList<?> list ) {
+            return (PersistentList<E>) list;
+        }
+        return PersistentList.<E>empty().plusAll(collection);
+    }
+
+    private int tailOffset() {
+        return ( size < WIDTH ) ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] chunkFor(int index) {
+        if( index >= tailOffset() ) {
+            return tail;
+        }
+        var node = root;
+        for( int level = shift; level > 0; level -= BITS ) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    private static Object[] newPath(int level, Object[] node) {
+        if( level == 0 ) {
+            return node;
+        }
+        var result = new Object[WIDTH];
+        result[0] = newPath(level - BITS, node);
+        return result;
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        final int subIndex = ((size - 1) >>> level) & MASK;
+        final var result = parent.clone();
+        if( level == BITS ) {
+            result[subIndex] = tailNode;
+        }
+        else {
+            final var child = (Object[]) parent[subIndex];
+            result[subIndex] = ( child != null ) ?
+                    pushTail(level - BITS, child, tailNode) :
+                    newPath(level - BITS, tailNode);
+        }
+        return result;
+    }
+
+    private static PersistentMap<Integer,Integer> addHashCode(PersistentMap<Integer,Integer> hashCodes, Object element) {
+        if( hashCodes == null ) {
+            return null;
+        }
+        final var hashCode = Objects.hashCode(element);
+        return hashCodes.plus(hashCode, hashCodes.getOrDefault(hashCode, 0) + 1);
+    }
+
+    /**
+     * Returns a list with the given element appended.
+     *
+     * @param element the element to append
+     * @return a new list
+     */
+    public PersistentList<E> plus(E element) {
+        final var newHashCodes = addHashCode(hashCodes, element);
+
+        if( size - tailOffset() < WIDTH ) {
+            final var newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentList<>(size + 1, shift, root, newTail, newHashCodes);
+        }
+
+        // tail is full, push it into the trie
+        Object[] newRoot;
+        int newShift = shift;
+        if( (size >>> BITS) > (1 << shift) ) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        }
+        else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentList<>(size + 1, newShift, newRoot, new Object[] { element }, newHashCodes);
+    }
+
+    /**
+     * Returns a list with all the elements of the given collection appended, in iteration order.
+     *
+     * @param elements the elements to append
+     * @return a new list, or this list if the given collection is empty
+     */
+    public PersistentList<E> plusAll(Collection<? extends E> elements) {
+        var result = this;
+        for( var element : elements ) {
+            result = result.plus(element);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the list of the first elements of this list. The returned list shares all the full chunks
+     * of this one, so the cost is proportional to the number of dropped elements, not to the size of the list.
+     *
+     * @param count the number of elements to keep
+     * @return a new list, or this list if {@code count} is its size
+     * @throws IndexOutOfBoundsException if {@code count} is negative or greater than the size of the list
+     */
+    public PersistentList<E> take(int count) {
+        Objects.checkFromToIndex(0, count, size);
+        if( count == size ) {
+            return this;
+        }
+        if( count == 0 ) {
+            return empty();
+        }
+        var newHashCodes = hashCodes;
+        if( newHashCodes != null ) {
+            for( int i = count; i < size; ++i ) {
+                final var hashCode = Objects.hashCode(get(i));
+                final int occurrences = newHashCodes.get(hashCode);
+                newHashCodes = ( occurrences > 1 ) ?
+                        newHashCodes.plus(hashCode, occurrences - 1) :
+                        newHashCodes.minus(hashCode);
+            }
+        }
+        final int newTailOffset = ((count - 1) >>> BITS) << BITS;
+        final var newTail = Arrays.copyOfRange(chunkFor(newTailOffset), 0, count - newTailOffset);
+        if( newTailOffset == 0 ) {
+            return new PersistentList<>(count, BITS, EMPTY_NODE, newTail, newHashCodes);
+        }
+        var newRoot = trimmedNode(shift, root, newTailOffset - 1);
+        int newShift = shift;
+        while( newShift > BITS && newRoot[1] == null ) {
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS;
+        }
+        return new PersistentList<>(count, newShift, newRoot, newTail, newHashCodes);
+    }
+
+    /**
+     * Copies the path of the trie leading to the given index, dropping the children that follow it.
+     */
+    private static Object[] trimmedNode(int level, Object[] node, int lastIndex) {
+        final int subIndex = (lastIndex >>> level) & MASK;
+        final var result = new Object[WIDTH];
+        System.arraycopy(node, 0, result, 0, subIndex + 1);
+        if( level > BITS ) {
+            result[subIndex] = trimmedNode(level - BITS, (Object[]) node[subIndex], lastIndex);
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether this list starts with the elements of the given one.
+     * The chunks shared with the given list, as the ones of a list this one was derived from, are
+     * compared by identity, so in that case the cost doesn't grow with the number of shared elements.
+     *
+     * @param prefix the list expected at the start of this one
+     * @return true if the first elements of this list are equal to the ones of the given list
+     */
+    public boolean startsWith(PersistentList<?> prefix) {
+        Objects.requireNonNull(prefix, "prefix cannot be null");
+        if( prefix.size > size ) {
+            return false;
+        }
+        if( prefix == this || prefix.size == 0 ) {
+            return true;
+        }
+        if( prefix.shift > shift ) {
+            return subList(0, prefix.size).equals(prefix);
+        }
+        final int trieSize = prefix.tailOffset();
+        if( trieSize > 0 ) {
+            // the trie of the prefix is the leftmost subtree of this one at the same level
+            var node = root;
+            for( int level = shift; level > prefix.shift; level -= BITS ) {
+                node = (Object[]) node[0];
+            }
+            if( !sameElements(prefix.shift, prefix.root, node, trieSize) ) {
+                return false;
+            }
+        }
+        final var chunk = chunkFor(trieSize);
+        if( chunk != prefix.tail ) {
+            for( int i = 0; i < prefix.size - trieSize; ++i ) {
+                if( !Objects.equals(prefix.tail[i], chunk[i]) ) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the first {@code count} elements held by two nodes at the same level of the trie,
+     * skipping the shared ones.
+     */
+    private static boolean sameElements(int level, Object[] node, Object[] other, int count) {
+        if( node == other ) {
+            return true;
+        }
+        if( level == 0 ) {
+            for( int i = 0; i < count; ++i ) {
+                if( !Objects.equals(node[i], other[i]) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        final int childSize = 1 << level;
+        for( int i = 0; count > 0; ++i, count -= childSize ) {
+            if( !sameElements(level - BITS, (Object[]) node[i], (Object[]) other[i], Math.min(count, childSize)) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the list contains an element with the given hash code, as returned by {@link Objects#hashCode(Object)}.
+     *
+     * @param hashCode the hash code to look for
+     * @return true if at least one element has the given hash code
+     */
+    public boolean containsHashCode(int hashCode) {
+        var index = hashCodes;
+        if( index == null ) {
+            index = PersistentMap.empty();
+            for( var element : this ) {
+                index = addHashCode(index, element);
+            }
+            hashCodes = index;
+        }
+        return index.containsKey(hashCode);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return (E) chunkFor(index)[index & MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int index = 0;
+            private Object[] chunk = ( size > 0 ) ? chunkFor(0) : null;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if( index >= size ) {
+                    throw new NoSuchElementException();
+                }
+                if( index > 0 && (index & MASK) == 0 ) {
+                    chunk = chunkFor(index);
+                }
+                return (E) chunk[index++ & MASK];
+            }
+        };
+    }
+
+    private Object writeReplace() {
+        return new ArrayList<>(this);
+    }
+
+}
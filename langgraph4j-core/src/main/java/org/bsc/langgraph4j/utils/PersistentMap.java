@@ -0,0 +1,431 @@
+package org.bsc.langgraph4j.utils;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Immutable map implemented as a Hash Array Mapped Trie (HAMT).
+ * <p>
+ * Updates don't modify the map, they return a new map that shares all the unchanged nodes of the trie
+ * with the previous one, so {@link #plus(Object, Object)} and {@link #minus(Object)} cost O(log32 n)
+ * instead of a full copy.
+ * All the {@link Map} mutators throw {@link UnsupportedOperationException}.
+ * Null keys and null values are allowed.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public final class PersistentMap<K,V> extends AbstractMap<K,V> implements Serializable {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MAX_DEPTH = 8;
+
+    private static final PersistentMap<?,?> EMPTY = new PersistentMap<>(null, 0);
+
+    /**
+     * Map entry stored in the trie. It caches the hash of its key.
+     */
+    private static final class Leaf<K,V> extends SimpleImmutableEntry<K,V> {
+        final int hash;
+
+        Leaf(int hash, K key, V value) {
+            super(key, value);
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Trie node. Each slot is either a {@link Leaf} or a child {@link Node}.
+     */
+    private interface Node {
+
+        Object[] slots();
+
+        Node put(int shift, Leaf<?,?> leaf, boolean[] added);
+
+        Node remove(int shift, int hash, Object key);
+
+        Leaf<?,?> find(int shift, int hash, Object key);
+
+        /**
+         * @return the only leaf of this node if it doesn't contain any other leaf or child node, otherwise null
+         */
+        default Leaf<?,?> singleLeaf() {
+            var slots = slots();
+            return ( slots.length == 1 && slots[0] instanceof Leaf<?,?> leaf ) ? leaf : null;
+        }
+    }
+
+    private static int indexOf(int hash, int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    private static Node mergeLeaves(int shift, Leaf<?,?> leaf1, Leaf<?,?> leaf2) {
+        if( leaf1.hash == leaf2.hash ) {
+            return new CollisionNode(leaf1.hash, new Object[] { leaf1, leaf2 });
+        }
+        final int idx1 = indexOf(leaf1.hash, shift);
+        final int idx2 = indexOf(leaf2.hash, shift);
+        if( idx1 == idx2 ) {
+            return new BitmapNode(1 << idx1, new Object[] { mergeLeaves(shift + BITS, leaf1, leaf2) });
+        }
+        return ( idx1 < idx2 ) ?
+                new BitmapNode((1 << idx1) | (1 << idx2), new Object[] { leaf1, leaf2 }) :
+                new BitmapNode((1 << idx1) | (1 << idx2), new Object[] { leaf2, leaf1 });
+    }
+
+    private record BitmapNode(int bitmap, Object[] slots) implements Node {
+
+        private int slotIndex(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private BitmapNode withSlot(int index, Object slot) {
+            var newSlots = slots.clone();
+            newSlots[index] = slot;
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        @Override
+        public Node put(int shift, Leaf<?,?> leaf, boolean[] added) {
+            final int bit = 1 << indexOf(leaf.hash, shift);
+            final int index = slotIndex(bit);
+
+            if( (bitmap & bit) == 0 ) {
+                var newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, index);
+                newSlots[index] = leaf;
+                System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+
+            final var slot = slots[index];
+
+            if( slot instanceof Node child ) {
+                var newChild = child.put(shift + BITS, leaf, added);
+                return ( newChild == child ) ? this : withSlot(index, newChild);
+            }
+
+            final var current = (Leaf<?,?>) slot;
+            if( current.hash == leaf.hash && Objects.equals(current.getKey(), leaf.getKey()) ) {
+                return ( current.getValue() == leaf.getValue() ) ? this : withSlot(index, leaf);
+            }
+            added[0] = true;
+            return withSlot(index, mergeLeaves(shift + BITS, current, leaf));
+        }
+
+        @Override
+        public Node remove(int shift, int hash, Object key) {
+            final int bit = 1 << indexOf(hash, shift);
+            if( (bitmap & bit) == 0 ) {
+                return this;
+            }
+            final int index = slotIndex(bit);
+            final var slot = slots[index];
+
+            if( slot instanceof Node child ) {
+                var newChild = child.remove(shift + BITS, hash, key);
+                if( newChild == child ) {
+                    return this;
+                }
+                if( newChild == null ) {
+                    return withoutSlot(index, bit);
+                }
+                var leaf = newChild.singleLeaf();
+                return withSlot(index, ( leaf != null ) ? leaf : newChild);
+            }
+
+            final var current = (Leaf<?,?>) slot;
+            if( current.hash == hash && Objects.equals(current.getKey(), key) ) {
+                return withoutSlot(index, bit);
+            }
+            return this;
+        }
+
+        private Node withoutSlot(int index, int bit) {
+            if( slots.length == 1 ) {
+                return null;
+            }
+            var newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+            return new BitmapNode(bitmap & ~bit, newSlots);
+        }
+
+        @Override
+        public Leaf<?,?> find(int shift, int hash, Object key) {
+            final int bit = 1 << indexOf(hash, shift);
+            if( (bitmap & bit) == 0 ) {
+                return null;
+            }
+            final var slot = slots[slotIndex(bit)];
+            if( slot instanceof Node child ) {
+                return child.find(shift + BITS, hash, key);
+            }
+            final var leaf = (Leaf<?,?>) slot;
+            return ( leaf.hash == hash && Objects.equals(leaf.getKey(), key) ) ? leaf : null;
+        }
+    }
+
+    private record CollisionNode(int hash, Object[] slots) implements Node {
+
+        private int indexOf(Object key) {
+            for( int i = 0; i < slots.length; ++i ) {
+                if( Objects.equals(((Leaf<?,?>) slots[i]).getKey(), key) ) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Node put(int shift, Leaf<?,?> leaf, boolean[] added) {
+            if( leaf.hash != hash ) {
+                return new BitmapNode(1 << PersistentMap.indexOf(hash, shift), new Object[] { this })
+                        .put(shift, leaf, added);
+            }
+            final int index = indexOf(leaf.getKey());
+            if( index >= 0 ) {
+                if( ((Leaf<?,?>) slots[index]).getValue() == leaf.getValue() ) {
+                    return this;
+                }
+                var newSlots = slots.clone();
+                newSlots[index] = leaf;
+                return new CollisionNode(hash, newSlots);
+            }
+            var newSlots = Arrays.copyOf(slots, slots.length + 1);
+            newSlots[slots.length] = leaf;
+            added[0] = true;
+            return new CollisionNode(hash, newSlots);
+        }
+
+        @Override
+        public Node remove(int shift, int hash, Object key) {
+            if( hash != this.hash ) {
+                return this;
+            }
+            final int index = indexOf(key);
+            if( index < 0 ) {
+                return this;
+            }
+            if( slots.length == 1 ) {
+                return null;
+            }
+            var newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+            return new CollisionNode(hash, newSlots);
+        }
+
+        @Override
+        public Leaf<?,?> find(int shift, int hash, Object key) {
+            if( hash != this.hash ) {
+                return null;
+            }
+            final int index = indexOf(key);
+            return ( index < 0 ) ? null : (Leaf<?,?>) slots[index];
+        }
+    }
+
+    private static final class EntryIterator<K,V> implements Iterator<Entry<K,V>> {
+        private final Object[][] stack = new Object[MAX_DEPTH][];
+        private final int[] positions = new int[MAX_DEPTH];
+        private int depth = -1;
+        private Leaf<?,?> next;
+
+        EntryIterator(Node root) {
+            if( root != null ) {
+                push(root.slots());
+            }
+            advance();
+        }
+
+        private void push(Object[] slots) {
+            stack[++depth] = slots;
+            positions[depth] = 0;
+        }
+
+        private void advance() {
+            next = null;
+            while( depth >= 0 ) {
+                final var slots = stack[depth];
+                if( positions[depth] == slots.length ) {
+                    stack[depth--] = null;
+                    continue;
+                }
+                final var slot = slots[positions[depth]++];
+                if( slot instanceof Node child ) {
+                    push(child.slots());
+                }
+                else {
+                    next = (Leaf<?,?>) slot;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if( next == null ) {
+                throw new NoSuchElementException();
+            }
+            final var result = (Entry<K,V>) next;
+            advance();
+            return result;
+        }
+    }
+
+    private static int hash(Object key) {
+        final int h = Objects.hashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    private final transient Node root;
+    private final int size;
+    private transient Set<Entry<K,V>> entrySet;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K,V> PersistentMap<K,V> empty() {
+        return (PersistentMap<K,V>) EMPTY;
+    }
+
+    /**
+     * Returns a persistent map containing the entries of the given map.
+     *
+     * @param map the map to copy
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     * @return the given map itself if it is already a {@code PersistentMap}, otherwise a new map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K,V> PersistentMap<K,V> copyOf(Map<? extends K, ? extends V> map) {
+        Objects.requireNonNull(map, "map cannot be null");
+        if( map instanceof PersistentMap<?,?> persistentMap ) {
+            return (PersistentMap<K,V>) persistentMap;
+        }
+        PersistentMap<K,V> result = empty();
+        for( var entry : map.entrySet() ) {
+            result = result.plus(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Returns a map with the given key associated with the given value.
+     *
+     * @param key the key
+     * @param value the value
+     * @return a new map, or this map if the key is already associated with the same value instance
+     */
+    public PersistentMap<K,V> plus(K key, V value) {
+        final var leaf = new Leaf<>(hash(key), key, value);
+        if( root == null ) {
+            return new PersistentMap<>(new BitmapNode(1 << indexOf(leaf.hash, 0), new Object[] { leaf }), 1);
+        }
+        final var added = new boolean[1];
+        final var newRoot = root.put(0, leaf, added);
+        return ( newRoot == root ) ? this : new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map without the given key.
+     *
+     * @param key the key to remove
+     * @return a new map, or this map if the key is not present
+     */
+    public PersistentMap<K,V> minus(Object key) {
+        if( root == null ) {
+            return this;
+        }
+        final var newRoot = root.remove(0, hash(key), key);
+        if( newRoot == root ) {
+            return this;
+        }
+        return ( newRoot == null ) ? empty() : new PersistentMap<>(newRoot, size - 1);
+    }
+
+    private Leaf<?,?> find(Object key) {
+        return ( root == null ) ? null : root.find(0, hash(key), key);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        final var leaf = find(key);
+        return ( leaf == null ) ? null : (V) leaf.getValue();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        final var leaf = find(key);
+        return ( leaf == null ) ? defaultValue : (V) leaf.getValue();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if( entrySet == null ) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator<>(root);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    if( o instanceof Entry<?,?> e ) {
+                        final var leaf = find(e.getKey());
+                        return leaf != null && Objects.equals(leaf.getValue(), e.getValue());
+                    }
+                    return false;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private Object writeReplace() {
+        return new HashMap<>(this);
+    }
+
+}
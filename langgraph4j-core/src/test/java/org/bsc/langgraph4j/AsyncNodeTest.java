@@ -6,15 +6,22 @@ import org.bsc.langgraph4j.utils.EdgeMappings;
 import org.bsc.langgraph4j.utils.TrySupplier;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import static org.bsc.langgraph4j.StateGraph.END;
 import static org.bsc.langgraph4j.StateGraph.START;
 import static org.bsc.langgraph4j.action.AsyncCommandAction.command_async;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class AsyncNodeTest {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(AsyncNodeTest.class);
@@ -70,4 +77,48 @@ public class AsyncNodeTest {
             assertEquals( "C2", steps.get(2).state().value("next_node").orElse(null));
 
     }
+
+    @Test
+    public void testRunsMultiplexedOnOneThread() throws Exception {
+
+        final int runs = 20;
+        var pending = new CopyOnWriteArrayList<CompletableFuture<Map<String,Object>>>();
+        var started = new CountDownLatch( runs );
+
+        var graph = new StateGraph<MessagesState<String>>( MessagesState.SCHEMA, MessagesState::new )
+                .addNode("A", (state, config) -> {
+                    // completed later by the test, the thread running the graph must not wait for it
+                    var result = new CompletableFuture<Map<String,Object>>();
+                    pending.add( result );
+                    started.countDown();
+                    return result;
+                })
+                .addNode("B", makeNode("B", Runnable::run))
+                .addEdge(START, "A")
+                .addEdge("A", "B")
+                .addEdge("B", END)
+                .compile();
+
+        var carrier = Executors.newSingleThreadExecutor();
+        try {
+            var config = RunnableConfig.builder().executor( carrier ).build();
+
+            List<CompletableFuture<Object>> results = new ArrayList<>();
+            for( int i = 0; i < runs; ++i ) {
+                results.add( graph.stream( Map.of(), config ).forEachAsync( output -> {} ) );
+            }
+
+            assertTrue( started.await( 5, TimeUnit.SECONDS ), "all the runs should have reached node A" );
+
+            pending.forEach( result -> result.complete( Map.of( "messages", "A" ) ) );
+
+            for( var result : results ) {
+                var state = (Map<?,?>)result.get( 5, TimeUnit.SECONDS );
+                assertEquals( List.of( "A", "B" ), state.get( "messages" ) );
+            }
+        }
+        finally {
+            carrier.shutdownNow();
+        }
+    }
 }
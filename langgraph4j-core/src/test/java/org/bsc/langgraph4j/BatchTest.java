@@ -0,0 +1,254 @@
+package org.bsc.langgraph4j;
+
+import org.bsc.langgraph4j.checkpoint.Checkpoint;
+import org.bsc.langgraph4j.checkpoint.MemorySaver;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchTest {
+
+    private static void await( BooleanSupplier condition ) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while( !condition.getAsBoolean() ) {
+            assertTrue( System.nanoTime() < deadline, "condition not met in time" );
+            Thread.sleep( 10 );
+        }
+    }
+
+    @Test
+    public void batchWithFailuresTest() throws Exception {
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+
+        var saver = new MemorySaver();
+        var app = new StateGraph<>( AgentState::new )
+                .addNode( "work", node_async( state -> {
+                    maxRunning.accumulateAndGet( running.incrementAndGet(), Math::max );
+                    try {
+                        Thread.sleep( 20 );
+                        int value = state.<Integer>value( "value" ).orElseThrow();
+                        if( value == 7 ) {
+                            throw new IllegalArgumentException( "invalid value 7" );
+                        }
+                        return Map.of( "result", value * 2 );
+                    }
+                    finally {
+                        running.decrementAndGet();
+                    }
+                }))
+                .addEdge( START, "work" )
+                .addEdge( "work", END )
+                .compile( CompileConfig.builder().checkpointSaver( saver ).build() );
+
+        var inputs = IntStream.range( 0, 20 )
+                .mapToObj( i -> GraphInput.args( Map.of( "value", i ) ) )
+                .toList();
+
+        var checkpointExecutor = Executors.newSingleThreadExecutor();
+        try {
+            var config = BatchConfig.builder()
+                    .runnableConfig( RunnableConfig.builder().threadId( "nightly" ).build() )
+                    .maxConcurrency( 4 )
+                    .checkpointExecutor( checkpointExecutor )
+                    .build();
+
+            var results = app.batch( inputs, config ).stream().toList();
+
+            assertEquals( 20, results.size() );
+            assertTrue( maxRunning.get() <= 4, "at most 4 runs should be in progress" );
+            assertEquals( 20, results.stream().map( BatchResult::index ).distinct().count() );
+
+            for( var result : results ) {
+                assertEquals( "nightly-" + result.index(), result.config().threadId().orElseThrow() );
+                if( result.index() == 7 ) {
+                    assertTrue( result.isError() );
+                    assertTrue( result.output().isEmpty() );
+                    continue;
+                }
+                assertFalse( result.isError(), () -> result.error().map( Throwable::toString ).orElse( "" ) );
+                assertTrue( result.output().orElseThrow().isEND() );
+                assertEquals( result.index() * 2, result.state().orElseThrow().value( "result" ).orElseThrow() );
+                // the checkpoints of the run are written to the saver of the graph
+                assertFalse( saver.list( result.config() ).isEmpty() );
+            }
+        }
+        finally {
+            checkpointExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void batchBackpressureTest() throws Exception {
+        var pending = new ConcurrentHashMap<Integer, CompletableFuture<Map<String,Object>>>();
+
+        var app = new StateGraph<>( AgentState::new )
+                .addNode( "work", ( state, config ) -> {
+                    var result = new CompletableFuture<Map<String,Object>>();
+                    pending.put( state.<Integer>value( "value" ).orElseThrow(), result );
+                    return result;
+                })
+                .addEdge( START, "work" )
+                .addEdge( "work", END )
+                .compile();
+
+        var inputs = IntStream.range( 0, 5 )
+                .mapToObj( i -> GraphInput.args( Map.of( "value", i ) ) )
+                .toList();
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var batch = app.batch( inputs, BatchConfig.builder().maxConcurrency( 2 ).executor( executor ).build() );
+
+            assertTrue( pending.isEmpty(), "no run should start before the results are requested" );
+
+            var first = batch.next();
+            await( () -> pending.size() == 2 );
+
+            // the results are given in completion order
+            pending.get( 1 ).complete( Map.of() );
+            assertEquals( 1, first.future().get( 5, TimeUnit.SECONDS ).index() );
+            await( () -> pending.size() == 3 );
+
+            // the result not consumed yet holds back the next run
+            pending.get( 0 ).complete( Map.of() );
+            Thread.sleep( 100 );
+            assertEquals( 3, pending.size() );
+
+            assertEquals( 0, batch.next().future().get( 5, TimeUnit.SECONDS ).index() );
+            await( () -> pending.size() == 4 );
+
+            pending.values().forEach( result -> result.complete( Map.of() ) );
+            var third = batch.next().future().get( 5, TimeUnit.SECONDS ).index();
+            await( () -> pending.size() == 5 );
+            pending.values().forEach( result -> result.complete( Map.of() ) );
+
+            var indexes = List.of(
+                    third,
+                    batch.next().future().get( 5, TimeUnit.SECONDS ).index(),
+                    batch.next().future().get( 5, TimeUnit.SECONDS ).index() );
+            assertEquals( List.of( 2, 3, 4 ), indexes.stream().sorted().toList() );
+            assertTrue( batch.next().isDone() );
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void batchKeepsTheGraphSettingsTest() throws Exception {
+        var daemons = new ConcurrentHashMap<Boolean, Boolean>();
+
+        var app = new StateGraph<>( AgentState::new )
+                .addNode( "step1", node_async( state -> {
+                    daemons.put( Thread.currentThread().isDaemon(), true );
+                    return Map.of();
+                }))
+                .addNode( "step2", node_async( state -> Map.of() ) )
+                .addEdge( START, "step1" )
+                .addEdge( "step1", "step2" )
+                .addEdge( "step2", END )
+                .compile( CompileConfig.builder().checkpointSaver( new MemorySaver() ).build() );
+        app.setMaxIterations( 2 );
+
+        var inputs = IntStream.range( 0, 3 )
+                .mapToObj( i -> GraphInput.args( Map.of( "value", i ) ) )
+                .toList();
+
+        var checkpointExecutor = Executors.newSingleThreadExecutor();
+        try {
+            var config = BatchConfig.builder()
+                    .maxConcurrency( 2 )
+                    .checkpointExecutor( checkpointExecutor )
+                    .build();
+
+            var results = app.batch( inputs, config ).stream().toList();
+
+            assertEquals( 3, results.size() );
+            // the graph writing the checkpoints on the checkpoint executor has the same iteration limit
+            for( var result : results ) {
+                assertTrue( result.isError() );
+                assertTrue( result.error().orElseThrow().getMessage().contains( "Maximum number of iterations" ) );
+            }
+            // the pool created by the batch doesn't keep the JVM alive
+            assertEquals( Map.of( true, true ), daemons );
+        }
+        finally {
+            checkpointExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void batchWithSubgraphTest() throws Exception {
+        var writers = ConcurrentHashMap.<String>newKeySet();
+        var saver = new MemorySaver() {
+            @Override
+            protected void insertedCheckpoint( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint ) throws Exception {
+                writers.add( Thread.currentThread().getName() );
+                super.insertedCheckpoint( config, checkpoints, checkpoint );
+            }
+        };
+        var compileConfig = CompileConfig.builder().checkpointSaver( saver ).build();
+
+        var subGraph = new StateGraph<>( AgentState::new )
+                .addNode( "child", node_async( state -> Map.of( "child", true ) ) )
+                .addEdge( START, "child" )
+                .addEdge( "child", END )
+                .compile( compileConfig );
+
+        var app = new StateGraph<>( AgentState::new )
+                .addNode( "sub", subGraph )
+                .addNode( "parent", node_async( state -> Map.of( "parent", true ) ) )
+                .addEdge( START, "sub" )
+                .addEdge( "sub", "parent" )
+                .addEdge( "parent", END )
+                .compile( compileConfig );
+
+        var inputs = IntStream.range( 0, 3 )
+                .mapToObj( i -> GraphInput.args( Map.of( "value", i ) ) )
+                .toList();
+
+        var checkpointExecutor = Executors.newSingleThreadExecutor( runnable -> new Thread( runnable, "checkpoints" ) );
+        try {
+            var config = BatchConfig.builder()
+                    .runnableConfig( RunnableConfig.builder().threadId( "nightly" ).build() )
+                    .maxConcurrency( 2 )
+                    .checkpointExecutor( checkpointExecutor )
+                    .build();
+
+            var results = app.batch( inputs, config ).stream().toList();
+
+            assertEquals( 3, results.size() );
+            for( var result : results ) {
+                assertFalse( result.isError(), () -> result.error().map( Throwable::toString ).orElse( "" ) );
+                assertEquals( true, result.state().orElseThrow().value( "child" ).orElseThrow() );
+                assertEquals( true, result.state().orElseThrow().value( "parent" ).orElseThrow() );
+                // the subgraph writes its checkpoints in its own thread
+                var subGraphConfig = RunnableConfig.builder().threadId( "nightly-" + result.index() + "_subgraph_sub" ).build();
+                assertFalse( saver.list( subGraphConfig ).isEmpty() );
+            }
+            // the checkpoints of the graph and of the subgraph are written on the checkpoint executor
+            assertEquals( Set.of( "checkpoints" ), writers );
+        }
+        finally {
+            checkpointExecutor.shutdown();
+        }
+    }
+}
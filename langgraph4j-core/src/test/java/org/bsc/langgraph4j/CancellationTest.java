@@ -8,8 +8,10 @@ import org.bsc.langgraph4j.utils.TypeRef;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -300,9 +302,80 @@ public class CancellationTest {
                                 .orElse(null)
                     );
 
+            // the run is asynchronous, the future completes when it is cancelled
+            assertEquals(AsyncGenerator.IsCancellable.CANCELLED, optionalResult.get(5, TimeUnit.SECONDS));
             assertTrue(generator.isCancelled());
             assertEquals( 2, taskExecuted.get() );
-            assertEquals(AsyncGenerator.IsCancellable.CANCELLED, optionalResult.get());
+        }
+    }
+
+    @Test
+    public void graphWithExecutorCancelTest() throws Exception {
+
+        var executor = Executors.newCachedThreadPool( task -> new Thread( task, "graph-executor" ) );
+        var threads = new CopyOnWriteArrayList<String>();
+
+        try {
+            var workflow = new StateGraph<MessagesState<String>>(MessagesState.SCHEMA, MessagesState::new)
+                    .addNode("agent_1", _makeWaitingNode("agent_1", Duration.ofMillis(100)))
+                    .addNode("agent_2", _makeWaitingNode("agent_2", Duration.ofSeconds(2)))
+                    .addNode("agent_3", _makeWaitingNode("agent_3", Duration.ofMillis(100)))
+                    .addNode("thread", (state, config) -> {
+                        threads.add( Thread.currentThread().getName() );
+                        return completedFuture(Map.of());
+                    })
+                    .addEdge(START, "thread")
+                    .addEdge("thread", "agent_1")
+                    .addEdge("agent_1", "agent_2")
+                    .addEdge("agent_2", "agent_3")
+                    .addEdge("agent_3", END)
+                    .compile( CompileConfig.builder().executor( executor ).build() );
+
+            //////////////////////////////////////////////////////////////
+            // THE BLOCKING NODES RUN ON THE EXECUTOR, NOT ON THE CALLER
+            //////////////////////////////////////////////////////////////
+            var result = workflow.invoke( Map.of() );
+            assertTrue( result.isPresent() );
+            assertEquals( List.of("agent_1", "agent_2", "agent_3"), result.get().messages() );
+            assertEquals( List.of("graph-executor"), threads );
+
+            //////////////////////////////////////////////////////////////
+            // CANCEL TEST USING ITERATOR: THE RUNNING NODE IS INTERRUPTED
+            //////////////////////////////////////////////////////////////
+            var taskExecuted = new AtomicInteger(0);
+            var generator = workflow.stream(GraphInput.noArgs(), RunnableConfig.builder()
+                    .addMetadata( "node_completed", taskExecuted )
+                    .build());
+
+            requestCancelGenerator(generator, true, Duration.ofMillis(500));
+
+            final long start = System.nanoTime();
+            try {
+                for (var output : generator) {
+                    log.info("iteration is on: {}", output);
+                }
+            }
+            catch( Exception ex ) {
+                assertTrue( ExceptionUtils.findCauseByType(ex, InterruptedException.class).isPresent() );
+            }
+
+            assertTrue( generator.isCancelled() );
+            assertEquals( 1, taskExecuted.get() );
+            assertTrue( Duration.ofNanos( System.nanoTime() - start ).compareTo( Duration.ofSeconds(2) ) < 0 );
+
+            //////////////////////////////////////////////////////////////
+            // THE SHARED EXECUTOR IS NOT SHUT DOWN BY THE CANCELLATION
+            //////////////////////////////////////////////////////////////
+            assertFalse( executor.isShutdown() );
+            threads.clear();
+            var resultWithRunExecutor = workflow.invoke( Map.of(), RunnableConfig.builder()
+                    .executor( task -> new Thread( task, "run-executor" ).start() )
+                    .build() );
+            assertTrue( resultWithRunExecutor.isPresent() );
+            assertEquals( List.of("run-executor"), threads );
+        }
+        finally {
+            executor.shutdownNow();
         }
     }
 
@@ -0,0 +1,55 @@
+package org.bsc.langgraph4j;
+
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncEdgeAction.edge_async;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutionPlanTest {
+
+    @Test
+    public void lowering() throws Exception {
+        var app = new StateGraph<>( AgentState::new )
+                .addNode( "agent", node_async( state -> Map.of() ) )
+                .addNode( "tool", node_async( state -> Map.of() ) )
+                .addEdge( START, "agent" )
+                .addConditionalEdges( "agent",
+                        edge_async( state -> "continue" ),
+                        Map.of( "continue", "tool", "end", END ) )
+                .addEdge( "tool", "agent" )
+                .compile( CompileConfig.builder().interruptBefore( "tool" ).build() );
+
+        var plan = app.plan;
+        int agent = plan.indexOf( "agent" );
+        int tool = plan.indexOf( "tool" );
+
+        assertEquals( ExecutionPlan.START_INDEX, plan.indexOf( START ) );
+        assertEquals( ExecutionPlan.END_INDEX, plan.indexOf( END ) );
+        assertEquals( ExecutionPlan.NONE, plan.indexOf( null ) );
+        assertEquals( ExecutionPlan.UNKNOWN, plan.indexOf( "missing" ) );
+        assertEquals( "agent", plan.idOf( agent ) );
+        assertNull( plan.idOf( ExecutionPlan.NONE ) );
+
+        assertSame( app.nodes.get( "agent" ), plan.action( agent ) );
+        assertNull( plan.action( ExecutionPlan.UNKNOWN ) );
+
+        assertEquals( agent, plan.target( ExecutionPlan.START_INDEX ) );
+        assertEquals( agent, plan.target( tool ) );
+        assertEquals( ExecutionPlan.NONE, plan.target( agent ) );
+        assertNotNull( plan.condition( agent ) );
+        assertEquals( tool, plan.route( agent, "continue" ) );
+        assertEquals( ExecutionPlan.END_INDEX, plan.route( agent, "end" ) );
+        assertEquals( ExecutionPlan.NONE, plan.route( agent, "other" ) );
+
+        assertTrue( plan.interruptsBefore( tool ) );
+        assertFalse( plan.interruptsBefore( agent ) );
+        assertFalse( plan.interruptsAfter( tool ) );
+        assertFalse( plan.interruptsBefore( ExecutionPlan.UNKNOWN ) );
+    }
+}
@@ -175,6 +175,24 @@ public class GraphTest implements Logging {
 
     }
 
+    @Test
+    public void testAppenderWithDuplicateIsNotRemerged() throws Exception {
+
+        var schema = Map.<String,Channel<?>>of( "messages", Channels.appenderWithDuplicate(ArrayList::new) );
+
+        var workflow = new StateGraph<>(schema, MessagesState<String>::new)
+                .addEdge(START, "agent_1")
+                .addNode("agent_1", node_async( (state, config) -> Map.of("messages", "x")))
+                .addNode("agent_2", node_async( (state, config) -> Map.of("messages", "y")))
+                .addEdge("agent_1", "agent_2")
+                .addEdge("agent_2", END);
+
+        var result = workflow.compile().invoke(Map.of("messages", "0"));
+        assertTrue(result.isPresent());
+
+        assertIterableEquals( List.of("0", "x", "y"), result.get().messages() );
+    }
+
     @Test
     public void testRunnableConfigMetadata() throws Exception {
 
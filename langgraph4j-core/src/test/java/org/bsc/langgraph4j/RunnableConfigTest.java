@@ -4,8 +4,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.Map;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class RunnableConfigTest {
 
@@ -28,4 +27,36 @@ public class RunnableConfigTest {
         assertTrue( config.metadata("graphPath").isPresent() );
         assertEquals( "test1/test2", config.metadata("graphPath").get() );
     }
+
+    @Test
+    public void runnableConfigLayeredMetadataTest() {
+        var config = RunnableConfig.builder()
+                        .threadId( "thread" )
+                        .addMetadata( "graphPath", "test1/test2")
+                        .build();
+
+        // each update overlays the previous metadata
+        var updated = config;
+        for( int i = 0; i < MetadataLayer.MAX_DEPTH * 2; ++i ) {
+            updated = updated.updateMetadata( Map.of( "nodeId", "node" + i, "step" + i, i ) );
+        }
+        assertEquals( "node" + (MetadataLayer.MAX_DEPTH * 2 - 1), updated.metadata("nodeId").orElseThrow() );
+        assertEquals( 0, updated.metadata("step0").orElseThrow() );
+        assertEquals( "test1/test2", updated.metadata("graphPath").orElseThrow() );
+        assertEquals( MetadataLayer.MAX_DEPTH * 2 + 2, updated.metadataKeys().size() );
+        assertTrue( updated.metadataKeys().contains( "step3" ) );
+        assertFalse( updated.metadata("missing").isPresent() );
+        assertEquals( "thread", updated.threadId().orElseThrow() );
+
+        // the parent is not affected
+        assertFalse( config.metadata("nodeId").isPresent() );
+        assertEquals( 1, config.metadataKeys().size() );
+
+        // the builder starts from the merged metadata
+        var rebuilt = RunnableConfig.builder( updated ).putMetadata( "nodeId", "rebuilt" ).build();
+        assertEquals( "rebuilt", rebuilt.metadata("nodeId").orElseThrow() );
+        assertEquals( 5, rebuilt.metadata("step5").orElseThrow() );
+
+        assertThrows( NullPointerException.class, () -> config.updateMetadata( java.util.Collections.singletonMap( "nodeId", null ) ) );
+    }
 }
@@ -0,0 +1,221 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.GraphStateException;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.String.format;
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncEdgeAction.edge_async;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncCheckpointSaverTest {
+
+    /**
+     * Saver that simulates a slow store.
+     */
+    static class SlowSaver extends MemorySaver {
+        final long latencyMillis;
+
+        SlowSaver( long latencyMillis ) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
+            Thread.sleep(latencyMillis);
+        }
+    }
+
+    private StateGraph<MessagesState<String>> workflow( int steps, Runnable onStep ) throws GraphStateException {
+        return new StateGraph<>(MessagesState.SCHEMA, MessagesState<String>::new)
+                .addNode("agent", node_async( state -> {
+                    onStep.run();
+                    return Map.of("messages", format("step %d", state.messages().size()));
+                }))
+                .addEdge(START, "agent")
+                .addConditionalEdges("agent",
+                        edge_async( state -> state.messages().size() < steps ? "agent" : END ),
+                        Map.of("agent", "agent", END, END));
+    }
+
+    @Test
+    public void checkpointWritesArePipelinedTest() throws Exception {
+        final int steps = 5;
+        // the first write waits for a node to run, that is possible only if the write doesn't block the graph
+        final var nodeEvaluated = new CountDownLatch(1);
+        final var overlapped = new AtomicBoolean(false);
+
+        var slowSaver = new SlowSaver(10) {
+            @Override
+            protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
+                if( checkpoints.size() == 1 ) {
+                    overlapped.set( nodeEvaluated.await( 5, TimeUnit.SECONDS ) );
+                }
+                super.insertedCheckpoint(config, checkpoints, checkpoint);
+            }
+        };
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var saver = AsyncCheckpointSaver.of( slowSaver, executor );
+            var app = workflow( steps, nodeEvaluated::countDown )
+                    .compile( CompileConfig.builder().checkpointSaver(saver).build() );
+
+            var config = RunnableConfig.builder().threadId("async").build();
+            var result = app.invoke( Map.of(), config );
+
+            assertTrue( result.isPresent() );
+            assertEquals( steps, result.get().messages().size() );
+            assertTrue( overlapped.get() );
+
+            // all the checkpoints are stored, in order, when the graph completes
+            var checkpoints = new ArrayList<>( slowSaver.list(config) );
+            assertEquals( steps + 1, checkpoints.size() );
+            for( int i = 0; i < steps; ++i ) {
+                assertEquals( steps - i, ((List<?>) checkpoints.get(i).getState().get("messages")).size() );
+            }
+            assertEquals( checkpoints.get(0).getId(), saver.get(config).orElseThrow().getId() );
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedWriteStopsTheGraphTest() throws Exception {
+        var failingSaver = new MemorySaver() {
+            @Override
+            protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
+                if( checkpoints.size() > 2 ) {
+                    throw new IllegalStateException("store unavailable");
+                }
+            }
+        };
+        var saver = AsyncCheckpointSaver.of( failingSaver );
+        var app = workflow( 10, () -> {} ).compile( CompileConfig.builder().checkpointSaver(saver).build() );
+
+        var ex = assertThrows( Exception.class, () -> app.invoke( Map.of(), RunnableConfig.builder().threadId("failing").build() ) );
+        var cause = ex;
+        while( cause.getCause() != null && !(cause instanceof IllegalStateException) ) {
+            cause = (Exception) cause.getCause();
+        }
+        assertEquals( "store unavailable", cause.getMessage() );
+    }
+
+    private static Throwable causeWithMessage( Throwable ex, String message ) {
+        var cause = ex;
+        while( cause != null && !message.equals( cause.getMessage() ) ) {
+            cause = cause.getCause();
+        }
+        assertNotNull( cause, () -> format( "no cause with message '%s' in %s", message, ex ) );
+        return cause;
+    }
+
+    @Test
+    public void failedNodeFlushesCheckpointsTest() throws Exception {
+        var written = new AtomicInteger();
+        var slowSaver = new SlowSaver(200) {
+            @Override
+            protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
+                super.insertedCheckpoint(config, checkpoints, checkpoint);
+                written.incrementAndGet();
+            }
+        };
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var saver = AsyncCheckpointSaver.of( slowSaver, executor );
+            var app = new StateGraph<>(MessagesState.SCHEMA, MessagesState<String>::new)
+                    .addNode("agent", node_async( state -> Map.of("messages", "agent") ))
+                    .addNode("failing", node_async( state -> { throw new IllegalStateException("node failure"); } ))
+                    .addEdge(START, "agent")
+                    .addEdge("agent", "failing")
+                    .addEdge("failing", END)
+                    .compile( CompileConfig.builder().checkpointSaver(saver).build() );
+
+            var config = RunnableConfig.builder().threadId("failed-node").build();
+            var ex = assertThrows( Exception.class, () -> app.invoke( Map.of(), config ) );
+            causeWithMessage( ex, "node failure" );
+
+            // the checkpoints written before the failure are stored when the error is returned
+            assertEquals( 2, written.get() );
+            var checkpoints = slowSaver.list( config );
+            assertEquals( 2, checkpoints.size() );
+            assertEquals( "agent", checkpoints.iterator().next().getNodeId() );
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedNodeReportsFailedWriteTest() throws Exception {
+        var failingSaver = new SlowSaver(100) {
+            @Override
+            protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
+                super.insertedCheckpoint(config, checkpoints, checkpoint);
+                throw new IllegalStateException("store unavailable");
+            }
+        };
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var saver = AsyncCheckpointSaver.of( failingSaver, executor );
+            var app = new StateGraph<>(MessagesState.SCHEMA, MessagesState<String>::new)
+                    .addNode("failing", node_async( state -> { throw new IllegalStateException("node failure"); } ))
+                    .addEdge(START, "failing")
+                    .addEdge("failing", END)
+                    .compile( CompileConfig.builder().checkpointSaver(saver).build() );
+
+            var ex = assertThrows( Exception.class, () -> app.invoke( Map.of(), RunnableConfig.builder().threadId("failed-write").build() ) );
+
+            // the write still in progress when the node fails is reported along with the failure of the node
+            var nodeFailure = causeWithMessage( ex, "node failure" );
+            assertTrue( Arrays.stream( nodeFailure.getSuppressed() )
+                            .anyMatch( suppressed -> "store unavailable".equals( suppressed.getMessage() ) ),
+                        () -> format( "missing suppressed write failure in %s", nodeFailure ) );
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void operationsAreOrderedByThreadTest() throws Exception {
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var saver = AsyncCheckpointSaver.of( new SlowSaver(1), executor );
+            var config = RunnableConfig.builder().threadId("ordered").build();
+            for( int i = 0; i < 10; ++i ) {
+                saver.putAsync( config, Checkpoint.builder()
+                        .nodeId("node")
+                        .nextNodeId("next")
+                        .state( Map.of("value", i) )
+                        .build() );
+            }
+            var checkpoints = saver.listAsync( config ).get();
+            assertEquals( 10, checkpoints.size() );
+            assertEquals( 9, checkpoints.iterator().next().getState().get("value") );
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
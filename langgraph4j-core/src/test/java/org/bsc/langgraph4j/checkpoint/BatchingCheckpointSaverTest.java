@@ -0,0 +1,215 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.GraphInput;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.String.format;
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncEdgeAction.edge_async;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchingCheckpointSaverTest {
+
+    /**
+     * Saver that counts the checkpoints actually written.
+     */
+    static class CountingSaver extends MemorySaver {
+        final AtomicInteger writes = new AtomicInteger();
+
+        @Override
+        protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) {
+            writes.incrementAndGet();
+        }
+
+        @Override
+        protected void updatedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) {
+            writes.incrementAndGet();
+        }
+    }
+
+    private static Checkpoint checkpoint( String value ) {
+        return Checkpoint.builder()
+                .nodeId("node")
+                .nextNodeId("next")
+                .state( Map.of("value", value) )
+                .build();
+    }
+
+    private static List<Object> valuesOf( BaseCheckpointSaver saver, RunnableConfig config ) {
+        return saver.list(config).stream().map( c -> c.getState().get("value") ).toList();
+    }
+
+    @Test
+    public void flushOnBatchSizeTest() throws Exception {
+        var delegate = new CountingSaver();
+        var saver = BatchingCheckpointSaver.builder()
+                .delegate(delegate)
+                .maxBatchSize(3)
+                .maxDelay(null)
+                .build();
+        var config = RunnableConfig.builder().threadId("size").build();
+
+        saver.put( config, checkpoint("v0") );
+        var v1 = saver.put( config, checkpoint("v1") );
+        assertEquals( 0, delegate.writes.get() );
+
+        // the reads see the buffered checkpoints
+        assertEquals( List.of("v1", "v0"), valuesOf(saver, config) );
+        assertEquals( "v1", saver.get(config).orElseThrow().getState().get("value") );
+        assertEquals( "v1", saver.get(v1).orElseThrow().getState().get("value") );
+
+        // the replace of a buffered checkpoint doesn't add a write
+        var updated = saver.get(v1).orElseThrow().updateState( Map.of("value", "v1*"), Map.of() );
+        saver.put( v1, updated );
+        assertEquals( "v1*", saver.get(config).orElseThrow().getState().get("value") );
+        assertEquals( 0, delegate.writes.get() );
+
+        saver.put( config, checkpoint("v2") );
+        assertEquals( 3, delegate.writes.get() );
+        assertEquals( List.of("v2", "v1*", "v0"), valuesOf(delegate, config) );
+
+        // the replace of a stored checkpoint is buffered too
+        saver.put( v1, updated.updateState( Map.of("value", "v1**"), Map.of() ) );
+        assertEquals( List.of("v2", "v1**", "v0"), valuesOf(saver, config) );
+        assertEquals( List.of("v2", "v1*", "v0"), valuesOf(delegate, config) );
+
+        var tag = saver.release(config);
+        assertEquals( 4, delegate.writes.get() );
+        assertEquals( List.of("v2", "v1**", "v0"), tag.checkpoints().stream().map( c -> c.getState().get("value") ).toList() );
+    }
+
+    @Test
+    public void emptyBuffersAreDroppedTest() throws Exception {
+        var delegate = new CountingSaver();
+        var saver = BatchingCheckpointSaver.builder()
+                .delegate(delegate)
+                .maxBatchSize(2)
+                .maxDelay(null)
+                .build();
+
+        // the reads of threads without buffered checkpoints leave no buffer
+        for( int i = 0; i < 10; ++i ) {
+            var config = RunnableConfig.builder().threadId("read-" + i).build();
+            saver.get( config );
+            saver.list( config );
+        }
+        assertEquals( 0, saver.bufferedThreads() );
+
+        var config = RunnableConfig.builder().threadId("write").build();
+        saver.put( config, checkpoint("v0") );
+        assertEquals( 1, saver.bufferedThreads() );
+        saver.put( config, checkpoint("v1") );
+        assertEquals( 0, saver.bufferedThreads() );
+
+        saver.put( config, checkpoint("v2") );
+        saver.flush( config );
+        assertEquals( 0, saver.bufferedThreads() );
+
+        saver.put( config, checkpoint("v3") );
+        saver.close();
+        assertEquals( 0, saver.bufferedThreads() );
+        assertEquals( List.of("v3", "v2", "v1", "v0"), valuesOf(delegate, config) );
+    }
+
+    @Test
+    public void pruneIsForwardedTest() throws Exception {
+        var delegate = new MemorySaver();
+        var saver = BatchingCheckpointSaver.builder()
+                .delegate(delegate)
+                .maxBatchSize(100)
+                .maxDelay(null)
+                .build();
+        var config = RunnableConfig.builder().threadId("prune").build();
+        for( int i = 0; i < 5; ++i ) {
+            saver.put( config, checkpoint("v" + i) );
+        }
+
+        // the buffered checkpoints are flushed before pruning
+        var result = saver.prune( CheckpointRetentionPolicy.builder().maxCheckpoints(2).build() );
+        assertEquals( 3, result.prunedCheckpoints() );
+        assertEquals( List.of("v4", "v3"), valuesOf(saver, config) );
+        assertEquals( 0, saver.bufferedThreads() );
+
+        var unsupported = BatchingCheckpointSaver.builder()
+                .delegate( AsyncCheckpointSaver.of( new MemorySaver() ) )
+                .maxDelay(null)
+                .build();
+        assertThrows( UnsupportedOperationException.class,
+                () -> unsupported.prune( CheckpointRetentionPolicy.builder().maxCheckpoints(2).build() ) );
+    }
+
+    @Test
+    public void flushOnDelayTest() throws Exception {
+        var delegate = new CountingSaver();
+        try( var saver = BatchingCheckpointSaver.builder()
+                .delegate(delegate)
+                .maxBatchSize(100)
+                .maxDelay(Duration.ofMillis(50))
+                .build() ) {
+
+            var config = RunnableConfig.builder().threadId("delay").build();
+            saver.put( config, checkpoint("v0") );
+            saver.put( config, checkpoint("v1") );
+
+            final long deadline = System.currentTimeMillis() + 5_000;
+            while( delegate.writes.get() < 2 && System.currentTimeMillis() < deadline ) {
+                Thread.sleep(10);
+            }
+            assertEquals( 2, delegate.writes.get() );
+            assertEquals( List.of("v1", "v0"), valuesOf(delegate, config) );
+        }
+    }
+
+    @Test
+    public void flushOnInterruptionAndEndTest() throws Exception {
+        var workflow = new StateGraph<>(MessagesState.SCHEMA, MessagesState<String>::new)
+                .addNode("agent", node_async( state -> Map.of("messages", format("agent %d", state.messages().size())) ))
+                .addNode("tools", node_async( state -> Map.of("messages", "tools") ))
+                .addEdge(START, "agent")
+                .addConditionalEdges("agent",
+                        edge_async( state -> state.messages().size() < 4 ? "tools" : END ),
+                        Map.of("tools", "tools", END, END))
+                .addEdge("tools", "agent");
+
+        var delegate = new CountingSaver();
+        var saver = BatchingCheckpointSaver.builder()
+                .delegate(delegate)
+                .maxBatchSize(100)
+                .maxDelay(null)
+                .build();
+
+        var app = workflow.compile( CompileConfig.builder()
+                .checkpointSaver(saver)
+                .interruptBefore("tools")
+                .build() );
+
+        var config = RunnableConfig.builder().threadId("graph").build();
+
+        app.invoke( Map.of(), config );
+        // START and agent are stored before the interruption is returned
+        assertEquals( 2, delegate.writes.get() );
+        assertEquals( "tools", delegate.get(config).orElseThrow().getNextNodeId() );
+
+        app.invoke( GraphInput.resume(), config );
+        assertEquals( 4, delegate.writes.get() );
+
+        var result = app.invoke( GraphInput.resume(), config );
+        assertTrue( result.isPresent() );
+        assertEquals( 4, result.get().messages().size() );
+        // the checkpoints are stored when the graph completes
+        assertEquals( 6, delegate.writes.get() );
+        assertEquals( END, delegate.get(config).orElseThrow().getNextNodeId() );
+    }
+}
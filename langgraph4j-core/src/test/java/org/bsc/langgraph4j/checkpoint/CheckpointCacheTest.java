@@ -0,0 +1,162 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointCacheTest {
+
+    /**
+     * Saver that mirrors the checkpoints in a map, as a database backed saver would do.
+     */
+    static class StoreSaver extends MemorySaver {
+        final Map<String, LinkedList<Checkpoint>> store = new HashMap<>();
+        int loads = 0;
+
+        StoreSaver( CheckpointCachePolicy cachePolicy ) {
+            super( 1, cachePolicy );
+        }
+
+        @Override
+        protected LinkedList<Checkpoint> loadedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints) {
+            var stored = store.get( config.threadId().orElse(THREAD_ID_DEFAULT) );
+            if( checkpoints.isEmpty() && stored != null ) {
+                ++loads;
+                checkpoints.addAll( stored );
+            }
+            return checkpoints;
+        }
+
+        @Override
+        protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) {
+            store.computeIfAbsent( config.threadId().orElse(THREAD_ID_DEFAULT), k -> new LinkedList<>() ).push( checkpoint );
+        }
+    }
+
+    private static RunnableConfig thread( String threadId ) {
+        return RunnableConfig.builder().threadId(threadId).build();
+    }
+
+    private static Checkpoint checkpoint( String value ) {
+        return Checkpoint.builder()
+                .nodeId("node")
+                .nextNodeId("next")
+                .state( Map.of("value", value) )
+                .build();
+    }
+
+    @Test
+    public void lruEvictionTest() throws Exception {
+        var saver = new StoreSaver( CheckpointCachePolicy.builder()
+                .maxThreads(2)
+                .build() );
+
+        saver.put( thread("t1"), checkpoint("a") );
+        saver.put( thread("t2"), checkpoint("b") );
+        saver.get( thread("t1") );
+        saver.put( thread("t3"), checkpoint("c") );
+
+        // t2 is the least recently used
+        assertEquals( 2, saver._checkpointsByThread.size() );
+        assertNull( saver._checkpointsByThread.get("t2") );
+        assertNotNull( saver._checkpointsByThread.get("t1") );
+
+        // evicted thread is reloaded from the store
+        var last = saver.get( thread("t2") );
+        assertTrue( last.isPresent() );
+        assertEquals( "b", last.get().getState().get("value") );
+        assertEquals( 1, saver.loads );
+
+        var stats = saver.cacheStats();
+        assertEquals( 2, stats.threads() );
+        assertEquals( 2, stats.evictions() );
+        assertEquals( 1, stats.hits() );
+        assertEquals( 4, stats.misses() );
+    }
+
+    @Test
+    public void lfuEvictionTest() throws Exception {
+        var saver = new StoreSaver( CheckpointCachePolicy.builder()
+                .eviction( CheckpointCachePolicy.Eviction.LFU )
+                .maxThreads(2)
+                .build() );
+
+        saver.put( thread("t1"), checkpoint("a") );
+        saver.get( thread("t1") );
+        saver.get( thread("t1") );
+        saver.put( thread("t2"), checkpoint("b") );
+        saver.put( thread("t3"), checkpoint("c") );
+
+        // t2 is the least frequently used, although t1 is the least recently used
+        assertNotNull( saver._checkpointsByThread.get("t1") );
+        assertNull( saver._checkpointsByThread.get("t2") );
+        assertNotNull( saver._checkpointsByThread.get("t3") );
+    }
+
+    @Test
+    public void ttlTest() throws Exception {
+        var now = new AtomicLong();
+        var saver = new StoreSaver( CheckpointCachePolicy.builder()
+                .ttl( Duration.ofMinutes(1) )
+                .ticker( now::get )
+                .build() );
+
+        saver.put( thread("t1"), checkpoint("a") );
+        now.addAndGet( Duration.ofSeconds(30).toNanos() );
+        saver.put( thread("t2"), checkpoint("b") );
+        now.addAndGet( Duration.ofSeconds(40).toNanos() );
+        saver.get( thread("t2") );
+
+        assertNull( saver._checkpointsByThread.get("t1") );
+        assertNotNull( saver._checkpointsByThread.get("t2") );
+        assertEquals( 1, saver.cacheStats().expirations() );
+
+        assertEquals( List.of("a"), saver.list( thread("t1") ).stream().map( c -> c.getState().get("value") ).toList() );
+    }
+
+    @Test
+    public void maxBytesTest() throws Exception {
+        var saver = new StoreSaver( CheckpointCachePolicy.builder()
+                .maxBytes( 250 )
+                .weigher( checkpoint -> 100 )
+                .build() );
+
+        saver.put( thread("t1"), checkpoint("a") );
+        saver.put( thread("t1"), checkpoint("b") );
+        assertEquals( 200, saver.cacheStats().bytes() );
+
+        saver.put( thread("t2"), checkpoint("c") );
+        assertNull( saver._checkpointsByThread.get("t1") );
+        assertEquals( 100, saver.cacheStats().bytes() );
+
+        // the thread accessed last is kept even if it exceeds the budget alone
+        saver.put( thread("t2"), checkpoint("d") );
+        saver.put( thread("t2"), checkpoint("e") );
+        assertEquals( 1, saver.cacheStats().threads() );
+        assertEquals( 300, saver.cacheStats().bytes() );
+
+        saver.release( thread("t2") );
+        assertEquals( 0, saver.cacheStats().bytes() );
+    }
+
+    @Test
+    public void unboundedByDefaultTest() throws Exception {
+        var saver = new MemorySaver();
+        assertFalse( saver.cachePolicy().isBounded() );
+
+        for( int i = 0; i < 100; ++i ) {
+            saver.put( thread("t" + i), checkpoint("v" + i) );
+        }
+        assertEquals( 100, saver.cacheStats().threads() );
+        assertEquals( 0, saver.cacheStats().evictions() );
+        assertTrue( CheckpointCachePolicy.estimatedSize( checkpoint("value") ) > 0 );
+    }
+}
@@ -0,0 +1,217 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.compression.CompressionCodec;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ObjectOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointLogTest {
+
+    final ObjectStreamStateSerializer<AgentState> stateSerializer = new ObjectStreamStateSerializer<>(AgentState::new);
+    final Path targetFolder = Paths.get( "target", "checkpoint", "log" );
+    final RunnableConfig config = RunnableConfig.builder().threadId("log").build();
+
+    @BeforeEach
+    public void cleanup() throws Exception {
+        if( Files.exists(targetFolder) ) {
+            try( var files = Files.list(targetFolder) ) {
+                for( var file : files.toList() ) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static Checkpoint checkpoint( String value ) {
+        return Checkpoint.builder()
+                .nodeId("node")
+                .nextNodeId("next")
+                .state( Map.of("value", value) )
+                .build();
+    }
+
+    private static List<Object> valuesOf( Collection<Checkpoint> checkpoints ) {
+        return checkpoints.stream().map( c -> c.getState().get("value") ).toList();
+    }
+
+    @Test
+    public void appendOnlyTest() throws Exception {
+        var saver = FileSystemSaver.builder()
+                .targetFolder(targetFolder)
+                .stateSerializer(stateSerializer)
+                .syncInterval(2)
+                .build();
+
+        final var file = targetFolder.resolve("thread-log.saver");
+        saver.put( config, checkpoint("v0") );
+        long previousSize = Files.size(file);
+        long recordSize = -1;
+        for( int i = 1; i < 5; ++i ) {
+            saver.put( config, checkpoint("v" + i) );
+            long size = Files.size(file);
+            // only the new record is appended, so the file grows by the same amount at each put
+            if( recordSize < 0 ) {
+                recordSize = size - previousSize;
+            }
+            assertEquals( recordSize, size - previousSize );
+            previousSize = size;
+        }
+        assertTrue( CheckpointLog.isLog(file) );
+
+        var actual = FileSystemSaver.builder().targetFolder(targetFolder).stateSerializer(stateSerializer).build().list(config);
+        assertEquals( List.of("v4", "v3", "v2", "v1", "v0"), valuesOf(actual) );
+    }
+
+    @Test
+    public void replaceAndReleaseTest() throws Exception {
+        var saver = new FileSystemSaver( targetFolder, stateSerializer, 3 );
+
+        for( int i = 0; i < 4; ++i ) {
+            saver.put( config, checkpoint("v" + i) );
+        }
+        var stored = new ArrayList<>( saver.list(config) );
+        var replaced = stored.get(2);
+        saver.put( RunnableConfig.builder(config).checkPointId(replaced.getId()).build(),
+                replaced.updateState( Map.of("value", "updated"), Map.of() ) );
+
+        var reloaded = new FileSystemSaver( targetFolder, stateSerializer, 3 );
+        assertEquals( List.of("v3", "v2", "updated", "v0"), valuesOf( reloaded.list(config) ) );
+
+        var tag = reloaded.release(config);
+        assertEquals( List.of("v3", "v2", "updated", "v0"), valuesOf( tag.checkpoints() ) );
+        assertFalse( Files.exists( targetFolder.resolve("thread-log.saver") ) );
+
+        // the backup is a compacted log, indexed by the footer
+        var backup = targetFolder.resolve("thread-log-v1.saver");
+        var restored = new LinkedList<Checkpoint>();
+        new CheckpointLog( new CheckPointSerializer( stateSerializer, true ) ).read( backup, restored );
+        assertEquals( 4, restored.size() );
+        assertEquals( List.of("v3", "v2", "updated", "v0"), valuesOf( MemorySaver.keyframesOf(restored) ) );
+    }
+
+    @Test
+    public void partialRecordIsDiscardedTest() throws Exception {
+        var saver = new FileSystemSaver( targetFolder, stateSerializer );
+        saver.put( config, checkpoint("v0") );
+        saver.put( config, checkpoint("v1") );
+
+        final var file = targetFolder.resolve("thread-log.saver");
+        final long size = Files.size(file);
+        // simulates a crash in the middle of an append
+        try( var channel = FileChannel.open( file, StandardOpenOption.WRITE ) ) {
+            channel.truncate( size - 10 );
+        }
+
+        var reloaded = new FileSystemSaver( targetFolder, stateSerializer );
+        assertEquals( List.of("v0"), valuesOf( reloaded.list(config) ) );
+
+        reloaded.put( config, checkpoint("v2") );
+        var reloaded2 = new FileSystemSaver( targetFolder, stateSerializer );
+        assertEquals( List.of("v2", "v0"), valuesOf( reloaded2.list(config) ) );
+    }
+
+    @Test
+    public void readThroughWindowsTest() throws Exception {
+        // windows smaller than the records, so that each record is read across several mappings
+        var checkpointLog = new CheckpointLog( new CheckPointSerializer( stateSerializer, true ), CompressionCodec.none(), 64 );
+        final var file = targetFolder.resolve("thread-windows.saver");
+        Files.createDirectories(targetFolder);
+
+        var checkpoints = new LinkedList<Checkpoint>();
+        for( int i = 0; i < 50; ++i ) {
+            var checkpoint = checkpoint( "v" + i );
+            checkpointLog.append( file, null, checkpoint, false );
+            checkpoints.push( checkpoint );
+        }
+        var restored = new LinkedList<Checkpoint>();
+        checkpointLog.read( file, restored );
+        assertEquals( valuesOf(checkpoints), valuesOf(restored) );
+
+        // the compacted log is read through its footer
+        checkpointLog.write( file, checkpoints );
+        restored.clear();
+        checkpointLog.read( file, restored );
+        assertEquals( valuesOf(checkpoints), valuesOf(restored) );
+
+        // the log read is unmapped, so it can be truncated by the next append
+        checkpointLog.append( file, null, checkpoint("v50"), false );
+        restored.clear();
+        checkpointLog.read( file, restored );
+        assertEquals( 51, restored.size() );
+        assertEquals( "v50", restored.getFirst().getState().get("value") );
+    }
+
+    @Test
+    public void legacyFileIsConvertedTest() throws Exception {
+        Files.createDirectories(targetFolder);
+        final var file = targetFolder.resolve("thread-log.saver");
+        var legacySerializer = new CheckPointSerializer( stateSerializer, false );
+        try( var oos = new ObjectOutputStream( Files.newOutputStream(file) ) ) {
+            oos.writeInt(2);
+            legacySerializer.write( checkpoint("v1"), oos );
+            legacySerializer.write( checkpoint("v0"), oos );
+        }
+
+        var saver = new FileSystemSaver( targetFolder, stateSerializer );
+        assertEquals( List.of("v1", "v0"), valuesOf( saver.list(config) ) );
+        assertTrue( CheckpointLog.isLog(file) );
+
+        saver.put( config, checkpoint("v2") );
+        var reloaded = new FileSystemSaver( targetFolder, stateSerializer );
+        assertEquals( List.of("v2", "v1", "v0"), valuesOf( reloaded.list(config) ) );
+    }
+
+    @Test
+    public void compressedLogTest() throws Exception {
+        var plain = new FileSystemSaver( targetFolder, stateSerializer );
+        plain.put( config, checkpoint("v0") );
+
+        // the uncompressed log is extended with records compressed by different codecs
+        for( var codec : List.of( CompressionCodec.lz4(), CompressionCodec.deflate() ) ) {
+            var saver = FileSystemSaver.builder()
+                    .targetFolder(targetFolder)
+                    .stateSerializer(stateSerializer)
+                    .compression(codec)
+                    .build();
+            var stored = saver.list(config).size();
+            saver.put( config, checkpoint( "v" + stored ) );
+        }
+        var current = saver( CompressionCodec.gzip() );
+        var head = current.get(config).orElseThrow();
+        current.put( RunnableConfig.builder(config).checkPointId(head.getId()).build(),
+                head.updateState( Map.of("value", "updated"), Map.of() ) );
+
+        var reloaded = saver( CompressionCodec.none() );
+        assertEquals( List.of("updated", "v1", "v0"), valuesOf( reloaded.list(config) ) );
+
+        // the release compacts the log with the current codec
+        saver( CompressionCodec.lz4() ).release(config);
+        var restored = new LinkedList<Checkpoint>();
+        new CheckpointLog( new CheckPointSerializer( stateSerializer, true ) ).read( targetFolder.resolve("thread-log-v1.saver"), restored );
+        assertEquals( List.of("updated", "v1", "v0"), valuesOf( restored ) );
+    }
+
+    private FileSystemSaver saver( CompressionCodec codec ) {
+        return FileSystemSaver.builder()
+                .targetFolder(targetFolder)
+                .stateSerializer(stateSerializer)
+                .compression(codec)
+                .build();
+    }
+}
@@ -0,0 +1,195 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointRetentionTest {
+
+    final ObjectStreamStateSerializer<AgentState> stateSerializer = new ObjectStreamStateSerializer<>(AgentState::new);
+    final Path targetFolder = Paths.get( "target", "checkpoint", "retention" );
+    final RunnableConfig config = RunnableConfig.builder().threadId("retention").build();
+
+    @BeforeEach
+    public void cleanup() throws Exception {
+        if( Files.exists(targetFolder) ) {
+            try( var files = Files.list(targetFolder) ) {
+                for( var file : files.toList() ) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static Checkpoint checkpoint( int value, String nextNodeId ) {
+        return Checkpoint.builder()
+                .nodeId("node")
+                .nextNodeId(nextNodeId)
+                .state( Map.of("value", value) )
+                .build();
+    }
+
+    private static List<Object> valuesOf( Collection<Checkpoint> checkpoints ) {
+        return checkpoints.stream().map( c -> c.getState().get("value") ).toList();
+    }
+
+    private static void putAll( BaseCheckpointSaver saver, RunnableConfig config, int count ) throws Exception {
+        for( int i = 0; i < count; ++i ) {
+            // every third checkpoint stops the graph
+            saver.put( config, checkpoint( i, i % 3 == 0 ? END : "next" ) );
+        }
+    }
+
+    // a clock set after the given duration, so that the threads updated until now are older than it
+    private static Clock clockAfter( Duration duration ) {
+        return Clock.offset( Clock.systemUTC(), duration );
+    }
+
+    @Test
+    public void maxCheckpointsTest() throws Exception {
+        var saver = new MemorySaver();
+        putAll( saver, config, 10 );
+
+        var result = saver.prune( CheckpointRetentionPolicy.builder().maxCheckpoints(3).build() );
+        assertEquals( new HasRetention.PruneResult(0, 7), result );
+        assertEquals( List.of(9, 8, 7), valuesOf( saver.list(config) ) );
+
+        // the retained checkpoints can still be replaced and extended
+        saver.put( config, checkpoint( 10, "next" ) );
+        assertEquals( List.of(10, 9, 8, 7), valuesOf( saver.list(config) ) );
+        assertEquals( 0, saver.prune( CheckpointRetentionPolicy.builder().maxCheckpoints(4).build() ).prunedCheckpoints() );
+    }
+
+    @Test
+    public void keepOnlyTest() throws Exception {
+        var saver = new MemorySaver();
+        putAll( saver, config, 8 );
+
+        var policy = CheckpointRetentionPolicy.builder()
+                .keepOnly( c -> END.equals( c.getNextNodeId() ) )
+                .build();
+        saver.prune( policy );
+        // the newest checkpoint is always kept
+        assertEquals( List.of(7, 6, 3, 0), valuesOf( saver.list(config) ) );
+        assertEquals( 7, saver.get(config).map( c -> c.getState().get("value") ).orElseThrow() );
+    }
+
+    @Test
+    public void maxAgeTest() throws Exception {
+        var saver = new MemorySaver();
+        putAll( saver, config, 3 );
+
+        var notExpired = CheckpointRetentionPolicy.builder().maxAge( Duration.ofHours(1) ).build();
+        assertEquals( new HasRetention.PruneResult(0, 0), saver.prune( notExpired ) );
+        assertEquals( 3, saver.list(config).size() );
+
+        var expired = CheckpointRetentionPolicy.builder()
+                .maxAge( Duration.ofHours(1) )
+                .clock( clockAfter( Duration.ofHours(2) ) )
+                .build();
+        assertEquals( new HasRetention.PruneResult(1, 0), saver.prune( expired ) );
+        assertTrue( saver.list(config).isEmpty() );
+    }
+
+    @Test
+    public void fileSystemSaverTest() throws Exception {
+        var saver = FileSystemSaver.builder()
+                .targetFolder(targetFolder)
+                .stateSerializer(stateSerializer)
+                .build();
+        putAll( saver, config, 6 );
+        var other = RunnableConfig.builder().threadId("other").build();
+        putAll( saver, other, 2 );
+
+        // the threads on file are pruned even if not loaded
+        var reopened = FileSystemSaver.builder()
+                .targetFolder(targetFolder)
+                .stateSerializer(stateSerializer)
+                .build();
+        var result = reopened.prune( CheckpointRetentionPolicy.builder().maxCheckpoints(2).build() );
+        assertEquals( new HasRetention.PruneResult(0, 4), result );
+
+        var loaded = FileSystemSaver.builder()
+                .targetFolder(targetFolder)
+                .stateSerializer(stateSerializer)
+                .build();
+        assertEquals( List.of(5, 4), valuesOf( loaded.list(config) ) );
+        assertEquals( List.of(1, 0), valuesOf( loaded.list(other) ) );
+
+        var expired = CheckpointRetentionPolicy.builder()
+                .maxAge( Duration.ofHours(1) )
+                .clock( clockAfter( Duration.ofHours(2) ) )
+                .build();
+        assertEquals( 2, loaded.prune( expired ).expiredThreads() );
+        assertTrue( loaded.list(config).isEmpty() );
+        try( var files = Files.list(targetFolder) ) {
+            assertEquals( 0, files.count() );
+        }
+    }
+
+    @Test
+    public void maxReleasesTest() throws Exception {
+        var saver = new VersionedMemorySaver();
+        for( int version = 0; version < 4; ++version ) {
+            putAll( saver, config, 5 );
+            saver.release( config );
+        }
+        assertEquals( 4, saver.versionsByThreadId("retention").size() );
+
+        var policy = CheckpointRetentionPolicy.builder()
+                .maxReleases(2)
+                .maxCheckpoints(1)
+                .build();
+        var result = saver.prune( policy );
+        assertEquals( new HasRetention.PruneResult(2, 8), result );
+
+        // the newest versions are kept
+        var versions = List.copyOf( saver.versionsByThreadId("retention") );
+        assertEquals( 2, versions.size() );
+        assertEquals( 1, saver.getCheckpointsByVersion( "retention", versions.get(1) ).size() );
+
+        var expired = CheckpointRetentionPolicy.builder()
+                .maxAge( Duration.ofHours(1) )
+                .clock( clockAfter( Duration.ofHours(2) ) )
+                .build();
+        assertEquals( 2, saver.prune( expired ).expiredThreads() );
+        assertTrue( saver.versionsByThreadId("retention").isEmpty() );
+    }
+
+    @Test
+    public void compactorTest() throws Exception {
+        var saver = new MemorySaver();
+        putAll( saver, config, 5 );
+
+        try( var compactor = CheckpointCompactor.builder()
+                .saver( saver )
+                .policy( CheckpointRetentionPolicy.builder().maxCheckpoints(1).build() )
+                .interval( Duration.ofMillis(50) )
+                .build() ) {
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while( compactor.lastResult().isEmpty() && System.currentTimeMillis() < deadline ) {
+                Thread.sleep( 10 );
+            }
+            assertTrue( compactor.lastResult().isPresent() );
+            assertEquals( List.of(4), valuesOf( saver.list(config) ) );
+            assertEquals( new HasRetention.PruneResult(0, 0), compactor.compact() );
+        }
+        assertThrows( IllegalArgumentException.class, () -> CheckpointCompactor.builder().interval( Duration.ZERO ) );
+        assertThrows( NullPointerException.class, () -> CheckpointCompactor.builder().build() );
+    }
+}
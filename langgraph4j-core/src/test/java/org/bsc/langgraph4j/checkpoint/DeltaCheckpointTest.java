@@ -0,0 +1,201 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.GraphStateException;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.bsc.langgraph4j.utils.PersistentList;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncEdgeAction.edge_async;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeltaCheckpointTest {
+
+    final ObjectStreamStateSerializer<MessagesState<String>> stateSerializer = new ObjectStreamStateSerializer<>(MessagesState::new);
+
+    private StateGraph<MessagesState<String>> workflow( int steps ) throws GraphStateException {
+        return new StateGraph<>(MessagesState.SCHEMA, stateSerializer)
+                .addNode("agent", node_async( state -> {
+                    int step = state.messages().size();
+                    return ( step % 2 == 0 ) ?
+                            Map.of("messages", format("step %d", step), "even", step ) :
+                            Map.of("messages", format("step %d", step), "even", AgentState.MARK_FOR_REMOVAL );
+                }))
+                .addEdge(START, "agent")
+                .addConditionalEdges("agent",
+                        edge_async( state -> state.messages().size() < steps ? "agent" : END ),
+                        Map.of("agent", "agent", END, END));
+    }
+
+    private List<Checkpoint> run( BaseCheckpointSaver saver, int steps ) throws Exception {
+        var app = workflow(steps).compile(CompileConfig.builder()
+                .checkpointSaver(saver)
+                .build());
+
+        var config = RunnableConfig.builder().threadId("delta").build();
+
+        var result = app.invoke(Map.of(), config);
+        assertTrue(result.isPresent());
+        assertEquals(steps, result.get().messages().size());
+
+        return new ArrayList<>(saver.list(config));
+    }
+
+    private void assertSameCheckpoints( List<Checkpoint> expected, List<Checkpoint> actual ) {
+        assertEquals( expected.size(), actual.size() );
+        for( int i = 0; i < expected.size(); ++i ) {
+            assertFalse( actual.get(i).isDelta() );
+            assertEquals( expected.get(i).getNodeId(), actual.get(i).getNodeId() );
+            assertEquals( expected.get(i).getNextNodeId(), actual.get(i).getNextNodeId() );
+            assertEquals( expected.get(i).getState(), actual.get(i).getState() );
+        }
+    }
+
+    @Test
+    public void memorySaverTest() throws Exception {
+        final int steps = 10;
+
+        var expected = run( new MemorySaver(), steps );
+
+        var saver = new MemorySaver(4);
+        var actual = run( saver, steps );
+
+        assertSameCheckpoints( expected, actual );
+
+        // one keyframe every 4 checkpoints, starting from the oldest one
+        var stored = new ArrayList<>(saver._checkpointsByThread.get("delta"));
+        for( int i = 0; i < stored.size(); ++i ) {
+            assertEquals( (stored.size() - 1 - i) % 4 != 0, stored.get(i).isDelta() );
+        }
+        // deltas hold only the changed entries
+        var delta = stored.stream().filter(Checkpoint::isDelta).findFirst().orElseThrow();
+        assertTrue( delta.getState().size() <= 2 );
+        assertTrue( delta.getState().containsKey("messages") );
+        // the messages of the deltas are just the appended ones
+        var appended = assertInstanceOf( Checkpoint.Appended.class, delta.getState().get("messages") );
+        assertEquals( 1, appended.values().size() );
+
+        // get rebuilds the requested checkpoint
+        for( int i = 0; i < actual.size(); ++i ) {
+            var config = RunnableConfig.builder().threadId("delta").checkPointId(actual.get(i).getId()).build();
+            var restored = saver.get(config).orElseThrow();
+            assertEquals( expected.get(i).getState(), restored.getState() );
+        }
+
+        var tag = saver.release( RunnableConfig.builder().threadId("delta").build() );
+        assertSameCheckpoints( expected, new ArrayList<>(tag.checkpoints()) );
+    }
+
+    @Test
+    public void replaceCheckpointTest() throws Exception {
+        var saver = new MemorySaver(10);
+        var expected = run( saver, 4 );
+
+        // replace a checkpoint that is the parent of a delta
+        var replaced = expected.get(2);
+        var config = RunnableConfig.builder().threadId("delta").checkPointId(replaced.getId()).build();
+        saver.put( config, replaced.updateState( Map.of("messages", "updated"), MessagesState.SCHEMA ) );
+
+        var actual = new ArrayList<>(saver.list(config));
+
+        assertEquals( List.of("step 0", "step 1", "updated"), actual.get(2).getState().get("messages") );
+        // the newer checkpoints are not affected
+        assertEquals( expected.get(1).getState(), actual.get(1).getState() );
+        assertEquals( expected.get(0).getState(), actual.get(0).getState() );
+    }
+
+    @Test
+    public void fileSystemSaverTest() throws Exception {
+        final int steps = 10;
+        final var targetFolder = Paths.get( "target", "checkpoint", "delta" );
+
+        var expected = run( new MemorySaver(), steps );
+
+        var saver = new FileSystemSaver( targetFolder, stateSerializer, 3 );
+        saver.deleteFile( RunnableConfig.builder().threadId("delta").build() );
+        run( saver, steps );
+
+        assertTrue( Files.exists( targetFolder.resolve("thread-delta.saver") ) );
+
+        // reload from file
+        var saver2 = new FileSystemSaver( targetFolder, stateSerializer, 3 );
+        var actual = new ArrayList<>( saver2.list( RunnableConfig.builder().threadId("delta").build() ) );
+
+        assertEquals( expected.size(), actual.size() );
+        for( int i = 0; i < expected.size(); ++i ) {
+            assertEquals( expected.get(i).getState(), actual.get(i).getState() );
+        }
+        assertTrue( saver2._checkpointsByThread.get("delta").stream().anyMatch(Checkpoint::isDelta) );
+        assertTrue( saver2._checkpointsByThread.get("delta").stream()
+                .filter(Checkpoint::isDelta)
+                .anyMatch( c -> c.getState().get("messages") instanceof Checkpoint.Appended a && a.values().size() == 1 ) );
+
+        assertTrue( saver2.deleteFile( RunnableConfig.builder().threadId("delta").build() ) );
+    }
+
+    @Test
+    public void appendedValuesTest() {
+        var parent = Checkpoint.builder()
+                .nodeId("agent").nextNodeId("agent")
+                .state( Map.of( "messages", List.of("a", "b"), "other", List.of("x", "y") ) )
+                .build();
+        var child = Checkpoint.builder()
+                .nodeId("agent").nextNodeId("agent")
+                .state( Map.of( "messages", List.of("a", "b", "c"), "other", List.of("y", "x", "z") ) )
+                .build();
+
+        var delta = child.toDelta( parent.getState() );
+        assertEquals( new Checkpoint.Appended( 2, List.of("c") ), delta.getState().get("messages") );
+        // a list that doesn't start with the previous one is stored as it is
+        assertEquals( List.of("y", "x", "z"), delta.getState().get("other") );
+
+        var keyframe = delta.toKeyframe( parent.getState() );
+        assertEquals( child.getState(), keyframe.getState() );
+        // the list restored from the appended values is a persistent list, equal to the original one
+        assertInstanceOf( PersistentList.class, keyframe.getState().get("messages") );
+        assertEquals( keyframe.getState().get("messages"), child.getState().get("messages") );
+        assertEquals( List.of("a", "b", "c").hashCode(), keyframe.getState().get("messages").hashCode() );
+        // the appended values apply only to the list they were computed from
+        assertThrows( IllegalStateException.class, () -> delta.toKeyframe( Map.of( "messages", List.of("a") ) ) );
+    }
+
+    @Test
+    public void appendedPersistentValuesTest() {
+        var messages = PersistentList.<Object>empty();
+        for( int i = 0; i < 1_000; ++i ) {
+            messages = messages.plus( "m" + i );
+        }
+        var changed = new ArrayList<Object>( messages );
+        changed.set( 500, "changed" );
+        var parent = Checkpoint.builder()
+                .nodeId("agent").nextNodeId("agent")
+                .state( Map.of( "messages", messages, "other", messages ) )
+                .build();
+        var child = Checkpoint.builder()
+                .nodeId("agent").nextNodeId("agent")
+                .state( Map.of( "messages", messages.plus("c"),
+                                "other", PersistentList.copyOf( changed ).plus("c") ) )
+                .build();
+
+        var delta = child.toDelta( parent.getState() );
+        assertEquals( new Checkpoint.Appended( 1_000, List.of("c") ), delta.getState().get("messages") );
+        // a persistent list that doesn't share the elements of the previous one is stored as it is
+        assertSame( child.getState().get("other"), delta.getState().get("other") );
+
+        assertEquals( child.getState(), delta.toKeyframe( parent.getState() ).getState() );
+    }
+}
@@ -0,0 +1,224 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeadOnlyLoadingTest {
+
+    /**
+     * Saver backed by a simulated store, that loads the head of a thread alone and its history without the states.
+     */
+    static class StoreSaver extends MemorySaver {
+        // the stored checkpoints, newest first
+        final LinkedList<Checkpoint> store;
+        final AtomicInteger historyLoads = new AtomicInteger();
+        final AtomicInteger pageLoads = new AtomicInteger();
+
+        StoreSaver( LinkedList<Checkpoint> store ) {
+            this( store, CheckpointCachePolicy.unbounded() );
+        }
+
+        StoreSaver( LinkedList<Checkpoint> store, CheckpointCachePolicy cachePolicy ) {
+            super( 1, cachePolicy );
+            this.store = store;
+        }
+
+        @Override
+        protected boolean loadedHead(RunnableConfig config, LinkedList<Checkpoint> checkpoints) {
+            if( !store.isEmpty() ) {
+                checkpoints.add( store.getFirst() );
+            }
+            return store.size() <= 1;
+        }
+
+        @Override
+        protected LinkedList<Checkpoint> loadedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints) {
+            if( !checkpoints.isEmpty() ) {
+                return checkpoints;
+            }
+            historyLoads.incrementAndGet();
+            var states = new LazyCheckpointStates( 4, ids -> {
+                pageLoads.incrementAndGet();
+                var result = new HashMap<String, Map<String,Object>>();
+                for( var checkpoint : store ) {
+                    if( ids.contains( checkpoint.getId() ) ) {
+                        result.put( checkpoint.getId(), checkpoint.getState() );
+                    }
+                }
+                return result;
+            });
+            for( var checkpoint : store ) {
+                checkpoints.add( Checkpoint.builder()
+                        .id( checkpoint.getId() )
+                        .nodeId( checkpoint.getNodeId() )
+                        .nextNodeId( checkpoint.getNextNodeId() )
+                        .state( states.stateOf( checkpoint.getId() ) )
+                        .build() );
+            }
+            return checkpoints;
+        }
+
+        @Override
+        protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) {
+            store.push( checkpoint );
+        }
+
+        @Override
+        protected void prunedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Collection<Checkpoint> removed) {
+            final var removedIds = new HashSet<String>();
+            removed.forEach( checkpoint -> removedIds.add( checkpoint.getId() ) );
+            store.removeIf( checkpoint -> removedIds.contains( checkpoint.getId() ) );
+        }
+
+        @Override
+        protected void updatedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) {
+            store.replaceAll( c -> c.getId().equals( config.checkPointId().orElseThrow() ) ? checkpoint : c );
+        }
+    }
+
+    private static Checkpoint checkpoint( int value ) {
+        return Checkpoint.builder()
+                .nodeId("node")
+                .nextNodeId("next")
+                .state( Map.of("value", value) )
+                .build();
+    }
+
+    private static LinkedList<Checkpoint> storeOf( int size ) {
+        var store = new LinkedList<Checkpoint>();
+        for( int i = 0; i < size; ++i ) {
+            store.push( checkpoint(i) );
+        }
+        return store;
+    }
+
+    final RunnableConfig config = RunnableConfig.builder().threadId("head").build();
+
+    @Test
+    public void resumeLoadsTheHeadOnlyTest() throws Exception {
+        var store = storeOf( 10 );
+        var saver = new StoreSaver( store );
+
+        assertEquals( 9, saver.get(config).orElseThrow().getState().get("value") );
+
+        var next = saver.put( config, checkpoint(10) );
+        assertEquals( 10, saver.get(config).orElseThrow().getState().get("value") );
+        assertEquals( 10, saver.get(next).orElseThrow().getState().get("value") );
+        assertEquals( 0, saver.historyLoads.get() );
+        assertEquals( 11, store.size() );
+    }
+
+    @Test
+    public void historyIsLoadedOnDemandTest() throws Exception {
+        var store = storeOf( 10 );
+        var saver = new StoreSaver( store );
+        saver.get(config);
+        saver.put( config, checkpoint(10) );
+
+        // an older checkpoint needs the history
+        var oldest = RunnableConfig.builder(config).checkPointId( store.getLast().getId() ).build();
+        assertEquals( 0, saver.get(oldest).orElseThrow().getState().get("value") );
+        assertEquals( 1, saver.historyLoads.get() );
+        assertEquals( 1, saver.pageLoads.get() );
+
+        // the states are loaded a page at a time, when accessed
+        var history = new ArrayList<>( saver.list(config) );
+        assertEquals( 11, history.size() );
+        assertEquals( 1, saver.pageLoads.get() );
+        for( int i = 0; i < history.size(); ++i ) {
+            assertEquals( 10 - i, history.get(i).getState().get("value") );
+        }
+        assertEquals( 3, saver.pageLoads.get() );
+        assertEquals( 1, saver.historyLoads.get() );
+    }
+
+    @Test
+    public void replaceOfAnOlderCheckpointTest() throws Exception {
+        var store = storeOf( 5 );
+        var saver = new StoreSaver( store );
+        saver.get(config);
+
+        var replaced = RunnableConfig.builder(config).checkPointId( store.get(3).getId() ).build();
+        saver.put( replaced, saver.get(replaced).orElseThrow().updateState( Map.of("value", -1), Map.of() ) );
+
+        assertEquals( List.of(4, 3, 2, -1, 0), saver.list(config).stream().map( c -> c.getState().get("value") ).toList() );
+        assertThrows( NoSuchElementException.class,
+                () -> saver.put( RunnableConfig.builder(config).checkPointId("missing").build(), checkpoint(0) ) );
+    }
+
+    @Test
+    public void sizeOfTheLazyHistoryTest() throws Exception {
+        var store = storeOf( 5 );
+        var saver = new StoreSaver( store, CheckpointCachePolicy.builder().maxBytes( 1_000_000 ).build() );
+        saver.get(config);
+
+        // the states of the history are weighed before being loaded
+        var history = new ArrayList<>( saver.list(config) );
+        final long lazySize = CheckpointCachePolicy.estimatedSize( history.get(0) );
+        assertEquals( 5 * lazySize, saver.cacheStats().bytes() );
+
+        history.forEach( checkpoint -> checkpoint.getState().get("value") );
+        assertTrue( CheckpointCachePolicy.estimatedSize( history.get(3) ) > lazySize );
+
+        // the replaced checkpoint is subtracted with the size it has been added with
+        var replaced = RunnableConfig.builder(config).checkPointId( store.get(3).getId() ).build();
+        var checkpoint = checkpoint( -1 );
+        saver.put( replaced, checkpoint );
+        assertEquals( 4 * lazySize + CheckpointCachePolicy.estimatedSize( checkpoint ), saver.cacheStats().bytes() );
+
+        saver.release( config );
+        assertEquals( 0, saver.cacheStats().bytes() );
+    }
+
+    @Test
+    public void prunedHistoryStaysReadableTest() throws Exception {
+        var store = storeOf( 10 );
+        var saver = new StoreSaver( store );
+        saver.get(config);
+
+        var history = new ArrayList<>( saver.list(config) );
+        assertEquals( 0, saver.pageLoads.get() );
+
+        // the pruned checkpoints are deleted from the store before their states are read
+        var result = saver.prune( CheckpointRetentionPolicy.builder().maxCheckpoints( 2 ).build() );
+        assertEquals( 8, result.prunedCheckpoints() );
+        assertEquals( 2, store.size() );
+
+        for( int i = 0; i < history.size(); ++i ) {
+            assertEquals( 9 - i, history.get(i).getState().get("value") );
+        }
+        assertEquals( List.of(9, 8), saver.list(config).stream().map( c -> c.getState().get("value") ).toList() );
+    }
+
+    @Test
+    public void pruneKeepsTheCacheAsItIsTest() throws Exception {
+        var store = storeOf( 10 );
+        var saver = new StoreSaver( store ) {
+            @Override
+            protected Collection<String> prunableThreadIds() {
+                return List.of( "head" );
+            }
+        };
+        var policy = CheckpointRetentionPolicy.builder().maxCheckpoints( 5 ).build();
+
+        // a thread not in memory is pruned without being cached
+        assertEquals( 5, saver.prune( policy ).prunedCheckpoints() );
+        assertEquals( 5, store.size() );
+        assertEquals( 0, saver.cacheStats().threads() );
+        assertEquals( 0, saver.pageLoads.get() );
+
+        // a thread holding its head only keeps holding it
+        saver.get(config);
+        assertEquals( 3, saver.prune( CheckpointRetentionPolicy.builder().maxCheckpoints( 2 ).build() ).prunedCheckpoints() );
+        assertEquals( 2, store.size() );
+        assertEquals( 1, saver.cacheStats().threads() );
+        assertEquals( 2, saver.historyLoads.get() );
+        assertEquals( 9, saver.get(config).orElseThrow().getState().get("value") );
+        assertEquals( List.of(9, 8), saver.list(config).stream().map( c -> c.getState().get("value") ).toList() );
+    }
+}
@@ -0,0 +1,340 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.bsc.langgraph4j.checkpoint.JdbcCheckpointSaver.StatementType.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JdbcCheckpointSaverTest {
+
+    /**
+     * Simulated database, that records the statements executed through the JDBC proxies.
+     */
+    static class FakeDatabase {
+        final AtomicInteger upserts = new AtomicInteger();
+        final AtomicInteger commits = new AtomicInteger();
+        final AtomicInteger rollbacks = new AtomicInteger();
+        // size of each execution of the insert statement, 1 for a single insert
+        final List<Integer> executions = new ArrayList<>();
+        // the inserted rows: checkpoint id, thread id, saved at
+        final List<Object[]> rows = new ArrayList<>();
+        // the upserted threads: thread id, thread name
+        final Map<String, String> threads = new LinkedHashMap<>();
+        boolean failInserts;
+
+        DataSource dataSource() {
+            return (DataSource) Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[] { DataSource.class },
+                    ( proxy, method, args ) -> switch( method.getName() ) {
+                        case "getConnection" -> connection();
+                        default -> throw new UnsupportedOperationException( method.getName() );
+                    });
+        }
+
+        Connection connection() {
+            return (Connection) Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                    ( proxy, method, args ) -> switch( method.getName() ) {
+                        case "getAutoCommit" -> true;
+                        case "setAutoCommit", "close" -> null;
+                        case "commit" -> commits.incrementAndGet();
+                        case "rollback" -> rollbacks.incrementAndGet();
+                        case "prepareStatement" -> {
+                            final var sql = (String) args[0];
+                            if( sql.startsWith( "SELECT" ) ) {
+                                yield selectExpiredStatement( sql );
+                            }
+                            yield sql.startsWith( "DELETE" ) ? deleteStatement( sql ) : insertStatement();
+                        }
+                        default -> throw new UnsupportedOperationException( method.getName() );
+                    });
+        }
+
+        PreparedStatement insertStatement() {
+            final var params = new Object[3];
+            final var batch = new ArrayList<Object[]>();
+            return (PreparedStatement) Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class },
+                    ( proxy, method, args ) -> switch( method.getName() ) {
+                        case "setString", "setTimestamp" -> {
+                            params[ (int) args[0] - 1 ] = args[1];
+                            yield null;
+                        }
+                        case "addBatch" -> batch.add( params.clone() );
+                        case "executeUpdate" -> {
+                            insert( List.<Object[]>of( params.clone() ) );
+                            yield 1;
+                        }
+                        case "executeBatch" -> {
+                            insert( batch );
+                            yield new int[batch.size()];
+                        }
+                        case "close" -> null;
+                        default -> throw new UnsupportedOperationException( method.getName() );
+                    });
+        }
+
+        /**
+         * Evaluates the selection of the expired threads, joining the threads with their checkpoints
+         * as the statement asks: an inner join skips the threads without checkpoints.
+         */
+        PreparedStatement selectExpiredStatement( String sql ) {
+            final boolean outerJoin = sql.contains( "LEFT JOIN" );
+            final var cutoff = new Timestamp[1];
+            return (PreparedStatement) Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class },
+                    ( proxy, method, args ) -> switch( method.getName() ) {
+                        case "setTimestamp" -> {
+                            cutoff[0] = (Timestamp) args[1];
+                            yield null;
+                        }
+                        case "executeQuery" -> {
+                            final var expired = new ArrayList<Map.Entry<String, String>>();
+                            threads.forEach( ( threadId, threadName ) -> {
+                                final var newest = rows.stream()
+                                        .filter( row -> threadId.equals( row[1] ) )
+                                        .map( row -> (Timestamp) row[2] )
+                                        .max( Comparator.naturalOrder() );
+                                if( newest.map( savedAt -> savedAt.before( cutoff[0] ) ).orElse( outerJoin ) ) {
+                                    expired.add( Map.entry( threadId, threadName ) );
+                                }
+                            });
+                            yield resultSet( expired.iterator() );
+                        }
+                        case "close" -> null;
+                        default -> throw new UnsupportedOperationException( method.getName() );
+                    });
+        }
+
+        ResultSet resultSet( Iterator<Map.Entry<String, String>> threads ) {
+            final var current = new ArrayList<Map.Entry<String, String>>( 1 );
+            return (ResultSet) Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+                    ( proxy, method, args ) -> switch( method.getName() ) {
+                        case "next" -> {
+                            current.clear();
+                            if( threads.hasNext() ) {
+                                current.add( threads.next() );
+                            }
+                            yield !current.isEmpty();
+                        }
+                        case "getObject" -> current.get(0).getKey();
+                        case "getString" -> current.get(0).getValue();
+                        case "getBoolean" -> false;
+                        case "close" -> null;
+                        default -> throw new UnsupportedOperationException( method.getName() );
+                    });
+        }
+
+        PreparedStatement deleteStatement( String sql ) {
+            final var batch = new ArrayList<Object>();
+            return (PreparedStatement) Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class },
+                    ( proxy, method, args ) -> switch( method.getName() ) {
+                        case "setObject" -> {
+                            batch.add( args[1] );
+                            yield null;
+                        }
+                        case "addBatch" -> null;
+                        case "executeBatch" -> {
+                            if( sql.contains( "THREAD" ) ) {
+                                batch.forEach( threads::remove );
+                            }
+                            else {
+                                rows.removeIf( row -> batch.contains( row[1] ) );
+                            }
+                            yield new int[batch.size()];
+                        }
+                        case "close" -> null;
+                        default -> throw new UnsupportedOperationException( method.getName() );
+                    });
+        }
+
+        void insert( List<Object[]> inserted ) throws SQLException {
+            if( failInserts ) {
+                throw new SQLException( "insert failed" );
+            }
+            executions.add( inserted.size() );
+            rows.addAll( inserted );
+        }
+    }
+
+    static class FakeSaver extends JdbcCheckpointSaver {
+        final FakeDatabase database;
+
+        FakeSaver( FakeDatabase database ) {
+            super( database.dataSource(), 1, CheckpointCachePolicy.unbounded() );
+            this.database = database;
+        }
+
+        @Override
+        protected String upsertThread( Connection conn, String threadName ) {
+            database.upserts.incrementAndGet();
+            database.threads.put( "id-" + threadName, threadName );
+            return "id-" + threadName;
+        }
+
+        @Override
+        protected String threadTable() {
+            return "THREAD";
+        }
+
+        @Override
+        protected String checkpointTable() {
+            return "CHECKPOINT";
+        }
+
+        @Override
+        protected String insertCheckpointSql() {
+            return "INSERT";
+        }
+
+        @Override
+        protected void bindCheckpoint( PreparedStatement ps, String threadId, Checkpoint checkpoint, Timestamp savedAt ) throws Exception {
+            ps.setString( 1, checkpoint.getId() );
+            ps.setString( 2, threadId );
+            ps.setTimestamp( 3, savedAt );
+        }
+
+        @Override
+        protected void releasedCheckpoints( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Tag releaseTag ) {
+            forgetThread( config.threadId().orElse( THREAD_ID_DEFAULT ) );
+        }
+    }
+
+    private static Checkpoint checkpoint( int value ) {
+        return Checkpoint.builder()
+                .nodeId("node")
+                .nextNodeId("next")
+                .state( Map.of("value", value) )
+                .build();
+    }
+
+    final RunnableConfig config = RunnableConfig.builder().threadId("jdbc").build();
+
+    @Test
+    public void threadIsUpsertedOnceTest() throws Exception {
+        var database = new FakeDatabase();
+        var saver = new FakeSaver( database );
+
+        for( int i = 0; i < 3; ++i ) {
+            saver.put( config, checkpoint(i) );
+        }
+        assertEquals( 1, database.upserts.get() );
+        assertEquals( List.of(1, 1, 1), database.executions );
+        assertEquals( 3, database.commits.get() );
+        assertTrue( database.rows.stream().allMatch( row -> "id-jdbc".equals( row[1] ) ) );
+
+        var stats = saver.statementStats();
+        assertEquals( 1, stats.get(UPSERT_THREAD).executions() );
+        assertEquals( 3, stats.get(INSERT_CHECKPOINTS).executions() );
+        assertTrue( stats.get(INSERT_CHECKPOINTS).maxNanos() >= stats.get(INSERT_CHECKPOINTS).averageNanos() );
+        assertEquals( 0, stats.get(SELECT_HEAD).executions() );
+
+        // a released thread is upserted again
+        saver.release( config );
+        saver.put( config, checkpoint(3) );
+        assertEquals( 2, database.upserts.get() );
+
+        saver.resetStatementStats();
+        assertEquals( 0, saver.statementStats().get(INSERT_CHECKPOINTS).executions() );
+    }
+
+    @Test
+    public void flushIsInsertedAsBatchTest() throws Exception {
+        var database = new FakeDatabase();
+        var saver = BatchingCheckpointSaver.builder()
+                .delegate( new FakeSaver( database ) )
+                .maxBatchSize(4)
+                .maxDelay(null)
+                .build();
+
+        for( int i = 0; i < 4; ++i ) {
+            saver.put( config, checkpoint(i) );
+        }
+        assertEquals( List.of(4), database.executions );
+        assertEquals( 1, database.commits.get() );
+
+        // the checkpoints of a batch keep their order
+        for( int i = 1; i < database.rows.size(); ++i ) {
+            var previous = (Timestamp) database.rows.get(i - 1)[2];
+            var next = (Timestamp) database.rows.get(i)[2];
+            assertTrue( next.after( previous ) );
+        }
+        assertEquals( List.of(3, 2, 1, 0), saver.list(config).stream().map( c -> c.getState().get("value") ).toList() );
+    }
+
+    @Test
+    public void failedInsertIsRolledBackTest() throws Exception {
+        var database = new FakeDatabase();
+        var saver = new FakeSaver( database );
+
+        database.failInserts = true;
+        assertThrows( SQLException.class, () -> saver.putAll( config, List.of( checkpoint(0), checkpoint(1) ) ) );
+        assertEquals( 1, database.rollbacks.get() );
+        assertEquals( 0, database.commits.get() );
+
+        // the thread upserted by the rolled back transaction is upserted again
+        database.failInserts = false;
+        saver.put( RunnableConfig.builder().threadId("other").build(), checkpoint(0) );
+        saver.put( config, checkpoint(2) );
+        assertEquals( 3, database.upserts.get() );
+        assertThrows( IllegalArgumentException.class,
+                () -> saver.putAll( RunnableConfig.builder(config).checkPointId("any").build(), List.of( checkpoint(3) ) ) );
+    }
+
+    @Test
+    public void threadsWithoutCheckpointsExpireTest() throws Exception {
+        var database = new FakeDatabase();
+        var saver = new FakeSaver( database );
+
+        saver.put( config, checkpoint(0) );
+        // a thread left without checkpoints, e.g. once its partitions have been dropped
+        database.threads.put( "id-empty", "empty" );
+
+        final var cutoff = Instant.now().minusSeconds( 60 );
+        assertEquals( 1, saver.expireThreads( cutoff ) );
+        assertEquals( Map.of( "id-jdbc", "jdbc" ), database.threads );
+        assertEquals( 1, database.rows.size() );
+
+        assertEquals( 1, saver.expireThreads( Instant.now().plusSeconds( 60 ) ) );
+        assertTrue( database.threads.isEmpty() );
+        assertTrue( database.rows.isEmpty() );
+    }
+
+    @Test
+    public void putWaitsForTheExpiryOfItsThreadTest() throws Exception {
+        var database = new FakeDatabase();
+        var put = new CompletableFuture<RunnableConfig>();
+        var saver = new FakeSaver( database ) {
+            @Override
+            protected void deleteExpiredThreads( Connection conn, List<Object> threadIds, Instant cutoff ) throws SQLException {
+                // a put on the expired thread waits for its deletion
+                CompletableFuture.runAsync( () -> {
+                    try {
+                        put.complete( put( config, checkpoint(1) ) );
+                    }
+                    catch( Exception ex ) {
+                        put.completeExceptionally( ex );
+                    }
+                });
+                assertThrows( TimeoutException.class, () -> put.get( 200, TimeUnit.MILLISECONDS ) );
+                super.deleteExpiredThreads( conn, threadIds, cutoff );
+            }
+        };
+        saver.put( config, checkpoint(0) );
+
+        assertEquals( 1, saver.expireThreads( Instant.now().plusSeconds( 60 ) ) );
+        put.get( 5, TimeUnit.SECONDS );
+
+        // the thread is created again, rather than reusing the id of the deleted one
+        assertEquals( 2, database.upserts.get() );
+        assertEquals( Map.of( "id-jdbc", "jdbc" ), database.threads );
+        assertEquals( 1, database.rows.size() );
+    }
+}
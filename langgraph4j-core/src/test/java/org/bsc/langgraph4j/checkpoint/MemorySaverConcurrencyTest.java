@@ -0,0 +1,78 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemorySaverConcurrencyTest {
+
+    private static Checkpoint checkpoint( String value ) {
+        return Checkpoint.builder()
+                .nodeId("node")
+                .nextNodeId("next")
+                .state( Map.of("value", value) )
+                .build();
+    }
+
+    @Test
+    public void unrelatedThreadsRunInParallelTest() throws Exception {
+        // both hooks must be running at the same time to pass the barrier
+        final var barrier = new CyclicBarrier(2);
+
+        var saver = new MemorySaver() {
+            @Override
+            protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
+                barrier.await( 5, TimeUnit.SECONDS );
+            }
+        };
+
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<RunnableConfig>> results = executor.invokeAll( List.of(
+                    () -> saver.put( RunnableConfig.builder().threadId("a").build(), checkpoint("a") ),
+                    () -> saver.put( RunnableConfig.builder().threadId("b").build(), checkpoint("b") ) ) );
+            for( var result : results ) {
+                assertNotNull( result.get() );
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals( 2, saver.cacheStats().threads() );
+        assertEquals( "a", saver.get( RunnableConfig.builder().threadId("a").build() ).orElseThrow().getState().get("value") );
+    }
+
+    @Test
+    public void sameThreadIsSerializedTest() throws Exception {
+        var saver = new MemorySaver();
+        var config = RunnableConfig.builder().threadId("same").build();
+
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var tasks = new LinkedList<Callable<RunnableConfig>>();
+            for( int i = 0; i < 200; ++i ) {
+                final var value = String.valueOf(i);
+                tasks.add( () -> saver.put( config, checkpoint(value) ) );
+            }
+            for( var result : executor.invokeAll( tasks ) ) {
+                assertNotNull( result.get() );
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals( 200, saver.list( config ).size() );
+    }
+}
@@ -0,0 +1,168 @@
+package org.bsc.langgraph4j.serializer.buffer;
+
+import org.bsc.langgraph4j.serializer.std.NullableObjectSerializer;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BufferSerializerTest {
+
+    private final ObjectStreamStateSerializer<AgentState> stateSerializer = new ObjectStreamStateSerializer<>( AgentState::new );
+
+    static class Value {
+        private final String name;
+
+        Value( String name ) {
+            this.name = name;
+        }
+    }
+
+    record Point( int x, int y ) implements Serializable {}
+
+    private Map<String,Object> data() {
+        var data = new HashMap<String,Object>();
+        data.put( "string", "é" + "x".repeat( 70_000 ) );
+        data.put( "empty", "" );
+        data.put( "null", null );
+        data.put( "int", 100 );
+        data.put( "long", 100L );
+        data.put( "double", 1.5 );
+        data.put( "float", 2.5f );
+        data.put( "boolean", true );
+        data.put( "short", (short) 3 );
+        data.put( "byte", (byte) 4 );
+        data.put( "char", 'c' );
+        data.put( "unit", TimeUnit.SECONDS );
+        data.put( "duration", Duration.ofSeconds( 5 ) );
+        data.put( "point", new Point( 1, 2 ) );
+        data.put( "list", new ArrayList<>( List.of( "aa", 200, List.of( "nested" ), Map.of( "k", "v" ) ) ) );
+        data.put( "map", Map.of( "inner", Map.of( "value", 1 ) ) );
+        return data;
+    }
+
+    @Test
+    public void roundTripTest() throws Exception {
+        var data = data();
+        try( var out = ByteBufferPool.heap( 16, 1 ).output() ) {
+            stateSerializer.dataToBuffer( data, out );
+            var result = stateSerializer.dataFromBuffer( out.buffer() );
+            assertEquals( data, result );
+
+            // the same bytes read from a copy
+            assertEquals( data, stateSerializer.dataFromBuffer( new BufferInput( out.toByteArray() ) ) );
+        }
+    }
+
+    @Test
+    public void mappedTypeTest() throws Exception {
+        stateSerializer.mapper().register( Value.class, new NullableObjectSerializer<Value>() {
+            @Override
+            public void write( Value object, ObjectOutput out ) throws IOException {
+                writeNullableUTF( object.name, out );
+            }
+
+            @Override
+            public Value read( ObjectInput in ) throws IOException, ClassNotFoundException {
+                return new Value( readNullableUTF( in ).orElse( null ) );
+            }
+        } );
+        var data = Map.<String,Object>of( "value", new Value( "v" ), "none", new Value( null ), "values", List.of( new Value( "w" ) ) );
+
+        try( var out = ByteBufferPool.shared().output() ) {
+            stateSerializer.dataToBuffer( data, out );
+            var result = stateSerializer.dataFromBuffer( out.buffer() );
+            assertEquals( "v", ((Value) result.get( "value" )).name );
+            assertNull( ((Value) result.get( "none" )).name );
+            assertEquals( "w", ((Value) ((List<?>) result.get( "values" )).get( 0 )).name );
+        }
+    }
+
+    @Test
+    public void directPoolTest() throws Exception {
+        var pool = ByteBufferPool.direct( 64, 2 );
+        var data = data();
+        ByteBuffer first;
+        try( var out = pool.output() ) {
+            stateSerializer.dataToBuffer( data, out );
+            first = out.buffer();
+            assertTrue( first.isDirect() );
+            assertTrue( first.capacity() > 70_000 );
+            assertEquals( data, stateSerializer.dataFromBuffer( first ) );
+
+            var copy = new ByteArrayOutputStream();
+            out.writeTo( new DataOutputStream( copy ) );
+            assertArrayEquals( out.toByteArray(), copy.toByteArray() );
+        }
+        // the grown buffer is given back and reused
+        assertEquals( 1, pool.pooled() );
+        try( var out = pool.output() ) {
+            assertEquals( 0, pool.pooled() );
+            assertEquals( 0, out.size() );
+        }
+        assertThrows( IllegalStateException.class, () -> {
+            var out = pool.output();
+            out.close();
+            out.writeInt( 1 );
+        } );
+    }
+
+    @Test
+    public void poolTest() throws Exception {
+        var pool = ByteBufferPool.heap( 32, 1 );
+        var buffer = pool.acquire( 10 );
+        assertEquals( 32, buffer.capacity() );
+        buffer.putInt( 1 );
+        pool.release( buffer );
+        assertEquals( 1, pool.pooled() );
+        // the pool is full
+        pool.release( ByteBuffer.allocate( 32 ) );
+        assertEquals( 1, pool.pooled() );
+        // wrong kind
+        pool.release( ByteBuffer.allocateDirect( 32 ) );
+
+        var reused = pool.acquire( 16 );
+        assertSame( buffer, reused );
+        assertEquals( 0, reused.position() );
+        assertEquals( 0, pool.pooled() );
+
+        assertThrows( IllegalArgumentException.class, () -> ByteBufferPool.heap( 0, 1 ) );
+    }
+
+    @Test
+    public void truncatedTest() throws Exception {
+        try( var out = ByteBufferPool.shared().output() ) {
+            stateSerializer.dataToBuffer( Map.of( "value", "text" ), out );
+            var truncated = out.buffer().limit( out.size() - 2 );
+            assertThrows( EOFException.class, () -> stateSerializer.dataFromBuffer( truncated ) );
+        }
+    }
+
+    @Test
+    public void cloneObjectTest() throws Exception {
+        var list = new ArrayList<Object>( List.of( "a" ) );
+        var state = stateSerializer.cloneObject( Map.of( "list", list, "point", new Point( 1, 2 ) ) );
+
+        assertEquals( List.of( "a" ), state.value( "list" ).orElseThrow() );
+        assertNotSame( list, state.value( "list" ).orElseThrow() );
+        list.add( "b" );
+        assertEquals( List.of( "a" ), state.value( "list" ).orElseThrow() );
+        assertEquals( new Point( 1, 2 ), state.value( "point" ).orElseThrow() );
+    }
+}
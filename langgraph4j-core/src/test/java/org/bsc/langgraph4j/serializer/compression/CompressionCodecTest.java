@@ -0,0 +1,177 @@
+package org.bsc.langgraph4j.serializer.compression;
+
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressionCodecTest {
+
+    final List<CompressionCodec> codecs = List.of(
+            CompressionCodec.none(),
+            CompressionCodec.deflate(),
+            CompressionCodec.deflate(1),
+            CompressionCodec.gzip(),
+            CompressionCodec.lz4() );
+
+    private static byte[] text( int length ) {
+        var words = List.of( "the ", "state ", "of ", "a ", "graph ", "holds ", "messages ", "and ", "tool ", "outputs\n" );
+        var random = new Random( 42 );
+        var builder = new StringBuilder( length );
+        while( builder.length() < length ) {
+            builder.append( words.get( random.nextInt( words.size() ) ) );
+        }
+        return builder.substring( 0, length ).getBytes( StandardCharsets.UTF_8 );
+    }
+
+    private static byte[] random( int length ) {
+        var bytes = new byte[length];
+        new Random( 7 ).nextBytes( bytes );
+        return bytes;
+    }
+
+    @Test
+    public void roundTripTest() throws Exception {
+        // sizes around the lz4 block and format limits
+        var inputs = List.of(
+                new byte[0], text(1), text(12), text(13), text(300),
+                text( Lz4Codec.BLOCK_SIZE ), text( Lz4Codec.BLOCK_SIZE * 3 + 17 ),
+                random( 1000 ), random( Lz4Codec.BLOCK_SIZE + 1 ),
+                new byte[100_000] );
+        for( var codec : codecs ) {
+            for( var input : inputs ) {
+                var compressed = codec.compress( input );
+                assertArrayEquals( input, codec.decompress( compressed ), () -> codec + " of " + input.length + " bytes" );
+            }
+        }
+    }
+
+    @Test
+    public void compressesTextTest() throws Exception {
+        var input = text( 50_000 );
+        for( var codec : codecs.subList( 1, codecs.size() ) ) {
+            assertTrue( codec.compress( input ).length < input.length / 2, codec::toString );
+        }
+        // incompressible data grows by the framing only
+        var noise = random( 50_000 );
+        assertTrue( CompressionCodec.lz4().compress( noise ).length < noise.length + 16 );
+    }
+
+    @Test
+    public void streamTest() throws Exception {
+        var input = text( 200_000 );
+        for( var codec : codecs ) {
+            var buffer = new ByteArrayOutputStream();
+            try( OutputStream out = codec.compress( buffer ) ) {
+                // writes single bytes and chunks, flushing in the middle
+                out.write( input, 0, 1000 );
+                out.write( input[1000] );
+                out.flush();
+                out.write( input, 1001, input.length - 1001 );
+            }
+            try( InputStream in = codec.decompress( new ByteArrayInputStream( buffer.toByteArray() ) ) ) {
+                assertEquals( input[0], (byte) in.read() );
+                var rest = in.readAllBytes();
+                assertArrayEquals( Arrays.copyOfRange( input, 1, input.length ), rest, codec::toString );
+                assertEquals( -1, in.read() );
+            }
+        }
+    }
+
+    @Test
+    public void corruptedLz4Test() throws Exception {
+        var compressed = CompressionCodec.lz4().compress( text( 10_000 ) );
+        var truncated = Arrays.copyOf( compressed, compressed.length / 2 );
+        assertThrows( IOException.class, () -> CompressionCodec.lz4().decompress( truncated ) );
+
+        var corrupted = compressed.clone();
+        for( int i = 8; i < 40; ++i ) {
+            corrupted[i] = (byte) 0xFF;
+        }
+        assertThrows( IOException.class, () -> CompressionCodec.lz4().decompress( corrupted ) );
+    }
+
+    @Test
+    public void contentTypeTest() throws Exception {
+        var serializer = new ObjectStreamStateSerializer<>( AgentState::new );
+        var data = Map.<String,Object>of( "text", new String( text( 5_000 ), StandardCharsets.UTF_8 ), "count", 3 );
+
+        for( var codec : codecs ) {
+            var contentType = serializer.contentType( codec );
+            var bytes = serializer.dataToBytes( data, codec );
+            assertEquals( data, serializer.dataFromBytes( bytes, contentType ) );
+            assertEquals( codec == CompressionCodec.none(), contentType.equals( serializer.contentType() ) );
+        }
+        assertEquals( serializer.contentType() + "+lz4", serializer.contentType( CompressionCodec.lz4() ) );
+
+        var bytes = serializer.dataToBytes( data, CompressionCodec.lz4() );
+        assertThrows( IllegalStateException.class, () -> serializer.dataFromBytes( bytes, "application/json+lz4" ) );
+        assertThrows( IllegalStateException.class, () -> serializer.dataFromBytes( bytes, serializer.contentType() + "+zstd" ) );
+    }
+
+    @Test
+    public void registerTest() throws Exception {
+        assertEquals( CompressionCodec.lz4(), CompressionCodec.of( "lz4" ).orElseThrow() );
+        assertEquals( CompressionCodec.none(), CompressionCodec.of( "none" ).orElseThrow() );
+        assertTrue( CompressionCodec.of( "reversed" ).isEmpty() );
+
+        // a codec that only reverses the bits, enough to check the lookup
+        CompressionCodec reversed = new CompressionCodec() {
+            @Override
+            public String name() {
+                return "reversed";
+            }
+
+            @Override
+            public OutputStream compress( OutputStream out ) {
+                return new FilterOutputStream( out ) {
+                    @Override
+                    public void write( int b ) throws IOException {
+                        out.write( ~b );
+                    }
+                };
+            }
+
+            @Override
+            public InputStream decompress( InputStream in ) {
+                return new FilterInputStream( in ) {
+                    @Override
+                    public int read() throws IOException {
+                        int b = in.read();
+                        return b < 0 ? b : ~b & 0xFF;
+                    }
+
+                    @Override
+                    public int read( byte[] b, int off, int len ) throws IOException {
+                        int count = in.read( b, off, len );
+                        for( int i = 0; i < count; ++i ) {
+                            b[off + i] = (byte) ~b[off + i];
+                        }
+                        return count;
+                    }
+                };
+            }
+        };
+        CompressionCodec.register( reversed );
+        var serializer = new ObjectStreamStateSerializer<>( AgentState::new );
+        var bytes = serializer.dataToBytes( Map.of( "value", "reversed" ), reversed );
+        assertEquals( Map.of( "value", "reversed" ), serializer.dataFromBytes( bytes, serializer.contentType() + "+reversed" ) );
+
+        assertThrows( IllegalArgumentException.class, () -> CompressionCodec.register( CompressionCodec.none() ) );
+        assertThrows( IllegalArgumentException.class, () -> CompressionCodec.deflate( 10 ) );
+    }
+}
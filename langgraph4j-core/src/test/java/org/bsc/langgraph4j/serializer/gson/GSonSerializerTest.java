@@ -3,11 +3,14 @@ package org.bsc.langgraph4j.serializer.gson;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import org.bsc.langgraph4j.NodeOutput;
+import org.bsc.langgraph4j.serializer.Serializer;
 import org.bsc.langgraph4j.serializer.plain_text.gson.GsonStateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -86,5 +89,19 @@ public class GSonSerializerTest {
         assertEquals( "{\"node\":\"node\",\"state\":null}", json );
     }
 
+    @Test
+    public void streamingCompatibilityTest() throws Exception {
+        var serializer = new GsonSerializer();
+        var data = Map.<String,Object>of( "text", "àé" + "x".repeat( 100_000 ), "flag", true );
+
+        byte[] legacy;
+        try( var stream = new ByteArrayOutputStream(); var out = new ObjectOutputStream( stream ) ) {
+            Serializer.writeUTF( serializer.writeDataAsString( data ), out );
+            out.flush();
+            legacy = stream.toByteArray();
+        }
+        assertArrayEquals( legacy, serializer.dataToBytes( data ) );
+        assertEquals( data, serializer.dataFromBytes( legacy ) );
+    }
 
 }
@@ -3,12 +3,15 @@ package org.bsc.langgraph4j.serializer.jackson;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.MapperFeature;
 import org.bsc.langgraph4j.NodeOutput;
+import org.bsc.langgraph4j.serializer.Serializer;
 import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonStateSerializer;
 import org.bsc.langgraph4j.serializer.plain_text.jackson.TypeMapper;
 import org.bsc.langgraph4j.state.AgentState;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.math.BigDecimal;
 import java.util.Map;
 import java.util.Objects;
@@ -154,5 +157,24 @@ public class JacksonSerializerTest {
 
 
 
+    }
+
+    @Test
+    public void streamingCompatibilityTest() throws Exception {
+        var serializer = new MyJacksonStateSerializer();
+        var data = Map.<String,Object>of( "text", "àé" + "x".repeat( 100_000 ), "count", 3 );
+
+        // the stored data is the length-prefixed text written before the streaming mode
+        byte[] legacy;
+        try( var stream = new ByteArrayOutputStream(); var out = new ObjectOutputStream( stream ) ) {
+            Serializer.writeUTF( serializer.writeDataAsString( data ), out );
+            out.flush();
+            legacy = stream.toByteArray();
+        }
+        assertArrayEquals( legacy, serializer.dataToBytes( data ) );
+        assertEquals( data, serializer.dataFromBytes( legacy ) );
+        assertEquals( data, serializer.readDataFromString( serializer.writeDataAsString( data ) ) );
+
+        assertEquals( "application/json", serializer.contentType() );
     }
 }
@@ -0,0 +1,102 @@
+package org.bsc.langgraph4j.serializer.std;
+
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.checkpoint.MemorySaver;
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.buffer.ByteBufferPool;
+import org.bsc.langgraph4j.state.AgentState;
+import org.bsc.langgraph4j.state.Channel;
+import org.bsc.langgraph4j.state.Channels;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaStateSerializerTest {
+
+    static final Map<String, Channel<?>> SCHEMA = Map.of(
+            "messages", Channels.<String>appender( ArrayList::new ).withSerializer( ChannelSerializers.listOf( ChannelSerializers.string() ) ),
+            "step", Channels.<Integer>base( () -> 0 ).withSerializer( ChannelSerializers.integer() ),
+            "total", Channels.<Long>base( () -> 0L ).withSerializer( ChannelSerializers.longValue() ),
+            "payload", Channels.base( (Object a, Object b) -> b ) );
+
+    private Map<String,Object> data() {
+        var data = new HashMap<String,Object>();
+        data.put( "messages", IntStream.range( 0, 100 ).mapToObj( i -> "message " + i ).toList() );
+        data.put( "step", -5 );
+        data.put( "total", Long.MAX_VALUE );
+        data.put( "payload", Map.of( "nested", List.of( 1, 2 ) ) );
+        data.put( "extra", "outside the schema" );
+        data.put( "empty", null );
+        return data;
+    }
+
+    @Test
+    public void roundTripTest() throws Exception {
+        var serializer = new SchemaStateSerializer<>( AgentState::new, SCHEMA );
+        var data = data();
+
+        var bytes = serializer.dataToBytes( data );
+        assertEquals( data, serializer.dataFromBytes( bytes ) );
+
+        try( var out = ByteBufferPool.shared().output() ) {
+            serializer.dataToBuffer( data, out );
+            assertEquals( data, serializer.dataFromBuffer( out.buffer() ) );
+        }
+
+        var standard = new ObjectStreamStateSerializer<>( AgentState::new ).dataToBytes( data );
+        assertTrue( bytes.length < standard.length, () -> bytes.length + " >= " + standard.length );
+    }
+
+    @Test
+    public void schemaEvolutionTest() throws Exception {
+        // a serializer declared on a channel later still reads the values written without it
+        var withoutSerializers = new SchemaStateSerializer<>( AgentState::new,
+                Map.of( "messages", Channels.appender( ArrayList::new ), "step", Channels.base( () -> 0 ),
+                        "total", Channels.base( () -> 0L ), "payload", Channels.base( (Object a, Object b) -> b ) ) );
+        var serializer = new SchemaStateSerializer<>( AgentState::new, SCHEMA );
+        var data = data();
+        assertEquals( data, serializer.dataFromBytes( withoutSerializers.dataToBytes( data ) ) );
+
+        // the ids are bound to the channel keys
+        var other = new SchemaStateSerializer<>( AgentState::new, Map.of( "messages", Channels.appender( ArrayList::new ) ) );
+        var bytes = serializer.dataToBytes( data );
+        assertThrows( IllegalStateException.class, () -> other.dataFromBytes( bytes ) );
+        // unless the data has no channel values
+        assertEquals( Map.of( "extra", "x" ), other.dataFromBytes( serializer.dataToBytes( Map.of( "extra", "x" ) ) ) );
+
+        assertNotEquals( new ObjectStreamStateSerializer<>( AgentState::new ).contentType(), serializer.contentType() );
+    }
+
+    @Test
+    public void wrongValueTypeTest() {
+        var serializer = new SchemaStateSerializer<>( AgentState::new, SCHEMA );
+        assertThrows( java.io.IOException.class, () -> serializer.dataToBytes( Map.of( "step", "not a number" ) ) );
+    }
+
+    @Test
+    public void graphTest() throws Exception {
+        var serializer = new SchemaStateSerializer<>( AgentState::new, SCHEMA );
+        var graph = new StateGraph<>( SCHEMA, serializer )
+                .addNode( "agent", node_async( state -> Map.of( "messages", "hello", "step", state.<Integer>value( "step" ).orElse( 0 ) + 1 ) ) )
+                .addEdge( START, "agent" )
+                .addEdge( "agent", END )
+                .compile( CompileConfig.builder().checkpointSaver( new MemorySaver() ).build() );
+
+        var config = RunnableConfig.builder().threadId( "schema" ).build();
+        var result = graph.invoke( Map.of( "messages", "hi" ), config ).orElseThrow();
+
+        assertEquals( List.of( "hi", "hello" ), result.value( "messages" ).orElseThrow() );
+        assertEquals( 1, result.<Integer>value( "step" ).orElseThrow() );
+        assertEquals( List.of( "hi", "hello" ), graph.getState( config ).state().value( "messages" ).orElseThrow() );
+    }
+}
@@ -0,0 +1,60 @@
+package org.bsc.langgraph4j.serializer.std;
+
+import org.bsc.langgraph4j.serializer.Serializer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SerializerMapperTest {
+
+    static class NamedSerializer implements Serializer<Object> {
+        final String name;
+
+        NamedSerializer( String name ) {
+            this.name = name;
+        }
+
+        @Override
+        public void write(Object object, ObjectOutput out) throws IOException {
+        }
+
+        @Override
+        public Object read(ObjectInput in) throws IOException, ClassNotFoundException {
+            return null;
+        }
+    }
+
+    private static String nameOf( SerializerMapper mapper, Class<?> type ) {
+        return mapper.getSerializer( type ).map( s -> ((NamedSerializer)s).name ).orElse( null );
+    }
+
+    @Test
+    public void resolutionTest() {
+        var mapper = new SerializerMapper()
+                .register( Collection.class, new NamedSerializer( "collection" ) )
+                .register( ArrayList.class, new NamedSerializer( "arrayList" ) );
+
+        assertEquals( "arrayList", nameOf( mapper, ArrayList.class ) );
+        assertEquals( "collection", nameOf( mapper, LinkedList.class ) );
+        assertNull( nameOf( mapper, String.class ) );
+        assertEquals( "arrayList", ((NamedSerializer)mapper.getSerializer( ArrayList.class.getName() ).orElseThrow()).name );
+
+        // the most specific supertype wins, whatever the registration order
+        mapper.register( List.class, new NamedSerializer( "list" ) );
+        assertEquals( "list", nameOf( mapper, LinkedList.class ) );
+
+        // a registration replaces the previous one and the cached resolutions
+        mapper.register( ArrayList.class, new NamedSerializer( "arrayList2" ) );
+        assertEquals( "arrayList2", nameOf( mapper, ArrayList.class ) );
+        mapper.register( String.class, new NamedSerializer( "string" ) );
+        assertEquals( "string", nameOf( mapper, String.class ) );
+    }
+}
@@ -136,4 +136,26 @@ public class AgentStateTest {
         assertIterableEquals( List.of( "x1", "v1", "v2", "v3"), state.messages() );
     }
 
+    @Test
+    public void sharedStructureTest() {
+
+        var state = new MessagesState<String>( Map.of( "messages", List.of("v1"), "attr1", "value1") );
+
+        // data is immutable and always the same instance
+        assertSame( state.data(), state.data() );
+        assertThrows( UnsupportedOperationException.class, () -> state.data().put("attr2", "value2") );
+
+        // updating a state with its own data is a no-op
+        assertSame( state.data(), AgentState.updateState( state, state.data(), MessagesState.SCHEMA) );
+
+        var data = AgentState.updateState( state, Map.of( "attr2", "value2"), MessagesState.SCHEMA);
+
+        assertEquals( 3, data.size() );
+        assertSame( state.data().get("messages"), data.get("messages") );
+        assertEquals( 2, state.data().size() );
+
+        data = AgentState.updateState( data, mapOf( "attr1", null), MessagesState.SCHEMA);
+        assertEquals( Map.of( "messages", List.of("v1"), "attr2", "value2"), data );
+    }
+
 }
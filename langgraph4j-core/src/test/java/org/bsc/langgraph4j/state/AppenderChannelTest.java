@@ -0,0 +1,130 @@
+package org.bsc.langgraph4j.state;
+
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.utils.PersistentList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AppenderChannelTest {
+
+    @Test
+    public void appendWithoutDuplicatesTest() {
+        var channel = Channels.<String>appender(ArrayList::new);
+
+        var value = channel.update("messages", null, List.of("a", "b", "a"));
+        assertInstanceOf( PersistentList.class, CopyOnWriteStateCloner.unwrap( (List<?>) value ) );
+        assertEquals( List.of("a", "b"), value );
+
+        var value2 = channel.update("messages", value, List.of("b", "c"));
+        assertEquals( List.of("a", "b", "c"), value2 );
+        assertEquals( List.of("a", "b"), value );
+
+        var value3 = channel.update("messages", value2, RemoveByHash.of("b"));
+        assertEquals( List.of("a", "c"), value3 );
+
+        // nothing to remove
+        assertSame( value3, channel.update("messages", value3, RemoveByHash.of("x")) );
+
+        var value4 = channel.update("messages", value3, List.of("d", RemoveByHash.of("a")));
+        assertEquals( List.of("c", "d"), value4 );
+    }
+
+    @Test
+    public void appendWithDuplicatesTest() {
+        var channel = Channels.<String>appenderWithDuplicate(ArrayList::new);
+
+        var value = channel.update("messages", List.of("a"), List.of("a", "b"));
+        assertInstanceOf( PersistentList.class, CopyOnWriteStateCloner.unwrap( (List<?>) value ) );
+        assertEquals( List.of("a", "a", "b"), value );
+
+        value = channel.update("messages", value, RemoveByHash.of("a"));
+        assertEquals( List.of("b"), value );
+    }
+
+    @Test
+    public void appendOnClonedStateTest() throws Exception {
+        var channel = Channels.<String>appender(ArrayList::new);
+
+        var value = channel.update("messages", null, List.of("a", "b"));
+
+        // the state given to the nodes wraps the list in a copy-on-write view
+        var serializer = new ObjectStreamStateSerializer<MessagesState<String>>(MessagesState::new);
+        var clone = StateCloner.copyOnWrite().cloneState( Map.of("messages", value), serializer );
+
+        assertNotSame( value, clone.messages() );
+        assertSame( CopyOnWriteStateCloner.unwrap( (List<?>) value ), CopyOnWriteStateCloner.unwrap(clone.messages()) );
+
+        var value2 = channel.update("messages", clone.messages(), "c");
+        assertEquals( List.of("a", "b", "c"), value2 );
+    }
+
+    @Test
+    public void appendWithCustomReducerTest() {
+        // a reducer modifying the accumulated values in place
+        class SortedChannel extends AppenderChannel<String> {
+            SortedChannel() {
+                super( (left, right) -> {
+                    left.addAll(right);
+                    left.sort(null);
+                    return left;
+                }, ArrayList::new );
+            }
+        }
+        var channel = new SortedChannel();
+
+        var value = channel.update("messages", null, List.of("c", "a"));
+        assertEquals( List.of("a", "c"), value );
+
+        var value2 = channel.update("messages", value, List.of("b", RemoveByHash.of("c")));
+        assertEquals( List.of("a", "b"), value2 );
+        assertEquals( List.of("a", "c"), value );
+
+        var value3 = channel.update("messages", PersistentList.copyOf(List.of("d")), "a");
+        assertEquals( List.of("a", "d"), value3 );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void updateValuesInPlaceTest() {
+        var channel = Channels.<String>appender(ArrayList::new);
+
+        var value = (List<String>) channel.update("messages", null, List.of("a", "b"));
+        var value2 = (List<String>) channel.update("messages", value, List.of("c"));
+
+        // the accumulated values can be updated in place without affecting the previous ones
+        value2.add("d");
+        value2.remove("a");
+        assertEquals( List.of("b", "c", "d"), value2 );
+        assertEquals( List.of("a", "b"), value );
+        assertEquals( List.of("b", "c", "d", "e"), channel.update("messages", value2, "e") );
+    }
+
+    @Test
+    public void appendWithCustomReducerSharesValuesTest() {
+        // a reducer appending to the accumulated values in place
+        class LoggingChannel extends AppenderChannel<String> {
+            LoggingChannel() {
+                super( (left, right) -> {
+                    left.addAll(right);
+                    return left;
+                }, ArrayList::new );
+            }
+        }
+        var channel = new LoggingChannel();
+
+        var value = channel.update("messages", null, List.of("a", "b"));
+        var value2 = channel.update("messages", value, "c");
+        assertEquals( List.of("a", "b", "c"), value2 );
+        assertEquals( List.of("a", "b"), value );
+
+        // the appended values are added to the persistent list, without copying the previous ones
+        assertInstanceOf( PersistentList.class, CopyOnWriteStateCloner.unwrap( (List<?>) value2 ) );
+    }
+
+}
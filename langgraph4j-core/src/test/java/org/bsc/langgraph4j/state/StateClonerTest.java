@@ -0,0 +1,159 @@
+package org.bsc.langgraph4j.state;
+
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.GraphStateException;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.checkpoint.MemorySaver;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateClonerTest {
+
+    final ObjectStreamStateSerializer<MessagesState<String>> serializer = new ObjectStreamStateSerializer<>(MessagesState::new);
+
+    @Test
+    public void copyOnWriteSharesValuesTest() throws Exception {
+        var messages = new ArrayList<>(List.of("m1", "m2"));
+        var nested = new HashMap<String,Object>(Map.of("k1", "v1"));
+        var value = new StringBuilder("value");
+
+        var data = Map.<String,Object>of("messages", messages, "nested", nested, "value", value);
+
+        var clone = StateCloner.copyOnWrite().cloneState(data, serializer);
+
+        assertSame( value, clone.value("value").orElseThrow() );
+        assertEquals( messages, clone.messages() );
+        assertNotSame( messages, clone.messages() );
+
+        // writes on the clone don't affect the source
+        clone.messages().add("m3");
+        clone.<Map<String,Object>>value("nested").orElseThrow().put("k2", "v2");
+
+        assertEquals( List.of("m1", "m2"), messages );
+        assertEquals( Map.of("k1", "v1"), nested );
+        assertEquals( List.of("m1", "m2", "m3"), clone.messages() );
+
+        // a clone of the clone doesn't see writes done after it has been taken
+        var clone2 = StateCloner.copyOnWrite().cloneState(clone.data(), serializer);
+        clone.messages().add("m4");
+
+        assertEquals( List.of("m1", "m2", "m3"), clone2.messages() );
+        assertEquals( List.of("m1", "m2", "m3", "m4"), clone.messages() );
+
+        // copy-on-write views are serialized as plain containers
+        var cloned = serializer.cloneObject( clone2.data() );
+        assertEquals( List.of("m1", "m2", "m3"), cloned.messages() );
+        assertEquals( Map.of("k1", "v1", "k2", "v2"), cloned.value("nested").orElseThrow() );
+    }
+
+    @Test
+    public void copyOnWriteProtectsNestedContainersTest() throws Exception {
+        var inner = new ArrayList<>(List.of("i1"));
+        var nested = new HashMap<String,Object>(Map.of("inner", inner));
+        var list = new ArrayList<Object>(List.of(new ArrayList<>(List.of("l1"))));
+
+        var data = Map.<String,Object>of("nested", nested, "list", list);
+
+        var clone = StateCloner.copyOnWrite().cloneState(data, serializer);
+        var clone2 = StateCloner.copyOnWrite().cloneState(clone.data(), serializer);
+
+        // writes on the nested containers of a clone don't affect the source and the other clones
+        clone.<Map<String,List<String>>>value("nested").orElseThrow().get("inner").add("i2");
+        clone.<List<List<String>>>value("list").orElseThrow().get(0).add("l2");
+        clone2.<Map<String,List<String>>>value("nested").orElseThrow().values().forEach( l -> l.add("i3") );
+
+        assertEquals( List.of("i1"), inner );
+        assertEquals( List.of(List.of("l1")), list );
+        assertEquals( Map.of("inner", List.of("i1", "i2")), clone.value("nested").orElseThrow() );
+        assertEquals( List.of(List.of("l1", "l2")), clone.value("list").orElseThrow() );
+        assertEquals( Map.of("inner", List.of("i1", "i3")), clone2.value("nested").orElseThrow() );
+        assertEquals( List.of(List.of("l1")), clone2.value("list").orElseThrow() );
+    }
+
+    @Test
+    public void copyOnWriteSnapshotsAcrossThreadsTest() throws Exception {
+        var data = Map.<String,Object>of("messages", new ArrayList<>());
+        var state = StateCloner.copyOnWrite().cloneState(data, serializer);
+        final List<String> messages = state.messages();
+
+        var writer = CompletableFuture.runAsync( () -> {
+            for( int i = 0; i < 10_000; ++i ) {
+                messages.add( String.valueOf(i) );
+            }
+        });
+        // every snapshot holds a prefix of the written values
+        while( !writer.isDone() ) {
+            var snapshot = StateCloner.copyOnWrite().cloneState(state.data(), serializer).messages();
+            for( int i = 0; i < snapshot.size(); ++i ) {
+                assertEquals( String.valueOf(i), snapshot.get(i) );
+            }
+        }
+        writer.join();
+        assertEquals( 10_000, messages.size() );
+    }
+
+    @Test
+    public void serializerDeepCopiesValuesTest() throws Exception {
+        var messages = new ArrayList<>(List.of("m1", "m2"));
+
+        var clone = StateCloner.serializer().cloneState(Map.of("messages", messages), serializer);
+
+        assertEquals( messages, clone.messages() );
+        assertNotSame( messages, clone.messages() );
+        clone.messages().add("m3");
+        assertEquals( List.of("m1", "m2"), messages );
+    }
+
+    private void isolatedStateInGraph( StateCloner cloner ) throws GraphStateException {
+
+        var workflow = new StateGraph<>(MessagesState.SCHEMA, serializer)
+                .addNode("agent_1", node_async(state -> {
+                    // try to alter the given state in place
+                    state.messages().add("unexpected");
+                    return Map.of("messages", "message1");
+                }))
+                .addNode("agent_2", node_async(state -> Map.of("messages", "message2")))
+                .addEdge(START, "agent_1")
+                .addEdge("agent_1", "agent_2")
+                .addEdge("agent_2", END);
+
+        var saver = new MemorySaver();
+
+        var app = workflow.compile(CompileConfig.builder()
+                .checkpointSaver(saver)
+                .stateCloner(cloner)
+                .build());
+
+        var config = RunnableConfig.builder().threadId("cloner").build();
+
+        var result = app.invoke(Map.of("messages", "message0"), config);
+
+        assertTrue(result.isPresent());
+        assertTrue(result.get().messages().containsAll(List.of("message0", "message1", "message2")));
+
+        var history = new ArrayList<>(app.getStateHistory(config));
+
+        // checkpoint taken before the node action is not affected by its in place updates
+        assertEquals(3, history.size());
+        assertEquals("agent_2", history.get(0).node());
+        assertIterableEquals(List.of("message0"), history.get(2).state().messages());
+    }
+
+    @Test
+    public void isolatedStateInGraphTest() throws Exception {
+        assertSame( StateCloner.copyOnWrite(), CompileConfig.builder().build().stateCloner() );
+
+        isolatedStateInGraph( StateCloner.copyOnWrite() );
+        isolatedStateInGraph( StateCloner.serializer() );
+    }
+}
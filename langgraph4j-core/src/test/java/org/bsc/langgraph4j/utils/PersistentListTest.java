@@ -0,0 +1,158 @@
+package org.bsc.langgraph4j.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentListTest {
+
+    @Test
+    public void plusTest() {
+        var expected = new ArrayList<Integer>();
+        var actual = PersistentList.<Integer>empty();
+        var snapshots = new ArrayList<PersistentList<Integer>>();
+
+        // cross several levels of the trie
+        for( int i = 0; i < 40_000; ++i ) {
+            expected.add(i);
+            actual = actual.plus(i);
+            if( i % 997 == 0 ) {
+                snapshots.add(actual);
+            }
+        }
+
+        assertEquals( expected.size(), actual.size() );
+        assertEquals( expected, actual );
+        for( int i = 0; i < expected.size(); i += 31 ) {
+            assertEquals( expected.get(i), actual.get(i) );
+        }
+
+        // previous versions are not affected by the later appends
+        for( var snapshot : snapshots ) {
+            assertEquals( expected.subList(0, snapshot.size()), snapshot );
+        }
+
+        final var list = actual;
+        assertThrows( IndexOutOfBoundsException.class, () -> list.get(list.size()) );
+        assertThrows( UnsupportedOperationException.class, () -> list.add(1) );
+        assertThrows( UnsupportedOperationException.class, () -> list.remove(0) );
+        assertThrows( UnsupportedOperationException.class, () -> list.set(0, 1) );
+    }
+
+    @Test
+    public void containsHashCodeTest() {
+        var list = PersistentList.copyOf( List.of("a", "b") );
+
+        assertTrue( list.containsHashCode("a".hashCode()) );
+        assertFalse( list.containsHashCode("c".hashCode()) );
+
+        // the index is maintained by the derived lists
+        var list2 = list.plus("c").plus(null);
+        assertTrue( list2.containsHashCode("c".hashCode()) );
+        assertTrue( list2.containsHashCode(0) );
+        assertFalse( list.containsHashCode("c".hashCode()) );
+
+        var list3 = PersistentList.copyOf( IntStream.range(0, 100).boxed().toList() );
+        assertTrue( list3.containsHashCode(99) );
+        assertFalse( list3.containsHashCode(100) );
+    }
+
+    @Test
+    public void takeTest() {
+        var expected = IntStream.range(0, 40_000).boxed().toList();
+        var list = PersistentList.copyOf( expected );
+        assertTrue( list.containsHashCode(39_999) );
+
+        for( int count : List.of(0, 1, 31, 32, 33, 64, 1024, 1025, 1056, 32_768, 32_769, 33_000, 39_999, 40_000) ) {
+            var prefix = list.take(count);
+            assertEquals( expected.subList(0, count), prefix );
+            assertEquals( count > 0, prefix.containsHashCode(count - 1) );
+            assertFalse( prefix.containsHashCode(count) );
+
+            // the prefix grows again without affecting the source list
+            var grown = prefix;
+            for( int i = 0; i < 2_000; ++i ) {
+                grown = grown.plus( -i );
+            }
+            assertEquals( count + 2_000, grown.size() );
+            assertEquals( expected.subList(0, count), grown.subList(0, count) );
+            assertEquals( -1_999, grown.get(grown.size() - 1) );
+            assertTrue( grown.containsHashCode(-1_999) );
+        }
+        assertEquals( expected, list );
+        assertSame( list, list.take(list.size()) );
+        assertThrows( IndexOutOfBoundsException.class, () -> list.take(list.size() + 1) );
+    }
+
+    /**
+     * Element counting the calls to {@link #equals(Object)}.
+     */
+    record Counted( int value, int[] comparisons ) {
+        @Override
+        public boolean equals( Object other ) {
+            ++comparisons[0];
+            return other instanceof Counted counted && counted.value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value;
+        }
+    }
+
+    @Test
+    public void startsWithTest() {
+        var comparisons = new int[1];
+        var expected = IntStream.range(0, 40_000).mapToObj( i -> new Counted(i, comparisons) ).toList();
+        var list = PersistentList.copyOf( expected );
+
+        for( int count : List.of(0, 1, 31, 32, 33, 1024, 1025, 32_768, 32_769, 39_999, 40_000) ) {
+            var prefix = list.take(count);
+            assertTrue( list.startsWith(prefix) );
+            assertTrue( prefix.plus( new Counted(-1, comparisons) ).startsWith(prefix) );
+            // a list that doesn't share the structure is compared element by element
+            assertTrue( list.startsWith( PersistentList.copyOf( new ArrayList<>(prefix) ) ) );
+            if( count > 0 ) {
+                var changed = new ArrayList<>(prefix);
+                changed.set( count / 2, new Counted(-1, comparisons) );
+                assertFalse( list.startsWith( PersistentList.copyOf(changed) ) );
+            }
+        }
+        assertFalse( list.take(10).startsWith(list) );
+
+        // the elements shared with the prefix are not compared, only the ones of its tail chunk
+        var grown = list;
+        for( int i = 0; i < 5_000; ++i ) {
+            grown = grown.plus( new Counted(-i, comparisons) );
+        }
+        comparisons[0] = 0;
+        assertTrue( grown.startsWith(list) );
+        assertTrue( comparisons[0] <= 32 );
+    }
+
+    @Test
+    public void copyOfTest() throws Exception {
+        var source = List.of("a", "b", "c");
+        var list = PersistentList.copyOf(source);
+
+        assertEquals( source, list );
+        assertSame( list, PersistentList.copyOf(list) );
+        assertSame( PersistentList.empty(), PersistentList.copyOf(List.of()) );
+
+        // serialized as a plain list
+        var bytes = new ByteArrayOutputStream();
+        try( var out = new ObjectOutputStream(bytes) ) {
+            out.writeObject(list);
+        }
+        try( var in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())) ) {
+            var result = in.readObject();
+            assertInstanceOf( ArrayList.class, result );
+            assertEquals( source, result );
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.bsc.langgraph4j.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentMapTest {
+
+    /**
+     * Key with a poor hash code, used to exercise hash collisions
+     */
+    record Key( int value ) implements Serializable {
+        @Override
+        public int hashCode() {
+            return value % 7;
+        }
+    }
+
+    @Test
+    public void plusMinusTest() {
+        var empty = PersistentMap.<String,Object>empty();
+        assertTrue( empty.isEmpty() );
+        assertSame( empty, empty.minus("k1") );
+
+        var map1 = empty.plus("k1", "v1");
+        var map2 = map1.plus("k2", "v2").plus(null, "null key").plus("k3", null);
+
+        assertEquals( 1, map1.size() );
+        assertEquals( 4, map2.size() );
+        assertEquals( "v1", map2.get("k1") );
+        assertEquals( "null key", map2.get(null) );
+        assertTrue( map2.containsKey("k3") );
+        assertNull( map2.get("k3") );
+        assertFalse( map1.containsKey("k2") );
+
+        var value = "v1";
+        assertSame( map1, map1.plus("k1", value) );
+        assertSame( map2, map2.minus("unknown") );
+
+        var map3 = map2.minus("k1");
+        assertEquals( 3, map3.size() );
+        assertFalse( map3.containsKey("k1") );
+        assertEquals( "v1", map2.get("k1") );
+
+        assertThrows( UnsupportedOperationException.class, () -> map2.put("k4", "v4") );
+        assertThrows( UnsupportedOperationException.class, () -> map2.remove("k1") );
+        assertThrows( UnsupportedOperationException.class, map2::clear );
+    }
+
+    @Test
+    public void consistentWithHashMapTest() {
+        var random = new Random(42);
+        var expected = new HashMap<Object,Integer>();
+        var actual = PersistentMap.<Object,Integer>empty();
+
+        for( int i = 0; i < 20_000; ++i ) {
+            Object key = ( i % 3 == 0 ) ? new Key(random.nextInt(500)) : random.nextInt(2_000);
+            if( random.nextInt(3) == 0 ) {
+                expected.remove(key);
+                actual = actual.minus(key);
+            }
+            else {
+                expected.put(key, i);
+                actual = actual.plus(key, i);
+            }
+            assertEquals( expected.size(), actual.size() );
+        }
+
+        assertEquals( expected, actual );
+        assertEquals( actual, expected );
+        assertEquals( expected.hashCode(), actual.hashCode() );
+        assertEquals( expected.size(), actual.entrySet().stream().filter(Objects::nonNull).count() );
+
+        for( var key : expected.keySet() ) {
+            actual = actual.minus(key);
+        }
+        assertTrue( actual.isEmpty() );
+        assertFalse( actual.entrySet().iterator().hasNext() );
+    }
+
+    @Test
+    public void copyOfTest() throws Exception {
+        var source = Map.<String,Object>of("k1", "v1", "k2", 2);
+        var map = PersistentMap.copyOf(source);
+
+        assertEquals( source, map );
+        assertSame( map, PersistentMap.copyOf(map) );
+
+        // serialized as a plain map
+        var bytes = new ByteArrayOutputStream();
+        try( var out = new ObjectOutputStream(bytes) ) {
+            out.writeObject(map);
+        }
+        try( var in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())) ) {
+            var result = in.readObject();
+            assertInstanceOf( HashMap.class, result );
+            assertEquals( source, result );
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package org.bsc.langgraph4j.checkpoint;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import oracle.jdbc.OracleStatement;
 import oracle.jdbc.OracleType;
@@ -65,7 +64,7 @@ import java.util.*;
  * </pre>
  * </p>
  */
-public class OracleSaver extends MemorySaver {
+public class OracleSaver extends JdbcCheckpointSaver {
 
     // DDL statements
     private static final String CREATE_THREAD_TABLE = """
@@ -107,11 +106,13 @@ public class OracleSaver extends MemorySaver {
             VALUES (new.THREAD_ID, new.THREAD_NAME, new.IS_RELEASED)
             """;
 
+    private static final String SELECT_THREAD_ID = """
+            SELECT thread_id FROM LANGRAPH4J_THREAD WHERE THREAD_NAME = ? AND IS_RELEASED = FALSE
+            """;
+
     private static final String INSERT_CHECKPOINT = """
-            INSERT INTO LANGRAPH4J_CHECKPOINT(checkpoint_id, thread_id, node_id, next_node_id, state_data)
-            SELECT ?, thread_id, ?, ?, ?
-            FROM LANGRAPH4J_THREAD
-            WHERE THREAD_NAME = ? AND IS_RELEASED = FALSE
+            INSERT INTO LANGRAPH4J_CHECKPOINT(checkpoint_id, thread_id, node_id, next_node_id, state_data, saved_at)
+            VALUES (?, ?, ?, ?, ?, ?)
             """;
 
     private static final String UPDATE_CHECKPOINT = """
@@ -124,7 +125,7 @@ public class OracleSaver extends MemorySaver {
             WHERE checkpoint_id = ?
             """;
 
-    private static final String SELECT_CHECKPOINTS = """
+    private static final String SELECT_HEAD_CHECKPOINT = """
             SELECT
               c.checkpoint_id,
               c.node_id,
@@ -134,6 +135,26 @@ public class OracleSaver extends MemorySaver {
               INNER JOIN LANGRAPH4J_THREAD t ON c.thread_id = t.thread_id
             WHERE t.thread_name = ? AND t.is_released != TRUE
             ORDER BY c.saved_at DESC
+            FETCH FIRST 1 ROWS ONLY
+            """;
+
+    private static final String SELECT_CHECKPOINTS = """
+            SELECT
+              c.checkpoint_id,
+              c.node_id,
+              c.next_node_id
+            FROM LANGRAPH4J_CHECKPOINT c
+              INNER JOIN LANGRAPH4J_THREAD t ON c.thread_id = t.thread_id
+            WHERE t.thread_name = ? AND t.is_released != TRUE
+            ORDER BY c.saved_at DESC
+            """;
+
+    private static final String SELECT_STATES = """
+            SELECT
+              checkpoint_id,
+              state_data
+            FROM LANGRAPH4J_CHECKPOINT
+            WHERE checkpoint_id IN (%s)
             """;
 
     private static final String DELETE_CHECKPOINTS = """
@@ -145,19 +166,23 @@ public class OracleSaver extends MemorySaver {
             """;
 
     // Configuration
-    private final DataSource dataSource;
     private final CreateOption createOption;
+    private final int historyPageSize;
+    private final ObjectMapper objectMapper = new ObjectMapper(new OsonFactory());
 
     /**
      * Private constructor used by the builder to create a new instance of
      * OracleSaver.
      * 
-     * @param dataSource   the data source
-     * @param createOption the create options
+     * @param dataSource      the data source
+     * @param createOption    the create options
+     * @param cachePolicy     the policy that bounds the threads kept in memory
+     * @param historyPageSize the number of states loaded together
      */
-    private OracleSaver(DataSource dataSource, CreateOption createOption) {
-        this.dataSource = dataSource;
+    private OracleSaver(DataSource dataSource, CreateOption createOption, CheckpointCachePolicy cachePolicy, int historyPageSize) {
+        super(dataSource, 1, cachePolicy);
         this.createOption = createOption;
+        this.historyPageSize = historyPageSize;
         initTables();
     }
 
@@ -171,8 +196,60 @@ public class OracleSaver extends MemorySaver {
         return new Builder();
     }
 
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> decodeState(ResultSet resultSet, int column) throws Exception {
+        byte[] osonBytes = resultSet.getObject(column, OracleJsonDatum.class).shareBytes();
+        return objectMapper.readValue(osonBytes, Map.class);
+    }
+
+    /**
+     * Loads the newest checkpoint only, the history is loaded by
+     * {@link #loadedCheckpoints(RunnableConfig, LinkedList)} when an operation
+     * needs it.
+     *
+     * @param config      the configuration
+     * @param checkpoints the empty list that receives the checkpoint
+     * @return true if the thread has no checkpoints
+     * @throws Exception if an error occurs while the checkpoint is being loaded
+     *                   from the database.
+     */
+    @Override
+    protected boolean loadedHead(RunnableConfig config, LinkedList<Checkpoint> checkpoints) throws Exception {
+        final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
+
+        try (Connection connection = getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(SELECT_HEAD_CHECKPOINT)) {
+
+            // see loadedStates about defineColumnType
+            OracleStatement oracleStatement = preparedStatement.unwrap(OracleStatement.class);
+            oracleStatement.defineColumnType(1, OracleTypes.VARCHAR); // checkpoint_id
+            oracleStatement.defineColumnType(2, OracleTypes.VARCHAR); // node_id
+            oracleStatement.defineColumnType(3, OracleTypes.VARCHAR); // next_node_id
+            oracleStatement.defineColumnType(4, OracleTypes.JSON, Integer.MAX_VALUE); // state_data
+            oracleStatement.setLobPrefetchSize(Integer.MAX_VALUE); // Workaround for Oracle JDBC bug 37030121
+
+            preparedStatement.setString(1, threadName);
+            try (ResultSet resultSet = timed(StatementType.SELECT_HEAD, preparedStatement::executeQuery)) {
+                if (!resultSet.next()) {
+                    return true;
+                }
+                checkpoints.add(Checkpoint.builder()
+                        .id(resultSet.getString(1))
+                        .nodeId(resultSet.getString(2))
+                        .nextNodeId(resultSet.getString(3))
+                        .state(decodeState(resultSet, 4))
+                        .build());
+                return false;
+            }
+        } catch (SQLException sqlException) {
+            throw new Exception("Unable to load checkpoints", sqlException);
+        }
+    }
+
     /**
      * If the list of checkpoints is empty, loads the checkpoints from the database.
+     * The states are not read, they are loaded a page at a time on first access
+     * (see {@link LazyCheckpointStates}).
      *
      * @param config      the configuration
      * @param checkpoints the list of checkpoints
@@ -188,12 +265,46 @@ public class OracleSaver extends MemorySaver {
         }
 
         final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
-        JsonFactory osonFactory = new OsonFactory();
-        ObjectMapper objectMapper = new ObjectMapper(osonFactory);
+        final var states = new LazyCheckpointStates(historyPageSize, this::loadedStates);
 
-        try (Connection connection = dataSource.getConnection();
+        try (Connection connection = getConnection();
                 PreparedStatement preparedStatement = connection.prepareStatement(SELECT_CHECKPOINTS)) {
 
+            preparedStatement.setFetchSize(historyPageSize);
+            preparedStatement.setString(1, threadName);
+            try (ResultSet resultSet = timed(StatementType.SELECT_CHECKPOINTS, preparedStatement::executeQuery)) {
+                while (resultSet.next()) {
+                    String checkpointId = resultSet.getString(1);
+                    Checkpoint checkpoint = Checkpoint.builder()
+                            .id(checkpointId)
+                            .nodeId(resultSet.getString(2))
+                            .nextNodeId(resultSet.getString(3))
+                            .state(states.stateOf(checkpointId))
+                            .build();
+                    checkpoints.add(checkpoint);
+                }
+            }
+        } catch (SQLException sqlException) {
+            throw new Exception("Unable to load checkpoints", sqlException);
+        }
+        return checkpoints;
+    }
+
+    /**
+     * Loads the states of the given checkpoints.
+     *
+     * @param checkpointIds the ids of the checkpoints
+     * @return the states by checkpoint id
+     * @throws Exception if an error occurs while the states are being loaded
+     *                   from the database.
+     */
+    private Map<String, Map<String, Object>> loadedStates(List<String> checkpointIds) throws Exception {
+        final String sql = String.format(SELECT_STATES, String.join(",", Collections.nCopies(checkpointIds.size(), "?")));
+        final Map<String, Map<String, Object>> states = new HashMap<>();
+
+        try (Connection connection = getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+
             // Calls to defineColumnType reduce the number of network requests. When Oracle
             // JDBC knows that it is
             // fetching VECTOR, CLOB, and/or JSON columns, the first request it sends to the
@@ -206,63 +317,85 @@ public class OracleSaver extends MemorySaver {
             // Integer.MAX_VALUE.
             OracleStatement oracleStatement = preparedStatement.unwrap(OracleStatement.class);
             oracleStatement.defineColumnType(1, OracleTypes.VARCHAR); // checkpoint_id
-            oracleStatement.defineColumnType(2, OracleTypes.VARCHAR); // node_id
-            oracleStatement.defineColumnType(3, OracleTypes.VARCHAR); // next_node_id
-            oracleStatement.defineColumnType(4, OracleTypes.JSON, Integer.MAX_VALUE); // state_data
+            oracleStatement.defineColumnType(2, OracleTypes.JSON, Integer.MAX_VALUE); // state_data
             oracleStatement.setLobPrefetchSize(Integer.MAX_VALUE); // Workaround for Oracle JDBC bug 37030121
 
-            preparedStatement.setString(1, threadName);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            int field = 0;
+            for (String checkpointId : checkpointIds) {
+                preparedStatement.setString(++field, checkpointId);
+            }
+            try (ResultSet resultSet = timed(StatementType.SELECT_STATES, preparedStatement::executeQuery)) {
                 while (resultSet.next()) {
-                    byte[] osonBytes = resultSet.getObject(4, OracleJsonDatum.class).shareBytes();
-                    Checkpoint checkpoint = Checkpoint.builder()
-                            .id(resultSet.getString(1))
-                            .nodeId(resultSet.getString(2))
-                            .nextNodeId(resultSet.getString(3))
-                            .state(objectMapper.readValue(osonBytes, Map.class))
-                            .build();
-                    checkpoints.add(checkpoint);
+                    states.put(resultSet.getString(1), decodeState(resultSet, 2));
                 }
             }
         } catch (SQLException sqlException) {
-            throw new Exception("Unable to create tables", sqlException);
+            throw new Exception("Unable to load checkpoint states", sqlException);
         }
-        return checkpoints;
+        return states;
     }
 
     /**
-     * Inserts a checkpoint to the database
-     * 
-     * @param config      the configuration
-     * @param checkpoints the list of checkpoints
-     * @param checkpoint  the checkpoint to insert
-     * @throws Exception if an error occurs while inserting the checkpoint in the
-     *                   database.
+     * Creates the thread if it is not open yet.
+     *
+     * @param connection the connection
+     * @param threadName the name of the thread
+     * @return the id of the open thread
+     * @throws SQLException if an error occurs while creating the thread.
      */
     @Override
-    protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint)
-            throws Exception {
-
-        final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
-        try (Connection connection = dataSource.getConnection();
-                PreparedStatement upsertStatement = connection.prepareStatement(UPSERT_THREAD);
-                PreparedStatement insertCheckpointStatement = connection.prepareStatement(INSERT_CHECKPOINT)) {
-
+    protected String upsertThread(Connection connection, String threadName) throws SQLException {
+        try (PreparedStatement upsertStatement = connection.prepareStatement(UPSERT_THREAD);
+                PreparedStatement selectStatement = connection.prepareStatement(SELECT_THREAD_ID)) {
             upsertStatement.setString(1, UUID.randomUUID().toString());
             upsertStatement.setString(2, threadName);
             upsertStatement.execute();
 
-            insertCheckpointStatement.setString(1, checkpoint.getId());
-            insertCheckpointStatement.setString(2, checkpoint.getNodeId());
-            insertCheckpointStatement.setString(3, checkpoint.getNextNodeId());
-            insertCheckpointStatement.setObject(4, checkpoint.getState(), OracleType.JSON);
-            insertCheckpointStatement.setString(5, threadName);
-
-            insertCheckpointStatement.execute();
-        } catch (SQLException sqlException) {
-            throw new RuntimeException("Unable to insert checkpoint", sqlException);
+            selectStatement.setString(1, threadName);
+            try (ResultSet resultSet = selectStatement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
         }
+    }
+
+    @Override
+    protected String threadTable() {
+        return "LANGRAPH4J_THREAD";
+    }
+
+    @Override
+    protected String checkpointTable() {
+        return "LANGRAPH4J_CHECKPOINT";
+    }
+
+    /**
+     * Returns the statement that inserts a checkpoint.
+     *
+     * @return the insert statement
+     */
+    @Override
+    protected String insertCheckpointSql() {
+        return INSERT_CHECKPOINT;
+    }
 
+    /**
+     * Binds a checkpoint to the insert statement.
+     *
+     * @param preparedStatement the insert statement
+     * @param threadId          the id of the thread
+     * @param checkpoint        the checkpoint to insert
+     * @param savedAt           the time the checkpoint is saved at
+     * @throws Exception if the checkpoint cannot be bound.
+     */
+    @Override
+    protected void bindCheckpoint(PreparedStatement preparedStatement, String threadId, Checkpoint checkpoint, Timestamp savedAt)
+            throws Exception {
+        preparedStatement.setString(1, checkpoint.getId());
+        preparedStatement.setString(2, threadId);
+        preparedStatement.setString(3, checkpoint.getNodeId());
+        preparedStatement.setString(4, checkpoint.getNextNodeId());
+        preparedStatement.setObject(5, checkpoint.getState(), OracleType.JSON);
+        preparedStatement.setTimestamp(6, savedAt);
     }
 
     /**
@@ -278,11 +411,12 @@ public class OracleSaver extends MemorySaver {
     protected void releasedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Tag releaseTag)
             throws Exception {
         final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
+        forgetThread(threadName);
 
-        try (Connection connection = dataSource.getConnection();
+        try (Connection connection = getConnection();
                 PreparedStatement preparedStatement = connection.prepareStatement(RELEASE_THREAD)) {
             preparedStatement.setString(1, threadName);
-            preparedStatement.execute();
+            timed(StatementType.RELEASE_THREAD, preparedStatement::execute);
         } catch (SQLException sqlException) {
             throw new Exception("Unable to release checkpoint", sqlException);
         }
@@ -303,14 +437,14 @@ public class OracleSaver extends MemorySaver {
         final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
 
         if (config.checkPointId().isPresent()) {
-            try (Connection connection = dataSource.getConnection();
+            try (Connection connection = getConnection();
                     PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_CHECKPOINT)) {
                 preparedStatement.setString(1, checkpoint.getId());
                 preparedStatement.setString(2, checkpoint.getNodeId());
                 preparedStatement.setString(3, checkpoint.getNextNodeId());
                 preparedStatement.setObject(4, checkpoint.getState(), OracleType.JSON);
                 preparedStatement.setString(5, config.checkPointId().get());
-                preparedStatement.execute();
+                timed(StatementType.UPDATE_CHECKPOINT, preparedStatement::execute);
             } catch (SQLException sqlException) {
                 throw new Exception("Unable to update checkpoint", sqlException);
             }
@@ -323,7 +457,7 @@ public class OracleSaver extends MemorySaver {
      * Initializes the database according the create options.
      */
     protected void initTables() {
-        try (Connection connection = dataSource.getConnection();
+        try (Connection connection = getConnection();
                 Statement statement = connection.createStatement()) {
             if (createOption == CreateOption.CREATE_OR_REPLACE) {
                 statement.addBatch(DROP_THREAD_INDEX);
@@ -348,6 +482,8 @@ public class OracleSaver extends MemorySaver {
     public static class Builder {
         private DataSource dataSource;
         private CreateOption createOption = CreateOption.CREATE_IF_NOT_EXISTS;
+        private CheckpointCachePolicy cachePolicy = CheckpointCachePolicy.unbounded();
+        private int historyPageSize = 50;
 
         /**
          * Sets the datasource
@@ -371,13 +507,40 @@ public class OracleSaver extends MemorySaver {
             return this;
         }
 
+        /**
+         * Sets the policy that bounds the threads kept in memory (default {@link CheckpointCachePolicy#unbounded()}).
+         * An evicted thread is loaded again from the database on next access.
+         *
+         * @param cachePolicy the cache policy
+         * @return this builder
+         */
+        public Builder cachePolicy(CheckpointCachePolicy cachePolicy) {
+            this.cachePolicy = cachePolicy;
+            return this;
+        }
+
+        /**
+         * Sets the number of checkpoints whose states are loaded together when the
+         * history of a thread is accessed (default {@code 50}).
+         *
+         * @param historyPageSize the page size
+         * @return this builder
+         */
+        public Builder historyPageSize(int historyPageSize) {
+            if (historyPageSize < 1) {
+                throw new IllegalArgumentException("historyPageSize must be positive but was " + historyPageSize);
+            }
+            this.historyPageSize = historyPageSize;
+            return this;
+        }
+
         /**
          * Creates a new instance of OracleSaver
          * 
          * @return the new instance of OracleSaver.
          */
         public OracleSaver build() {
-            return new OracleSaver(dataSource, createOption);
+            return new OracleSaver(dataSource, createOption, cachePolicy, historyPageSize);
         }
     }
 }
@@ -16,7 +16,8 @@ CREATE TABLE LG4JCheckpoint (
     thread_id UUID NOT NULL,
     node_id VARCHAR(255),
     next_node_id VARCHAR(255),
-    state_data JSONB NOT NULL,
+    state_data JSONB, -- state stored as {"binaryPayload": "<base64>"}
+    state_bytes BYTEA, -- state stored as raw bytes
     state_content_type VARCHAR(100) NOT NULL, -- New field for content type
     saved_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
 
@@ -53,4 +54,8 @@ CREATE UNIQUE INDEX idx_unique_lg4jthread_thread_name_unreleased  ON LG4JThread(
 --CREATE TRIGGER trigger_update_thread_time_on_checkpoint_insert
 --AFTER INSERT ON LG4JCheckpoint
 --FOR EACH ROW
---EXECUTE FUNCTION update_thread_update_time();
\ No newline at end of file
+--EXECUTE FUNCTION update_thread_update_time();
+
+-- Upgrade of a LG4JCheckpoint table created by a previous version
+-- ALTER TABLE LG4JCheckpoint ADD COLUMN IF NOT EXISTS state_bytes BYTEA;
+-- ALTER TABLE LG4JCheckpoint ALTER COLUMN state_data DROP NOT NULL;
@@ -2,32 +2,130 @@ package org.bsc.langgraph4j.checkpoint;
 
 import org.bsc.langgraph4j.RunnableConfig;
 import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.compression.CompressionCodec;
 import org.bsc.langgraph4j.state.AgentState;
 import org.postgresql.ds.PGSimpleDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
-import java.io.IOException;
+import java.io.*;
 import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.regex.Pattern;
 
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
-public class PostgresSaver extends MemorySaver {
+public class PostgresSaver extends JdbcCheckpointSaver {
     private static final Logger log = LoggerFactory.getLogger(PostgresSaver.class);
+
+    /**
+     * How the serialized state is stored in the {@code LG4JCheckpoint} table.
+     */
+    public enum StateStorage {
+        /**
+         * Base64 encoded in the {@code state_data} JSONB column, as {@code {"binaryPayload": "..."}}.
+         */
+        JSONB,
+        /**
+         * Raw bytes in the {@code state_bytes} BYTEA column, streamed to and from the driver.
+         * It avoids the Base64 inflation and the JSONB parsing on the server.
+         */
+        BYTEA
+    }
+
+    /**
+     * How the {@code LG4JCheckpoint} table is partitioned by {@code saved_at}.
+     * The partitions are named after their range, in UTC, e.g. {@code lg4jcheckpoint_p20240101_20240201}.
+     */
+    public enum Partitioning {
+        /**
+         * a plain table
+         */
+        NONE,
+        /**
+         * a partition a day
+         */
+        DAILY,
+        /**
+         * a partition a week, starting on Monday
+         */
+        WEEKLY,
+        /**
+         * a partition a month
+         */
+        MONTHLY;
+
+        LocalDate startOf( LocalDate date ) {
+            return switch( this ) {
+                case DAILY -> date;
+                case WEEKLY -> date.with( TemporalAdjusters.previousOrSame( DayOfWeek.MONDAY ) );
+                case MONTHLY -> date.withDayOfMonth( 1 );
+                case NONE -> throw new IllegalStateException( "table is not partitioned" );
+            };
+        }
+
+        LocalDate next( LocalDate start ) {
+            return switch( this ) {
+                case DAILY -> start.plusDays( 1 );
+                case WEEKLY -> start.plusWeeks( 1 );
+                case MONTHLY -> start.plusMonths( 1 );
+                case NONE -> throw new IllegalStateException( "table is not partitioned" );
+            };
+        }
+    }
+
+    // number of periods after the current one whose partitions are created in advance
+    private static final int PARTITIONS_AHEAD = 2;
+    private static final Pattern PARTITION_NAME = Pattern.compile( "lg4jcheckpoint_p(\\d{8})_(\\d{8})" );
+
+    /**
+     * Suffix of the content type of a state compressed with GZIP.
+     */
+    static final String GZIP_SUFFIX = CompressionCodec.gzip().contentTypeOf( "" );
+
     /**
      * Datasource used to create the store
      */
     protected final DataSource datasource;
 
     private final StateSerializer<? extends AgentState> stateSerializer;
+    private final StateStorage stateStorage;
+    private final CompressionCodec compression;
+    private final int historyPageSize;
+    private final Partitioning partitioning;
+    // whether the table has the state_bytes column, i.e. it has been created or migrated by this version
+    private final boolean binaryColumn;
 
     protected PostgresSaver( Builder builder ) throws SQLException {
+        super( builder.datasource, 1, builder.cachePolicy );
         this.datasource = builder.datasource;
         this.stateSerializer =  builder.stateSerializer;
+        this.stateStorage = builder.stateStorage;
+        this.compression = builder.compression;
+        this.historyPageSize = builder.historyPageSize;
+        this.partitioning = builder.partitioning;
         initTable( builder.dropTablesFirst, builder.createTables);
+        if( builder.migrateSchema ) {
+            migrateSchema();
+        }
+        this.binaryColumn = hasBinaryColumn();
+        if( stateStorage == StateStorage.BYTEA && !binaryColumn ) {
+            throw new IllegalStateException( "BYTEA state storage requires the column 'state_bytes' in table LG4JCheckpoint, enable migrateSchema to add it" );
+        }
+        if( partitioning != Partitioning.NONE ) {
+            if( !isPartitioned() ) {
+                throw new IllegalStateException( "partitioning requires the table LG4JCheckpoint to be partitioned, create it with dropTablesFirst" );
+            }
+            createPartitions();
+        }
     }
 
     public static Builder builder() {
@@ -50,8 +148,71 @@ public class PostgresSaver extends MemorySaver {
         }
     }
 
+    /**
+     * @return how the serialized state is stored
+     */
+    public final StateStorage stateStorage() {
+        return stateStorage;
+    }
+
+    /**
+     * @return how the {@code LG4JCheckpoint} table is partitioned
+     */
+    public final Partitioning partitioning() {
+        return partitioning;
+    }
+
+    /**
+     * @return true if the serialized state is compressed
+     */
+    public final boolean compressState() {
+        return compression != CompressionCodec.none();
+    }
+
+    /**
+     * @return the codec compressing the serialized state
+     */
+    public final CompressionCodec compression() {
+        return compression;
+    }
+
+    /**
+     * Buffer whose content is streamed without copying it.
+     */
+    private static final class StateBuffer extends ByteArrayOutputStream {
+        StateBuffer() {
+            super( 1024 );
+        }
+
+        InputStream toInputStream() {
+            return new ByteArrayInputStream( buf, 0, count );
+        }
+    }
+
+    private String contentType() {
+        return stateSerializer.contentType( compression );
+    }
+
+    private StateBuffer encodeBinaryState( Map<String,Object> data ) throws IOException {
+        final var buffer = new StateBuffer();
+        try( OutputStream stream = compression.compress( buffer ) ) {
+            var out = new ObjectOutputStream( stream );
+            stateSerializer.writeData( data, out );
+            out.flush();
+        }
+        return buffer;
+    }
+
+    private Map<String,Object> decodeBinaryState( InputStream binaryStream, String contentType ) throws IOException, ClassNotFoundException {
+        // the codec is the one recorded with the state, that can differ from the current one
+        final var codec = CompressionCodec.ofContentType( contentType, stateSerializer.contentType() );
+        try( InputStream stream = codec.decompress( binaryStream ) ) {
+            return stateSerializer.readData( new ObjectInputStream( stream ) );
+        }
+    }
+
     private String encodeState( Map<String,Object> data ) throws IOException {
-        var binaryData = stateSerializer.dataToBytes(data);
+        var binaryData = stateSerializer.dataToBytes(data, compression);
         var base64Data = Base64.getEncoder().encodeToString(binaryData);
         return format("""
                      {"binaryPayload": "%s"}
@@ -59,15 +220,8 @@ public class PostgresSaver extends MemorySaver {
     }
 
     private Map<String,Object> decodeState( byte[] binaryPayload, String contentType ) throws IOException, ClassNotFoundException {
-        if( !Objects.equals(contentType, stateSerializer.contentType() )) {
-            throw new IllegalStateException(
-                    format( "Content Type used for store state '%s' is different from one '%s' used for deserialize it",
-                            contentType,
-                            stateSerializer.contentType() ));
-        }
-
         byte[] bytes = Base64.getDecoder().decode(binaryPayload);
-        return stateSerializer.dataFromBytes( bytes );
+        return stateSerializer.dataFromBytes( bytes, contentType );
     }
 
     protected void initTable(boolean dropTablesFirst, boolean createTables) throws SQLException {
@@ -76,20 +230,16 @@ public class PostgresSaver extends MemorySaver {
         DROP TABLE IF EXISTS LG4JThread CASCADE;
         """;
 
-        var sqlCreateTables = """
-                CREATE TABLE IF NOT EXISTS LG4JThread (
-                     thread_id UUID PRIMARY KEY,
-                     thread_name VARCHAR(255),
-                     is_released BOOLEAN DEFAULT FALSE NOT NULL
-                 );
-                
+        // state_data holds the JSONB encoded state, state_bytes the BYTEA one, see StateStorage
+        var sqlCreateCheckpointTable = """
                  CREATE TABLE IF NOT EXISTS LG4JCheckpoint (
                      checkpoint_id UUID PRIMARY KEY,
                      parent_checkpoint_id UUID,
                      thread_id UUID NOT NULL,
                      node_id VARCHAR(255),
                      next_node_id VARCHAR(255),
-                     state_data JSONB NOT NULL,
+                     state_data JSONB,
+                     state_bytes BYTEA,
                      state_content_type VARCHAR(100) NOT NULL, -- New field for content type
                      saved_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
                 
@@ -98,11 +248,42 @@ public class PostgresSaver extends MemorySaver {
                          REFERENCES LG4JThread(thread_id)
                          ON DELETE CASCADE
                  );
-                
+                """;
+
+        // the primary key of a partitioned table must include the partition key
+        var sqlCreatePartitionedCheckpointTable = """
+                 CREATE TABLE IF NOT EXISTS LG4JCheckpoint (
+                     checkpoint_id UUID NOT NULL,
+                     parent_checkpoint_id UUID,
+                     thread_id UUID NOT NULL,
+                     node_id VARCHAR(255),
+                     next_node_id VARCHAR(255),
+                     state_data JSONB,
+                     state_bytes BYTEA,
+                     state_content_type VARCHAR(100) NOT NULL,
+                     saved_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL,
+
+                     PRIMARY KEY (checkpoint_id, saved_at),
+                     CONSTRAINT fk_thread
+                         FOREIGN KEY(thread_id)
+                         REFERENCES LG4JThread(thread_id)
+                         ON DELETE CASCADE
+                 ) PARTITION BY RANGE (saved_at);
+
+                 CREATE TABLE IF NOT EXISTS lg4jcheckpoint_default PARTITION OF LG4JCheckpoint DEFAULT;
+                """;
+
+        var sqlCreateTables = """
+                CREATE TABLE IF NOT EXISTS LG4JThread (
+                     thread_id UUID PRIMARY KEY,
+                     thread_name VARCHAR(255),
+                     is_released BOOLEAN DEFAULT FALSE NOT NULL
+                 );
+                %s
                  CREATE INDEX idx_lg4jcheckpoint_thread_id ON LG4JCheckpoint(thread_id);
                  CREATE INDEX idx_lg4jcheckpoint_thread_id_saved_at_desc ON LG4JCheckpoint(thread_id, saved_at DESC);
                  CREATE UNIQUE INDEX idx_unique_lg4jthread_thread_name_unreleased  ON LG4JThread(thread_name) WHERE is_released = FALSE;
-                """;
+                """.formatted( partitioning == Partitioning.NONE ? sqlCreateCheckpointTable : sqlCreatePartitionedCheckpointTable );
 
 
         String sqlCommand = null;
@@ -124,19 +305,272 @@ public class PostgresSaver extends MemorySaver {
         }
     }
 
+    /**
+     * Upgrades a {@code LG4JCheckpoint} table created by a previous version, adding the {@code state_bytes} column
+     * required by {@link StateStorage#BYTEA}. The existing rows are still readable, they can be converted by
+     * {@link #convertLegacyState(int)}.
+     *
+     * @throws SQLException if the table cannot be altered
+     */
+    protected void migrateSchema() throws SQLException {
+        var sqlMigrate = """
+                ALTER TABLE LG4JCheckpoint ADD COLUMN IF NOT EXISTS state_bytes BYTEA;
+                ALTER TABLE LG4JCheckpoint ALTER COLUMN state_data DROP NOT NULL;
+                """;
+        try (Connection connection = getConnection(); Statement statement = connection.createStatement()) {
+            log.trace( "Executing migrate schema:\n---\n{}---", sqlMigrate);
+            statement.executeUpdate(sqlMigrate);
+        }
+        catch ( SQLException ex ) {
+            log.error( "error executing command\n{}\n", sqlMigrate, ex );
+            throw ex;
+        }
+    }
+
+    private boolean hasBinaryColumn() throws SQLException {
+        var sqlCheckColumn = """
+                SELECT COUNT(*)
+                FROM information_schema.columns
+                WHERE table_schema = current_schema()
+                AND table_name = 'lg4jcheckpoint'
+                AND column_name = 'state_bytes'
+                """;
+        try( Connection conn = getConnection(); PreparedStatement ps = conn.prepareStatement(sqlCheckColumn) ) {
+            try( var rs = ps.executeQuery() ) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    private boolean isPartitioned() throws SQLException {
+        var sqlCheckPartitioned = """
+                SELECT COUNT(*)
+                FROM pg_partitioned_table pt
+                JOIN pg_class c ON c.oid = pt.partrelid
+                WHERE c.relname = 'lg4jcheckpoint' AND pg_table_is_visible(c.oid)
+                """;
+        try( Connection conn = getConnection(); PreparedStatement ps = conn.prepareStatement(sqlCheckPartitioned) ) {
+            try( var rs = ps.executeQuery() ) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    /**
+     * Creates the partitions of the current period and of the next ones, if missing.
+     * It is called on construction and by {@link #prune(CheckpointRetentionPolicy)}, that should run periodically:
+     * the checkpoints saved out of the created partitions are stored in the default partition.
+     * A partition whose range already has rows in the default partition cannot be created, so it is skipped.
+     *
+     * @throws SQLException if the database cannot be accessed
+     */
+    public void createPartitions() throws SQLException {
+        if( partitioning == Partitioning.NONE ) {
+            throw new IllegalStateException( "table LG4JCheckpoint is not partitioned" );
+        }
+        var start = partitioning.startOf( LocalDate.now( ZoneOffset.UTC ) );
+        try( Connection conn = getConnection(); Statement statement = conn.createStatement() ) {
+            for( int i = 0; i <= PARTITIONS_AHEAD; ++i ) {
+                var end = partitioning.next( start );
+                var sqlCreatePartition = """
+                        CREATE TABLE IF NOT EXISTS lg4jcheckpoint_p%s_%s PARTITION OF LG4JCheckpoint
+                        FOR VALUES FROM ('%s 00:00:00+00') TO ('%s 00:00:00+00')
+                        """.formatted( start.format( DateTimeFormatter.BASIC_ISO_DATE ), end.format( DateTimeFormatter.BASIC_ISO_DATE ), start, end );
+                try {
+                    log.trace( "Executing create partition:\n---\n{}---", sqlCreatePartition);
+                    statement.executeUpdate( sqlCreatePartition );
+                }
+                catch( SQLException ex ) {
+                    log.warn( "partition of LG4JCheckpoint from {} to {} cannot be created", start, end, ex );
+                }
+                start = end;
+            }
+        }
+    }
+
+    /**
+     * Drops the partitions whose whole range precedes the given instant and that hold only checkpoints
+     * of expired threads, i.e. of threads without a checkpoint saved since then.
+     * The early history of the threads still in use is kept.
+     *
+     * @return the number of dropped partitions
+     */
+    private int dropPartitions( Connection conn, Instant cutoff ) throws SQLException {
+        var sqlSelectPartitions = """
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class p ON p.oid = i.inhparent
+                WHERE p.relname = 'lg4jcheckpoint' AND pg_table_is_visible(p.oid)
+                """;
+        int dropped = 0;
+        try( Statement statement = conn.createStatement() ) {
+            var partitions = new ArrayList<String>();
+            try( var rs = statement.executeQuery( sqlSelectPartitions ) ) {
+                while( rs.next() ) {
+                    partitions.add( rs.getString(1) );
+                }
+            }
+            for( var partition : partitions ) {
+                var matcher = PARTITION_NAME.matcher( partition );
+                if( !matcher.matches() ) {
+                    continue;
+                }
+                var end = LocalDate.parse( matcher.group(2), DateTimeFormatter.BASIC_ISO_DATE ).atStartOfDay( ZoneOffset.UTC ).toInstant();
+                if( end.isAfter( cutoff ) || holdsActiveThreads( conn, partition, cutoff ) ) {
+                    continue;
+                }
+                log.trace( "Executing drop partition {}", partition );
+                timed( StatementType.EXPIRE_THREADS, () -> statement.executeUpdate( "DROP TABLE " + partition ) );
+                ++dropped;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Checks if the given partition holds checkpoints of a thread that has a checkpoint saved since the given instant.
+     */
+    private boolean holdsActiveThreads( Connection conn, String partition, Instant cutoff ) throws SQLException {
+        var sqlSelectActive = """
+                SELECT EXISTS (
+                    SELECT 1
+                    FROM %s p
+                    JOIN LG4JCheckpoint c ON c.thread_id = p.thread_id
+                    WHERE c.saved_at >= ?
+                )
+                """.formatted( partition );
+        try( PreparedStatement ps = conn.prepareStatement( sqlSelectActive ) ) {
+            ps.setTimestamp( 1, Timestamp.from( cutoff ) );
+            try( var rs = timed( StatementType.EXPIRE_THREADS, ps::executeQuery ) ) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    /**
+     * Creates the upcoming partitions, if the table is partitioned, then prunes the threads.
+     */
     @Override
-    protected LinkedList<Checkpoint> loadedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints) throws Exception {
+    public PruneResult prune( CheckpointRetentionPolicy policy ) throws Exception {
+        if( partitioning != Partitioning.NONE ) {
+            createPartitions();
+        }
+        return super.prune( policy );
+    }
 
-        if( !checkpoints.isEmpty() ) return checkpoints;
+    /**
+     * If the table is partitioned, drops first the partitions older than the given instant that hold only checkpoints
+     * of the expired threads, that is much cheaper than deleting their rows. The rows of the expired threads
+     * left in the other partitions are then deleted.
+     */
+    @Override
+    protected void deleteExpiredThreads( Connection conn, List<Object> threadIds, Instant cutoff ) throws SQLException {
+        if( partitioning != Partitioning.NONE ) {
+            dropPartitions( conn, cutoff );
+        }
+        super.deleteExpiredThreads( conn, threadIds, cutoff );
+    }
 
-        var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
+    @Override
+    protected String threadTable() {
+        return "LG4JThread";
+    }
+
+    @Override
+    protected String checkpointTable() {
+        return "LG4JCheckpoint";
+    }
+
+    @Override
+    protected void bindCheckpointId( PreparedStatement ps, int index, String checkpointId ) throws SQLException {
+        ps.setObject( index, UUID.fromString(checkpointId), Types.OTHER );
+    }
 
+    /**
+     * Moves the states stored as Base64 in the {@code state_data} JSONB column to the {@code state_bytes} BYTEA column,
+     * decoding them on the server. The rows are converted in batches, each one in its own transaction,
+     * so it can run while the saver is in use.
+     *
+     * @param batchSize the number of rows converted by each transaction
+     * @return the number of rows converted
+     * @throws SQLException if the rows cannot be converted
+     */
+    public long convertLegacyState( int batchSize ) throws SQLException {
+        if( batchSize <= 0 ) {
+            throw new IllegalArgumentException( format("batchSize must be positive but was %d!", batchSize) );
+        }
+        if( !binaryColumn ) {
+            throw new IllegalStateException( "column 'state_bytes' not found in table LG4JCheckpoint, enable migrateSchema to add it" );
+        }
+        var sqlConvert = """
+                UPDATE LG4JCheckpoint
+                SET state_bytes = decode(state_data->>'binaryPayload', 'base64'),
+                    state_data = NULL
+                WHERE checkpoint_id IN (
+                    SELECT checkpoint_id
+                    FROM LG4JCheckpoint
+                    WHERE state_bytes IS NULL AND state_data IS NOT NULL
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED
+                )
+                """;
+        long converted = 0;
+        try( Connection conn = getConnection(); PreparedStatement ps = conn.prepareStatement(sqlConvert) ) {
+            ps.setInt(1, batchSize);
+            int rows;
+            do {
+                log.trace( "Executing convert legacy state:\n---\n{}---", sqlConvert);
+                rows = ps.executeUpdate();
+                converted += rows;
+            } while( rows == batchSize );
+        }
+        log.debug( "{} checkpoints converted to binary state", converted );
+        return converted;
+    }
+
+    /**
+     * Checks whether the thread is open, i.e. it has been created and not released yet.
+     */
+    private boolean isOpenThread( Connection conn, String threadId ) throws SQLException {
         var sqlCheckThread = """
                 SELECT COUNT(*)
                 FROM LG4JThread
                 WHERE thread_name = ? AND is_released = FALSE
                 """;
-        var sqlQueryCheckpoints = """
+        try( PreparedStatement ps = conn.prepareStatement(sqlCheckThread) ) {
+            ps.setString(1, threadId);
+            var resultSet = ps.executeQuery();
+            resultSet.next();
+            var count = resultSet.getInt(1);
+
+            if( count > 1 ) {
+                throw new IllegalStateException( format("there are more than one Thread '%s' open (not released yet)", threadId));
+            }
+            return count == 1;
+        }
+    }
+
+    /**
+     * Decodes the state of the current row, reading it from the column it has been stored in.
+     * The rows written by a previous version have it in state_data.
+     */
+    private Map<String,Object> decodeState( ResultSet rs, int base64Column, int contentTypeColumn, int bytesColumn ) throws SQLException, IOException, ClassNotFoundException {
+        var binaryStream = binaryColumn ? rs.getBinaryStream(bytesColumn) : null;
+        return ( binaryStream != null ) ?
+                decodeBinaryState( binaryStream, rs.getString(contentTypeColumn) ) :
+                decodeState( rs.getBytes(base64Column), rs.getString(contentTypeColumn) );
+    }
+
+    /**
+     * Loads the newest checkpoint only, the history is loaded by {@link #loadedCheckpoints(RunnableConfig, LinkedList)}
+     * when an operation needs it.
+     */
+    @Override
+    protected boolean loadedHead(RunnableConfig config, LinkedList<Checkpoint> checkpoints) throws Exception {
+        var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
+
+        var sqlQueryHead = """
                 WITH matched_thread AS (
                     SELECT thread_id
                     FROM LG4JThread
@@ -146,51 +580,130 @@ public class PostgresSaver extends MemorySaver {
                         c.node_id,
                         c.next_node_id,
                         c.state_data->>'binaryPayload' AS base64_data,
-                        c.state_content_type,
-                        c.parent_checkpoint_id
+                        c.state_content_type%s
                 FROM matched_thread t
                 JOIN LG4JCheckpoint c ON c.thread_id = t.thread_id
                 ORDER BY c.saved_at DESC
-                """;
+                LIMIT 1
+                """.formatted( binaryColumn ? ",\n        c.state_bytes" : "" );
         try( Connection conn = getConnection() ) {
 
-            try( PreparedStatement ps = conn.prepareStatement(sqlCheckThread) ) {
-                ps.setString(1, threadId);
-                var resultSet = ps.executeQuery();
-                resultSet.next();
-                var count = resultSet.getInt(1);
+            if( !isOpenThread( conn, threadId ) ) {
+                return true;
+            }
 
-                if( count == 0 ) {
-                    return checkpoints;
-                }
-                if( count > 1 ) {
-                    throw new IllegalStateException( format("there are more than one Thread '%s' open (not released yet)", threadId));
+            log.trace( "Executing select head checkpoint:\n---\n{}---", sqlQueryHead);
+            try( PreparedStatement ps = conn.prepareStatement(sqlQueryHead) ) {
+                ps.setString(1, threadId);
+                var rs = timed( StatementType.SELECT_HEAD, ps::executeQuery );
+                if( !rs.next() ) {
+                    return true;
                 }
+                checkpoints.add( Checkpoint.builder()
+                        .id( rs.getString(1) )
+                        .nodeId( rs.getString(2) )
+                        .nextNodeId( rs.getString(3) )
+                        .state( decodeState( rs, 4, 5, 6 ) )
+                        .build() );
+                return false;
             }
+        }
+    }
+
+    /**
+     * Loads all the checkpoints of the thread without their states, that are loaded a page at a time
+     * on first access (see {@link LazyCheckpointStates}). The rows are fetched through a cursor.
+     */
+    @Override
+    protected LinkedList<Checkpoint> loadedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints) throws Exception {
 
+        if( !checkpoints.isEmpty() ) return checkpoints;
+
+        var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
+
+        var sqlQueryCheckpoints = """
+                WITH matched_thread AS (
+                    SELECT thread_id
+                    FROM LG4JThread
+                    WHERE thread_name = ? AND is_released = FALSE
+                )
+                SELECT  c.checkpoint_id,
+                        c.node_id,
+                        c.next_node_id
+                FROM matched_thread t
+                JOIN LG4JCheckpoint c ON c.thread_id = t.thread_id
+                ORDER BY c.saved_at DESC
+                """;
+        try( Connection conn = getConnection() ) {
+
+            if( !isOpenThread( conn, threadId ) ) {
+                return checkpoints;
+            }
+
+            final var states = new LazyCheckpointStates( historyPageSize, this::loadedStates );
+
+            // the driver fetches the rows through a cursor only within a transaction
+            final boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
             log.trace( "Executing select checkpoints:\n---\n{}---", sqlQueryCheckpoints);
             try( PreparedStatement ps = conn.prepareStatement(sqlQueryCheckpoints) ) {
+                ps.setFetchSize( historyPageSize );
                 ps.setString(1, threadId);
-                var rs = ps.executeQuery();
+                var rs = timed( StatementType.SELECT_CHECKPOINTS, ps::executeQuery );
                 while( rs.next() ) {
+                    var checkpointId = rs.getString(1);
                     var checkpoint = Checkpoint.builder()
-                            .id( rs.getString(1) )
+                            .id( checkpointId )
                             .nodeId( rs.getString(2) )
                             .nextNodeId( rs.getString(3) )
-                            .state( decodeState( rs.getBytes(4), rs.getString( 5) ) )
+                            .state( states.stateOf( checkpointId ) )
                             .build();
                     checkpoints.add( checkpoint );
                 }
+                conn.commit();
+            }
+            catch( Exception ex ) {
+                log.error( "Error loading the checkpoints of thread {}", threadId, ex );
+                rollback( conn, threadId );
+                throw ex;
+            }
+            finally {
+                conn.setAutoCommit( autoCommit );
             }
-
         }
 
         return checkpoints;
     }
 
-    private void insertCheckpoint( Connection conn, RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
-        var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
+    /**
+     * Loads the states of the given checkpoints.
+     */
+    private Map<String, Map<String,Object>> loadedStates( List<String> checkpointIds ) throws Exception {
+        var sqlQueryStates = """
+                SELECT  checkpoint_id,
+                        state_data->>'binaryPayload' AS base64_data,
+                        state_content_type%s
+                FROM LG4JCheckpoint
+                WHERE checkpoint_id = ANY(?)
+                """.formatted( binaryColumn ? ",\n        state_bytes" : "" );
+
+        final var result = new HashMap<String, Map<String,Object>>( checkpointIds.size() * 2 );
+        try( Connection conn = getConnection(); PreparedStatement ps = conn.prepareStatement(sqlQueryStates) ) {
+            ps.setArray(1, conn.createArrayOf( "uuid", checkpointIds.stream().map(UUID::fromString).toArray() ) );
+            log.trace( "Executing select states of {} checkpoints:\n---\n{}---", checkpointIds.size(), sqlQueryStates);
+            var rs = timed( StatementType.SELECT_STATES, ps::executeQuery );
+            while( rs.next() ) {
+                result.put( rs.getString(1), decodeState( rs, 2, 3, 4 ) );
+            }
+        }
+        return result;
+    }
 
+    /**
+     * Creates the thread if it is not open yet, returning its id.
+     */
+    @Override
+    protected String upsertThread( Connection conn, String threadName ) throws SQLException {
         var upsertThreadSql = """
             WITH inserted AS (
                 INSERT INTO LG4JThread (thread_id, thread_name, is_released)
@@ -207,89 +720,69 @@ public class PostgresSaver extends MemorySaver {
             LIMIT 1;
             """;
 
-        var insertCheckpointSql = """
-                INSERT INTO LG4JCheckpoint(
-                checkpoint_id,
-                parent_checkpoint_id,
-                thread_id,
-                node_id,
-                next_node_id,
-                state_data,
-                state_content_type)
-                VALUES (?, ?, ?, ?, ?, ?::jsonb, ?)
-                """;
-        UUID threadUUID = null;
-
-        // 1. Upsert thread information
         try (PreparedStatement ps = conn.prepareStatement(upsertThreadSql)) {
             var field = 0;
             ps.setObject(++field, UUID.randomUUID(), Types.OTHER);
-            ps.setString(++field, threadId);
-            ps.setString(++field, threadId);
+            ps.setString(++field, threadName);
+            ps.setString(++field, threadName);
 
             log.trace( "Executing upsert thread:\n---\n{}---", upsertThreadSql);
 
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    threadUUID = rs.getObject("thread_id", UUID.class);
-                }
+                return rs.next() ? rs.getObject("thread_id", UUID.class).toString() : null;
             }
         }
+    }
 
+    @Override
+    protected String insertCheckpointSql() {
+        return """
+                INSERT INTO LG4JCheckpoint(
+                checkpoint_id,
+                parent_checkpoint_id,
+                thread_id,
+                node_id,
+                next_node_id,
+                %s,
+                state_content_type,
+                saved_at)
+                VALUES (?, ?, ?, ?, ?, %s, ?, ?)
+                """.formatted( stateStorage == StateStorage.BYTEA ? "state_bytes" : "state_data",
+                               stateStorage == StateStorage.BYTEA ? "?" : "?::jsonb" );
+    }
 
-
-        // 2. Insert checkpoint data
-        try (PreparedStatement ps = conn.prepareStatement(insertCheckpointSql)) {
-            var field = 0;
-            // checkpoint_id
-            ps.setObject(++field,
-                    UUID.fromString(checkpoint.getId()),
-                    Types.OTHER);
-            // parent_checkpoint_id
-            ps.setNull(++field, java.sql.Types.OTHER);
-            // thread_id
-            ps.setObject(++field,
-                    requireNonNull(threadUUID, "threadUUID cannot be null"),
-                    Types.OTHER);
-            // node_id
-            ps.setString(++field, checkpoint.getNodeId());
-            // next_node_id
-            ps.setString(++field, checkpoint.getNextNodeId());
+    @Override
+    protected void bindCheckpoint( PreparedStatement ps, String threadId, Checkpoint checkpoint, Timestamp savedAt ) throws Exception {
+        var field = 0;
+        // checkpoint_id
+        ps.setObject(++field,
+                UUID.fromString(checkpoint.getId()),
+                Types.OTHER);
+        // parent_checkpoint_id
+        ps.setNull(++field, java.sql.Types.OTHER);
+        // thread_id
+        ps.setObject(++field,
+                UUID.fromString(threadId),
+                Types.OTHER);
+        // node_id
+        ps.setString(++field, checkpoint.getNodeId());
+        // next_node_id
+        ps.setString(++field, checkpoint.getNextNodeId());
+        if( stateStorage == StateStorage.BYTEA ) {
+            // state_bytes
+            var buffer = encodeBinaryState(checkpoint.getState());
+            ps.setBinaryStream(++field, buffer.toInputStream(), buffer.size());
+            // state_content_type
+            ps.setString(++field, contentType());
+        }
+        else {
             // state_data
             ps.setString(++field, encodeState(checkpoint.getState()));
             // state_content_type
-            ps.setString(++field, stateSerializer.contentType());
-
-            // DB schema has DEFAULT CURRENT_TIMESTAMP for saved_at.
-            // If checkpoint provides a specific time, use it. Otherwise, use current time from Java.
-            // To use DB default, one would typically omit the column or pass NULL if the column definition allows it to trigger default.
-            // OffsetDateTime savedAt = checkpoint.getSavedAt().orElse(OffsetDateTime.now());
-            // psCheckpoint.setObject(8, savedAt);
-            log.trace( "Executing insert checkpoint:\n---\n{}---", insertCheckpointSql);
-            ps.executeUpdate();
-        }
-
-    }
-
-    @Override
-    protected void insertedCheckpoint( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
-        var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
-
-        Connection conn = null;
-        try( Connection ignored = conn = getConnection() )  {
-            conn.setAutoCommit(false); // Start transaction
-
-            insertCheckpoint( conn, config, checkpoints, checkpoint );
-
-            conn.commit();
-            log.debug("Checkpoint {} for thread {} inserted successfully.", checkpoint.getId(), threadId);
-
-        } catch (SQLException | IOException e) { // IOException from convertStateToJson
-            log.error("Error inserting checkpoint with id {} in thread {}", checkpoint.getId(), threadId, e);
-            rollback( conn, checkpoint, threadId );
-            throw e;
+            ps.setString(++field, contentType());
         }
-
+        // saved_at, set by the saver so the checkpoints inserted by the same transaction keep their order
+        ps.setTimestamp(++field, savedAt);
     }
 
     @Override
@@ -304,47 +797,58 @@ public class PostgresSaver extends MemorySaver {
                 WHERE checkpoint_id = ?;
                 """;
 
-        Connection conn = null;
-
-        try( Connection ignored = conn = getConnection()  )  {
+        try( Connection conn = getConnection() )  {
+            final boolean autoCommit = conn.getAutoCommit();
             conn.setAutoCommit(false); // Start transaction
+            try {
+                if( config.checkPointId().isPresent() ) {
+
+                    try (PreparedStatement ps = conn.prepareStatement(deletePreviousCheckpointSql)) {
+                        var field = 0;
+                        ps.setObject(++field,
+                                UUID.fromString(config.checkPointId().get()),
+                                Types.OTHER); // nullable
+                        log.trace( "Executing deleting previous checkpoint with id {} in thread {}:\n---\n{}---",
+                                        config.checkPointId().get(),
+                                        threadId,
+                                        deletePreviousCheckpointSql);
+                        timed( StatementType.UPDATE_CHECKPOINT, ps::executeUpdate );
+                    }
+                }
 
-            if( config.checkPointId().isPresent() ) {
-
-                try (PreparedStatement ps = conn.prepareStatement(deletePreviousCheckpointSql)) {
-                    var field = 0;
-                    ps.setObject(++field,
-                            UUID.fromString(config.checkPointId().get()),
-                            Types.OTHER); // nullable
-                    log.trace( "Executing deleting previous checkpoint with id {} in thread {}:\n---\n{}---",
-                                    config.checkPointId().get(),
-                                    threadId,
-                                    deletePreviousCheckpointSql);
-                    ps.executeUpdate();
+                final var threadUUID = threadIdOf( conn, threadId );
+                try (PreparedStatement ps = conn.prepareStatement(insertCheckpointSql())) {
+                    bindCheckpoint( ps, threadUUID, checkpoint, nextSavedAt() );
+                    log.trace( "Executing insert checkpoint:\n---\n{}---", insertCheckpointSql());
+                    timed( StatementType.INSERT_CHECKPOINTS, ps::executeUpdate );
                 }
-            }
 
-            insertCheckpoint( conn, config, checkpoints, checkpoint);
+                conn.commit();
 
-            conn.commit();
+                log.debug("Checkpoint with id {} for thread {} inserted successfully.",
+                            checkpoint.getId(),
+                            threadId);
 
-            log.debug("Checkpoint with id {} for thread {} inserted successfully.",
+            } catch (Exception e) {
+                log.error("Error inserting checkpoint with id {} in thread {}",
                         checkpoint.getId(),
-                        threadId);
-
-        } catch (SQLException | IOException e) { // IOException from convertStateToJson
-            log.error("Error inserting checkpoint with id {} in thread {}",
-                    checkpoint.getId(),
-                    threadId,
-                    e);
-            rollback( conn, checkpoint, threadId );
-            throw e;
+                        threadId,
+                        e);
+                // the thread could have been upserted by the rolled back transaction
+                forgetThread( threadId );
+                rollback( conn, checkpoint, threadId );
+                throw e;
+            }
+            finally {
+                conn.setAutoCommit( autoCommit );
+            }
         }
     }
 
     @Override
     protected void releasedCheckpoints( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Tag releaseTag) throws Exception {
         var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
+        forgetThread( threadId );
 
         var selectThreadSql = """
                SELECT thread_id FROM LG4JThread
@@ -384,25 +888,13 @@ public class PostgresSaver extends MemorySaver {
                 ps.setObject(++field,
                         Objects.requireNonNull(threadUUID,"threadUUID cannot be null"),
                         Types.OTHER); // nullable
-                ps.executeUpdate();
+                timed( StatementType.RELEASE_THREAD, ps::executeUpdate );
 
             }
         }
 
     }
 
-    /**
-     * Datasource connection
-     * Creates the vector extension and add the vector type if it does not exist.
-     * Could be overridden in case extension creation and adding type is done at datasource initialization step.
-     *
-     * @return Datasource connection
-     * @throws SQLException exception
-     */
-    protected Connection getConnection() throws SQLException {
-        return datasource.getConnection();
-    }
-
     public static class Builder {
         public StateSerializer<? extends AgentState> stateSerializer;
         private String host;
@@ -413,6 +905,12 @@ public class PostgresSaver extends MemorySaver {
         private boolean createTables;
         private boolean dropTablesFirst;
         private DataSource datasource;
+        private CheckpointCachePolicy cachePolicy = CheckpointCachePolicy.unbounded();
+        private StateStorage stateStorage = StateStorage.JSONB;
+        private CompressionCodec compression = CompressionCodec.none();
+        private boolean migrateSchema;
+        private int historyPageSize = 50;
+        private Partitioning partitioning = Partitioning.NONE;
 
         public <State extends AgentState> Builder stateSerializer(StateSerializer<State> stateSerializer) {
             this.stateSerializer = stateSerializer;
@@ -459,6 +957,97 @@ public class PostgresSaver extends MemorySaver {
             return this;
         }
 
+        /**
+         * Sets the policy that bounds the threads kept in memory (default {@link CheckpointCachePolicy#unbounded()}).
+         * An evicted thread is loaded again from the database on next access.
+         *
+         * @param cachePolicy the cache policy
+         * @return this builder
+         */
+        public Builder cachePolicy(CheckpointCachePolicy cachePolicy) {
+            this.cachePolicy = cachePolicy;
+            return this;
+        }
+
+        /**
+         * Sets how the serialized state is stored (default {@link StateStorage#JSONB}).
+         * The checkpoints are read from either column, so the storage can be switched on an existing table.
+         *
+         * @param stateStorage the state storage
+         * @return this builder
+         */
+        public Builder stateStorage(StateStorage stateStorage) {
+            this.stateStorage = requireNonNull(stateStorage, "stateStorage cannot be null");
+            return this;
+        }
+
+        /**
+         * Sets whether the serialized state is compressed with GZIP (default {@code false}).
+         * It is a shortcut for {@link #compression(CompressionCodec)}.
+         *
+         * @param compressState true to compress the state
+         * @return this builder
+         */
+        public Builder compressState(boolean compressState) {
+            this.compression = compressState ? CompressionCodec.gzip() : CompressionCodec.none();
+            return this;
+        }
+
+        /**
+         * Sets the codec compressing the serialized state (default {@link CompressionCodec#none()}).
+         * The codec is recorded in the content type of each checkpoint, so the checkpoints stored with another codec,
+         * or uncompressed, can still be read.
+         * With {@link StateStorage#JSONB} the compressed state is stored as Base64.
+         *
+         * @param compression the compression codec
+         * @return this builder
+         */
+        public Builder compression(CompressionCodec compression) {
+            this.compression = requireNonNull(compression, "compression cannot be null");
+            return this;
+        }
+
+        /**
+         * Sets whether a table created by a previous version is upgraded to support {@link StateStorage#BYTEA}
+         * (default {@code false}).
+         *
+         * @param migrateSchema true to upgrade the table
+         * @return this builder
+         */
+        public Builder migrateSchema(boolean migrateSchema) {
+            this.migrateSchema = migrateSchema;
+            return this;
+        }
+
+        /**
+         * Sets the number of checkpoints whose states are loaded together when the history of a thread is accessed
+         * (default {@code 50}). It is also the number of rows fetched at a time by the history cursor.
+         *
+         * @param historyPageSize the page size
+         * @return this builder
+         */
+        public Builder historyPageSize(int historyPageSize) {
+            if( historyPageSize < 1 ) {
+                throw new IllegalArgumentException( format("historyPageSize must be positive but was %d!", historyPageSize) );
+            }
+            this.historyPageSize = historyPageSize;
+            return this;
+        }
+
+        /**
+         * Sets how the {@code LG4JCheckpoint} table is partitioned by {@code saved_at} (default {@link Partitioning#NONE}).
+         * It applies when the table is created, an existing table must be created again through {@link #dropTablesFirst(boolean)}.
+         * With a partitioned table {@link CheckpointRetentionPolicy#maxAge()} drops the old partitions that hold only
+         * checkpoints of expired threads.
+         *
+         * @param partitioning the partitioning
+         * @return this builder
+         */
+        public Builder partitioning(Partitioning partitioning) {
+            this.partitioning = requireNonNull(partitioning, "partitioning cannot be null");
+            return this;
+        }
+
         private String requireNotBlank( String value, String name ) {
             if( requireNonNull(value, format("'%s' cannot be null", name) ).isBlank() ) {
                 throw new IllegalArgumentException(format("'%s' cannot be blank", name));
@@ -6,6 +6,7 @@ import org.bsc.langgraph4j.CompileConfig;
 import org.bsc.langgraph4j.RunnableConfig;
 import org.bsc.langgraph4j.StateGraph;
 import org.bsc.langgraph4j.action.NodeAction;
+import org.bsc.langgraph4j.serializer.compression.CompressionCodec;
 import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 import org.junit.jupiter.api.AfterAll;
@@ -17,6 +18,8 @@ import org.testcontainers.containers.PostgreSQLContainer;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.LogManager;
 import org.testcontainers.containers.wait.strategy.LogMessageWaitStrategy;
@@ -247,4 +250,127 @@ public class PostgresSaverTest {
 
     }
 
+    private static Checkpoint checkpoint( String value ) {
+        return Checkpoint.builder()
+                .nodeId("agent_1")
+                .nextNodeId(END)
+                .state( Map.of("value", value) )
+                .build();
+    }
+
+    private static List<Object> valuesOf( Collection<Checkpoint> checkpoints ) {
+        return checkpoints.stream().map( c -> c.getState().get("value") ).toList();
+    }
+
+    @Test
+    public void testBinaryStateStorage() throws Exception {
+        var saver = buildPostgresSaver()
+                .dropTablesFirst(true)
+                .stateStorage(PostgresSaver.StateStorage.BYTEA)
+                .compressState(true)
+                .build();
+
+        var runnableConfig = RunnableConfig.builder().threadId("binary").build();
+        saver.put( runnableConfig, checkpoint("v0") );
+        saver.put( runnableConfig, checkpoint("v1".repeat(1000)) );
+
+        // reload from database
+        var reloaded = buildPostgresSaver()
+                .stateStorage(PostgresSaver.StateStorage.BYTEA)
+                .build();
+        assertEquals( List.of("v1".repeat(1000), "v0"), valuesOf( reloaded.list(runnableConfig) ) );
+
+        try( var conn = postgres.createConnection("");
+             var rs = conn.createStatement().executeQuery(
+                     "SELECT COUNT(*) FROM LG4JCheckpoint WHERE state_data IS NULL AND state_content_type LIKE '%" + PostgresSaver.GZIP_SUFFIX + "'") ) {
+            assertTrue( rs.next() );
+            assertEquals( 2, rs.getInt(1) );
+        }
+
+        reloaded.release( runnableConfig );
+    }
+
+    @Test
+    public void testMixedCompressionCodecs() throws Exception {
+        var runnableConfig = RunnableConfig.builder().threadId("codecs").build();
+        var saver = buildPostgresSaver()
+                .dropTablesFirst(true)
+                .stateStorage(PostgresSaver.StateStorage.BYTEA)
+                .build();
+        saver.put( runnableConfig, checkpoint("v0") );
+
+        // each checkpoint records the codec it has been compressed with
+        for( var codec : List.of( CompressionCodec.lz4(), CompressionCodec.deflate() ) ) {
+            var compressed = buildPostgresSaver()
+                    .stateStorage(PostgresSaver.StateStorage.BYTEA)
+                    .compression(codec)
+                    .build();
+            var size = compressed.list(runnableConfig).size();
+            compressed.put( runnableConfig, checkpoint( ("v" + size).repeat(1000) ) );
+        }
+        // a compressed state can be stored also as JSONB
+        var jsonb = buildPostgresSaver()
+                .compression(CompressionCodec.lz4())
+                .build();
+        jsonb.put( runnableConfig, checkpoint("v3") );
+
+        var reloaded = buildPostgresSaver().build();
+        assertEquals( List.of("v3", "v2".repeat(1000), "v1".repeat(1000), "v0"), valuesOf( reloaded.list(runnableConfig) ) );
+        reloaded.release( runnableConfig );
+    }
+
+    @Test
+    public void testMigrationFromJsonbSchema() throws Exception {
+        // table created by a previous version
+        try( var conn = postgres.createConnection(""); var statement = conn.createStatement() ) {
+            statement.executeUpdate("""
+                DROP TABLE IF EXISTS LG4JCheckpoint CASCADE;
+                DROP TABLE IF EXISTS LG4JThread CASCADE;
+                CREATE TABLE LG4JThread (
+                    thread_id UUID PRIMARY KEY,
+                    thread_name VARCHAR(255),
+                    is_released BOOLEAN DEFAULT FALSE NOT NULL
+                );
+                CREATE TABLE LG4JCheckpoint (
+                    checkpoint_id UUID PRIMARY KEY,
+                    parent_checkpoint_id UUID,
+                    thread_id UUID NOT NULL REFERENCES LG4JThread(thread_id) ON DELETE CASCADE,
+                    node_id VARCHAR(255),
+                    next_node_id VARCHAR(255),
+                    state_data JSONB NOT NULL,
+                    state_content_type VARCHAR(100) NOT NULL,
+                    saved_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+                );
+                CREATE UNIQUE INDEX idx_unique_lg4jthread_thread_name_unreleased ON LG4JThread(thread_name) WHERE is_released = FALSE;
+                """);
+        }
+        var runnableConfig = RunnableConfig.builder().threadId("legacy").build();
+
+        var legacySaver = buildPostgresSaver().build();
+        legacySaver.put( runnableConfig, checkpoint("v0") );
+        legacySaver.put( runnableConfig, checkpoint("v1") );
+
+        assertThrows( IllegalStateException.class, () -> buildPostgresSaver()
+                .stateStorage(PostgresSaver.StateStorage.BYTEA)
+                .build() );
+
+        var saver = buildPostgresSaver()
+                .migrateSchema(true)
+                .stateStorage(PostgresSaver.StateStorage.BYTEA)
+                .build();
+        // the legacy rows are readable before the conversion
+        assertEquals( List.of("v1", "v0"), valuesOf( saver.list(runnableConfig) ) );
+        saver.put( runnableConfig, checkpoint("v2") );
+
+        assertEquals( 2, saver.convertLegacyState(1) );
+        assertEquals( 0, saver.convertLegacyState(1) );
+
+        var reloaded = buildPostgresSaver()
+                .stateStorage(PostgresSaver.StateStorage.BYTEA)
+                .build();
+        assertEquals( List.of("v2", "v1", "v0"), valuesOf( reloaded.list(runnableConfig) ) );
+
+        reloaded.release( runnableConfig );
+    }
+
 }
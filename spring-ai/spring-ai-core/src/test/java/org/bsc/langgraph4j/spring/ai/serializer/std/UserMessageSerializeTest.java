@@ -1,6 +1,7 @@
 package org.bsc.langgraph4j.spring.ai.serializer.std;
 
 import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.serializer.buffer.ByteBufferPool;
 import org.bsc.langgraph4j.spring.ai.serializer.jackson.SpringAIJacksonStateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 import org.junit.jupiter.api.Test;
@@ -170,4 +171,32 @@ public class UserMessageSerializeTest {
         }
     }
 
+    @Test
+    public void UserMessageImageBufferSerializerTest() throws Exception {
+
+        final var media = loadImageContentResource("/ReAct_image.png", "image/png");
+
+        var userMessage = UserMessage.builder()
+                .text("query text")
+                .media(media)
+                .build();
+
+        var serializer = new SpringAIStateSerializer<>(State::new);
+
+        try (var out = ByteBufferPool.shared().output()) {
+
+            serializer.dataToBuffer(Map.of("messages", List.of(userMessage)), out);
+
+            var newState = serializer.stateOf(serializer.dataFromBuffer(out.buffer()));
+
+            assertEquals(1, newState.messages().size());
+            var newUserMessage = assertInstanceOf(UserMessage.class, newState.messages().get(0));
+            assertEquals("query text", newUserMessage.getText());
+
+            var newMedia = newUserMessage.getMedia().get(0);
+            assertEquals(media.getMimeType(), newMedia.getMimeType());
+            assertArrayEquals((byte[]) media.getData(), (byte[]) newMedia.getData());
+        }
+    }
+
 }